@@ -14,10 +14,17 @@ import static org.opentripplanner.ext.fares.impl.FareModelForTest.OTHER_FEED_ROU
 import static org.opentripplanner.ext.fares.impl.FareModelForTest.OTHER_FEED_SET;
 import static org.opentripplanner.ext.fares.impl.FareModelForTest.OTHER_FEED_STOP;
 import static org.opentripplanner.ext.fares.impl.FareModelForTest.SUBURB_STOP;
+import static org.opentripplanner.model.plan.TestItineraryBuilder.BUS_ROUTE;
+import static org.opentripplanner.model.plan.TestItineraryBuilder.RAIL_ROUTE;
 import static org.opentripplanner.model.plan.TestItineraryBuilder.newItinerary;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.opentripplanner.ext.fares.model.FareAttribute;
+import org.opentripplanner.ext.fares.model.FareRuleSet;
 import org.opentripplanner.model.fare.FareProduct;
 import org.opentripplanner.model.fare.FareProductUse;
 import org.opentripplanner.model.fare.ItineraryFares;
@@ -26,6 +33,8 @@ import org.opentripplanner.model.plan.PlanTestConstants;
 import org.opentripplanner.routing.core.FareType;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.basic.Money;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.model.site.FareZone;
 
 class DefaultFareServiceTest implements PlanTestConstants {
 
@@ -37,6 +46,19 @@ class DefaultFareServiceTest implements PlanTestConstants {
     .of(AIRPORT_TO_CITY_CENTER_SET.getFareAttribute().getId(), "regular", TEN_DOLLARS)
     .build();
 
+  private static final List<String> ZONES = List.of("zone-1", "zone-2", "zone-3", "zone-4");
+  private static final List<Place> ZONE_STOPS = ZONES
+    .stream()
+    .map(zone ->
+      Place.forStop(
+        TEST_MODEL
+          .stop("stop-in-" + zone)
+          .addFareZones(FareZone.of(id(zone)).build())
+          .build()
+      )
+    )
+    .toList();
+
   @Test
   void noRules() {
     var service = new DefaultFareService();
@@ -260,4 +282,93 @@ class DefaultFareServiceTest implements PlanTestConstants {
       .toList();
     assertEquals(List.of(OTHER_FEED_ATTRIBUTE.getId()), resultProductIds);
   }
+
+  /**
+   * The fare rules are looked up in an index, this checks that the result is the same as when all
+   * the rules are checked for every sequence of rides.
+   */
+  @Test
+  void indexedRulesGiveSameFaresAsCheckingAllRules() {
+    var rules = multiZoneRules();
+
+    var indexed = new DefaultFareService();
+    indexed.addFareRules(FareType.regular, rules);
+
+    var linear = new DefaultFareService() {
+      @Override
+      protected Collection<FareRuleSet> fareRuleCandidates(
+        Collection<FareRuleSet> fareRules,
+        String startZone,
+        FeedScopedId firstRoute
+      ) {
+        return fareRules;
+      }
+    };
+    linear.addFareRules(FareType.regular, rules);
+
+    var places = new ArrayList<>(ZONE_STOPS);
+    places.add(Place.forStop(SUBURB_STOP));
+
+    int itinerariesWithFares = 0;
+    for (var from : places) {
+      for (var via : places) {
+        for (var to : places) {
+          var itin = newItinerary(from, T11_00)
+            .bus(1, T11_00, T11_05, via)
+            .rail(2, T11_10, T11_20, to)
+            .build();
+
+          var expected = linear.calculateFares(itin);
+          assertEquals(expected, indexed.calculateFares(itin));
+          if (!expected.getLegProducts().isEmpty()) {
+            itinerariesWithFares++;
+          }
+        }
+      }
+    }
+    assertEquals(places.size() * places.size() * places.size(), itinerariesWithFares);
+  }
+
+  /**
+   * Rules for all pairs of zones, rules without an origin, rules restricted to a route and rules
+   * for rides through a zone. The prices repeat, so some rules have the same price.
+   */
+  private static List<FareRuleSet> multiZoneRules() {
+    var rules = new ArrayList<FareRuleSet>();
+    for (var from : ZONES) {
+      for (var to : ZONES) {
+        var odRule = fareRuleSet(rules.size());
+        odRule.addOriginDestination(from, to);
+        rules.add(odRule);
+
+        var odOnBusRule = fareRuleSet(rules.size());
+        odOnBusRule.addOriginDestination(from, to);
+        odOnBusRule.addRoute(BUS_ROUTE.getId());
+        rules.add(odOnBusRule);
+      }
+      var toRule = fareRuleSet(rules.size());
+      toRule.addOriginDestination(null, from);
+      rules.add(toRule);
+
+      var containsRule = fareRuleSet(rules.size());
+      containsRule.addContains(from);
+      rules.add(containsRule);
+    }
+    var onRailRule = fareRuleSet(rules.size());
+    onRailRule.addRoute(RAIL_ROUTE.getId());
+    rules.add(onRailRule);
+
+    // Matches every itinerary
+    rules.add(fareRuleSet(100));
+    return rules;
+  }
+
+  private static FareRuleSet fareRuleSet(int index) {
+    var attribute = FareAttribute
+      .of(id("rule-" + index))
+      .setPrice(Money.usDollars(1 + (index * 7) % 5))
+      .setTransfers(index % 3)
+      .build();
+    return new FareRuleSet(attribute);
+  }
 }
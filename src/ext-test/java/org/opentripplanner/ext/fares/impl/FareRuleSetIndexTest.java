@@ -0,0 +1,51 @@
+package org.opentripplanner.ext.fares.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.TEN_DOLLARS;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ext.fares.model.FareRuleSet;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+class FareRuleSetIndexTest {
+
+  private static final FeedScopedId ROUTE_1 = id("route-1");
+  private static final FeedScopedId ROUTE_2 = id("route-2");
+
+  private final FareRuleSet anywhere = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet fromA = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet toA = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet fromBOnRoute1 = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet onRoute2 = new FareRuleSet(TEN_DOLLARS);
+
+  private final FareRuleSetIndex subject;
+
+  FareRuleSetIndexTest() {
+    fromA.addOriginDestination("A", "B");
+    fromA.addOriginDestination("A", null);
+    toA.addOriginDestination(null, "A");
+    fromBOnRoute1.addOriginDestination("B", "A");
+    fromBOnRoute1.addRoute(ROUTE_1);
+    onRoute2.addRoute(ROUTE_2);
+    subject = new FareRuleSetIndex(List.of(anywhere, fromA, toA, fromBOnRoute1, onRoute2));
+  }
+
+  @Test
+  void candidatesInOriginalOrder() {
+    assertEquals(List.of(anywhere, fromA, toA), subject.candidates("A", ROUTE_1));
+    assertEquals(List.of(anywhere, fromBOnRoute1), subject.candidates("B", ROUTE_1));
+    assertEquals(List.of(anywhere, onRoute2), subject.candidates("B", ROUTE_2));
+  }
+
+  @Test
+  void rideWithoutStartZone() {
+    assertEquals(List.of(anywhere, toA), subject.candidates(null, ROUTE_1));
+  }
+
+  @Test
+  void unknownZoneAndRoute() {
+    assertEquals(List.of(anywhere), subject.candidates("C", id("route-3")));
+  }
+}
@@ -0,0 +1,98 @@
+package org.opentripplanner.ext.flex.flexpathcalculator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+
+class StreetFlexPathCacheTest {
+
+  private static final Duration MAX_FLEX_TRIP_DURATION = Duration.ofMinutes(45);
+  private static final TransitModelForTest TEST_MODEL = TransitModelForTest.of();
+
+  private final IntersectionVertex a = intersectionVertex("A", 60.0, 10.0);
+  private final IntersectionVertex b = intersectionVertex("B", 60.001, 10.0);
+  private final IntersectionVertex c = intersectionVertex("C", 60.002, 10.0);
+  private final IntersectionVertex d = intersectionVertex("D", 60.003, 10.0);
+
+  private final StreetFlexPathCache subject = new StreetFlexPathCache(stop -> true, 1000);
+
+  StreetFlexPathCacheTest() {
+    streetEdge(a, b, 100.0, StreetTraversalPermission.ALL);
+    streetEdge(b, c, 150.0, StreetTraversalPermission.ALL);
+    var areaStop = TEST_MODEL.areaStop("flex-zone").build();
+    a.addAreaStops(List.of(areaStop));
+    c.addAreaStops(List.of(areaStop));
+    d.addAreaStops(List.of(areaStop));
+  }
+
+  @Test
+  void cachedPathIsSameAsSearchedPath() {
+    var expected = new StreetFlexPathCalculator(false, MAX_FLEX_TRIP_DURATION)
+      .calculateFlexPath(a, c, 0, 1);
+    var cached = new StreetFlexPathCalculator(false, MAX_FLEX_TRIP_DURATION, subject)
+      .calculateFlexPath(a, c, 0, 1);
+
+    assertTrue(subject.isCached(a, c));
+    assertNotNull(cached);
+    assertEquals(250, cached.distanceMeters);
+    assertEquals(expected.distanceMeters, cached.distanceMeters);
+    assertEquals(expected.durationSeconds, cached.durationSeconds);
+    assertEquals(expected.getGeometry(), cached.getGeometry());
+  }
+
+  @Test
+  void reverseDirection() {
+    var expected = new StreetFlexPathCalculator(true, MAX_FLEX_TRIP_DURATION)
+      .calculateFlexPath(a, c, 0, 1);
+    var cached = new StreetFlexPathCalculator(true, MAX_FLEX_TRIP_DURATION, subject)
+      .calculateFlexPath(a, c, 0, 1);
+
+    // The one-to-many search is done from the destination in the reverse direction
+    assertTrue(subject.isCached(c, a));
+    assertNotNull(cached);
+    assertEquals(250, cached.distanceMeters);
+    assertEquals(expected.distanceMeters, cached.distanceMeters);
+    assertEquals(expected.durationSeconds, cached.durationSeconds);
+  }
+
+  @Test
+  void tableIsShared() {
+    var table = subject.get(a, false, MAX_FLEX_TRIP_DURATION);
+
+    assertSame(table, subject.get(a, false, MAX_FLEX_TRIP_DURATION));
+    // A and C are in the flex zone, B is not and D is not reachable
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  void vertexOutsideFlexZonesIsNotCached() {
+    assertFalse(subject.isCached(a, b));
+
+    var path = new StreetFlexPathCalculator(false, MAX_FLEX_TRIP_DURATION, subject)
+      .calculateFlexPath(a, b, 0, 1);
+
+    assertNotNull(path);
+    assertEquals(100, path.distanceMeters);
+  }
+
+  @Test
+  void unreachableDestination() {
+    assertTrue(subject.isCached(a, d));
+    assertNull(
+      new StreetFlexPathCalculator(false, MAX_FLEX_TRIP_DURATION, subject)
+        .calculateFlexPath(a, d, 0, 1)
+    );
+  }
+}
@@ -1,5 +1,7 @@
 package org.opentripplanner.ext.fares.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import java.time.Duration;
@@ -14,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.opentripplanner.ext.fares.model.FareAttribute;
@@ -78,12 +81,25 @@ public class DefaultFareService implements FareService {
   /** For each fare type (regular, student, etc...) the collection of rules that apply. */
   protected Map<FareType, Collection<FareRuleSet>> fareRulesPerType;
 
+  /**
+   * The fare rules grouped by fare type and feed, created from {@link #fareRulesPerType} the first
+   * time it is needed. It is not serialized with the graph.
+   */
+  private transient volatile Map<FareType, Map<String, List<FareRuleSet>>> fareRulesByTypeAndFeed;
+
+  /**
+   * The index of each collection of fare rules passed to {@link #getBestFareAndId}. The keys are
+   * compared by identity, and the collections are the same for all requests.
+   */
+  private transient volatile Cache<Collection<FareRuleSet>, FareRuleSetIndex> fareRuleIndexes;
+
   public DefaultFareService() {
     fareRulesPerType = new HashMap<>();
   }
 
   public void addFareRules(FareType fareType, Collection<FareRuleSet> fareRules) {
     fareRulesPerType.put(fareType, new ArrayList<>(fareRules));
+    fareRulesByTypeAndFeed = null;
   }
 
   public Map<FareType, Collection<FareRuleSet>> getFareRulesPerType() {
@@ -143,20 +159,27 @@ public class DefaultFareService implements FareService {
    */
   @Nullable
   protected Collection<FareRuleSet> fareRulesForFeed(FareType fareType, String feedId) {
-    var fareRulesByTypeAndFeed = fareRulesPerType
-      .entrySet()
-      .stream()
-      .collect(
-        Collectors.toMap(
-          Map.Entry::getKey,
-          rules ->
-            rules
-              .getValue()
-              .stream()
-              .collect(Collectors.groupingBy(rule -> rule.getFareAttribute().getId().getFeedId()))
-        )
-      );
-    return fareRulesByTypeAndFeed.get(fareType).get(feedId);
+    var rulesByTypeAndFeed = fareRulesByTypeAndFeed;
+    if (rulesByTypeAndFeed == null) {
+      rulesByTypeAndFeed =
+        fareRulesPerType
+          .entrySet()
+          .stream()
+          .collect(
+            Collectors.toMap(
+              Map.Entry::getKey,
+              rules ->
+                rules
+                  .getValue()
+                  .stream()
+                  .collect(
+                    Collectors.groupingBy(rule -> rule.getFareAttribute().getId().getFeedId())
+                  )
+            )
+          );
+      fareRulesByTypeAndFeed = rulesByTypeAndFeed;
+    }
+    return rulesByTypeAndFeed.get(fareType).get(feedId);
   }
 
   /**
@@ -286,7 +309,8 @@ public class DefaultFareService implements FareService {
     Duration journeyTime = Duration.between(startTime, lastRideEndTime);
 
     // find the best fare that matches this set of rides
-    for (FareRuleSet ruleSet : fareRules) {
+    var candidates = fareRuleCandidates(fareRules, startZone, firstRide.getRoute().getId());
+    for (FareRuleSet ruleSet : candidates) {
       FareAttribute attribute = ruleSet.getFareAttribute();
       // fares also don't really have an agency id, they will have the per-feed default id
       // check only if the fare is not mapped to an agency
@@ -318,6 +342,42 @@ public class DefaultFareService implements FareService {
       .map(attribute -> new FareAndId(finalBestFare, attribute.getId()));
   }
 
+  /**
+   * The fare rules which can match a sequence of rides starting in the given zone on the given
+   * route, in the order of the given rules. The rules are looked up in an index, so only a few of
+   * them are checked with {@link FareRuleSet#matches}.
+   */
+  protected Collection<FareRuleSet> fareRuleCandidates(
+    Collection<FareRuleSet> fareRules,
+    @Nullable String startZone,
+    FeedScopedId firstRoute
+  ) {
+    return fareRuleIndex(fareRules).candidates(startZone, firstRoute);
+  }
+
+  /**
+   * Get the index of the given fare rules, the index is created the first time a collection is
+   * used.
+   */
+  private FareRuleSetIndex fareRuleIndex(Collection<FareRuleSet> fareRules) {
+    var indexes = fareRuleIndexes;
+    if (indexes == null) {
+      synchronized (this) {
+        indexes = fareRuleIndexes;
+        if (indexes == null) {
+          // Weak keys are compared by identity, and the index is dropped with the collection
+          indexes = CacheBuilder.newBuilder().weakKeys().build();
+          fareRuleIndexes = indexes;
+        }
+      }
+    }
+    try {
+      return indexes.get(fareRules, () -> new FareRuleSetIndex(fareRules));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   /**
    * Returns true if two interlined legs (those with a stay-seated transfer between them) should be
    * treated as a single leg for the purposes of fare calculation.
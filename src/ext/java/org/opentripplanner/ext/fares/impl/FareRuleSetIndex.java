@@ -0,0 +1,84 @@
+package org.opentripplanner.ext.fares.impl;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.opentripplanner.ext.fares.model.FareRuleSet;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+/**
+ * An index of fare rule sets by the start zone and the route of the first ride of a sequence of
+ * rides. A rule set with origin/destination restrictions can only match rides starting in one of
+ * its zones, and a rule set with route restrictions can only match rides on its routes, so most
+ * rule sets do not need to be checked for a given sequence of rides.
+ * <p>
+ * The index only excludes rule sets which can not match, the candidates must still be checked
+ * with {@link FareRuleSet#matches}. The candidates are returned in the order of the indexed
+ * collection, so the cheapest matching rule set is the same as when checking all of them.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+final class FareRuleSetIndex {
+
+  /** Used in the keys for rule sets without zone or route restrictions. */
+  private static final Object ANY = new Object();
+
+  private final FareRuleSet[] ruleSets;
+
+  /** The positions of the rule sets for each key, in increasing order. */
+  private final Map<Key, int[]> positionsByKey;
+
+  FareRuleSetIndex(Collection<FareRuleSet> fareRules) {
+    this.ruleSets = fareRules.toArray(FareRuleSet[]::new);
+
+    var positions = new HashMap<Key, TIntArrayList>();
+    for (int i = 0; i < ruleSets.length; i++) {
+      var ruleSet = ruleSets[i];
+      Collection<?> zones = ruleSet.hasOriginDestinations()
+        ? ruleSet.getPossibleStartZones()
+        : List.of(ANY);
+      Collection<?> routes = ruleSet.getRoutes().isEmpty() ? List.of(ANY) : ruleSet.getRoutes();
+      for (Object zone : zones) {
+        for (Object route : routes) {
+          positions.computeIfAbsent(new Key(zone, route), k -> new TIntArrayList()).add(i);
+        }
+      }
+    }
+    this.positionsByKey = new HashMap<>();
+    positions.forEach((key, list) -> positionsByKey.put(key, list.toArray()));
+  }
+
+  /**
+   * @return the rule sets which can match a sequence of rides starting in the given zone, with the
+   * given route as the route of the first ride.
+   */
+  List<FareRuleSet> candidates(@Nullable String startZone, FeedScopedId firstRoute) {
+    var candidates = new TIntArrayList();
+    for (Object zone : new Object[] { startZone, ANY }) {
+      for (Object route : new Object[] { firstRoute, ANY }) {
+        var positions = positionsByKey.get(new Key(zone, route));
+        if (positions != null) {
+          candidates.add(positions);
+        }
+      }
+    }
+    // A rule set is only indexed once for each start zone and route, so there are no duplicates
+    candidates.sort();
+
+    var result = new ArrayList<FareRuleSet>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      result.add(ruleSets[candidates.get(i)]);
+    }
+    return result;
+  }
+
+  /**
+   * The zone is a start zone, {@code null} or {@link #ANY}. The route is a route id or
+   * {@link #ANY}.
+   */
+  private record Key(@Nullable Object zone, Object route) {}
+}
@@ -5,9 +5,12 @@ import static java.util.Objects.nonNull;
 
 import com.google.common.collect.Multimap;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -36,6 +39,12 @@ public final class GtfsFaresV2Service implements Serializable {
   private final Set<String> fromAreasWithRules;
   private final Set<String> toAreasWithRules;
 
+  /**
+   * The rules indexed for the lookups done for each leg, created from the rules the first time
+   * it is needed. It is not serialized with the graph.
+   */
+  private transient volatile RuleIndex ruleIndex;
+
   public GtfsFaresV2Service(
     List<FareLegRule> legRules,
     List<FareTransferRule> fareTransferRules,
@@ -163,13 +172,15 @@ public final class GtfsFaresV2Service implements Serializable {
     ScheduledTransitLeg leg,
     Optional<ScheduledTransitLeg> nextLeg
   ) {
-    var legRules =
-      this.legRules.stream().filter(r -> legMatchesRule(leg, r)).collect(Collectors.toSet());
-
-    var transferRulesForLeg = transferRules
+    var legRules = candidateLegRules(leg)
       .stream()
-      .filter(t -> t.feedId().equals(leg.getAgency().getId().getFeedId()))
-      .toList();
+      .filter(r -> legMatchesRule(leg, r))
+      .collect(Collectors.toSet());
+
+    var transferRulesForLeg = ruleIndex().transferRulesByFeed().getOrDefault(
+      leg.getAgency().getId().getFeedId(),
+      List.of()
+    );
 
     var products = legRules
       .stream()
@@ -210,7 +221,35 @@ public final class GtfsFaresV2Service implements Serializable {
   }
 
   private Optional<FareLegRule> getFareLegRuleByGroupId(FeedScopedId groupId) {
-    return legRules.stream().filter(lr -> groupId.equals(lr.legGroupId())).findAny();
+    return Optional.ofNullable(ruleIndex().legRuleByGroupId().get(groupId));
+  }
+
+  /**
+   * The leg rules in the feed of the leg, which have no from area or one of the areas of the
+   * boarding stop. Only these rules can match the leg, see {@link #matchesArea}.
+   */
+  private List<FareLegRule> candidateLegRules(ScheduledTransitLeg leg) {
+    var rulesByFromArea = ruleIndex()
+      .legRulesByFeedAndFromArea()
+      .get(leg.getAgency().getId().getFeedId());
+    if (rulesByFromArea == null) {
+      return List.of();
+    }
+    var result = new ArrayList<>(rulesByFromArea.getOrDefault(null, List.of()));
+    for (var area : stopAreas.get(leg.getFrom().stop.getId())) {
+      result.addAll(rulesByFromArea.getOrDefault(area, List.of()));
+    }
+    return result;
+  }
+
+  private RuleIndex ruleIndex() {
+    var index = ruleIndex;
+    if (index == null) {
+      // Creating the index twice in concurrent requests is harmless, the result is the same
+      index = RuleIndex.of(legRules, transferRules);
+      ruleIndex = index;
+    }
+    return index;
   }
 
   private boolean matchesArea(StopLocation stop, String areaId, Set<String> areasWithRules) {
@@ -258,6 +297,37 @@ public final class GtfsFaresV2Service implements Serializable {
     } else return true;
   }
 
+  /**
+   * @param legRulesByFeedAndFromArea The leg rules of each feed, indexed by the from area id. The
+   *                                  rules without a from area id have the key {@code null}.
+   * @param transferRulesByFeed       The transfer rules of each feed.
+   * @param legRuleByGroupId          The first leg rule of each leg group.
+   */
+  private record RuleIndex(
+    Map<String, Map<String, List<FareLegRule>>> legRulesByFeedAndFromArea,
+    Map<String, List<FareTransferRule>> transferRulesByFeed,
+    Map<FeedScopedId, FareLegRule> legRuleByGroupId
+  ) {
+    private static RuleIndex of(List<FareLegRule> legRules, List<FareTransferRule> transferRules) {
+      var legRulesByFeedAndFromArea = new HashMap<String, Map<String, List<FareLegRule>>>();
+      var legRuleByGroupId = new HashMap<FeedScopedId, FareLegRule>();
+      for (var rule : legRules) {
+        legRulesByFeedAndFromArea
+          .computeIfAbsent(rule.feedId(), k -> new HashMap<>())
+          .computeIfAbsent(rule.fromAreaId(), k -> new ArrayList<>())
+          .add(rule);
+        if (rule.legGroupId() != null) {
+          legRuleByGroupId.putIfAbsent(rule.legGroupId(), rule);
+        }
+      }
+      return new RuleIndex(
+        legRulesByFeedAndFromArea,
+        transferRules.stream().collect(Collectors.groupingBy(FareTransferRule::feedId)),
+        legRuleByGroupId
+      );
+    }
+  }
+
   /**
    * @param itineraryProducts The fare products that cover the entire itinerary, like a daily pass.
    * @param legProducts       The fare products that cover only individual legs.
@@ -40,6 +40,32 @@ public class FareRuleSet implements Serializable {
     return routeOriginDestinations;
   }
 
+  /**
+   * Determine whether the FareRuleSet has any origin/destination restrictions.
+   */
+  public boolean hasOriginDestinations() {
+    return !originDestinations.isEmpty();
+  }
+
+  /**
+   * The start zones for which the origin/destination restrictions can match, see
+   * {@link #matches}. The set may contain {@code null}, for rules matching rides which start
+   * outside any zone. Only meaningful if {@link #hasOriginDestinations()} is true.
+   */
+  public Set<String> getPossibleStartZones() {
+    var zones = new HashSet<String>();
+    for (var od : originDestinations) {
+      if (od.origin != null) {
+        zones.add(od.origin);
+      } else {
+        // Matches both a ride from the destination zone, and a ride without a start zone
+        zones.add(od.destination);
+        zones.add(null);
+      }
+    }
+    return zones;
+  }
+
   /**
    * Determine whether the FareRuleSet has any rules added.
    * @return True if any rules have been added.
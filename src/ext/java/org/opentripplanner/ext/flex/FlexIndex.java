@@ -6,6 +6,8 @@ import com.google.common.collect.Multimap;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
+import org.opentripplanner.ext.flex.flexpathcalculator.StreetFlexPathCache;
 import org.opentripplanner.ext.flex.trip.FlexTrip;
 import org.opentripplanner.model.PathTransfer;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
@@ -24,6 +26,9 @@ public class FlexIndex {
 
   private final Map<FeedScopedId, FlexTrip<?, ?>> tripById = new HashMap<>();
 
+  @Nullable
+  private StreetFlexPathCache streetPathCache;
+
   public FlexIndex(TransitModel transitModel) {
     for (PathTransfer transfer : transitModel.getAllPathTransfers()) {
       transfersToStop.put(transfer.to, transfer);
@@ -66,4 +71,21 @@ public class FlexIndex {
   public Collection<FlexTrip<?, ?>> getAllFlexTrips() {
     return tripById.values();
   }
+
+  public boolean isFlexStop(StopLocation stopLocation) {
+    return flexTripsByStop.containsKey(stopLocation);
+  }
+
+  /**
+   * The cache of flex street paths shared by all requests, or {@code null} if the paths are not
+   * cached.
+   */
+  @Nullable
+  public StreetFlexPathCache getStreetPathCache() {
+    return streetPathCache;
+  }
+
+  public void setStreetPathCache(@Nullable StreetFlexPathCache streetPathCache) {
+    this.streetPathCache = streetPathCache;
+  }
 }
@@ -79,10 +79,11 @@ public class FlexRouter {
       );
 
     if (graph.hasStreets) {
+      var streetPathCache = flexIndex.getStreetPathCache();
       this.accessFlexPathCalculator =
-        new StreetFlexPathCalculator(false, flexParameters.maxFlexTripDuration());
+        new StreetFlexPathCalculator(false, flexParameters.maxFlexTripDuration(), streetPathCache);
       this.egressFlexPathCalculator =
-        new StreetFlexPathCalculator(true, flexParameters.maxFlexTripDuration());
+        new StreetFlexPathCalculator(true, flexParameters.maxFlexTripDuration(), streetPathCache);
     } else {
       // this is only really useful in tests. in real world scenarios you're unlikely to get useful
       // results if you don't have streets
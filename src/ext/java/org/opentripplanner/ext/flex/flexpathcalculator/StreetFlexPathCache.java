@@ -0,0 +1,154 @@
+package org.opentripplanner.ext.flex.flexpathcalculator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import org.opentripplanner.framework.logging.ProgressTracker;
+import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache the results of the one-to-many flex street searches, shared by all requests. Most flex
+ * requests in a region start their flex rides at the same stops, so the same searches are done
+ * over and over again. Instead of keeping the shortest path trees, only the durations and
+ * distances to the flex stops are kept, see {@link StreetFlexPathTable}.
+ * <p>
+ * The size of the cache is the total number of destinations in all the tables, when it is full
+ * the least recently used tables are evicted. Searches from temporary vertices are request
+ * specific and never cached, and only the flex stops and the vertices in flex zones are
+ * destinations in the tables, see {@link #isCached(Vertex, Vertex)}.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class StreetFlexPathCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetFlexPathCache.class);
+
+  private final Cache<Key, StreetFlexPathTable> tables;
+  private final Predicate<StopLocation> isFlexStop;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  /**
+   * @param isFlexStop Returns true for the stops which are visited by flex trips.
+   * @param maximumSize The maximum number of destinations in all the tables of the cache.
+   */
+  public StreetFlexPathCache(Predicate<StopLocation> isFlexStop, long maximumSize) {
+    this.tables =
+      CacheBuilder
+        .newBuilder()
+        .maximumWeight(maximumSize)
+        .<Key, StreetFlexPathTable>weigher((key, table) -> table.size())
+        .build();
+    this.isFlexStop = isFlexStop;
+    this.hitCounter = counter("hit");
+    this.missCounter = counter("miss");
+  }
+
+  /**
+   * Compute the tables for the given origin vertices in both search directions, this is used to
+   * fill the cache at startup.
+   */
+  public void precompute(Collection<? extends Vertex> origins, Duration maxFlexTripDuration) {
+    var progress = ProgressTracker.track("Precompute flex street paths", 10, 2L * origins.size());
+    LOG.info(progress.startMessage());
+
+    // The cache is thread-safe, so the tables are computed in parallel
+    origins
+      .parallelStream()
+      .filter(origin -> !(origin instanceof TemporaryVertex))
+      .forEach(origin -> {
+        for (boolean reverseDirection : new boolean[] { false, true }) {
+          var key = new Key(origin, reverseDirection, maxFlexTripDuration);
+          tables.put(key, createTable(key));
+          //noinspection Convert2MethodRef
+          progress.step(s -> LOG.info(s));
+        }
+      });
+
+    LOG.info(progress.completeMessage());
+  }
+
+  /**
+   * @return true if the path between the given origin and destination of a one-to-many search
+   * is cached.
+   */
+  boolean isCached(Vertex originVertex, Vertex destinationVertex) {
+    return !(originVertex instanceof TemporaryVertex) && isDestination(destinationVertex);
+  }
+
+  /**
+   * Get the table for the given one-to-many search, the search is done if it is not in the cache.
+   * Only use this if {@link #isCached(Vertex, Vertex)} is true for the vertices looked up in the
+   * table.
+   */
+  StreetFlexPathTable get(
+    Vertex originVertex,
+    boolean reverseDirection,
+    Duration maxFlexTripDuration
+  ) {
+    var key = new Key(originVertex, reverseDirection, maxFlexTripDuration);
+    // The loader runs on the calling thread, and only once for concurrent requests of the same key
+    var missed = new boolean[] { false };
+    try {
+      var table = tables.get(
+        key,
+        () -> {
+          missed[0] = true;
+          return createTable(key);
+        }
+      );
+      (missed[0] ? missCounter : hitCounter).increment();
+      return table;
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to compute the flex street paths", e);
+    }
+  }
+
+  private StreetFlexPathTable createTable(Key key) {
+    var tree = StreetFlexPathCalculator.routeToMany(
+      key.originVertex(),
+      key.reverseDirection(),
+      key.maxFlexTripDuration()
+    );
+    return StreetFlexPathTable.of(tree, this::isDestination);
+  }
+
+  /**
+   * The flex rides start and end at the vertices of the flex stops, or at the vertices inside flex
+   * zones.
+   */
+  private boolean isDestination(Vertex vertex) {
+    if (vertex instanceof TransitStopVertex stopVertex) {
+      return isFlexStop.test(stopVertex.getStop());
+    }
+    return (
+      vertex instanceof StreetVertex streetVertex &&
+      !(vertex instanceof TemporaryVertex) &&
+      !streetVertex.areaStops().isEmpty()
+    );
+  }
+
+  private static Counter counter(String result) {
+    return Counter
+      .builder("flex.streetPathCache")
+      .tag("result", result)
+      .register(Metrics.globalRegistry);
+  }
+
+  private record Key(
+    Vertex originVertex,
+    boolean reverseDirection,
+    Duration maxFlexTripDuration
+  ) {}
+}
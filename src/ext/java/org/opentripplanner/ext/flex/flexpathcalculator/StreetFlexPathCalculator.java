@@ -3,6 +3,8 @@ package org.opentripplanner.ext.flex.flexpathcalculator;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.astar.model.GraphPath;
 import org.opentripplanner.astar.model.ShortestPathTree;
 import org.opentripplanner.astar.strategy.DurationSkipEdgeStrategy;
@@ -29,6 +31,10 @@ import org.opentripplanner.street.search.strategy.DominanceFunctions;
  * configured so that the caching is done with either the origin or destination vertex as the key.
  * The one-to-many search will then either be done in the forward or the reverse direction depending
  * on this configuration.
+ * <p>
+ * If a {@link StreetFlexPathCache} is given, the paths between the vertices of the graph are taken
+ * from the cache, which is shared by all requests. Only the paths from and to temporary vertices
+ * are computed for each request.
  */
 public class StreetFlexPathCalculator implements FlexPathCalculator {
 
@@ -36,9 +42,21 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
   private final boolean reverseDirection;
   private final Duration maxFlexTripDuration;
 
+  @Nullable
+  private final StreetFlexPathCache sharedCache;
+
   public StreetFlexPathCalculator(boolean reverseDirection, Duration maxFlexTripDuration) {
+    this(reverseDirection, maxFlexTripDuration, null);
+  }
+
+  public StreetFlexPathCalculator(
+    boolean reverseDirection,
+    Duration maxFlexTripDuration,
+    @Nullable StreetFlexPathCache sharedCache
+  ) {
     this.reverseDirection = reverseDirection;
     this.maxFlexTripDuration = maxFlexTripDuration;
+    this.sharedCache = sharedCache;
   }
 
   @Override
@@ -53,6 +71,12 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
     Vertex originVertex = reverseDirection ? tov : fromv;
     Vertex destinationVertex = reverseDirection ? fromv : tov;
 
+    if (sharedCache != null && sharedCache.isCached(originVertex, destinationVertex)) {
+      return sharedCache
+        .get(originVertex, reverseDirection, maxFlexTripDuration)
+        .path(destinationVertex, () -> routeGeometry(fromv, tov));
+    }
+
     ShortestPathTree<State, Edge, Vertex> shortestPathTree;
     if (cache.containsKey(originVertex)) {
       shortestPathTree = cache.get(originVertex);
@@ -80,6 +104,14 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
   }
 
   private ShortestPathTree<State, Edge, Vertex> routeToMany(Vertex vertex) {
+    return routeToMany(vertex, reverseDirection, maxFlexTripDuration);
+  }
+
+  static ShortestPathTree<State, Edge, Vertex> routeToMany(
+    Vertex vertex,
+    boolean reverseDirection,
+    Duration maxFlexTripDuration
+  ) {
     RouteRequest routingRequest = new RouteRequest();
     routingRequest.setArriveBy(reverseDirection);
 
@@ -93,4 +125,34 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
       .setTo(reverseDirection ? vertex : null)
       .getShortestPathTree();
   }
+
+  /**
+   * The cached paths have no geometry, so the path is searched again when the geometry is needed.
+   * This is rare, since most flex paths are never shown to the user.
+   * <p>
+   * The search is done in the same direction and with the same request as the cached one-to-many
+   * search, so for egress it is a reverse search as well. It is still a separate point-to-point
+   * search, so when two paths have the same duration it may pick another one than the cached
+   * search did. The geometry may then not match the cached distance exactly, the duration is the
+   * same.
+   */
+  private LineString routeGeometry(Vertex fromv, Vertex tov) {
+    RouteRequest routingRequest = new RouteRequest();
+    routingRequest.setArriveBy(reverseDirection);
+
+    var paths = StreetSearchBuilder
+      .of()
+      .setSkipEdgeStrategy(new DurationSkipEdgeStrategy<>(maxFlexTripDuration))
+      .setDominanceFunction(new DominanceFunctions.EarliestArrival())
+      .setRequest(routingRequest)
+      .setStreetRequest(new StreetRequest(StreetMode.CAR))
+      .setFrom(fromv)
+      .setTo(tov)
+      .getPathsToTarget();
+
+    if (paths.isEmpty()) {
+      return GeometryUtils.makeLineString(fromv.getCoordinate(), tov.getCoordinate());
+    }
+    return GeometryUtils.concatenateLineStrings(paths.get(0).edges, Edge::getGeometry);
+  }
 }
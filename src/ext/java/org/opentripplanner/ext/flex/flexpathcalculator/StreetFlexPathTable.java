@@ -0,0 +1,87 @@
+package org.opentripplanner.ext.flex.flexpathcalculator;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.astar.model.ShortestPathTree;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.state.State;
+
+/**
+ * The durations and distances of a one-to-many flex street search, kept only for the destination
+ * vertices the flex search can ask for. This is much smaller than the shortest path tree it is
+ * created from, which has all the states of the search. The geometry of the paths is not kept.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+final class StreetFlexPathTable {
+
+  private static final int NOT_FOUND = -1;
+
+  private final TObjectIntMap<Vertex> indexByVertex;
+  private final int[] durations;
+  private final int[] distances;
+
+  private StreetFlexPathTable(
+    TObjectIntMap<Vertex> indexByVertex,
+    int[] durations,
+    int[] distances
+  ) {
+    this.indexByVertex = indexByVertex;
+    this.durations = durations;
+    this.distances = distances;
+  }
+
+  /**
+   * Create a table with the paths to the vertices of the tree which are destinations.
+   */
+  static StreetFlexPathTable of(
+    ShortestPathTree<State, Edge, Vertex> tree,
+    Predicate<Vertex> isDestination
+  ) {
+    var destinations = tree.getVertices().stream().filter(isDestination).toList();
+    var indexByVertex = new TObjectIntHashMap<Vertex>(destinations.size(), 0.5f, NOT_FOUND);
+    int[] durations = new int[destinations.size()];
+    int[] distances = new int[destinations.size()];
+
+    int i = 0;
+    for (Vertex v : destinations) {
+      State state = tree.getState(v);
+      if (state == null) {
+        continue;
+      }
+      double distance = 0;
+      for (State s = state; s.getBackState() != null; s = s.getBackState()) {
+        distance += s.getBackEdge().getDistanceMeters();
+      }
+      indexByVertex.put(v, i);
+      durations[i] = (int) state.getElapsedTimeSeconds();
+      distances[i] = (int) distance;
+      i++;
+    }
+    return new StreetFlexPathTable(indexByVertex, durations, distances);
+  }
+
+  /**
+   * @return the path to the destination, or {@code null} if the destination was not reached.
+   */
+  @Nullable
+  FlexPath path(Vertex destination, Supplier<LineString> geometrySupplier) {
+    int i = indexByVertex.get(destination);
+    if (i == NOT_FOUND) {
+      return null;
+    }
+    return new FlexPath(distances[i], durations[i], geometrySupplier);
+  }
+
+  /**
+   * The number of destinations in the table, used as the weight in the cache.
+   */
+  int size() {
+    return indexByVertex.size();
+  }
+}
@@ -55,7 +55,10 @@ public class GtfsGraphQLAPI {
     @HeaderParam("OTPMaxResolves") @DefaultValue("1000000") int maxResolves,
     @Context HttpHeaders headers
   ) {
-    if (queryParameters == null || !queryParameters.containsKey("query")) {
+    if (
+      queryParameters == null ||
+      !(queryParameters.containsKey("query") || queryParameters.containsKey("extensions"))
+    ) {
       LOG.debug("No query found in body");
       return Response
         .status(Response.Status.BAD_REQUEST)
@@ -68,7 +71,7 @@ public class GtfsGraphQLAPI {
       ? headers.getAcceptableLanguages().get(0)
       : serverContext.defaultLocale();
 
-    String query = (String) queryParameters.get("query");
+    String query = (String) queryParameters.getOrDefault("query", "");
     Object queryVariables = queryParameters.getOrDefault("variables", null);
     String operationName = (String) queryParameters.getOrDefault("operationName", null);
     Map<String, Object> variables;
@@ -88,10 +91,15 @@ public class GtfsGraphQLAPI {
     } else {
       variables = new HashMap<>();
     }
+    @SuppressWarnings("unchecked")
+    Map<String, Object> extensions = queryParameters.get("extensions") instanceof Map<?, ?> map
+      ? (Map<String, Object>) map
+      : null;
     return GtfsGraphQLIndex.getGraphQLResponse(
       query,
       variables,
       operationName,
+      extensions,
       maxResolves,
       timeout,
       locale,
@@ -114,6 +122,7 @@ public class GtfsGraphQLAPI {
       query,
       null,
       null,
+      null,
       maxResolves,
       timeout,
       locale,
@@ -83,6 +83,8 @@ import org.opentripplanner.apis.gtfs.datafetchers.stepImpl;
 import org.opentripplanner.apis.gtfs.datafetchers.stopAtDistanceImpl;
 import org.opentripplanner.apis.gtfs.model.StopPosition;
 import org.opentripplanner.apis.support.graphql.LoggingDataFetcherExceptionHandler;
+import org.opentripplanner.apis.support.graphql.PreparsedDocumentCache;
+import org.opentripplanner.apis.support.graphql.TransitRequestMemo;
 import org.opentripplanner.ext.actuator.MicrometerGraphQLInstrumentation;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.framework.graphql.GraphQLResponseSerializer;
@@ -95,6 +97,8 @@ class GtfsGraphQLIndex {
 
   private static final GraphQLSchema indexSchema = buildSchema();
 
+  private static final PreparsedDocumentCache documentCache = new PreparsedDocumentCache("gtfs");
+
   protected static GraphQLSchema buildSchema() {
     try {
       URL url = Objects.requireNonNull(GtfsGraphQLIndex.class.getResource("schema.graphqls"));
@@ -192,6 +196,7 @@ class GtfsGraphQLIndex {
     String query,
     Map<String, Object> variables,
     String operationName,
+    Map<String, Object> extensions,
     int maxResolves,
     int timeoutMs,
     Locale locale,
@@ -211,11 +216,15 @@ class GtfsGraphQLIndex {
       .newGraphQL(indexSchema)
       .instrumentation(instrumentation)
       .defaultDataFetcherExceptionHandler(new LoggingDataFetcherExceptionHandler())
+      .preparsedDocumentProvider(documentCache)
       .build();
 
     if (variables == null) {
       variables = new HashMap<>();
     }
+    if (extensions == null) {
+      extensions = Map.of();
+    }
 
     ExecutionInput executionInput = ExecutionInput
       .newExecutionInput()
@@ -223,7 +232,17 @@ class GtfsGraphQLIndex {
       .operationName(operationName)
       .context(requestContext)
       .variables(variables)
+      .extensions(extensions)
       .locale(locale)
+      .graphQLContext(
+        Map.of(
+          TransitRequestMemo.class,
+          TransitRequestMemo.create(
+            requestContext.transitService(),
+            requestContext.realTimeVehicleService()
+          )
+        )
+      )
       .build();
     try {
       return graphQL.executeAsync(executionInput).get(timeoutMs, TimeUnit.MILLISECONDS);
@@ -236,6 +255,7 @@ class GtfsGraphQLIndex {
     String query,
     Map<String, Object> variables,
     String operationName,
+    Map<String, Object> extensions,
     int maxResolves,
     int timeoutMs,
     Locale locale,
@@ -245,6 +265,7 @@ class GtfsGraphQLIndex {
       query,
       variables,
       operationName,
+      extensions,
       maxResolves,
       timeoutMs,
       locale,
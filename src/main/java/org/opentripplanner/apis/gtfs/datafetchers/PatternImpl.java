@@ -17,12 +17,12 @@ import org.opentripplanner.apis.gtfs.GraphQLRequestContext;
 import org.opentripplanner.apis.gtfs.generated.GraphQLDataFetchers;
 import org.opentripplanner.apis.gtfs.generated.GraphQLTypes;
 import org.opentripplanner.apis.support.SemanticHash;
+import org.opentripplanner.apis.support.graphql.TransitRequestMemo;
 import org.opentripplanner.framework.graphql.GraphQLUtils;
 import org.opentripplanner.framework.time.ServiceDateUtils;
 import org.opentripplanner.routing.alertpatch.EntitySelector;
 import org.opentripplanner.routing.alertpatch.TransitAlert;
 import org.opentripplanner.routing.services.TransitAlertService;
-import org.opentripplanner.service.realtimevehicles.RealtimeVehicleService;
 import org.opentripplanner.service.realtimevehicles.model.RealtimeVehicle;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.network.Route;
@@ -229,7 +229,11 @@ public class PatternImpl implements GraphQLDataFetchers.GraphQLPattern {
   @Override
   public DataFetcher<Iterable<RealtimeVehicle>> vehiclePositions() {
     return environment ->
-      getRealtimeVehiclesService(environment).getRealtimeVehicles(this.getSource(environment));
+      TransitRequestMemo.get(
+        environment,
+        TransitRequestMemo.REALTIME_VEHICLES_BY_PATTERN,
+        getSource(environment)
+      );
   }
 
   private Agency getAgency(DataFetchingEnvironment environment) {
@@ -248,10 +252,6 @@ public class PatternImpl implements GraphQLDataFetchers.GraphQLPattern {
     return getSource(environment).scheduledTripsAsStream().collect(Collectors.toList());
   }
 
-  private RealtimeVehicleService getRealtimeVehiclesService(DataFetchingEnvironment environment) {
-    return environment.<GraphQLRequestContext>getContext().realTimeVehicleService();
-  }
-
   private TransitService getTransitService(DataFetchingEnvironment environment) {
     return environment.<GraphQLRequestContext>getContext().transitService();
   }
@@ -1,5 +1,10 @@
 package org.opentripplanner.apis.gtfs.datafetchers;
 
+import static org.opentripplanner.apis.support.graphql.TransitRequestMemo.ALERTS_BY_ROUTE;
+import static org.opentripplanner.apis.support.graphql.TransitRequestMemo.ALERTS_BY_STOP;
+import static org.opentripplanner.apis.support.graphql.TransitRequestMemo.PATTERNS_BY_STOP;
+import static org.opentripplanner.apis.support.graphql.TransitRequestMemo.STOP_TIMES_BY_STOP;
+
 import graphql.relay.Relay;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
@@ -20,6 +25,7 @@ import org.opentripplanner.apis.gtfs.generated.GraphQLDataFetchers;
 import org.opentripplanner.apis.gtfs.generated.GraphQLTypes;
 import org.opentripplanner.apis.gtfs.support.filter.PatternByDateFilterUtil;
 import org.opentripplanner.apis.gtfs.support.time.LocalDateRangeUtil;
+import org.opentripplanner.apis.support.graphql.TransitRequestMemo;
 import org.opentripplanner.framework.time.ServiceDateUtils;
 import org.opentripplanner.model.StopTimesInPattern;
 import org.opentripplanner.model.TripTimeOnDate;
@@ -50,7 +56,7 @@ public class StopImpl implements GraphQLDataFetchers.GraphQLStop {
       if (types != null) {
         Collection<TransitAlert> alerts = new ArrayList<>();
         if (types.contains(GraphQLTypes.GraphQLStopAlertType.STOP)) {
-          alerts.addAll(alertService.getStopAlerts(id));
+          alerts.addAll(TransitRequestMemo.get(environment, ALERTS_BY_STOP, id));
         }
         if (
           types.contains(GraphQLTypes.GraphQLStopAlertType.STOP_ON_ROUTES) ||
@@ -108,7 +114,9 @@ public class StopImpl implements GraphQLDataFetchers.GraphQLStop {
           getRoutes(environment)
             .forEach(route -> {
               if (types.contains(GraphQLTypes.GraphQLStopAlertType.ROUTES)) {
-                alerts.addAll(alertService.getRouteAlerts(route.getId()));
+                alerts.addAll(
+                  TransitRequestMemo.get(environment, ALERTS_BY_ROUTE, route.getId())
+                );
               }
               if (types.contains(GraphQLTypes.GraphQLStopAlertType.AGENCIES_OF_ROUTES)) {
                 alerts.addAll(alertService.getAgencyAlerts(route.getAgency().getId()));
@@ -117,7 +125,7 @@ public class StopImpl implements GraphQLDataFetchers.GraphQLStop {
         }
         return alerts.stream().distinct().collect(Collectors.toList());
       } else {
-        return alertService.getStopAlerts(id);
+        return TransitRequestMemo.get(environment, ALERTS_BY_STOP, id);
       }
     };
   }
@@ -380,18 +388,21 @@ public class StopImpl implements GraphQLDataFetchers.GraphQLStop {
   @Override
   public DataFetcher<Iterable<TripTimeOnDate>> stoptimesWithoutPatterns() {
     return environment -> {
-      TransitService transitService = getTransitService(environment);
       var args = new GraphQLTypes.GraphQLStopStoptimesForPatternsArgs(environment.getArguments());
 
       Function<StopLocation, Stream<StopTimesInPattern>> stopTFunction = stop ->
-        transitService
-          .stopTimesForStop(
-            stop,
-            GraphQLUtils.getTimeOrNow(args.getGraphQLStartTime()),
-            Duration.ofSeconds(args.getGraphQLTimeRange()),
-            args.getGraphQLNumberOfDepartures(),
-            args.getGraphQLOmitNonPickups() ? ArrivalDeparture.DEPARTURES : ArrivalDeparture.BOTH,
-            !args.getGraphQLOmitCanceled()
+        TransitRequestMemo
+          .get(
+            environment,
+            STOP_TIMES_BY_STOP,
+            new TransitRequestMemo.StopTimesRequest(
+              stop,
+              args.getGraphQLStartTime(),
+              Duration.ofSeconds(args.getGraphQLTimeRange()),
+              args.getGraphQLNumberOfDepartures(),
+              args.getGraphQLOmitNonPickups() ? ArrivalDeparture.DEPARTURES : ArrivalDeparture.BOTH,
+              !args.getGraphQLOmitCanceled()
+            )
           )
           .stream();
 
@@ -495,7 +506,7 @@ public class StopImpl implements GraphQLDataFetchers.GraphQLStop {
   private Collection<TripPattern> getPatterns(DataFetchingEnvironment environment) {
     return getValue(
       environment,
-      stop -> getTransitService(environment).getPatternsForStop(stop, true),
+      stop -> TransitRequestMemo.get(environment, PATTERNS_BY_STOP, stop),
       station -> null
     );
   }
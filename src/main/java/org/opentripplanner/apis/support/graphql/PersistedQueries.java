@@ -0,0 +1,125 @@
+package org.opentripplanner.apis.support.graphql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import graphql.ErrorType;
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Store the query text of persisted queries, so clients only need to send the hash of a query
+ * once it is registered. The protocol is the one used by Apollo "automatic persisted queries":
+ * the client sends the SHA-256 hash of the query in {@code extensions.persistedQuery.sha256Hash}.
+ * If the query text is not included and the hash is unknown, a {@code PersistedQueryNotFound}
+ * error is returned and the client resends the request with both the query and the hash.
+ * <p>
+ * The store is shared by all GraphQL APIs, the parsed and validated documents are cached per API
+ * by the {@link PreparsedDocumentCache}.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class PersistedQueries {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+  private static final PersistedQueries SHARED = new PersistedQueries(DEFAULT_MAXIMUM_SIZE);
+
+  static final String NOT_FOUND_MESSAGE = "PersistedQueryNotFound";
+  static final String NOT_FOUND_CODE = "PERSISTED_QUERY_NOT_FOUND";
+  static final String HASH_MISMATCH_MESSAGE = "The persisted query hash does not match the query";
+
+  private final Cache<String, String> queries;
+  private final Counter hitCounter = counter("hit");
+  private final Counter missCounter = counter("miss");
+
+  PersistedQueries(int maximumSize) {
+    this.queries = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * The store shared by the GTFS and the Transmodel API.
+   */
+  public static PersistedQueries shared() {
+    return SHARED;
+  }
+
+  /**
+   * The SHA-256 hash of the query as a lowercase hex string, the same as the clients use.
+   */
+  public static String hash(String query) {
+    return Hashing.sha256().hashString(query, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Return the persisted query hash sent by the client, or {@code null} if the request is not a
+   * persisted query request.
+   */
+  @Nullable
+  static String requestedHash(ExecutionInput executionInput) {
+    var extensions = executionInput.getExtensions();
+    if (
+      extensions != null &&
+      extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery &&
+      persistedQuery.get("sha256Hash") instanceof String hash
+    ) {
+      return hash;
+    }
+    return null;
+  }
+
+  /**
+   * Resolve the query text of a persisted query request. If the request contains the query, it is
+   * registered under the given hash.
+   */
+  Result resolve(String hash, @Nullable String query) {
+    if (query == null || query.isBlank()) {
+      var persisted = queries.getIfPresent(hash);
+      if (persisted == null) {
+        missCounter.increment();
+        return Result.failure(error(NOT_FOUND_MESSAGE, NOT_FOUND_CODE));
+      }
+      hitCounter.increment();
+      return Result.success(persisted);
+    }
+    if (!hash.equals(hash(query))) {
+      return Result.failure(error(HASH_MISMATCH_MESSAGE, "PERSISTED_QUERY_HASH_MISMATCH"));
+    }
+    queries.put(hash, query);
+    return Result.success(query);
+  }
+
+  private static GraphQLError error(String message, String code) {
+    return GraphqlErrorBuilder
+      .newError()
+      .message(message)
+      .errorType(ErrorType.ValidationError)
+      .extensions(Map.of("code", code))
+      .build();
+  }
+
+  private static Counter counter(String result) {
+    return Counter
+      .builder("graphql.persistedQueries")
+      .tag("result", result)
+      .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Either the query text or the error to return to the client.
+   */
+  record Result(@Nullable String query, @Nullable GraphQLError error) {
+    static Result success(String query) {
+      return new Result(query, null);
+    }
+
+    static Result failure(GraphQLError error) {
+      return new Result(null, error);
+    }
+  }
+}
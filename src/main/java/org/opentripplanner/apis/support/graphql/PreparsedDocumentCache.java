@@ -0,0 +1,84 @@
+package org.opentripplanner.apis.support.graphql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Cache the parsed and validated GraphQL documents, keyed by the SHA-256 hash of the query.
+ * Clients usually send the same queries over and over again with different variables, so parsing
+ * and validating them is only needed the first time. Queries with parse or validation errors are
+ * not cached.
+ * <p>
+ * The cache also resolves persisted queries, see {@link PersistedQueries}. A document is cached
+ * for a given schema, so each GraphQL API must use its own instance.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class PreparsedDocumentCache implements PreparsedDocumentProvider {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  private final Cache<String, PreparsedDocumentEntry> documents;
+  private final PersistedQueries persistedQueries;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  public PreparsedDocumentCache(String api) {
+    this(api, PersistedQueries.shared(), DEFAULT_MAXIMUM_SIZE);
+  }
+
+  PreparsedDocumentCache(String api, PersistedQueries persistedQueries, int maximumSize) {
+    this.documents = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    this.persistedQueries = persistedQueries;
+    this.hitCounter = counter(api, "hit");
+    this.missCounter = counter(api, "miss");
+  }
+
+  @Override
+  public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+    ExecutionInput executionInput,
+    Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction
+  ) {
+    var input = executionInput;
+    var hash = PersistedQueries.requestedHash(input);
+
+    if (hash != null) {
+      var result = persistedQueries.resolve(hash, input.getQuery());
+      if (result.error() != null) {
+        return CompletableFuture.completedFuture(new PreparsedDocumentEntry(result.error()));
+      }
+      if (!result.query().equals(input.getQuery())) {
+        input = input.transform(builder -> builder.query(result.query()));
+      }
+    } else {
+      hash = PersistedQueries.hash(input.getQuery());
+    }
+
+    var document = documents.getIfPresent(hash);
+    if (document != null) {
+      hitCounter.increment();
+      return CompletableFuture.completedFuture(document);
+    }
+    missCounter.increment();
+    document = parseAndValidateFunction.apply(input);
+    if (!document.hasErrors()) {
+      documents.put(hash, document);
+    }
+    return CompletableFuture.completedFuture(document);
+  }
+
+  private static Counter counter(String api, String result) {
+    return Counter
+      .builder("graphql.documentCache")
+      .tag("api", api)
+      .tag("result", result)
+      .register(Metrics.globalRegistry);
+  }
+}
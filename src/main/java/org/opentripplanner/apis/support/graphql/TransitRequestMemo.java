@@ -0,0 +1,124 @@
+package org.opentripplanner.apis.support.graphql;
+
+import graphql.schema.DataFetchingEnvironment;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.opentripplanner.model.StopTimesInPattern;
+import org.opentripplanner.routing.alertpatch.TransitAlert;
+import org.opentripplanner.routing.stoptimes.ArrivalDeparture;
+import org.opentripplanner.service.realtimevehicles.RealtimeVehicleService;
+import org.opentripplanner.service.realtimevehicles.model.RealtimeVehicle;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.service.TransitService;
+
+/**
+ * Remember the result of transit lookups for the duration of one GraphQL request. Each value is
+ * looked up only once per request, so the same stop or pattern showing up many times in a query,
+ * e.g. in a departure board for a large station, is cheap. The lookups are not batched, each key
+ * is looked up on its own the first time it is requested.
+ * <p>
+ * A new memo is created for each GraphQL request and put in the {@link graphql.GraphQLContext},
+ * see {@link #create(TransitService, RealtimeVehicleService)}.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class TransitRequestMemo {
+
+  public static final Key<StopLocation, Collection<TripPattern>> PATTERNS_BY_STOP = new Key<>(
+    "patternsByStop"
+  );
+  public static final Key<StopTimesRequest, List<StopTimesInPattern>> STOP_TIMES_BY_STOP =
+    new Key<>("stopTimesByStop");
+  public static final Key<FeedScopedId, Collection<TransitAlert>> ALERTS_BY_STOP = new Key<>(
+    "alertsByStop"
+  );
+  public static final Key<FeedScopedId, Collection<TransitAlert>> ALERTS_BY_ROUTE = new Key<>(
+    "alertsByRoute"
+  );
+  public static final Key<TripPattern, List<RealtimeVehicle>> REALTIME_VEHICLES_BY_PATTERN =
+    new Key<>("realtimeVehiclesByPattern");
+
+  private final Map<Key<?, ?>, Function<Object, Object>> lookups = new HashMap<>();
+  private final Map<Key<?, ?>, Map<Object, Object>> values = new ConcurrentHashMap<>();
+
+  private TransitRequestMemo() {}
+
+  public static TransitRequestMemo create(
+    TransitService transitService,
+    RealtimeVehicleService realtimeVehicleService
+  ) {
+    var memo = new TransitRequestMemo();
+    memo.register(PATTERNS_BY_STOP, stop -> transitService.getPatternsForStop(stop, true));
+    memo.register(
+      STOP_TIMES_BY_STOP,
+      it ->
+        transitService.stopTimesForStop(
+          it.stop(),
+          it.startTime() == 0 ? Instant.now() : Instant.ofEpochSecond(it.startTime()),
+          it.timeRange(),
+          it.numberOfDepartures(),
+          it.arrivalDeparture(),
+          it.includeCancelledTrips()
+        )
+    );
+    var alertService = transitService.getTransitAlertService();
+    memo.register(ALERTS_BY_STOP, alertService::getStopAlerts);
+    memo.register(ALERTS_BY_ROUTE, alertService::getRouteAlerts);
+    memo.register(REALTIME_VEHICLES_BY_PATTERN, realtimeVehicleService::getRealtimeVehicles);
+    return memo;
+  }
+
+  /**
+   * Get the value for the given key, it is looked up the first time it is requested in the
+   * GraphQL request of the environment.
+   */
+  public static <K, V> V get(DataFetchingEnvironment environment, Key<K, V> lookup, K key) {
+    TransitRequestMemo memo = environment.getGraphQlContext().get(TransitRequestMemo.class);
+    if (memo == null) {
+      throw new IllegalStateException("The transit request memo is not in the GraphQL context.");
+    }
+    return memo.get(lookup, key);
+  }
+
+  @SuppressWarnings("unchecked")
+  <K, V> V get(Key<K, V> lookup, K key) {
+    var function = lookups.get(lookup);
+    return (V) values
+      .computeIfAbsent(lookup, k -> new ConcurrentHashMap<>())
+      .computeIfAbsent(key, function);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <K, V> void register(Key<K, V> lookup, Function<K, V> function) {
+    lookups.put(lookup, (Function<Object, Object>) (Function<?, ?>) function);
+  }
+
+  /**
+   * The name and type of a memoized lookup.
+   */
+  @SuppressWarnings("unused")
+  public record Key<K, V>(String name) {}
+
+  /**
+   * The arguments to look up the stop times for a stop. All the arguments are part of the memo
+   * key, so only identical requests for the same stop share the result. The start time is kept
+   * as given in the request, {@code 0} means now, so that requests without a start time share
+   * the result.
+   */
+  public record StopTimesRequest(
+    StopLocation stop,
+    long startTime,
+    Duration timeRange,
+    int numberOfDepartures,
+    ArrivalDeparture arrivalDeparture,
+    boolean includeCancelledTrips
+  ) {}
+}
@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
+import org.opentripplanner.apis.support.graphql.PreparsedDocumentCache;
 import org.opentripplanner.apis.transmodel.mapping.TransitIdMapper;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
@@ -33,6 +34,7 @@ public class TransmodelAPI {
   private static final Logger LOG = LoggerFactory.getLogger(TransmodelAPI.class);
 
   private static GraphQLSchema schema;
+  private static PreparsedDocumentCache documentCache;
   private static Collection<String> tracingHeaderTags;
   private static int maxNumberOfResultFields;
 
@@ -42,7 +44,7 @@ public class TransmodelAPI {
 
   public TransmodelAPI(@Context OtpServerRequestContext serverContext) {
     this.serverContext = serverContext;
-    this.index = new TransmodelGraph(schema);
+    this.index = new TransmodelGraph(schema, documentCache);
   }
 
   /**
@@ -75,6 +77,7 @@ public class TransmodelAPI {
     tracingHeaderTags = config.tracingHeaderTags();
     maxNumberOfResultFields = config.maxNumberOfResultFields();
     schema = TransmodelGraphQLSchema.create(defaultRouteRequest, transitModel.getTimeZone());
+    documentCache = new PreparsedDocumentCache("transmodel");
   }
 
   @POST
@@ -83,12 +86,15 @@ public class TransmodelAPI {
     HashMap<String, Object> queryParameters,
     @Context HttpHeaders headers
   ) {
-    if (queryParameters == null || !queryParameters.containsKey("query")) {
+    if (
+      queryParameters == null ||
+      !(queryParameters.containsKey("query") || queryParameters.containsKey("extensions"))
+    ) {
       LOG.debug("No query found in body");
       throw new BadRequestException("No query found in body");
     }
 
-    if (!(queryParameters.get("query") instanceof String query)) {
+    if (!(queryParameters.getOrDefault("query", "") instanceof String query)) {
       throw new BadRequestException("Invalid format for query");
     }
 
@@ -108,11 +114,16 @@ public class TransmodelAPI {
       variables = Collections.emptyMap();
     }
     String operationName = (String) queryParameters.getOrDefault("operationName", null);
+    @SuppressWarnings("unchecked")
+    Map<String, Object> extensions = queryParameters.get("extensions") instanceof Map<?, ?> map
+      ? (Map<String, Object>) map
+      : null;
     return index.executeGraphQL(
       query,
       serverContext,
       variables,
       operationName,
+      extensions,
       maxNumberOfResultFields,
       getTagsFromHeaders(headers)
     );
@@ -126,6 +137,7 @@ public class TransmodelAPI {
       serverContext,
       null,
       null,
+      null,
       maxNumberOfResultFields,
       getTagsFromHeaders(headers)
     );
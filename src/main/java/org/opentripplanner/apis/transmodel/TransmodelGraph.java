@@ -17,6 +17,8 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.opentripplanner.apis.support.graphql.LoggingDataFetcherExceptionHandler;
+import org.opentripplanner.apis.support.graphql.PreparsedDocumentCache;
+import org.opentripplanner.apis.support.graphql.TransitRequestMemo;
 import org.opentripplanner.apis.transmodel.support.AbortOnUnprocessableRequestExecutionStrategy;
 import org.opentripplanner.apis.transmodel.support.ExecutionResultMapper;
 import org.opentripplanner.ext.actuator.MicrometerGraphQLInstrumentation;
@@ -35,13 +37,15 @@ class TransmodelGraph {
 
   private static final int MAX_ERROR_TO_RETURN = 25;
   private final GraphQLSchema indexSchema;
+  private final PreparsedDocumentCache documentCache;
 
   final ExecutorService threadPool;
 
-  TransmodelGraph(GraphQLSchema schema) {
+  TransmodelGraph(GraphQLSchema schema, PreparsedDocumentCache documentCache) {
     this.threadPool =
       Executors.newCachedThreadPool(OtpRequestThreadFactory.of("transmodel-api-%d"));
     this.indexSchema = schema;
+    this.documentCache = documentCache;
   }
 
   Response executeGraphQL(
@@ -49,11 +53,13 @@ class TransmodelGraph {
     OtpServerRequestContext serverContext,
     Map<String, Object> variables,
     String operationName,
+    Map<String, Object> extensions,
     int maxNumberOfResultFields,
     Iterable<Tag> tracingTags
   ) {
     try (var executionStrategy = new AbortOnUnprocessableRequestExecutionStrategy()) {
       variables = ObjectUtils.ifNotNull(variables, new HashMap<>());
+      extensions = ObjectUtils.ifNotNull(extensions, Map.of());
       var instrumentation = createInstrumentation(maxNumberOfResultFields, tracingTags);
       var transmodelRequestContext = createRequestContext(serverContext);
       var executionInput = createExecutionInput(
@@ -61,6 +67,7 @@ class TransmodelGraph {
         serverContext,
         variables,
         operationName,
+        extensions,
         transmodelRequestContext
       );
       var graphQL = createGraphQL(instrumentation, executionStrategy);
@@ -112,6 +119,7 @@ class TransmodelGraph {
     OtpServerRequestContext serverContext,
     Map<String, Object> variables,
     String operationName,
+    Map<String, Object> extensions,
     TransmodelRequestContext transmodelRequestContext
   ) {
     return ExecutionInput
@@ -121,6 +129,16 @@ class TransmodelGraph {
       .context(transmodelRequestContext)
       .root(serverContext)
       .variables(variables)
+      .extensions(extensions)
+      .graphQLContext(
+        Map.of(
+          TransitRequestMemo.class,
+          TransitRequestMemo.create(
+            transmodelRequestContext.getTransitService(),
+            serverContext.realtimeVehicleService()
+          )
+        )
+      )
       .build();
   }
 
@@ -133,6 +151,7 @@ class TransmodelGraph {
       .instrumentation(instrumentation)
       .queryExecutionStrategy(executionStrategy)
       .defaultDataFetcherExceptionHandler(new LoggingDataFetcherExceptionHandler())
+      .preparsedDocumentProvider(documentCache)
       .build();
   }
 
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
 import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.apis.support.graphql.TransitRequestMemo;
 import org.opentripplanner.apis.transmodel.model.EnumTypes;
 import org.opentripplanner.apis.transmodel.model.framework.TransmodelDirectives;
 import org.opentripplanner.apis.transmodel.model.plan.JourneyWhiteListed;
@@ -175,9 +176,8 @@ public class QuayType {
           .description("List of lines servicing this quay")
           .type(new GraphQLNonNull(new GraphQLList(new GraphQLNonNull(lineType))))
           .dataFetcher(env ->
-            GqlUtil
-              .getTransitService(env)
-              .getPatternsForStop(env.getSource(), true)
+            TransitRequestMemo
+              .get(env, TransitRequestMemo.PATTERNS_BY_STOP, env.getSource())
               .stream()
               .map(TripPattern::getRoute)
               .distinct()
@@ -193,7 +193,7 @@ public class QuayType {
           .description("List of journey patterns servicing this quay")
           .type(new GraphQLNonNull(new GraphQLList(journeyPatternType)))
           .dataFetcher(env ->
-            GqlUtil.getTransitService(env).getPatternsForStop(env.getSource(), true)
+            TransitRequestMemo.get(env, TransitRequestMemo.PATTERNS_BY_STOP, env.getSource())
           )
           .build()
       )
@@ -343,13 +343,17 @@ public class QuayType {
         GraphQLFieldDefinition
           .newFieldDefinition()
           .name("situations")
-          .description("Get all situations active for the quay.")
+          .description(
+            "Get all situations active for the quay, including the situations on its stop " +
+            "place and multimodal stop place."
+          )
           .type(new GraphQLNonNull(new GraphQLList(new GraphQLNonNull(ptSituationElementType))))
           .dataFetcher(env ->
-            GqlUtil
-              .getTransitService(env)
-              .getTransitAlertService()
-              .getStopAlerts(((StopLocation) env.getSource()).getId())
+            TransitRequestMemo.get(
+              env,
+              TransitRequestMemo.ALERTS_BY_STOP,
+              ((StopLocation) env.getSource()).getId()
+            )
           )
           .build()
       )
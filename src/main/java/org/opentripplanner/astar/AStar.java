@@ -13,7 +13,6 @@ import org.opentripplanner.astar.model.ShortestPathTree;
 import org.opentripplanner.astar.spi.AStarEdge;
 import org.opentripplanner.astar.spi.AStarState;
 import org.opentripplanner.astar.spi.AStarVertex;
-import org.opentripplanner.astar.spi.DominanceFunction;
 import org.opentripplanner.astar.spi.RemainingWeightHeuristic;
 import org.opentripplanner.astar.spi.SearchTerminationStrategy;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
@@ -61,7 +60,7 @@ public class AStar<
     Set<Vertex> fromVertices,
     Set<Vertex> toVertices,
     SearchTerminationStrategy<State> terminationStrategy,
-    DominanceFunction<State> dominanceFunction,
+    ShortestPathTree<State, Edge, Vertex> spt,
     Duration timeout,
     Collection<State> initialStates
   ) {
@@ -74,7 +73,7 @@ public class AStar<
     this.terminationStrategy = terminationStrategy;
     this.timeout = Objects.requireNonNull(timeout);
 
-    this.spt = new ShortestPathTree<>(dominanceFunction);
+    this.spt = spt;
 
     // Initialized with a reasonable size, see #4445
     this.pq = new BinHeap<>(1000);
@@ -33,6 +33,7 @@ public abstract class AStarBuilder<
   private Set<Vertex> toVertices;
   private SearchTerminationStrategy<State> terminationStrategy;
   private DominanceFunction<State> dominanceFunction;
+  private ShortestPathTree<State, Edge, Vertex> shortestPathTree;
   private Edge originBackEdge;
   private Collection<State> initialStates;
 
@@ -97,6 +98,16 @@ public abstract class AStarBuilder<
     return builder;
   }
 
+  /**
+   * Reuse the given tree instead of creating a new one. The tree is cleared before the search and
+   * its dominance function is used. This avoids allocating a large tree for each search when the
+   * same thread runs many searches, the tree must not be used by two searches at the same time.
+   */
+  public Builder setShortestPathTree(ShortestPathTree<State, Edge, Vertex> shortestPathTree) {
+    this.shortestPathTree = shortestPathTree;
+    return builder;
+  }
+
   protected abstract Duration streetRoutingTimeout();
 
   public Builder setOriginBackEdge(Edge originBackEdge) {
@@ -146,12 +157,22 @@ public abstract class AStarBuilder<
       origin,
       destination,
       terminationStrategy,
-      Optional.ofNullable(dominanceFunction).orElseGet(this::createDefaultDominanceFunction),
+      createShortestPathTree(),
       streetRoutingTimeout(),
       initialStates
     );
   }
 
+  private ShortestPathTree<State, Edge, Vertex> createShortestPathTree() {
+    if (shortestPathTree != null) {
+      shortestPathTree.clear();
+      return shortestPathTree;
+    }
+    return new ShortestPathTree<>(
+      Optional.ofNullable(dominanceFunction).orElseGet(this::createDefaultDominanceFunction)
+    );
+  }
+
   protected abstract Collection<State> createInitialStates(Set<Vertex> originVertices);
 
   protected abstract void prepareInitialStates(Collection<State> initialStates);
@@ -244,6 +244,15 @@ public class ShortestPathTree<
     aborted = true;
   }
 
+  /**
+   * Remove all states, so the tree can be reused for a new search. The capacity of the tree is
+   * kept.
+   */
+  public void clear() {
+    stateSets.clear();
+    aborted = false;
+  }
+
   public String toString() {
     return "ShortestPathTree(" + this.stateSets.size() + " vertices)";
   }
@@ -1,5 +1,6 @@
 package org.opentripplanner.framework.application;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.opentripplanner.framework.lang.StringUtils;
@@ -24,6 +25,15 @@ public class LogMDCSupport {
     LogMDCSupport.enabled = true;
   }
 
+  /**
+   * Turn the log MDC propagation off again. The flag is global, so tests enabling it must use this
+   * to restore the default.
+   */
+  @VisibleForTesting
+  public static void disable() {
+    LogMDCSupport.enabled = false;
+  }
+
   public static boolean isRequestTracingInLoggingEnabled() {
     return LogMDCSupport.enabled;
   }
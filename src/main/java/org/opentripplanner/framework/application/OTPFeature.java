@@ -44,6 +44,13 @@ public enum OTPFeature {
     false,
     "Does vehicleRentalStation query also allow ids that are not feed scoped."
   ),
+  MappedStreetGeometry(
+    false,
+    false,
+    "Store the street geometry in a separate file next to the graph file, and memory-map the " +
+    "file when the graph is loaded. This reduces the heap used and the time it takes to load " +
+    "the graph. Only graphs saved to the local file system are supported."
+  ),
   /**
    * If this feature flag is switched on, then the minimum transfer time is not the minimum transfer
    * time, but the definitive transfer time. Use this to override what we think the transfer will
@@ -0,0 +1,398 @@
+package org.opentripplanner.framework.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * An immutable hash map with structural sharing (a hash array mapped trie). Every "modifying"
+ * operation ({@link #plus(Object, Object)}, {@link #minus(Object)}) returns a new map which shares
+ * all unchanged branches with this map. This makes it cheap to keep many versions of a large map
+ * alive at the same time, and to hand off a version to other threads without copying it. Each
+ * update costs O(log32 n) - in practice a handful of small array copies - independent of the size
+ * of the map.
+ * <p>
+ * The map implements the read-only part of {@link Map}. The mutating methods of {@link Map} throw
+ * {@link UnsupportedOperationException}. Null keys and values are not allowed.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+  /** Either {@code null} (empty map) or a {@link BitmapNode}. */
+  private final BitmapNode root;
+  private final int size;
+
+  private PersistentHashMap(BitmapNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentHashMap<?, ?>) {
+      @SuppressWarnings("unchecked")
+      var result = (PersistentHashMap<K, V>) map;
+      return result;
+    }
+    PersistentHashMap<K, V> result = empty();
+    for (Entry<? extends K, ? extends V> e : map.entrySet()) {
+      result = result.plus(e.getKey(), e.getValue());
+    }
+    return result;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (root == null || key == null) {
+      return null;
+    }
+    int hash = hash(key);
+    Object node = root;
+    int shift = 0;
+    while (true) {
+      if (node instanceof BitmapNode bn) {
+        int bit = bit(hash, shift);
+        if ((bn.bitmap & bit) == 0) {
+          return null;
+        }
+        node = bn.slots[bn.index(bit)];
+        shift += BITS;
+      } else if (node instanceof Leaf<?, ?> leaf) {
+        return leaf.hash == hash && key.equals(leaf.key) ? (V) leaf.value : null;
+      } else {
+        return (V) ((CollisionNode) node).get(hash, key);
+      }
+    }
+  }
+
+  /**
+   * Return a new map with the given key mapped to the given value. If the key is already mapped
+   * to the same value instance, this map is returned.
+   */
+  public PersistentHashMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    var leaf = new Leaf<>(hash(key), key, value);
+    var added = new boolean[1];
+    var newRoot = root == null
+      ? new BitmapNode(bit(leaf.hash, 0), new Object[] { leaf })
+      : root.plus(leaf, 0, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentHashMap<>(newRoot, root == null || added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Return a new map without the given key. If the key is not present, this map is returned.
+   */
+  public PersistentHashMap<K, V> minus(Object key) {
+    if (root == null || key == null) {
+      return this;
+    }
+    Object newRoot = root.minus(hash(key), key, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    if (newRoot == null) {
+      return empty();
+    }
+    if (!(newRoot instanceof BitmapNode)) {
+      // A single leaf or collision node is left, wrap it in a new root
+      int hash = hashOf(newRoot);
+      newRoot = new BitmapNode(bit(hash, 0), new Object[] { newRoot });
+    }
+    return new PersistentHashMap<>((BitmapNode) newRoot, size - 1);
+  }
+
+  /**
+   * Return a new map without all entries matching the given predicate. If no entries match, this
+   * map is returned.
+   */
+  public PersistentHashMap<K, V> minusIf(BiPredicate<? super K, ? super V> predicate) {
+    PersistentHashMap<K, V> result = this;
+    for (Entry<K, V> e : entrySet()) {
+      if (predicate.test(e.getKey(), e.getValue())) {
+        result = result.minus(e.getKey());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (root != null) {
+      root.forEach((BiConsumer<Object, Object>) action);
+    }
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        List<Entry<K, V>> entries = new ArrayList<>(size);
+        PersistentHashMap.this.forEach((k, v) -> entries.add(new SimpleImmutableEntry<>(k, v)));
+        return entries.iterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /* private methods and types */
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static int hashOf(Object node) {
+    return node instanceof Leaf<?, ?> leaf ? leaf.hash : ((CollisionNode) node).hash;
+  }
+
+  /**
+   * Create a node holding two leaf/collision nodes with different hashes, starting at the given
+   * shift. Since the hashes differ they will be split into different slots on one of the levels
+   * 0, 5, ..., 30.
+   */
+  private static BitmapNode merge(Object a, int hashA, Object b, int hashB, int shift) {
+    int bitA = bit(hashA, shift);
+    int bitB = bit(hashB, shift);
+    if (bitA == bitB) {
+      return new BitmapNode(bitA, new Object[] { merge(a, hashA, b, hashB, shift + BITS) });
+    }
+    return Integer.compareUnsigned(bitA, bitB) < 0
+      ? new BitmapNode(bitA | bitB, new Object[] { a, b })
+      : new BitmapNode(bitA | bitB, new Object[] { b, a });
+  }
+
+  private record Leaf<K, V>(int hash, K key, V value) {}
+
+  private static final class BitmapNode {
+
+    private final int bitmap;
+    /** Each slot contains a {@link Leaf}, a {@link BitmapNode} or a {@link CollisionNode}. */
+    private final Object[] slots;
+
+    private BitmapNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private BitmapNode plus(Leaf<?, ?> leaf, int shift, boolean[] added) {
+      int bit = bit(leaf.hash, shift);
+      int index = index(bit);
+
+      if ((bitmap & bit) == 0) {
+        Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        newSlots[index] = leaf;
+        System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newSlots);
+      }
+
+      Object slot = slots[index];
+      Object newSlot;
+
+      if (slot instanceof BitmapNode child) {
+        newSlot = child.plus(leaf, shift + BITS, added);
+      } else if (slot instanceof Leaf<?, ?> existing) {
+        if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+          if (existing.value == leaf.value) {
+            return this;
+          }
+          newSlot = leaf;
+        } else if (existing.hash == leaf.hash) {
+          newSlot = new CollisionNode(leaf.hash, new Leaf<?, ?>[] { existing, leaf });
+          added[0] = true;
+        } else {
+          newSlot = merge(existing, existing.hash, leaf, leaf.hash, shift + BITS);
+          added[0] = true;
+        }
+      } else {
+        var collision = (CollisionNode) slot;
+        if (collision.hash == leaf.hash) {
+          newSlot = collision.plus(leaf, added);
+        } else {
+          newSlot = merge(collision, collision.hash, leaf, leaf.hash, shift + BITS);
+          added[0] = true;
+        }
+      }
+
+      if (newSlot == slot) {
+        return this;
+      }
+      Object[] newSlots = slots.clone();
+      newSlots[index] = newSlot;
+      return new BitmapNode(bitmap, newSlots);
+    }
+
+    /**
+     * @return this if unchanged, null if the node becomes empty, a single Leaf if only one leaf
+     * is left (so the parent can inline it) or a new node.
+     */
+    private Object minus(int hash, Object key, int shift) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object slot = slots[index];
+      Object newSlot;
+
+      if (slot instanceof BitmapNode child) {
+        newSlot = child.minus(hash, key, shift + BITS);
+      } else if (slot instanceof Leaf<?, ?> leaf) {
+        newSlot = (leaf.hash == hash && leaf.key.equals(key)) ? null : slot;
+      } else {
+        newSlot = ((CollisionNode) slot).minus(hash, key);
+      }
+
+      if (newSlot == slot) {
+        return this;
+      }
+      if (newSlot == null) {
+        if (slots.length == 1) {
+          return null;
+        }
+        Object[] newSlots = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+        if (newSlots.length == 1 && newSlots[0] instanceof Leaf<?, ?>) {
+          return newSlots[0];
+        }
+        return new BitmapNode(bitmap & ~bit, newSlots);
+      }
+      if (slots.length == 1 && newSlot instanceof Leaf<?, ?>) {
+        return newSlot;
+      }
+      Object[] newSlots = slots.clone();
+      newSlots[index] = newSlot;
+      return new BitmapNode(bitmap, newSlots);
+    }
+
+    private void forEach(BiConsumer<Object, Object> action) {
+      for (Object slot : slots) {
+        if (slot instanceof BitmapNode child) {
+          child.forEach(action);
+        } else if (slot instanceof Leaf<?, ?> leaf) {
+          action.accept(leaf.key, leaf.value);
+        } else {
+          for (Leaf<?, ?> leaf : ((CollisionNode) slot).leaves) {
+            action.accept(leaf.key, leaf.value);
+          }
+        }
+      }
+    }
+  }
+
+  /** Leaves with identical hash codes, but different keys. */
+  private static final class CollisionNode {
+
+    private final int hash;
+    private final Leaf<?, ?>[] leaves;
+
+    private CollisionNode(int hash, Leaf<?, ?>[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+
+    private Object get(int hash, Object key) {
+      if (this.hash != hash) {
+        return null;
+      }
+      for (Leaf<?, ?> leaf : leaves) {
+        if (leaf.key.equals(key)) {
+          return leaf.value;
+        }
+      }
+      return null;
+    }
+
+    private CollisionNode plus(Leaf<?, ?> leaf, boolean[] added) {
+      for (int i = 0; i < leaves.length; ++i) {
+        if (leaves[i].key.equals(leaf.key)) {
+          if (leaves[i].value == leaf.value) {
+            return this;
+          }
+          Leaf<?, ?>[] newLeaves = leaves.clone();
+          newLeaves[i] = leaf;
+          return new CollisionNode(hash, newLeaves);
+        }
+      }
+      Leaf<?, ?>[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+      newLeaves[leaves.length] = leaf;
+      added[0] = true;
+      return new CollisionNode(hash, newLeaves);
+    }
+
+    /**
+     * @return this if unchanged, the remaining Leaf if only one is left, or a new node.
+     */
+    private Object minus(int hash, Object key) {
+      if (this.hash != hash) {
+        return this;
+      }
+      for (int i = 0; i < leaves.length; ++i) {
+        if (leaves[i].key.equals(key)) {
+          if (leaves.length == 2) {
+            return leaves[1 - i];
+          }
+          Leaf<?, ?>[] newLeaves = new Leaf<?, ?>[leaves.length - 1];
+          System.arraycopy(leaves, 0, newLeaves, 0, i);
+          System.arraycopy(leaves, i + 1, newLeaves, i, leaves.length - i - 1);
+          return new CollisionNode(hash, newLeaves);
+        }
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.opentripplanner.framework.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An immutable hash set with structural sharing, backed by a {@link PersistentHashMap}. Adding an
+ * element with {@link #plus(Object)} returns a new set which shares all unchanged branches with
+ * this set, so adding n elements one at a time costs O(n log32 n), not O(n²) as when copying the
+ * set for each element.
+ * <p>
+ * The mutating methods of {@link java.util.Set} throw {@link UnsupportedOperationException}. Null
+ * elements are not allowed.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+  private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(
+    PersistentHashMap.empty()
+  );
+
+  private final PersistentHashMap<E, Boolean> map;
+
+  private PersistentHashSet(PersistentHashMap<E, Boolean> map) {
+    this.map = map;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentHashSet<E> empty() {
+    return (PersistentHashSet<E>) EMPTY;
+  }
+
+  /**
+   * Return a new set with the given element added. If the element is already in the set, this set
+   * is returned.
+   */
+  public PersistentHashSet<E> plus(E element) {
+    var newMap = map.plus(element, Boolean.TRUE);
+    return newMap == map ? this : new PersistentHashSet<>(newMap);
+  }
+
+  /**
+   * Return a new set without the given element. If the element is not in the set, this set is
+   * returned.
+   */
+  public PersistentHashSet<E> minus(Object element) {
+    var newMap = map.minus(element);
+    return newMap == map ? this : new PersistentHashSet<>(newMap);
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return map.containsKey(o);
+  }
+
+  @Override
+  public void forEach(Consumer<? super E> action) {
+    map.forEach((e, ignore) -> action.accept(e));
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    List<E> elements = new ArrayList<>(size());
+    forEach(elements::add);
+    return Collections.unmodifiableList(elements).iterator();
+  }
+}
@@ -0,0 +1,102 @@
+package org.opentripplanner.framework.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.opentripplanner.framework.application.LogMDCSupport;
+import org.opentripplanner.framework.application.OTPRequestTimeoutException;
+
+/**
+ * Run request-scoped tasks in parallel. Use this to split the work of one "user" request into
+ * parallel tasks, instead of the common fork-join pool. The common pool is shared with parallel
+ * streams, so requests would otherwise starve each other.
+ * <p>
+ * The log context of the caller is propagated to each task when it is submitted, so pooled
+ * threads do not keep the log context of an earlier request. If the caller is interrupted (the
+ * request timed out) while waiting for the tasks, the tasks are interrupted too, and an
+ * {@link OTPRequestTimeoutException} is thrown. The tasks should use
+ * {@link OTPRequestTimeoutException#checkForTimeout()} to stop as soon as possible.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class OtpRequestExecutor {
+
+  private static final OtpRequestExecutor VIRTUAL_THREADS = new OtpRequestExecutor(
+    Executors.newThreadPerTaskExecutor(OtpRequestThreadFactory.ofVirtual("otp-request-"))
+  );
+
+  private final ExecutorService executor;
+
+  /**
+   * Use the given executor to run the tasks.
+   */
+  public OtpRequestExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * The default executor, it starts a new virtual thread for each task. The number of threads is
+   * bounded by the number of requests handled by the web server.
+   */
+  public static OtpRequestExecutor virtualThreads() {
+    return VIRTUAL_THREADS;
+  }
+
+  /**
+   * Run all tasks in parallel and wait for them to complete. A single task is run in the caller
+   * thread. The tasks are awaited in the order they complete, so as soon as one of them fails the
+   * others are cancelled and the exception is rethrown.
+   */
+  public void runInParallel(Runnable... tasks) {
+    if (tasks.length == 0) {
+      return;
+    }
+    if (tasks.length == 1) {
+      tasks[0].run();
+      return;
+    }
+    CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+    List<Future<Void>> futures = new ArrayList<>(tasks.length);
+    try {
+      for (Runnable task : tasks) {
+        futures.add(completionService.submit(withCallerLogContext(task), null));
+      }
+      for (int i = 0; i < tasks.length; ++i) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OTPRequestTimeoutException();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      // Propagate interruption and errors to the running tasks, this is a no-op if a task is done
+      futures.forEach(it -> it.cancel(true));
+    }
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * The log context is captured here, in the caller thread, not when the executor creates the
+   * thread running the task.
+   */
+  private static Runnable withCallerLogContext(Runnable task) {
+    return LogMDCSupport.isRequestTracingInLoggingEnabled()
+      ? new LogMDCRunnableDecorator(task)
+      : task;
+  }
+}
@@ -32,6 +32,14 @@ public class OtpRequestThreadFactory implements ThreadFactory {
     return new OtpRequestThreadFactory(defaultFactory);
   }
 
+  /**
+   * Create a factory for virtual threads. The threads are named with the given prefix and a
+   * sequence number.
+   */
+  public static ThreadFactory ofVirtual(String namePrefix) {
+    return new OtpRequestThreadFactory(Thread.ofVirtual().name(namePrefix, 0).factory());
+  }
+
   @Override
   public Thread newThread(Runnable r) {
     if (LogMDCSupport.isRequestTracingInLoggingEnabled()) {
@@ -1,5 +1,6 @@
 package org.opentripplanner.framework.geometry;
 
+import java.nio.ByteBuffer;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.lang.IntUtils;
@@ -139,7 +140,46 @@ public final class CompactLineStringUtils {
     byte[] packedCoords,
     boolean reverse
   ) {
-    int[] coords = DlugoszVarLenIntPacker.unpack(packedCoords);
+    return uncompactLineString(
+      xa,
+      ya,
+      xb,
+      yb,
+      DlugoszVarLenIntPacker.unpack(packedCoords),
+      reverse
+    );
+  }
+
+  /**
+   * Same as the version taking a byte array, but read the packed coordinates from the position to
+   * the limit of the buffer. This avoids copying the coordinates out of a memory-mapped file.
+   */
+  public static LineString uncompactLineString(
+    double xa,
+    double ya,
+    double xb,
+    double yb,
+    ByteBuffer packedCoords,
+    boolean reverse
+  ) {
+    return uncompactLineString(
+      xa,
+      ya,
+      xb,
+      yb,
+      DlugoszVarLenIntPacker.unpack(packedCoords),
+      reverse
+    );
+  }
+
+  private static LineString uncompactLineString(
+    double xa,
+    double ya,
+    double xb,
+    double yb,
+    int[] coords,
+    boolean reverse
+  ) {
     int size = coords == null ? 2 : (coords.length / 2) + 2;
     Coordinate[] c = new Coordinate[size];
     double x0 = reverse ? xb : xa;
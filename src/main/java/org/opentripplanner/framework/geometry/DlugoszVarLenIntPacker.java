@@ -1,6 +1,7 @@
 package org.opentripplanner.framework.geometry;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,13 +63,19 @@ public class DlugoszVarLenIntPacker {
   }
 
   public static int[] unpack(byte[] arr) {
-    if (arr == null) {
-      return null;
-    }
-    List<Integer> retval = new ArrayList<>(arr.length);
-    int i = 0;
-    while (i < arr.length) {
-      int v1 = arr[i] & 0xFF;
+    return arr == null ? null : unpack(ByteBuffer.wrap(arr));
+  }
+
+  /**
+   * Unpack the bytes from the position to the limit of the buffer, without changing the
+   * position. Use this to read packed values directly from a memory-mapped file.
+   */
+  public static int[] unpack(ByteBuffer buffer) {
+    int end = buffer.limit();
+    List<Integer> retval = new ArrayList<>(end - buffer.position());
+    int i = buffer.position();
+    while (i < end) {
+      int v1 = buffer.get(i) & 0xFF;
       i++;
       if ((v1 & 0x80) == 0x00) {
         // 0xxx xxxx -> 7 bits value
@@ -76,21 +83,25 @@ public class DlugoszVarLenIntPacker {
         retval.add(sv);
       } else if ((v1 & 0xC0) == 0x80) {
         // 10xx xxxx + 8 -> 14 bits value
-        int sv = ((v1 & 0x3F) << 8) + (arr[i] & 0xFF) - 8192;
+        int sv = ((v1 & 0x3F) << 8) + (buffer.get(i) & 0xFF) - 8192;
         i++;
         retval.add(sv);
       } else if ((v1 & 0xE0) == 0xC0) {
         // 110 xxxx + 2x8 -> 21 bits value
-        int sv = ((v1 & 0x1F) << 16) + ((arr[i] & 0xFF) << 8) + (arr[i + 1] & 0xFF) - 1048576;
+        int sv =
+          ((v1 & 0x1F) << 16) +
+          ((buffer.get(i) & 0xFF) << 8) +
+          (buffer.get(i + 1) & 0xFF) -
+          1048576;
         i += 2;
         retval.add(sv);
       } else if ((v1 & 0xF8) == 0xE0) {
         // 1110 0xxx + 3x8 -> 27 bits value
         int sv =
           ((v1 & 0x1F) << 24) +
-          ((arr[i] & 0xFF) << 16) +
-          ((arr[i + 1] & 0xFF) << 8) +
-          (arr[i + 2] & 0xFF) -
+          ((buffer.get(i) & 0xFF) << 16) +
+          ((buffer.get(i + 1) & 0xFF) << 8) +
+          (buffer.get(i + 2) & 0xFF) -
           67108864;
         i += 3;
         retval.add(sv);
@@ -98,10 +109,10 @@ public class DlugoszVarLenIntPacker {
         // 1110 1xxx + 4x8 -> 35 bits value
         long sv =
           (((long) v1 & 0x1F) << 32) +
-          ((arr[i] & 0xFF) << 24) +
-          ((arr[i + 1] & 0xFF) << 16) +
-          ((arr[i + 2] & 0xFF) << 8) +
-          (arr[i + 3] & 0xFF) -
+          ((buffer.get(i) & 0xFF) << 24) +
+          ((buffer.get(i + 1) & 0xFF) << 16) +
+          ((buffer.get(i + 2) & 0xFF) << 8) +
+          (buffer.get(i + 3) & 0xFF) -
           2147483648L;
         i += 4;
         retval.add((int) sv);
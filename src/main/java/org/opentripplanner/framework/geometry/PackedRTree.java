@@ -0,0 +1,342 @@
+package org.opentripplanner.framework.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A static R-tree, bulk loaded with the Sort-Tile-Recursive (STR) algorithm. The items can not be
+ * changed after the tree is created.
+ * <p>
+ * The tree is packed: all nodes are full except the last one on each level, and the bounding
+ * boxes are stored in primitive arrays, not in node objects. The items are first, followed by the
+ * nodes of each level, and the root is last. The children of a node are consecutive, so a node is
+ * just an index into the arrays. Compared with the {@link HashGridSpatialIndex}, each item is
+ * stored once, and a query only looks at the items with an intersecting bounding box.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ *
+ * @param <T> Type of objects to be spatial indexed.
+ */
+public final class PackedRTree<T> {
+
+  private static final int NODE_SIZE = 16;
+
+  private static final PackedRTree<?> EMPTY = new PackedRTree<>(List.of(), List.of());
+
+  private final Object[] items;
+  private final double[] minX;
+  private final double[] minY;
+  private final double[] maxX;
+  private final double[] maxY;
+
+  /** The index after the last node of each level, level 0 is the items. */
+  private final int[] levelEnds;
+
+  private PackedRTree(List<T> items, List<Envelope> envelopes) {
+    if (items.size() != envelopes.size()) {
+      throw new IllegalArgumentException("The number of items and envelopes must be the same.");
+    }
+    int numItems = items.size();
+    this.levelEnds = levelEnds(numItems);
+    int numNodes = levelEnds.length == 0 ? 0 : levelEnds[levelEnds.length - 1];
+
+    this.items = new Object[numItems];
+    this.minX = new double[numNodes];
+    this.minY = new double[numNodes];
+    this.maxX = new double[numNodes];
+    this.maxY = new double[numNodes];
+
+    int[] order = strOrder(envelopes);
+    for (int i = 0; i < numItems; i++) {
+      var envelope = envelopes.get(order[i]);
+      this.items[i] = items.get(order[i]);
+      minX[i] = envelope.getMinX();
+      minY[i] = envelope.getMinY();
+      maxX[i] = envelope.getMaxX();
+      maxY[i] = envelope.getMaxY();
+    }
+    for (int level = 1; level < levelEnds.length; level++) {
+      for (int node = levelEnds[level - 1]; node < levelEnds[level]; node++) {
+        minX[node] = Double.POSITIVE_INFINITY;
+        minY[node] = Double.POSITIVE_INFINITY;
+        maxX[node] = Double.NEGATIVE_INFINITY;
+        maxY[node] = Double.NEGATIVE_INFINITY;
+        for (int child = firstChild(node, level); child < endChild(node, level); child++) {
+          minX[node] = Math.min(minX[node], minX[child]);
+          minY[node] = Math.min(minY[node], minY[child]);
+          maxX[node] = Math.max(maxX[node], maxX[child]);
+          maxY[node] = Math.max(maxY[node], maxY[child]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a tree with the given items, the envelope of each item is at the same position in the
+   * envelope list.
+   */
+  public static <T> PackedRTree<T> of(List<T> items, List<Envelope> envelopes) {
+    return items.isEmpty() ? empty() : new PackedRTree<>(items, envelopes);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> PackedRTree<T> empty() {
+    return (PackedRTree<T>) EMPTY;
+  }
+
+  public int size() {
+    return items.length;
+  }
+
+  /**
+   * Return the items with a bounding box intersecting the given envelope.
+   */
+  public List<T> query(Envelope envelope) {
+    var result = new ArrayList<T>();
+    if (items.length == 0) {
+      return result;
+    }
+    // Each stack entry is a node and its level
+    int[] stack = new int[2 * NODE_SIZE * levelEnds.length];
+    int top = 0;
+    stack[top++] = root();
+    stack[top++] = levelEnds.length - 1;
+
+    while (top > 0) {
+      int level = stack[--top];
+      int node = stack[--top];
+      if (!intersects(node, envelope)) {
+        continue;
+      }
+      if (level == 0) {
+        result.add(item(node));
+        continue;
+      }
+      for (int child = firstChild(node, level); child < endChild(node, level); child++) {
+        stack[top++] = child;
+        stack[top++] = level - 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Visit the items in the order of the distance from the given point to the bounding box of the
+   * item, nearest first. The distance is calculated in a local equirectangular projection, where
+   * the x coordinates are multiplied with the given scale. Only items closer than the max
+   * distance are visited. The search stops when the visitor returns {@code false}, so finding the
+   * nearest items only looks at a few nodes of the tree.
+   */
+  public void visitNearest(
+    double x,
+    double y,
+    double xScale,
+    double maxDistance,
+    NearestVisitor<? super T> visitor
+  ) {
+    if (items.length == 0) {
+      return;
+    }
+    var queue = new NodeQueue();
+    queue.add(root(), distance(root(), x, y, xScale));
+
+    while (!queue.isEmpty()) {
+      double distance = queue.peekDistance();
+      int node = queue.poll();
+      if (distance > maxDistance) {
+        return;
+      }
+      if (node < items.length) {
+        if (!visitor.visit(item(node), distance)) {
+          return;
+        }
+        continue;
+      }
+      int level = level(node);
+      for (int child = firstChild(node, level); child < endChild(node, level); child++) {
+        queue.add(child, distance(child, x, y, xScale));
+      }
+    }
+  }
+
+  /**
+   * Call the given action for each item and its envelope, in no particular order.
+   */
+  public void forEach(BiConsumer<? super T, Envelope> action) {
+    for (int i = 0; i < items.length; i++) {
+      action.accept(item(i), new Envelope(minX[i], maxX[i], minY[i], maxY[i]));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PackedRTree{items: %d, levels: %d}".formatted(items.length, levelEnds.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  private T item(int index) {
+    return (T) items[index];
+  }
+
+  private int root() {
+    return levelEnds[levelEnds.length - 1] - 1;
+  }
+
+  private int level(int node) {
+    int level = 0;
+    while (node >= levelEnds[level]) {
+      level++;
+    }
+    return level;
+  }
+
+  private int firstChild(int node, int level) {
+    int childLevelStart = level == 1 ? 0 : levelEnds[level - 2];
+    return childLevelStart + (node - levelEnds[level - 1]) * NODE_SIZE;
+  }
+
+  private int endChild(int node, int level) {
+    return Math.min(firstChild(node, level) + NODE_SIZE, levelEnds[level - 1]);
+  }
+
+  private boolean intersects(int node, Envelope envelope) {
+    return (
+      minX[node] <= envelope.getMaxX() &&
+      maxX[node] >= envelope.getMinX() &&
+      minY[node] <= envelope.getMaxY() &&
+      maxY[node] >= envelope.getMinY()
+    );
+  }
+
+  private double distance(int node, double x, double y, double xScale) {
+    double dx = Math.max(Math.max(minX[node] - x, x - maxX[node]), 0) * xScale;
+    double dy = Math.max(Math.max(minY[node] - y, y - maxY[node]), 0);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * The number of nodes on each level, accumulated. Level 0 is the items, the last level has one
+   * node, the root.
+   */
+  private static int[] levelEnds(int numItems) {
+    if (numItems == 0) {
+      return new int[0];
+    }
+    var ends = new ArrayList<Integer>();
+    int levelSize = numItems;
+    int end = numItems;
+    ends.add(end);
+    while (levelSize > 1) {
+      levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+      end += levelSize;
+      ends.add(end);
+    }
+    return ends.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Sort the items into vertical slices by the x coordinate of the center, and each slice by the y
+   * coordinate of the center. Then consecutive items are close to each other.
+   */
+  private static int[] strOrder(List<Envelope> envelopes) {
+    int n = envelopes.size();
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingDouble(i -> centerX(envelopes.get(i))));
+
+    int numLeafNodes = (n + NODE_SIZE - 1) / NODE_SIZE;
+    int numSlices = (int) Math.ceil(Math.sqrt(numLeafNodes));
+    int sliceSize = numSlices * NODE_SIZE;
+    for (int start = 0; start < n; start += sliceSize) {
+      int end = Math.min(start + sliceSize, n);
+      Arrays.sort(order, start, end, Comparator.comparingDouble(i -> centerY(envelopes.get(i))));
+    }
+    return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+  }
+
+  private static double centerX(Envelope envelope) {
+    return (envelope.getMinX() + envelope.getMaxX()) / 2;
+  }
+
+  private static double centerY(Envelope envelope) {
+    return (envelope.getMinY() + envelope.getMaxY()) / 2;
+  }
+
+  @FunctionalInterface
+  public interface NearestVisitor<T> {
+    /**
+     * @param minDistance the distance to the bounding box of the item, the distance to the item
+     *                    itself is the same or larger.
+     * @return {@code false} to stop the search.
+     */
+    boolean visit(T item, double minDistance);
+  }
+
+  /**
+   * A binary min-heap of nodes ordered by distance, in primitive arrays.
+   */
+  private static final class NodeQueue {
+
+    private double[] distances = new double[64];
+    private int[] nodes = new int[64];
+    private int size = 0;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    double peekDistance() {
+      return distances[0];
+    }
+
+    void add(int node, double distance) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, 2 * size);
+        distances = Arrays.copyOf(distances, 2 * size);
+      }
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (distances[parent] <= distance) {
+          break;
+        }
+        nodes[i] = nodes[parent];
+        distances[i] = distances[parent];
+        i = parent;
+      }
+      nodes[i] = node;
+      distances[i] = distance;
+    }
+
+    int poll() {
+      int result = nodes[0];
+      int lastNode = nodes[--size];
+      double lastDistance = distances[size];
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && distances[child + 1] < distances[child]) {
+          child++;
+        }
+        if (lastDistance <= distances[child]) {
+          break;
+        }
+        nodes[i] = nodes[child];
+        distances[i] = distances[child];
+        i = child;
+      }
+      nodes[i] = lastNode;
+      distances[i] = lastDistance;
+      return result;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package org.opentripplanner.framework.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A read-only list of byte arrays stored in a file which is memory-mapped. Use this for large
+ * amounts of immutable data, like street geometries, to avoid creating millions of small objects
+ * on the heap. Use {@link #buffer(int)} to read an array without copying it out of the mapped
+ * file.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ *   int    magic
+ *   int    version
+ *   long   number of arrays (n)
+ *   long[] start offset of each array in the data section, n + 1 values
+ *   byte[] data section
+ * </pre>
+ * A file can be larger than 2GB, so the file is mapped in chunks. An array may cross a chunk
+ * boundary, but the header and offset values never do.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class MappedByteArrayFile {
+
+  private static final int MAGIC = 0x4f545042;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int CHUNK_SIZE = 1 << 30;
+
+  private final ByteBuffer[] chunks;
+  private final int size;
+  private final long dataStart;
+
+  private MappedByteArrayFile(ByteBuffer[] chunks) {
+    this.chunks = chunks;
+    if (chunks.length == 0 || chunks[0].getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a byte array file.");
+    }
+    if (chunks[0].getInt(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported version: " + chunks[0].getInt(4));
+    }
+    this.size = Math.toIntExact(chunks[0].getLong(8));
+    this.dataStart = HEADER_SIZE + 8L * (size + 1);
+  }
+
+  /**
+   * Write the given arrays to a file. The index of each array in the list is used to retrieve
+   * it, see {@link #get(int)}.
+   */
+  public static void write(Path file, List<byte[]> arrays) throws IOException {
+    try (
+      OutputStream fileOutput = Files.newOutputStream(file);
+      var output = new DataOutputStream(new BufferedOutputStream(fileOutput, 1 << 16))
+    ) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeLong(arrays.size());
+      long offset = 0;
+      for (byte[] it : arrays) {
+        output.writeLong(offset);
+        offset += it.length;
+      }
+      output.writeLong(offset);
+      for (byte[] it : arrays) {
+        output.write(it);
+      }
+    }
+  }
+
+  /**
+   * Memory-map the given file. The mapping is kept until this instance is garbage collected.
+   */
+  public static MappedByteArrayFile map(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long length = channel.size();
+      int nChunks = (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+      var chunks = new ByteBuffer[nChunks];
+      for (int i = 0; i < nChunks; ++i) {
+        long start = (long) i * CHUNK_SIZE;
+        MappedByteBuffer buffer = channel.map(
+          FileChannel.MapMode.READ_ONLY,
+          start,
+          Math.min(CHUNK_SIZE, length - start)
+        );
+        chunks[i] = buffer;
+      }
+      return new MappedByteArrayFile(chunks);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return a copy of the array with the given index.
+   */
+  public byte[] get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    long start = offset(index);
+    byte[] result = new byte[(int) (offset(index + 1) - start)];
+    copy(dataStart + start, result);
+    return result;
+  }
+
+  /**
+   * Return a read-only view of the array with the given index, from the position to the limit of
+   * the buffer. The bytes are only copied if the array crosses a chunk boundary.
+   */
+  public ByteBuffer buffer(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    long start = offset(index);
+    int length = (int) (offset(index + 1) - start);
+    long pos = dataStart + start;
+    int chunkPos = (int) (pos % CHUNK_SIZE);
+    if (chunkPos + length <= CHUNK_SIZE) {
+      return chunks[(int) (pos / CHUNK_SIZE)].slice(chunkPos, length).asReadOnlyBuffer();
+    }
+    byte[] result = new byte[length];
+    copy(pos, result);
+    return ByteBuffer.wrap(result).asReadOnlyBuffer();
+  }
+
+  private long offset(int index) {
+    long pos = HEADER_SIZE + 8L * index;
+    return chunks[(int) (pos / CHUNK_SIZE)].getLong((int) (pos % CHUNK_SIZE));
+  }
+
+  private void copy(long pos, byte[] target) {
+    int done = 0;
+    while (done < target.length) {
+      var chunk = chunks[(int) (pos / CHUNK_SIZE)];
+      int chunkPos = (int) (pos % CHUNK_SIZE);
+      int n = Math.min(target.length - done, CHUNK_SIZE - chunkPos);
+      chunk.get(chunkPos, target, done, n);
+      done += n;
+      pos += n;
+    }
+  }
+}
@@ -193,7 +193,7 @@ public class ProgressTracker {
    * @param deltaSteps           number of steps performed for this invocation.
    * @param progressNotification the notification callback
    */
-  public void steps(int deltaSteps, Consumer<String> progressNotification) {
+  public void steps(long deltaSteps, Consumer<String> progressNotification) {
     // This need to be THREAD-SAFE, so we can only access the stepCounter once. We need to know
     // the current value and the new value after it the stepCounter is incremented. This is
     // necessary to be able to know if we should proceed with a notification. We achieve this
@@ -158,6 +158,10 @@ public class GraphBuilder implements Runnable {
       graphBuilder.addModule(factory.graphCoherencyCheckerModule());
     }
 
+    if ((loadStreetGraph || hasOsm) && config.streetLandmarks > 0) {
+      graphBuilder.addModule(factory.streetLandmarksModule());
+    }
+
     if (OTPFeature.Co2Emissions.isOn()) {
       graphBuilder.addModule(factory.emissionsModule());
     }
@@ -1,12 +1,15 @@
 package org.opentripplanner.graph_builder.module;
 
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimaps;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
@@ -80,100 +83,125 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       stops.size()
     );
 
-    AtomicInteger nTransfersTotal = new AtomicInteger();
-    AtomicInteger nLinkedStops = new AtomicInteger();
+    resetPeakHeapUsage();
+    long startTime = System.currentTimeMillis();
 
-    // This is a synchronizedMultimap so that a parallel stream may be used to insert elements.
-    var transfersByStop = Multimaps.<StopLocation, PathTransfer>synchronizedMultimap(
-      HashMultimap.create()
-    );
+    // Each stop writes its transfers to its own slot, so the stops can be processed in parallel
+    // without a lock. Only the transfers are kept, the search states are dropped once the edges
+    // of each transfer are extracted.
+    PathTransfer[][] transfersByStopIndex = new PathTransfer[stops.size()][];
 
-    stops
-      .stream()
+    IntStream
+      .range(0, stops.size())
       .parallel()
-      .forEach(ts0 -> {
-        /* Make transfers to each nearby stop that has lowest weight on some trip pattern.
-         * Use map based on the list of edges, so that only distinct transfers are stored. */
-        Map<TransferKey, PathTransfer> distinctTransfers = new HashMap<>();
-        RegularStop stop = ts0.getStop();
-
-        if (stop.transfersNotAllowed()) {
-          return;
-        }
-
-        LOG.debug("Linking stop '{}' {}", stop, ts0);
-
-        for (RouteRequest transferProfile : transferRequests) {
-          for (NearbyStop sd : nearbyStopFinder.findNearbyStops(
-            ts0,
-            transferProfile,
-            transferProfile.journey().transfer(),
-            false
-          )) {
-            // Skip the origin stop, loop transfers are not needed.
-            if (sd.stop == stop) {
-              continue;
-            }
-            if (sd.stop.transfersNotAllowed()) {
-              continue;
-            }
-            distinctTransfers.put(
-              new TransferKey(stop, sd.stop, sd.edges),
-              new PathTransfer(stop, sd.stop, sd.distance, sd.edges)
-            );
-          }
-          if (OTPFeature.FlexRouting.isOn()) {
-            // This code is for finding transfers from AreaStops to Stops, transfers
-            // from Stops to AreaStops and between Stops are already covered above.
-            for (NearbyStop sd : nearbyStopFinder.findNearbyStops(
-              ts0,
-              transferProfile,
-              transferProfile.journey().transfer(),
-              true
-            )) {
-              // Skip the origin stop, loop transfers are not needed.
-              if (sd.stop == stop) {
-                continue;
-              }
-              if (sd.stop instanceof RegularStop) {
-                continue;
-              }
-              distinctTransfers.put(
-                new TransferKey(sd.stop, stop, sd.edges),
-                new PathTransfer(sd.stop, stop, sd.distance, sd.edges)
-              );
-            }
-          }
-        }
-
-        LOG.debug(
-          "Linked stop {} with {} transfers to stops with different patterns.",
-          stop,
-          distinctTransfers.size()
-        );
-        if (distinctTransfers.isEmpty()) {
-          issueStore.add(new StopNotLinkedForTransfers(ts0));
-        } else {
-          distinctTransfers
-            .values()
-            .forEach(transfer -> transfersByStop.put(transfer.from, transfer));
-          nLinkedStops.incrementAndGet();
-          nTransfersTotal.addAndGet(distinctTransfers.size());
-        }
+      .forEach(i -> {
+        transfersByStopIndex[i] = findTransfers(stops.get(i), nearbyStopFinder);
 
         //Keep lambda! A method-ref would causes incorrect class and line number to be logged
         //noinspection Convert2MethodRef
         progress.step(m -> LOG.info(m));
       });
 
+    var transfersByStop = HashMultimap.<StopLocation, PathTransfer>create();
+    int nTransfersTotal = 0;
+    int nLinkedStops = 0;
+    for (PathTransfer[] transfers : transfersByStopIndex) {
+      if (transfers != null && transfers.length > 0) {
+        for (PathTransfer transfer : transfers) {
+          transfersByStop.put(transfer.from, transfer);
+        }
+        nLinkedStops++;
+        nTransfersTotal += transfers.length;
+      }
+    }
+
     transitModel.addAllTransfersByStops(transfersByStop);
 
+    long durationMillis = Math.max(System.currentTimeMillis() - startTime, 1);
     LOG.info(progress.completeMessage());
     LOG.info(
       "Done connecting stops to one another. Created a total of {} transfers from {} stops.",
       nTransfersTotal,
       nLinkedStops
     );
+    LOG.info(
+      "Created {} transfers per second, peak heap usage {} MB.",
+      nTransfersTotal * 1000L / durationMillis,
+      peakHeapUsage() / (1024 * 1024)
+    );
+  }
+
+  /**
+   * Find the transfers from the given stop, and the flex transfers from area stops to it. Returns
+   * {@code null} if transfers are not allowed from the stop.
+   */
+  @Nullable
+  private PathTransfer[] findTransfers(TransitStopVertex ts0, NearbyStopFinder nearbyStopFinder) {
+    /* Make transfers to each nearby stop that has lowest weight on some trip pattern.
+     * Use map based on the list of edges, so that only distinct transfers are stored. */
+    Map<TransferKey, PathTransfer> distinctTransfers = new HashMap<>();
+    RegularStop stop = ts0.getStop();
+
+    if (stop.transfersNotAllowed()) {
+      return null;
+    }
+
+    LOG.debug("Linking stop '{}' {}", stop, ts0);
+
+    for (RouteRequest transferProfile : transferRequests) {
+      for (NearbyStop sd : nearbyStopFinder.findNearbyStops(
+        ts0,
+        transferProfile,
+        transferProfile.journey().transfer(),
+        false
+      )) {
+        // Skip the origin stop, loop transfers are not needed.
+        if (sd.stop == stop) {
+          continue;
+        }
+        if (sd.stop.transfersNotAllowed()) {
+          continue;
+        }
+        var edges = List.copyOf(sd.edges);
+        distinctTransfers.put(
+          new TransferKey(stop, sd.stop, edges),
+          new PathTransfer(stop, sd.stop, sd.distance, edges)
+        );
+      }
+      if (OTPFeature.FlexRouting.isOn()) {
+        // This code is for finding transfers from AreaStops to Stops, transfers
+        // from Stops to AreaStops and between Stops are already covered above.
+        for (NearbyStop sd : nearbyStopFinder.findNearbyStops(
+          ts0,
+          transferProfile,
+          transferProfile.journey().transfer(),
+          true
+        )) {
+          // Skip the origin stop, loop transfers are not needed.
+          if (sd.stop == stop) {
+            continue;
+          }
+          if (sd.stop instanceof RegularStop) {
+            continue;
+          }
+          var edges = List.copyOf(sd.edges);
+          distinctTransfers.put(
+            new TransferKey(sd.stop, stop, edges),
+            new PathTransfer(sd.stop, stop, sd.distance, edges)
+          );
+        }
+      }
+    }
+
+    LOG.debug(
+      "Linked stop {} with {} transfers to stops with different patterns.",
+      stop,
+      distinctTransfers.size()
+    );
+    if (distinctTransfers.isEmpty()) {
+      issueStore.add(new StopNotLinkedForTransfers(ts0));
+    }
+    return distinctTransfers.values().toArray(PathTransfer[]::new);
   }
 
   /**
@@ -191,7 +219,7 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       finder = new StraightLineNearbyStopFinder(transitService, radiusByDuration);
     } else {
       LOG.info("Creating direct transfer edges between stops using the street network from OSM...");
-      finder = new StreetNearbyStopFinder(radiusByDuration, 0, null);
+      finder = new StreetNearbyStopFinder(radiusByDuration, 0, null).withShortestPathTreesReused();
     }
 
     if (OTPFeature.ConsiderPatternsForDirectTransfers.isOn()) {
@@ -201,5 +229,25 @@ public class DirectTransferGenerator implements GraphBuilderModule {
     }
   }
 
+  private static void resetPeakHeapUsage() {
+    heapMemoryPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+  }
+
+  /**
+   * The sum of the peak usage of each heap memory pool since the last reset. The pools may peak at
+   * different times, so this is an upper bound.
+   */
+  private static long peakHeapUsage() {
+    return heapMemoryPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+  }
+
+  private static List<MemoryPoolMXBean> heapMemoryPools() {
+    return ManagementFactory
+      .getMemoryPoolMXBeans()
+      .stream()
+      .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+      .toList();
+  }
+
   private record TransferKey(StopLocation source, StopLocation target, List<Edge> edges) {}
 }
@@ -0,0 +1,42 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.opentripplanner.framework.time.DurationUtils;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.StreetLandmarks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Choose the street landmarks and compute the distances from them to all vertices, see
+ * {@link StreetLandmarks}. This must run after all the street edges are added to the graph.
+ */
+public class StreetLandmarksModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetLandmarksModule.class);
+
+  private final Graph graph;
+  private final int numberOfLandmarks;
+
+  public StreetLandmarksModule(Graph graph, int numberOfLandmarks) {
+    this.graph = graph;
+    this.numberOfLandmarks = numberOfLandmarks;
+  }
+
+  @Override
+  public void buildGraph() {
+    LOG.info("Computing the distances to {} street landmarks...", numberOfLandmarks);
+    var start = Instant.now();
+    var landmarks = StreetLandmarks.build(graph.getVertices(), numberOfLandmarks);
+    graph.setStreetLandmarks(landmarks);
+    // Log the build time and the size added to the graph, to weigh them against the search speedup
+    LOG.info(
+      "Street landmarks computed in {}: {}, table size {} MB",
+      DurationUtils.durationToStr(Duration.between(start, Instant.now())),
+      landmarks,
+      landmarks.sizeInBytes() / (1024 * 1024)
+    );
+  }
+}
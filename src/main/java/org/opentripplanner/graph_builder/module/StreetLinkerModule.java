@@ -1,9 +1,12 @@
 package org.opentripplanner.graph_builder.module;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.framework.logging.ProgressTracker;
@@ -51,17 +54,33 @@ public class StreetLinkerModule implements GraphBuilderModule {
   private final TransitModel transitModel;
   private final DataImportIssueStore issueStore;
   private final Boolean addExtraEdgesToAreas;
+  private final boolean multiThreaded;
 
   public StreetLinkerModule(
     Graph graph,
     TransitModel transitModel,
     DataImportIssueStore issueStore,
     boolean addExtraEdgesToAreas
+  ) {
+    this(graph, transitModel, issueStore, addExtraEdgesToAreas, false);
+  }
+
+  /**
+   * @param multiThreaded link the transit stops and entrances using several threads, see
+   *                      {@code VertexLinker#linkVerticesInParallel}.
+   */
+  public StreetLinkerModule(
+    Graph graph,
+    TransitModel transitModel,
+    DataImportIssueStore issueStore,
+    boolean addExtraEdgesToAreas,
+    boolean multiThreaded
   ) {
     this.graph = graph;
     this.transitModel = transitModel;
     this.issueStore = issueStore;
     this.addExtraEdgesToAreas = addExtraEdgesToAreas;
+    this.multiThreaded = multiThreaded;
   }
 
   @Override
@@ -106,6 +125,7 @@ public class StreetLinkerModule implements GraphBuilderModule {
       );
     }
 
+    Map<TransitStopVertex, StopLinkType> stopsToLink = new LinkedHashMap<>();
     for (TransitStopVertex tStop : vertices) {
       // Stops with pathways do not need to be connected to the street network, since there are explicit entrances defined for that
       if (tStop.hasPathways()) {
@@ -124,11 +144,27 @@ public class StreetLinkerModule implements GraphBuilderModule {
       ) {
         linkType = StopLinkType.WALK_AND_CAR;
       }
+      stopsToLink.put(tStop, linkType);
+    }
 
-      linkStopToStreetNetwork(tStop, linkType);
-
+    Consumer<TransitStopVertex> linkStop = tStop -> {
+      linkStopToStreetNetwork(tStop, stopsToLink.get(tStop));
       //noinspection Convert2MethodRef
       progress.step(m -> LOG.info(m));
+    };
+
+    if (multiThreaded) {
+      graph
+        .getLinker()
+        .linkVerticesInParallel(
+          List.copyOf(stopsToLink.keySet()),
+          WALK_ONLY,
+          // The car links are searched for separately, link these stops one at a time
+          tStop -> stopsToLink.get(tStop) == StopLinkType.WALK_AND_CAR,
+          linkStop
+        );
+    } else {
+      stopsToLink.keySet().forEach(linkStop);
     }
     LOG.info(progress.completeMessage());
   }
@@ -238,28 +274,42 @@ public class StreetLinkerModule implements GraphBuilderModule {
 
   private void linkTransitEntrances(Graph graph) {
     LOG.info("Linking transit entrances to graph...");
-    for (TransitEntranceVertex tEntrance : graph.getVerticesOfType(TransitEntranceVertex.class)) {
+    List<TransitEntranceVertex> entrances = graph.getVerticesOfType(TransitEntranceVertex.class);
+    if (multiThreaded) {
       graph
         .getLinker()
-        .linkVertexPermanently(
-          tEntrance,
-          new TraverseModeSet(TraverseMode.WALK),
-          LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              StreetTransitEntranceLink.createStreetTransitEntranceLink(
-                (TransitEntranceVertex) vertex,
-                streetVertex
-              ),
-              StreetTransitEntranceLink.createStreetTransitEntranceLink(
-                streetVertex,
-                (TransitEntranceVertex) vertex
-              )
-            )
+        .linkVerticesInParallel(
+          entrances,
+          WALK_ONLY,
+          e -> false,
+          e -> linkTransitEntrance(graph, e)
         );
+    } else {
+      entrances.forEach(e -> linkTransitEntrance(graph, e));
     }
   }
 
+  private static void linkTransitEntrance(Graph graph, TransitEntranceVertex tEntrance) {
+    graph
+      .getLinker()
+      .linkVertexPermanently(
+        tEntrance,
+        new TraverseModeSet(TraverseMode.WALK),
+        LinkingDirection.BOTH_WAYS,
+        (vertex, streetVertex) ->
+          List.of(
+            StreetTransitEntranceLink.createStreetTransitEntranceLink(
+              (TransitEntranceVertex) vertex,
+              streetVertex
+            ),
+            StreetTransitEntranceLink.createStreetTransitEntranceLink(
+              streetVertex,
+              (TransitEntranceVertex) vertex
+            )
+          )
+      );
+  }
+
   private void linkStationCentroids(Graph graph) {
     BiFunction<Vertex, StreetVertex, List<Edge>> stationAndStreetVertexLinker = (
         theStation,
@@ -25,6 +25,7 @@ import org.opentripplanner.graph_builder.issue.report.DataImportIssueReporter;
 import org.opentripplanner.graph_builder.issue.service.DefaultDataImportIssueStore;
 import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
 import org.opentripplanner.graph_builder.module.RouteToCentroidStationIdsValidator;
+import org.opentripplanner.graph_builder.module.StreetLandmarksModule;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.graph_builder.module.islandpruning.PruneIslands;
 import org.opentripplanner.graph_builder.module.ned.DegreeGridNEDTileSource;
@@ -70,6 +71,7 @@ public class GraphBuilderModules {
           osmConfiguredDataSource.config().osmTagMapper(),
           osmConfiguredDataSource.config().timeZone(),
           config.osmCacheDataInMem,
+          config.multiThreadOsmParsing,
           issueStore
         )
       );
@@ -158,7 +160,19 @@ public class GraphBuilderModules {
     TransitModel transitModel,
     DataImportIssueStore issueStore
   ) {
-    return new StreetLinkerModule(graph, transitModel, issueStore, config.areaVisibility);
+    return new StreetLinkerModule(
+      graph,
+      transitModel,
+      issueStore,
+      config.areaVisibility,
+      config.multiThreadStopLinking
+    );
+  }
+
+  @Provides
+  @Singleton
+  static StreetLandmarksModule provideStreetLandmarksModule(BuildConfig config, Graph graph) {
+    return new StreetLandmarksModule(graph, config.streetLandmarks);
   }
 
   @Provides
@@ -173,7 +187,13 @@ public class GraphBuilderModules {
       graph,
       transitModel,
       issueStore,
-      new StreetLinkerModule(graph, transitModel, issueStore, config.areaVisibility)
+      new StreetLinkerModule(
+        graph,
+        transitModel,
+        issueStore,
+        config.areaVisibility,
+        config.multiThreadStopLinking
+      )
     );
     pruneIslands.setPruningThresholdIslandWithoutStops(
       config.islandPruning.pruningThresholdIslandWithoutStops
@@ -9,7 +9,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nullable;
 import org.opentripplanner.astar.model.ShortestPathTree;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
 import org.opentripplanner.astar.strategy.ComposingSkipEdgeStrategy;
@@ -42,6 +45,7 @@ public class StreetNearbyStopFinder implements NearbyStopFinder {
   private final int maxStopCount;
   private final DataOverlayContext dataOverlayContext;
   private final Set<Vertex> ignoreVertices;
+  private Queue<ShortestPathTree<State, Edge, Vertex>> reusedShortestPathTrees;
 
   /**
    * Construct a NearbyStopFinder for the given graph and search radius.
@@ -76,6 +80,17 @@ public class StreetNearbyStopFinder implements NearbyStopFinder {
     this.ignoreVertices = ignoreVertices;
   }
 
+  /**
+   * Reuse the shortest path trees of finished searches, instead of creating a new tree for each
+   * search. Use this when the finder runs many searches in a few threads, like when generating
+   * transfers. There is at most one tree per concurrent search. The trees are kept by this
+   * finder, and released with it, so do not keep the finder after the searches are done.
+   */
+  public StreetNearbyStopFinder withShortestPathTreesReused() {
+    this.reusedShortestPathTrees = new ConcurrentLinkedQueue<>();
+    return this;
+  }
+
   /**
    * Return all stops within a certain radius of the given vertex, using network distance along
    * streets. If the origin vertex is a StopVertex, the result will include it; this characteristic
@@ -123,10 +138,12 @@ public class StreetNearbyStopFinder implements NearbyStopFinder {
     }
     stopsFound = new ArrayList<>(stopsFound);
 
+    var reusedShortestPathTree = takeReusedShortestPathTree();
     ShortestPathTree<State, Edge, Vertex> spt = StreetSearchBuilder
       .of()
       .setSkipEdgeStrategy(getSkipEdgeStrategy())
       .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setShortestPathTree(reusedShortestPathTree)
       .setRequest(request)
       .setArriveBy(reverseDirection)
       .setStreetRequest(streetRequest)
@@ -183,9 +200,25 @@ public class StreetNearbyStopFinder implements NearbyStopFinder {
       }
     }
 
+    if (reusedShortestPathTree != null) {
+      reusedShortestPathTrees.offer(reusedShortestPathTree);
+    }
     return stopsFound;
   }
 
+  /**
+   * Take a tree from the finished searches, or create a new one if all are in use. Returns null if
+   * the trees are not reused.
+   */
+  @Nullable
+  private ShortestPathTree<State, Edge, Vertex> takeReusedShortestPathTree() {
+    if (reusedShortestPathTrees == null) {
+      return null;
+    }
+    var tree = reusedShortestPathTrees.poll();
+    return tree != null ? tree : new ShortestPathTree<>(new DominanceFunctions.MinimumWeight());
+  }
+
   private SkipEdgeStrategy<State, Edge> getSkipEdgeStrategy() {
     var durationSkipEdgeStrategy = new DurationSkipEdgeStrategy(durationLimit);
 
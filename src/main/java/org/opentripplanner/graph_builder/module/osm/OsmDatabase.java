@@ -210,6 +210,14 @@ public class OsmDatabase {
     return waysNodeIds.contains(nodeId);
   }
 
+  /**
+   * @return true if the node is part of a way or an area. Nodes without tags are only kept if
+   * they are referenced, so the parser can skip the other nodes without tags.
+   */
+  public boolean isNodeReferenced(long nodeId) {
+    return waysNodeIds.contains(nodeId) || areaNodeIds.contains(nodeId);
+  }
+
   public void addNode(OsmNode node) {
     if (node.isBikeParking()) {
       bikeParkingNodes.put(node.getId(), node);
@@ -217,13 +225,7 @@ public class OsmDatabase {
     if (node.isParkAndRide()) {
       carParkingNodes.put(node.getId(), node);
     }
-    if (
-      !(
-        waysNodeIds.contains(node.getId()) ||
-        areaNodeIds.contains(node.getId()) ||
-        node.isBoardingLocation()
-      )
-    ) {
+    if (!(isNodeReferenced(node.getId()) || node.isBoardingLocation())) {
       return;
     }
 
@@ -62,6 +62,9 @@ public class Timetable implements Serializable {
   @Nullable
   private final LocalDate serviceDate;
 
+  /** Created on first use, see {@link #getStopTimeIndex()} */
+  private transient volatile TimetableStopTimeIndex stopTimeIndex;
+
   Timetable(TimetableBuilder timetableBuilder) {
     this.pattern = timetableBuilder.getPattern();
     this.serviceDate = timetableBuilder.getServiceDate();
@@ -406,6 +409,18 @@ public class Timetable implements Serializable {
     return tripTimes;
   }
 
+  /**
+   * The trip times ordered by arrival and departure time at each stop position.
+   */
+  public TimetableStopTimeIndex getStopTimeIndex() {
+    var index = stopTimeIndex;
+    if (index == null) {
+      index = new TimetableStopTimeIndex(tripTimes, pattern.numberOfStops());
+      stopTimeIndex = index;
+    }
+    return index;
+  }
+
   /**
    * Contains one FrequencyEntry object for each block of frequency-based trips.
    */
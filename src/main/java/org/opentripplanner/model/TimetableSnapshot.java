@@ -2,25 +2,20 @@ package org.opentripplanner.model;
 
 import static org.opentripplanner.framework.collection.CollectionUtils.getByNullableKey;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.SetMultimap;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import javax.annotation.Nullable;
+import org.opentripplanner.framework.collection.PersistentHashMap;
+import org.opentripplanner.framework.collection.PersistentHashSet;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.framework.Result;
@@ -72,10 +67,13 @@ import org.slf4j.LoggerFactory;
  * transit network. It would also be possible to make the realtime version of Timetables or
  * TripTimes the primary view, and include references back to their scheduled versions.
  * <p>
- * Implementation note: when a snapshot is committed, the mutable state of this class is stored
- * in final fields and completely initialized in the constructor. This provides an additional
- * guarantee of safe-publication without synchronization.
- * (see <a href="https://docs.oracle.com/javase/specs/jls/se7/html/jls-17.html#jls-17.5">final Field Semantics</a>)
+ * Implementation note: all indexes are kept in {@link PersistentHashMap}s. An update replaces the
+ * map in the buffer with a new version sharing structure with the old one, so committing a
+ * snapshot only hands over references to the current versions. The cost of a commit is therefore
+ * proportional to the number of dirty timetables (which must be passed to the
+ * {@link TransitLayerUpdater}), not to the total amount of realtime data accumulated. A committed
+ * snapshot never modifies its fields, and it is published to the routing threads through a
+ * synchronized reference (see {@code TimetableSnapshotManager}).
  */
 public class TimetableSnapshot {
 
@@ -104,7 +102,7 @@ public class TimetableSnapshot {
    * The compound key approach better reflects the fact that there should be only one Timetable per
    * TripPattern and date.
    */
-  private final Map<TripPattern, SortedSet<Timetable>> timetables;
+  private PersistentHashMap<TripPattern, SortedSet<Timetable>> timetables;
 
   /**
    * For cases where the trip pattern (sequence of stops visited) has been changed by a realtime
@@ -115,29 +113,29 @@ public class TimetableSnapshot {
    * .
    * TODO RT_AB: clarify if this is an index or the original source of truth.
    */
-  private final Map<TripIdAndServiceDate, TripPattern> realTimeNewTripPatternsForModifiedTrips;
+  private PersistentHashMap<TripIdAndServiceDate, TripPattern> realTimeNewTripPatternsForModifiedTrips;
 
   /**
    * This is an index of TripPatterns, not the primary collection. It tracks which TripPatterns
    * that were updated or newly created by realtime messages contain which stops. This allows them
    * to be readily found and included in API responses containing stop times at a specific stop.
-   * This is a SetMultimap, so that each pattern is only retained once per stop even if it's added
-   * more than once.
+   * The values are persistent sets, so that each pattern is only retained once per stop even if
+   * it's added more than once.
    * TODO RT_AB: More general handling of all realtime indexes outside primary data structures.
    */
-  private final SetMultimap<StopLocation, TripPattern> patternsForStop;
+  private PersistentHashMap<StopLocation, PersistentHashSet<TripPattern>> patternsForStop;
 
   /**
    * The realTimeAdded* maps are indexes on the trips created at runtime (extra-journey), and the
    * Route, TripPattern, TripOnServiceDate they refer to.
    * They are meant to override the corresponding indexes in TransitModelIndex.
    */
-  private final Map<FeedScopedId, Route> realtimeAddedRoutes;
-  private final Map<FeedScopedId, Trip> realTimeAddedTrips;
-  private final Map<Trip, TripPattern> realTimeAddedPatternForTrip;
-  private final Multimap<Route, TripPattern> realTimeAddedPatternsForRoute;
-  private final Map<FeedScopedId, TripOnServiceDate> realTimeAddedTripOnServiceDateById;
-  private final Map<TripIdAndServiceDate, TripOnServiceDate> realTimeAddedTripOnServiceDateForTripAndDay;
+  private PersistentHashMap<FeedScopedId, Route> realtimeAddedRoutes;
+  private PersistentHashMap<FeedScopedId, Trip> realTimeAddedTrips;
+  private PersistentHashMap<Trip, TripPattern> realTimeAddedPatternForTrip;
+  private PersistentHashMap<Route, PersistentHashSet<TripPattern>> realTimeAddedPatternsForRoute;
+  private PersistentHashMap<FeedScopedId, TripOnServiceDate> realTimeAddedTripOnServiceDateById;
+  private PersistentHashMap<TripIdAndServiceDate, TripOnServiceDate> realTimeAddedTripOnServiceDateForTripAndDay;
 
   /**
    * Boolean value indicating that timetable snapshot is read only if true. Once it is true, it
@@ -153,29 +151,29 @@ public class TimetableSnapshot {
 
   public TimetableSnapshot() {
     this(
-      new HashMap<>(),
-      new HashMap<>(),
-      new HashMap<>(),
-      new HashMap<>(),
-      new HashMap<>(),
-      HashMultimap.create(),
-      new HashMap<>(),
-      new HashMap<>(),
-      HashMultimap.create(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
+      PersistentHashMap.empty(),
       false
     );
   }
 
   private TimetableSnapshot(
-    Map<TripPattern, SortedSet<Timetable>> timetables,
-    Map<TripIdAndServiceDate, TripPattern> realTimeNewTripPatternsForModifiedTrips,
-    Map<FeedScopedId, Route> realtimeAddedRoutes,
-    Map<FeedScopedId, Trip> realtimeAddedTrips,
-    Map<Trip, TripPattern> realTimeAddedPatternForTrip,
-    Multimap<Route, TripPattern> realTimeAddedPatternsForRoute,
-    Map<FeedScopedId, TripOnServiceDate> realTimeAddedTripOnServiceDateById,
-    Map<TripIdAndServiceDate, TripOnServiceDate> realTimeAddedTripOnServiceDateForTripAndDay,
-    SetMultimap<StopLocation, TripPattern> patternsForStop,
+    PersistentHashMap<TripPattern, SortedSet<Timetable>> timetables,
+    PersistentHashMap<TripIdAndServiceDate, TripPattern> realTimeNewTripPatternsForModifiedTrips,
+    PersistentHashMap<FeedScopedId, Route> realtimeAddedRoutes,
+    PersistentHashMap<FeedScopedId, Trip> realtimeAddedTrips,
+    PersistentHashMap<Trip, TripPattern> realTimeAddedPatternForTrip,
+    PersistentHashMap<Route, PersistentHashSet<TripPattern>> realTimeAddedPatternsForRoute,
+    PersistentHashMap<FeedScopedId, TripOnServiceDate> realTimeAddedTripOnServiceDateById,
+    PersistentHashMap<TripIdAndServiceDate, TripOnServiceDate> realTimeAddedTripOnServiceDateForTripAndDay,
+    PersistentHashMap<StopLocation, PersistentHashSet<TripPattern>> patternsForStop,
     boolean readOnly
   ) {
     this.timetables = timetables;
@@ -263,7 +261,7 @@ public class TimetableSnapshot {
    * Return the trip patterns created by the updater for the given route.
    */
   public Collection<TripPattern> getRealTimeAddedPatternForRoute(Route route) {
-    return realTimeAddedPatternsForRoute.get(route);
+    return realTimeAddedPatternsForRoute.getOrDefault(route, PersistentHashSet.empty());
   }
 
   /**
@@ -317,7 +315,8 @@ public class TimetableSnapshot {
       // Remember this pattern for the added trip id and service date
       FeedScopedId tripId = trip.getId();
       TripIdAndServiceDate tripIdAndServiceDate = new TripIdAndServiceDate(tripId, serviceDate);
-      realTimeNewTripPatternsForModifiedTrips.put(tripIdAndServiceDate, pattern);
+      realTimeNewTripPatternsForModifiedTrips =
+        realTimeNewTripPatternsForModifiedTrips.plus(tripIdAndServiceDate, pattern);
     }
 
     // To make these trip patterns visible for departureRow searches.
@@ -326,21 +325,23 @@ public class TimetableSnapshot {
     Route route = trip.getRoute();
 
     if (realTimeTripUpdate.routeCreation()) {
-      realtimeAddedRoutes.put(route.getId(), route);
+      realtimeAddedRoutes = realtimeAddedRoutes.plus(route.getId(), route);
     }
     if (realTimeTripUpdate.tripCreation()) {
       FeedScopedId tripId = trip.getId();
-      realTimeAddedTrips.put(tripId, trip);
-      realTimeAddedPatternForTrip.put(trip, pattern);
-      realTimeAddedPatternsForRoute.put(route, pattern);
+      realTimeAddedTrips = realTimeAddedTrips.plus(tripId, trip);
+      realTimeAddedPatternForTrip = realTimeAddedPatternForTrip.plus(trip, pattern);
+      realTimeAddedPatternsForRoute = plusToSet(realTimeAddedPatternsForRoute, route, pattern);
       TripOnServiceDate tripOnServiceDate = realTimeTripUpdate.addedTripOnServiceDate();
 
       if (tripOnServiceDate != null) {
-        realTimeAddedTripOnServiceDateById.put(tripOnServiceDate.getId(), tripOnServiceDate);
-        realTimeAddedTripOnServiceDateForTripAndDay.put(
-          new TripIdAndServiceDate(tripId, serviceDate),
-          tripOnServiceDate
-        );
+        realTimeAddedTripOnServiceDateById =
+          realTimeAddedTripOnServiceDateById.plus(tripOnServiceDate.getId(), tripOnServiceDate);
+        realTimeAddedTripOnServiceDateForTripAndDay =
+          realTimeAddedTripOnServiceDateForTripAndDay.plus(
+            new TripIdAndServiceDate(tripId, serviceDate),
+            tripOnServiceDate
+          );
       }
     }
 
@@ -350,12 +351,11 @@ public class TimetableSnapshot {
   }
 
   /**
-   * This produces a small delay of typically around 50ms, which is almost entirely due to the
-   * indexing step. Cloning the map is much faster (2ms). It is perhaps better to index timetables
-   * as they are changed to avoid experiencing all this lag at once, but we want to avoid
-   * re-indexing when receiving multiple updates for the same timetable in rapid succession. This
-   * compromise is expressed by the maxSnapshotFrequency property of StoptimeUpdater. The indexing
-   * could be made much more efficient as well.
+   * The indexes are persistent maps, so the new snapshot shares all data with this buffer and no
+   * copying is done here. The remaining cost is updating the TransitLayer with the dirty
+   * timetables. Re-indexing is still batched to avoid repeating work when receiving multiple
+   * updates for the same timetable in rapid succession. This compromise is expressed by the
+   * maxSnapshotFrequency property of StoptimeUpdater.
    *
    * @return an immutable copy of this TimetableSnapshot with all updates applied
    */
@@ -370,15 +370,15 @@ public class TimetableSnapshot {
       return null;
     }
     TimetableSnapshot ret = new TimetableSnapshot(
-      Map.copyOf(timetables),
-      Map.copyOf(realTimeNewTripPatternsForModifiedTrips),
-      Map.copyOf(realtimeAddedRoutes),
-      Map.copyOf(realTimeAddedTrips),
-      Map.copyOf(realTimeAddedPatternForTrip),
-      ImmutableSetMultimap.copyOf(realTimeAddedPatternsForRoute),
-      Map.copyOf(realTimeAddedTripOnServiceDateById),
-      Map.copyOf(realTimeAddedTripOnServiceDateForTripAndDay),
-      ImmutableSetMultimap.copyOf(patternsForStop),
+      timetables,
+      realTimeNewTripPatternsForModifiedTrips,
+      realtimeAddedRoutes,
+      realTimeAddedTrips,
+      realTimeAddedPatternForTrip,
+      realTimeAddedPatternsForRoute,
+      realTimeAddedTripOnServiceDateById,
+      realTimeAddedTripOnServiceDateForTripAndDay,
+      patternsForStop,
       true
     );
 
@@ -430,7 +430,8 @@ public class TimetableSnapshot {
     if (pattern != null) {
       // Dissociate the given trip from any realtime-added pattern.
       // The trip will then fall back to its original scheduled pattern.
-      realTimeNewTripPatternsForModifiedTrips.remove(new TripIdAndServiceDate(tripId, serviceDate));
+      realTimeNewTripPatternsForModifiedTrips =
+        realTimeNewTripPatternsForModifiedTrips.minus(new TripIdAndServiceDate(tripId, serviceDate));
       // Remove times for the trip from any timetables
       // under that now-obsolete realtime-added pattern.
       SortedSet<Timetable> sortedTimetables = this.timetables.get(pattern);
@@ -476,37 +477,36 @@ public class TimetableSnapshot {
     validateNotReadOnly();
 
     boolean modified = false;
-    for (Iterator<TripPattern> it = timetables.keySet().iterator(); it.hasNext();) {
-      TripPattern pattern = it.next();
-      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+    var purgedTimetables = timetables;
+    for (Map.Entry<TripPattern, SortedSet<Timetable>> entry : timetables.entrySet()) {
+      TripPattern pattern = entry.getKey();
       SortedSet<Timetable> toKeepTimetables = new TreeSet<>(new SortedTimetableComparator());
-      for (Timetable timetable : sortedTimetables) {
+      boolean patternModified = false;
+      for (Timetable timetable : entry.getValue()) {
         if (serviceDate.isBefore(timetable.getServiceDate())) {
           toKeepTimetables.add(timetable);
         } else {
-          modified = true;
+          patternModified = true;
         }
       }
 
       if (toKeepTimetables.isEmpty()) {
-        it.remove();
-      } else {
-        timetables.put(pattern, ImmutableSortedSet.copyOfSorted(toKeepTimetables));
+        purgedTimetables = purgedTimetables.minus(pattern);
+      } else if (patternModified) {
+        purgedTimetables =
+          purgedTimetables.plus(pattern, ImmutableSortedSet.copyOfSorted(toKeepTimetables));
       }
+      modified |= patternModified;
     }
+    timetables = purgedTimetables;
 
     // Also remove last added trip pattern for days that are purged
-    for (
-      Iterator<Entry<TripIdAndServiceDate, TripPattern>> iterator = realTimeNewTripPatternsForModifiedTrips
-        .entrySet()
-        .iterator();
-      iterator.hasNext();
-    ) {
-      TripIdAndServiceDate tripIdAndServiceDate = iterator.next().getKey();
-      if (!serviceDate.isBefore(tripIdAndServiceDate.serviceDate())) {
-        iterator.remove();
-        modified = true;
-      }
+    var purgedTripPatterns = realTimeNewTripPatternsForModifiedTrips.minusIf(
+      (tripIdAndServiceDate, p) -> !serviceDate.isBefore(tripIdAndServiceDate.serviceDate())
+    );
+    if (purgedTripPatterns != realTimeNewTripPatternsForModifiedTrips) {
+      realTimeNewTripPatternsForModifiedTrips = purgedTripPatterns;
+      modified = true;
     }
 
     return modified;
@@ -525,7 +525,7 @@ public class TimetableSnapshot {
   }
 
   public Collection<TripPattern> getPatternsForStop(StopLocation stop) {
-    return patternsForStop.get(stop);
+    return patternsForStop.getOrDefault(stop, PersistentHashSet.empty());
   }
 
   /**
@@ -546,7 +546,10 @@ public class TimetableSnapshot {
    * @return true if the timetable changed as a result of the call
    */
   private boolean clearTimetables(String feedId) {
-    return timetables.keySet().removeIf(tripPattern -> feedId.equals(tripPattern.getFeedId()));
+    var cleared = timetables.minusIf((tripPattern, tt) -> feedId.equals(tripPattern.getFeedId()));
+    boolean changed = cleared != timetables;
+    timetables = cleared;
+    return changed;
   }
 
   /**
@@ -556,9 +559,12 @@ public class TimetableSnapshot {
    * @return true if the newTripPatternForModifiedTrip changed as a result of the call
    */
   private boolean clearNewTripPatternsForModifiedTrips(String feedId) {
-    return realTimeNewTripPatternsForModifiedTrips
-      .keySet()
-      .removeIf(tripIdAndServiceDate -> feedId.equals(tripIdAndServiceDate.tripId().getFeedId()));
+    var cleared = realTimeNewTripPatternsForModifiedTrips.minusIf((tripIdAndServiceDate, p) ->
+      feedId.equals(tripIdAndServiceDate.tripId().getFeedId())
+    );
+    boolean changed = cleared != realTimeNewTripPatternsForModifiedTrips;
+    realTimeNewTripPatternsForModifiedTrips = cleared;
+    return changed;
   }
 
   /**
@@ -569,11 +575,25 @@ public class TimetableSnapshot {
       //TODO - SIRI: Add pattern to index?
 
       for (var stop : tripPattern.getStops()) {
-        patternsForStop.put(stop, tripPattern);
+        patternsForStop = plusToSet(patternsForStop, stop, tripPattern);
       }
     }
   }
 
+  /**
+   * Return a new version of the given map, with the value added to the persistent set of the key.
+   * The set shares its structure with the previous version, so adding many values to the same key
+   * does not copy the whole set each time.
+   */
+  private static <K, V> PersistentHashMap<K, PersistentHashSet<V>> plusToSet(
+    PersistentHashMap<K, PersistentHashSet<V>> map,
+    K key,
+    V value
+  ) {
+    PersistentHashSet<V> values = map.getOrDefault(key, PersistentHashSet.empty());
+    return map.plus(key, values.plus(value));
+  }
+
   /**
    * Replace the original Timetable by the updated one in the timetable index.
    * The SortedSet that holds the collection of Timetables for that pattern
@@ -599,7 +619,7 @@ public class TimetableSnapshot {
       sortedTimetables.remove(original);
     }
     sortedTimetables.add(updated);
-    timetables.put(pattern, ImmutableSortedSet.copyOfSorted(sortedTimetables));
+    timetables = timetables.plus(pattern, ImmutableSortedSet.copyOfSorted(sortedTimetables));
     dirtyTimetables.add(updated);
     dirty = true;
   }
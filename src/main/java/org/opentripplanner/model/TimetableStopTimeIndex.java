@@ -0,0 +1,108 @@
+package org.opentripplanner.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+/**
+ * The trips of a {@link Timetable} ordered by arrival and departure time at each stop position.
+ * This is used to find the next departures from a stop without looking at all trips in the
+ * timetable - a binary search finds the first trip at or after a given time, and the following
+ * trips are in time order.
+ * <p>
+ * A timetable is never changed after it is created - real-time updates create a new timetable. So
+ * the index is only created for the timetables changed by an update, and then only for the stop
+ * positions used. The index for a stop position is created the first time it is used.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class TimetableStopTimeIndex {
+
+  private final List<TripTimes> tripTimes;
+  private final AtomicReferenceArray<int[]> tripsByDeparture;
+  private final AtomicReferenceArray<int[]> tripsByArrival;
+
+  TimetableStopTimeIndex(List<TripTimes> tripTimes, int numberOfStops) {
+    this.tripTimes = tripTimes;
+    this.tripsByDeparture = new AtomicReferenceArray<>(numberOfStops);
+    this.tripsByArrival = new AtomicReferenceArray<>(numberOfStops);
+  }
+
+  /**
+   * The trip indexes of the timetable sorted on the departure time at the given stop position.
+   * Do not modify the returned array.
+   */
+  public int[] tripIndexesByDeparture(int stopPos) {
+    return sortedTripIndexes(tripsByDeparture, stopPos, TripTimes::getDepartureTime);
+  }
+
+  /**
+   * The trip indexes of the timetable sorted on the arrival time at the given stop position.
+   * Do not modify the returned array.
+   */
+  public int[] tripIndexesByArrival(int stopPos) {
+    return sortedTripIndexes(tripsByArrival, stopPos, TripTimes::getArrivalTime);
+  }
+
+  /**
+   * Return the position in {@link #tripIndexesByDeparture(int)} of the first trip departing at
+   * or after the given time. If no trip departs at or after the time, the length of the array is
+   * returned.
+   */
+  public int firstDepartureAtOrAfter(int stopPos, int time) {
+    return binarySearch(
+      tripIndexesByDeparture(stopPos),
+      stopPos,
+      time,
+      TripTimes::getDepartureTime
+    );
+  }
+
+  /**
+   * Return the position in {@link #tripIndexesByArrival(int)} of the first trip arriving at or
+   * after the given time. If no trip arrives at or after the time, the length of the array is
+   * returned.
+   */
+  public int firstArrivalAtOrAfter(int stopPos, int time) {
+    return binarySearch(tripIndexesByArrival(stopPos), stopPos, time, TripTimes::getArrivalTime);
+  }
+
+  private int[] sortedTripIndexes(AtomicReferenceArray<int[]> cache, int stopPos, TimeAtStop time) {
+    int[] result = cache.get(stopPos);
+    if (result == null) {
+      // The time is in the upper and the trip index in the lower 32 bits, so the values sort on
+      // time first. Two threads may create the same array, this is harmless.
+      long[] values = new long[tripTimes.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = ((long) time.time(tripTimes.get(i), stopPos) << 32) | i;
+      }
+      Arrays.sort(values);
+      result = new int[values.length];
+      for (int i = 0; i < values.length; i++) {
+        result[i] = (int) values[i];
+      }
+      cache.set(stopPos, result);
+    }
+    return result;
+  }
+
+  private int binarySearch(int[] sortedTrips, int stopPos, int time, TimeAtStop timeAtStop) {
+    int low = 0;
+    int high = sortedTrips.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timeAtStop.time(tripTimes.get(sortedTrips[mid]), stopPos) < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @FunctionalInterface
+  private interface TimeAtStop {
+    int time(TripTimes tripTimes, int stopPos);
+  }
+}
@@ -113,23 +113,32 @@ class OsmParser extends BinaryParser {
     }
 
     for (int i = 0; i < nodes.getIdCount(); i++) {
-      OsmNode tmp = new OsmNode();
-
       long lat = nodes.getLat(i) + lastLat;
       lastLat = lat;
       long lon = nodes.getLon(i) + lastLon;
       lastLon = lon;
       long id = nodes.getId(i) + lastId;
       lastId = id;
-      double latf = parseLat(lat), lonf = parseLon(lon);
 
+      // If empty, assume that nothing here has keys or vals.
+      boolean hasKeysVals = nodes.getKeysValsCount() > 0;
+      boolean hasTags = hasKeysVals && nodes.getKeysVals(j) != 0;
+
+      // Most nodes have no tags and are not part of a way, skip them without creating objects
+      if (!hasTags && !osmdb.isNodeReferenced(id)) {
+        if (hasKeysVals) {
+          j++; // Skip over the '0' delimiter.
+        }
+        continue;
+      }
+
+      OsmNode tmp = new OsmNode();
       tmp.setId(id);
       tmp.setOsmProvider(provider);
-      tmp.lat = latf;
-      tmp.lon = lonf;
+      tmp.lat = parseLat(lat);
+      tmp.lon = parseLon(lon);
 
-      // If empty, assume that nothing here has keys or vals.
-      if (nodes.getKeysValsCount() > 0) {
+      if (hasKeysVals) {
         while (nodes.getKeysVals(j) != 0) {
           int keyid = nodes.getKeysVals(j++);
           int valid = nodes.getKeysVals(j++);
@@ -155,6 +164,9 @@ class OsmParser extends BinaryParser {
     }
 
     for (Osmformat.Node i : nodes) {
+      if (i.getKeysCount() == 0 && !osmdb.isNodeReferenced(i.getId())) {
+        continue;
+      }
       OsmNode tmp = new OsmNode();
       tmp.setId(i.getId());
       tmp.setOsmProvider(provider);
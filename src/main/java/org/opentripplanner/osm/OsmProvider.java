@@ -1,11 +1,18 @@
 package org.opentripplanner.osm;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.ZoneId;
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -23,6 +30,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes: First the relations, then
  * the ways, then the nodes are also loaded.
+ * <p>
+ * The first pass records which kind of entities each block of the file contains, so the later
+ * passes only decode the blocks with ways or nodes. If multi-threaded, the blocks are decoded in
+ * parallel, see {@link PbfBlockReader}.
  */
 public class OsmProvider {
 
@@ -30,6 +41,10 @@ public class OsmProvider {
 
   private final DataSource source;
   private final boolean cacheDataInMem;
+  private final boolean multiThreaded;
+
+  /** The phases each block of the file is needed in, indexed by the block number. */
+  private final List<Set<OsmParserPhase>> blockPhases = new ArrayList<>();
 
   private final ZoneId zoneId;
 
@@ -47,6 +62,7 @@ public class OsmProvider {
       OsmTagMapperSource.DEFAULT,
       null,
       cacheDataInMem,
+      false,
       DataImportIssueStore.NOOP
     );
   }
@@ -56,6 +72,7 @@ public class OsmProvider {
     OsmTagMapperSource tagMapperSource,
     ZoneId zoneId,
     boolean cacheDataInMem,
+    boolean multiThreaded,
     DataImportIssueStore issueStore
   ) {
     this.source = dataSource;
@@ -64,22 +81,34 @@ public class OsmProvider {
     this.wayPropertySet = new WayPropertySet(issueStore);
     osmTagMapper.populateProperties(wayPropertySet);
     this.cacheDataInMem = cacheDataInMem;
+    this.multiThreaded = multiThreaded;
   }
 
   public void readOsm(OsmDatabase osmdb) {
+    int numberOfThreads = multiThreaded ? Runtime.getRuntime().availableProcessors() : 1;
+    ExecutorService executor = multiThreaded
+      ? Executors.newFixedThreadPool(
+        numberOfThreads,
+        new ThreadFactoryBuilder().setNameFormat("osm-parser-%d").build()
+      )
+      : null;
     try {
       OsmParser parser = new OsmParser(osmdb, this);
 
-      parsePhase(parser, OsmParserPhase.Relations);
+      parsePhase(parser, OsmParserPhase.Relations, executor, numberOfThreads);
       osmdb.doneFirstPhaseRelations();
 
-      parsePhase(parser, OsmParserPhase.Ways);
+      parsePhase(parser, OsmParserPhase.Ways, executor, numberOfThreads);
       osmdb.doneSecondPhaseWays();
 
-      parsePhase(parser, OsmParserPhase.Nodes);
+      parsePhase(parser, OsmParserPhase.Nodes, executor, numberOfThreads);
       osmdb.doneThirdPhaseNodes();
     } catch (Exception ex) {
       throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
   }
 
@@ -89,6 +118,7 @@ public class OsmProvider {
       .of(OsmProvider.class)
       .addObj("source", source)
       .addBool("cacheDataInMem", cacheDataInMem)
+      .addBool("multiThreaded", multiThreaded)
       .toString();
   }
 
@@ -105,22 +135,47 @@ public class OsmProvider {
     return ProgressTracker.track("Parse OSM " + phase, 1000, size, inputStream, m -> LOG.info(m));
   }
 
-  private void parsePhase(OsmParser parser, OsmParserPhase phase) throws IOException {
+  private void parsePhase(
+    OsmParser parser,
+    OsmParserPhase phase,
+    @Nullable ExecutorService executor,
+    int numberOfThreads
+  ) throws IOException {
     parser.setPhase(phase);
-    BlockInputStream in = null;
-    try {
-      in = new BlockInputStream(createInputStream(phase), parser);
-      in.process();
-    } finally {
-      // Close
-      try {
-        if (in != null) {
-          in.close();
-        }
-      } catch (Exception e) {
-        LOG.error(e.getMessage(), e);
-      }
+    try (InputStream in = createInputStream(phase)) {
+      new PbfBlockReader(in, executor, numberOfThreads)
+        .read(
+          blockNumber ->
+            blockNumber < blockPhases.size() && !blockPhases.get(blockNumber).contains(phase),
+          block -> {
+            if (block.number() == blockPhases.size()) {
+              blockPhases.add(phasesOf(block));
+            }
+            if (block.header() != null) {
+              parser.parse(block.header());
+            } else if (block.data() != null) {
+              parser.parse(block.data());
+            }
+          }
+        );
+    }
+  }
+
+  /**
+   * The header is only needed in the first phase, to check that the file can be parsed.
+   */
+  private static Set<OsmParserPhase> phasesOf(PbfBlockReader.PbfBlock block) {
+    var phases = EnumSet.noneOf(OsmParserPhase.class);
+    if (block.hasRelations()) {
+      phases.add(OsmParserPhase.Relations);
+    }
+    if (block.hasWays()) {
+      phases.add(OsmParserPhase.Ways);
+    }
+    if (block.hasNodes()) {
+      phases.add(OsmParserPhase.Nodes);
     }
+    return phases;
   }
 
   private InputStream createInputStream(OsmParserPhase phase) {
@@ -0,0 +1,210 @@
+package org.opentripplanner.osm;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+
+/**
+ * Reads the blocks of an OSM PBF file. Reading the blocks from the stream is cheap, most of the
+ * time is spent decompressing and decoding them. If an executor is given, the blocks are decoded
+ * by the executor in parallel, a few blocks ahead of the block being handled. The decoded blocks
+ * are always handled in the order of the file, by the calling thread, so the result is the same
+ * as when decoding one block at a time.
+ * <p>
+ * Each block has a number, the position of the block in the file. Blocks which are not needed
+ * can be skipped without decoding them, see {@link #read(IntPredicate, Consumer)}.
+ */
+class PbfBlockReader {
+
+  private static final String HEADER_BLOCK = "OSMHeader";
+  private static final String DATA_BLOCK = "OSMData";
+
+  /** The limits of the PBF format */
+  private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+  private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+  private final DataInputStream in;
+
+  @Nullable
+  private final ExecutorService executor;
+
+  private final int maxBlocksAhead;
+
+  /**
+   * @param executor If not null, the blocks are decoded by this executor.
+   * @param numberOfThreads The number of threads of the executor, used to limit the number of
+   *                        blocks decoded ahead, which are kept in memory.
+   */
+  PbfBlockReader(InputStream in, @Nullable ExecutorService executor, int numberOfThreads) {
+    this.in = new DataInputStream(in);
+    this.executor = executor;
+    this.maxBlocksAhead = executor == null ? 1 : 2 * numberOfThreads;
+  }
+
+  /**
+   * Read all blocks of the stream.
+   *
+   * @param skipBlock Returns true for the numbers of the blocks which should not be decoded.
+   * @param handler Called for each decoded block, in the order of the file.
+   */
+  void read(IntPredicate skipBlock, Consumer<PbfBlock> handler) throws IOException {
+    var pending = new ArrayDeque<Future<PbfBlock>>();
+    try {
+      int blockNumber = 0;
+      BlobHeader header;
+      while ((header = readBlobHeader()) != null) {
+        if (skipBlock.test(blockNumber)) {
+          in.skipNBytes(header.size());
+        } else {
+          byte[] blob = new byte[header.size()];
+          in.readFully(blob);
+          int number = blockNumber;
+          String type = header.type();
+          pending.add(submit(() -> decode(number, type, blob)));
+          if (pending.size() >= maxBlocksAhead) {
+            handler.accept(get(pending.poll()));
+          }
+        }
+        blockNumber++;
+      }
+      while (!pending.isEmpty()) {
+        handler.accept(get(pending.poll()));
+      }
+    } finally {
+      // If a block fails, stop decoding the blocks ahead of it. Nothing is pending on success.
+      pending.forEach(it -> it.cancel(true));
+    }
+  }
+
+  /**
+   * Each blob is preceded by the size of its header and the header, which has the type and the
+   * size of the blob.
+   *
+   * @return the header of the next blob, or null at the end of the stream.
+   */
+  @Nullable
+  private BlobHeader readBlobHeader() throws IOException {
+    int headerSize;
+    try {
+      headerSize = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+      throw new IOException("Invalid PBF blob header size: " + headerSize);
+    }
+    byte[] header = new byte[headerSize];
+    in.readFully(header);
+    var blobHeader = Fileformat.BlobHeader.parseFrom(header);
+    int blobSize = blobHeader.getDatasize();
+    if (blobSize < 0 || blobSize > MAX_BLOB_SIZE) {
+      throw new IOException("Invalid PBF blob size: " + blobSize);
+    }
+    return new BlobHeader(blobHeader.getType(), blobSize);
+  }
+
+  private Future<PbfBlock> submit(Callable<PbfBlock> task) {
+    if (executor != null) {
+      return executor.submit(task);
+    }
+    try {
+      return CompletableFuture.completedFuture(task.call());
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static PbfBlock get(Future<PbfBlock> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decoding OSM PBF blocks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioe) {
+        throw ioe;
+      }
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static PbfBlock decode(int number, String type, byte[] blobBytes) throws IOException {
+    var data = uncompress(Fileformat.Blob.parseFrom(blobBytes));
+    return switch (type) {
+      case HEADER_BLOCK -> new PbfBlock(number, Osmformat.HeaderBlock.parseFrom(data), null);
+      case DATA_BLOCK -> new PbfBlock(number, null, Osmformat.PrimitiveBlock.parseFrom(data));
+      // Unknown blocks must be skipped according to the specification
+      default -> new PbfBlock(number, null, null);
+    };
+  }
+
+  private static ByteString uncompress(Fileformat.Blob blob) throws IOException {
+    if (blob.hasRaw()) {
+      return blob.getRaw();
+    }
+    if (!blob.hasZlibData()) {
+      throw new IOException("Unsupported PBF blob compression, only zlib is supported.");
+    }
+    var inflater = new Inflater();
+    try {
+      inflater.setInput(blob.getZlibData().toByteArray());
+      byte[] data = new byte[blob.getRawSize()];
+      int size = inflater.inflate(data);
+      if (size != data.length || !inflater.finished()) {
+        throw new IOException("Invalid PBF blob, the size does not match the raw size.");
+      }
+      return UnsafeByteOperations.unsafeWrap(data);
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid zlib data in PBF blob", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * A decoded block, either a header or a data block.
+   */
+  record PbfBlock(
+    int number,
+    @Nullable Osmformat.HeaderBlock header,
+    @Nullable Osmformat.PrimitiveBlock data
+  ) {
+    boolean hasNodes() {
+      return hasGroup(g -> g.hasDense() || g.getNodesCount() > 0);
+    }
+
+    boolean hasWays() {
+      return hasGroup(g -> g.getWaysCount() > 0);
+    }
+
+    boolean hasRelations() {
+      return hasGroup(g -> g.getRelationsCount() > 0);
+    }
+
+    private boolean hasGroup(Predicate<Osmformat.PrimitiveGroup> predicate) {
+      return data != null && data.getPrimitivegroupList().stream().anyMatch(predicate);
+    }
+  }
+
+  private record BlobHeader(String type, int size) {}
+}
@@ -25,6 +25,11 @@ public interface RaptorTuningParameters {
     return 0;
   }
 
+  /** see {@link org.opentripplanner.standalone.config.routerconfig.TransitRoutingConfig} **/
+  default int parallelSearchWindowThresholdSeconds() {
+    return 0;
+  }
+
   /**
    * Coefficients used to calculate raptor-search-window parameters dynamically  from heuristics.
    */
@@ -113,6 +113,10 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
     return new StdRangeRaptorConfig<>(context).createHeuristics(results);
   }
 
+  public RaptorTuningParameters tuningParameters() {
+    return tuningParameters;
+  }
+
   public boolean isMultiThreaded() {
     return threadPool != null;
   }
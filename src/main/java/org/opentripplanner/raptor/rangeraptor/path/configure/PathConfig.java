@@ -10,6 +10,7 @@ import org.opentripplanner.raptor.api.model.RelaxFunction;
 import org.opentripplanner.raptor.api.model.SearchDirection;
 import org.opentripplanner.raptor.api.path.RaptorPath;
 import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.SearchParams;
 import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
 import org.opentripplanner.raptor.rangeraptor.internalapi.ParetoSetCost;
 import org.opentripplanner.raptor.rangeraptor.internalapi.ParetoSetTime;
@@ -82,14 +83,26 @@ public class PathConfig<T extends RaptorTripSchedule> {
         default -> RelaxFunction.NORMAL;
       };
 
-    return paretoComparator(paretoSetTimeConfig(), costConfig, relaxC1, c2Comp);
+    return paretoComparator(
+      paretoSetTimeConfig(ctx.searchParams(), ctx.searchDirection()),
+      costConfig,
+      relaxC1,
+      c2Comp
+    );
   }
 
-  private ParetoSetTime paretoSetTimeConfig() {
+  /**
+   * Which time information to include in the destination pareto-set comparator for the given
+   * search.
+   */
+  public static ParetoSetTime paretoSetTimeConfig(
+    SearchParams searchParams,
+    SearchDirection searchDirection
+  ) {
     boolean preferLatestDeparture =
-      ctx.searchParams().preferLateArrival() != ctx.searchDirection().isInReverse();
+      searchParams.preferLateArrival() != searchDirection.isInReverse();
 
-    ParetoSetTime timeConfig = ctx.searchParams().timetable()
+    ParetoSetTime timeConfig = searchParams.timetable()
       ? ParetoSetTime.USE_TIMETABLE
       : (preferLatestDeparture ? ParetoSetTime.USE_DEPARTURE_TIME : ParetoSetTime.USE_ARRIVAL_TIME);
     return timeConfig;
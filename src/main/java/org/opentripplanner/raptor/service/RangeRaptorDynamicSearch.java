@@ -21,6 +21,7 @@ import org.opentripplanner.raptor.api.response.RaptorResponse;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.raptor.rangeraptor.RangeRaptor;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorRouterResult;
 import org.opentripplanner.raptor.rangeraptor.transit.RaptorSearchWindowCalculator;
 import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
 import org.slf4j.Logger;
@@ -129,18 +130,27 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
 
   private RaptorResponse<T> createAndRunDynamicRRWorker(RaptorRequest<T> request) {
     LOG.debug("Main request: {}", request);
-    RangeRaptor<T> rangeRaptorRouter;
+    RaptorRouterResult<T> result;
 
-    // Create worker
-    if (request.profile().is(MULTI_CRITERIA)) {
-      rangeRaptorRouter =
-        config.createRangeRaptorWithMcWorker(transitData, request, getDestinationHeuristics());
+    if (RangeRaptorParallelSearch.isApplicable(config, request)) {
+      // Split the search-window and route each part in parallel
+      result =
+        new RangeRaptorParallelSearch<>(config, transitData, request, getDestinationHeuristics())
+          .route();
     } else {
-      rangeRaptorRouter = config.createRangeRaptorWithStdWorker(transitData, request);
-    }
+      RangeRaptor<T> rangeRaptorRouter;
+
+      // Create worker
+      if (request.profile().is(MULTI_CRITERIA)) {
+        rangeRaptorRouter =
+          config.createRangeRaptorWithMcWorker(transitData, request, getDestinationHeuristics());
+      } else {
+        rangeRaptorRouter = config.createRangeRaptorWithStdWorker(transitData, request);
+      }
 
-    // Route
-    var result = rangeRaptorRouter.route();
+      // Route
+      result = rangeRaptorRouter.route();
+    }
 
     // create and return response
     return new RaptorResponse<>(
@@ -0,0 +1,261 @@
+package org.opentripplanner.raptor.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.application.OTPRequestTimeoutException;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.model.RelaxFunction;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.api.request.MultiCriteriaRequest;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.SearchParams;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.raptor.rangeraptor.RangeRaptor;
+import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.rangeraptor.internalapi.ParetoSetCost;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorRouterResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.rangeraptor.path.PathParetoSetComparators;
+import org.opentripplanner.raptor.rangeraptor.path.configure.PathConfig;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.paretoset.ParetoSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Split the search-window of a multi-criteria range-raptor search into sub-windows and search
+ * them in parallel using the raptor thread pool. Each sub-window is searched with its own worker
+ * and state. The paths are merged into one pareto-set, inserting the paths from the latest
+ * sub-window first. This is the same order as the paths are found in a sequential search, where
+ * the minutes are iterated backwards.
+ * <p>
+ * A path found in a sub-window is pareto-optimal among the paths departing in the sub-window, and
+ * the merge removes the paths dominated by paths departing later. The result is the same as the
+ * sequential search as long as the pareto comparison is transitive. This is not the case for the
+ * relaxed generalized-cost comparators, so the search is only split for requests where the plain
+ * arrival-time and generalized-cost pareto comparator is used, see {@link #isApplicable}.
+ * <p>
+ * This class is not meant for reuse, create a new instance for each search.
+ */
+class RangeRaptorParallelSearch<T extends RaptorTripSchedule> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RangeRaptorParallelSearch.class);
+
+  /** Each sub-window should have at least this number of iterations */
+  private static final int MIN_ITERATIONS_PER_SUB_WINDOW = 2;
+
+  private final RaptorConfig<T> config;
+  private final RaptorTransitDataProvider<T> transitData;
+  private final RaptorRequest<T> request;
+  private final Heuristics heuristics;
+
+  RangeRaptorParallelSearch(
+    RaptorConfig<T> config,
+    RaptorTransitDataProvider<T> transitData,
+    RaptorRequest<T> request,
+    @Nullable Heuristics heuristics
+  ) {
+    this.config = config;
+    this.transitData = transitData;
+    this.request = request;
+    this.heuristics = heuristics;
+  }
+
+  /**
+   * Return {@code true} if the search-window of the given request should be split. The request
+   * must be a forward multi-criteria search with a search-window at least as long as the
+   * configured threshold, and it can not use any of the features where the result depends on the
+   * order the iterations are performed in.
+   */
+  static boolean isApplicable(RaptorConfig<?> config, RaptorRequest<?> request) {
+    int threshold = config.tuningParameters().parallelSearchWindowThresholdSeconds();
+    if (threshold <= 0 || !config.isMultiThreaded() || !request.runInParallel()) {
+      return false;
+    }
+    SearchParams s = request.searchParams();
+    MultiCriteriaRequest<?> mc = request.multiCriteria();
+    return (
+      request.profile().is(RaptorProfile.MULTI_CRITERIA) &&
+      request.searchDirection().isForward() &&
+      s.searchWindowInSeconds() >= threshold &&
+      numberOfSubWindows(config, s) > 1 &&
+      !s.timetable() &&
+      !s.hasViaLocations() &&
+      !mc.includeC2() &&
+      mc.relaxC1().isNormal() &&
+      mc.relaxCostAtDestination() == null &&
+      s.accessPaths().stream().noneMatch(RaptorAccessEgress::hasTimePenalty) &&
+      request.debug().stops().isEmpty() &&
+      request.debug().path().isEmpty()
+    );
+  }
+
+  RaptorRouterResult<T> route() {
+    List<RaptorRequest<T>> requests = subWindowRequests();
+    LOG.debug("Search-window split in {} sub-windows: {}", requests.size(), request);
+
+    // The routers are created in this thread, because the RaptorConfig is not thread-safe
+    List<RangeRaptor<T>> routers = new ArrayList<>();
+    for (RaptorRequest<T> it : requests) {
+      routers.add(config.createRangeRaptorWithMcWorker(transitData, it, heuristics));
+    }
+
+    List<Future<RaptorRouterResult<T>>> asyncResults = new ArrayList<>();
+    try {
+      for (int i = 1; i < routers.size(); ++i) {
+        asyncResults.add(config.threadPool().submit(routers.get(i)::route));
+      }
+      List<RaptorRouterResult<T>> results = new ArrayList<>();
+      results.add(routers.getFirst().route());
+      for (Future<RaptorRouterResult<T>> it : asyncResults) {
+        results.add(it.get());
+      }
+      return new MergedResult<>(results, request);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OTPRequestTimeoutException();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException(
+        "Failed to run sub-window searches in parallel. Details: " + e.getMessage(),
+        e
+      );
+    } finally {
+      // propagate interruption and errors to the running tasks.
+      asyncResults.forEach(it -> it.cancel(true));
+    }
+  }
+
+  /**
+   * Split the search-window into sub-windows of about the same size, aligned with the range-raptor
+   * iteration step. The minutes searched are exactly the same as in the original search-window.
+   * The sub-windows are returned with the latest first.
+   */
+  private List<RaptorRequest<T>> subWindowRequests() {
+    SearchParams s = request.searchParams();
+    int step = config.tuningParameters().iterationDepartureStepInSeconds();
+    int nWindows = numberOfSubWindows(config, s);
+    int nIterations = numberOfIterations(s, step);
+    int edt = s.earliestDepartureTime();
+    // The iteration departure times are: (edt + searchWindow - n * step) for n = 1, 2, ...
+    int end = edt + s.searchWindowInSeconds();
+
+    List<RaptorRequest<T>> requests = new ArrayList<>();
+    int iterationsDone = 0;
+    for (int i = 0; i < nWindows; ++i) {
+      int n = (nIterations - iterationsDone) / (nWindows - i);
+      boolean last = i == nWindows - 1;
+      int subWindowStart = last ? edt : end - n * step;
+      requests.add(
+        request
+          .mutate()
+          .searchParams()
+          .earliestDepartureTime(subWindowStart)
+          .searchWindowInSeconds(end - subWindowStart)
+          .build()
+      );
+      iterationsDone += n;
+      end = subWindowStart;
+    }
+    return requests;
+  }
+
+  private static int numberOfSubWindows(RaptorConfig<?> config, SearchParams s) {
+    int step = config.tuningParameters().iterationDepartureStepInSeconds();
+    return Math.min(
+      config.tuningParameters().searchThreadPoolSize(),
+      numberOfIterations(s, step) / MIN_ITERATIONS_PER_SUB_WINDOW
+    );
+  }
+
+  private static int numberOfIterations(SearchParams s, int step) {
+    return (s.searchWindowInSeconds() + step - 1) / step;
+  }
+
+  /**
+   * Merge the results of the sub-window searches. The results must be ordered with the latest
+   * sub-window first.
+   */
+  private static class MergedResult<T extends RaptorTripSchedule>
+    implements RaptorRouterResult<T> {
+
+    private final List<RaptorRouterResult<T>> results;
+    private final List<RaptorPath<T>> paths;
+
+    private MergedResult(List<RaptorRouterResult<T>> results, RaptorRequest<T> request) {
+      this.results = results;
+
+      var comparator = PathParetoSetComparators.<T>paretoComparator(
+        PathConfig.paretoSetTimeConfig(request.searchParams(), request.searchDirection()),
+        ParetoSetCost.USE_C1,
+        RelaxFunction.NORMAL,
+        null
+      );
+      var paretoSet = new ParetoSet<>(comparator);
+      for (RaptorRouterResult<T> it : results) {
+        paretoSet.addAll(it.extractPaths());
+      }
+      this.paths = List.copyOf(paretoSet);
+    }
+
+    @Override
+    public Collection<RaptorPath<T>> extractPaths() {
+      return paths;
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestOverallArrivals() {
+      return best(RaptorRouterResult::extractBestOverallArrivals);
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestTransitArrivals() {
+      return best(RaptorRouterResult::extractBestTransitArrivals);
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestNumberOfTransfers() {
+      return best(RaptorRouterResult::extractBestNumberOfTransfers);
+    }
+
+    @Override
+    public boolean isDestinationReached() {
+      return !paths.isEmpty();
+    }
+
+    /**
+     * Combine the stop arrivals of each sub-window. The search is a forward search, so the lowest
+     * value (arrival-time and number-of-transfers) is the best.
+     */
+    private SingleCriteriaStopArrivals best(
+      Function<RaptorRouterResult<T>, SingleCriteriaStopArrivals> extractor
+    ) {
+      var arrivals = results.stream().map(extractor).toList();
+      return new SingleCriteriaStopArrivals() {
+        @Override
+        public boolean isReached(int stop) {
+          return arrivals.stream().anyMatch(it -> it.isReached(stop));
+        }
+
+        @Override
+        public int value(int stop) {
+          return arrivals
+            .stream()
+            .filter(it -> it.isReached(stop))
+            .mapToInt(it -> it.value(stop))
+            .min()
+            .orElseThrow();
+        }
+      };
+    }
+  }
+}
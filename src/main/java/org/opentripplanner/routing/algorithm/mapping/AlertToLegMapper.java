@@ -175,9 +175,11 @@ public class AlertToLegMapper {
       return new ArrayList<>();
     }
 
-    Collection<TransitAlert> alertsForStop = getAlertsForStop.apply(stop.getId());
-    if (alertsForStop == null) {
-      alertsForStop = new HashSet<>();
+    // The alerts returned by the service are shared and must not be modified
+    Collection<TransitAlert> alertsForStop = new HashSet<>();
+    Collection<TransitAlert> stopAlerts = getAlertsForStop.apply(stop.getId());
+    if (stopAlerts != null) {
+      alertsForStop.addAll(stopAlerts);
     }
 
     if (stop.isPartOfStation()) {
@@ -1,10 +1,10 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit;
 
-import static java.util.stream.Collectors.toMap;
-
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Function;
+import org.opentripplanner.framework.concurrent.OtpRequestExecutor;
 import org.opentripplanner.raptor.api.model.RaptorTransfer;
 import org.opentripplanner.street.search.request.StreetSearchRequest;
 
@@ -23,40 +23,49 @@ public class RaptorTransferIndex {
     this.reversedTransfers = reversedTransfers.stream().map(List::copyOf).toArray(List[]::new);
   }
 
+  /**
+   * Create the index for the given request. Calculating the transfer durations and costs requires
+   * traversing the transfer edges, so the stops are split into one range per processor and the
+   * forward transfers for each range are calculated in parallel. This is done on the
+   * {@link OtpRequestExecutor}, not on the common fork-join pool, since a cache miss happens in a
+   * request thread.
+   */
   public static RaptorTransferIndex create(
     List<List<Transfer>> transfersByStopIndex,
     StreetSearchRequest request
   ) {
-    var forwardTransfers = new ArrayList<List<RaptorTransfer>>(transfersByStopIndex.size());
-    var reversedTransfers = new ArrayList<List<RaptorTransfer>>(transfersByStopIndex.size());
+    int nStops = transfersByStopIndex.size();
 
-    for (int i = 0; i < transfersByStopIndex.size(); i++) {
-      forwardTransfers.add(new ArrayList<>());
-      reversedTransfers.add(new ArrayList<>());
+    @SuppressWarnings("unchecked")
+    List<RaptorTransfer>[] forwardTransfers = new List[nStops];
+    int nRanges = Math.max(1, Math.min(nStops, Runtime.getRuntime().availableProcessors()));
+    var tasks = new Runnable[nRanges];
+    for (int i = 0; i < nRanges; i++) {
+      int start = (int) ((long) nStops * i / nRanges);
+      int end = (int) ((long) nStops * (i + 1) / nRanges);
+      tasks[i] =
+        () -> {
+          for (int fromStop = start; fromStop < end; fromStop++) {
+            forwardTransfers[fromStop] =
+              createForwardTransfers(transfersByStopIndex.get(fromStop), request);
+          }
+        };
     }
+    OtpRequestExecutor.virtualThreads().runInParallel(tasks);
 
-    for (int fromStop = 0; fromStop < transfersByStopIndex.size(); fromStop++) {
-      // The transfers are filtered so that there is only one possible directional transfer
-      // for a stop pair.
-      var transfers = transfersByStopIndex
-        .get(fromStop)
-        .stream()
-        .flatMap(s -> s.asRaptorTransfer(request).stream())
-        .collect(
-          toMap(RaptorTransfer::stop, Function.identity(), (a, b) -> a.c1() < b.c1() ? a : b)
-        )
-        .values();
-
-      forwardTransfers.get(fromStop).addAll(transfers);
-
-      for (RaptorTransfer forwardTransfer : transfers) {
+    var reversedTransfers = new ArrayList<List<RaptorTransfer>>(nStops);
+    for (int i = 0; i < nStops; i++) {
+      reversedTransfers.add(new ArrayList<>());
+    }
+    for (int fromStop = 0; fromStop < nStops; fromStop++) {
+      for (RaptorTransfer forwardTransfer : forwardTransfers[fromStop]) {
         reversedTransfers
           .get(forwardTransfer.stop())
           .add(DefaultRaptorTransfer.reverseOf(fromStop, forwardTransfer));
       }
     }
 
-    return new RaptorTransferIndex(forwardTransfers, reversedTransfers);
+    return new RaptorTransferIndex(Arrays.asList(forwardTransfers), reversedTransfers);
   }
 
   public List<RaptorTransfer> getForwardTransfers(int stopIndex) {
@@ -66,4 +75,27 @@ public class RaptorTransferIndex {
   public List<RaptorTransfer> getReversedTransfers(int stopIndex) {
     return reversedTransfers[stopIndex];
   }
+
+  /**
+   * The transfers are filtered so that there is only one possible directional transfer for a
+   * stop pair, the one with the lowest cost.
+   */
+  private static List<RaptorTransfer> createForwardTransfers(
+    List<Transfer> transfers,
+    StreetSearchRequest request
+  ) {
+    if (transfers.isEmpty()) {
+      return List.of();
+    }
+    var bestTransferByStop = new HashMap<Integer, RaptorTransfer>();
+    for (Transfer transfer : transfers) {
+      var raptorTransfer = transfer.asRaptorTransfer(request);
+      if (raptorTransfer.isEmpty()) {
+        continue;
+      }
+      var it = raptorTransfer.get();
+      bestTransferByStop.merge(it.stop(), it, (a, b) -> a.c1() < b.c1() ? a : b);
+    }
+    return List.copyOf(bestTransferByStop.values());
+  }
 }
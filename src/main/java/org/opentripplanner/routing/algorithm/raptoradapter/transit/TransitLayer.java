@@ -12,7 +12,9 @@ import org.opentripplanner.model.transfer.TransferService;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.ConstrainedTransfersForPatterns;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.TripPatternForDatesCache;
 import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.transit.model.network.RoutingTripPattern;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.service.StopModel;
 
@@ -59,10 +61,13 @@ public class TransitLayer {
   @Nullable
   private final int[] stopBoardAlightTransferCosts;
 
+  private TripPatternForDatesCache tripPatternsForDatesCache;
+
   /**
    * Makes a shallow copy of the TransitLayer, except for the tripPatternsForDate, where a shallow
    * copy of the HashMap is made. This is sufficient, as the TransitLayerUpdater will replace entire
-   * keys and their values in the map.
+   * keys and their values in the map. The cached merged trip patterns are shared with the original
+   * until the copy is updated, see {@link #invalidateTripPatternsForDatesCache(Collection)}.
    */
   public TransitLayer(TransitLayer transitLayer) {
     this(
@@ -75,6 +80,7 @@ public class TransitLayer {
       transitLayer.transferIndexGenerator,
       transitLayer.stopBoardAlightTransferCosts
     );
+    this.tripPatternsForDatesCache = transitLayer.tripPatternsForDatesCache;
   }
 
   public TransitLayer(
@@ -95,6 +101,7 @@ public class TransitLayer {
     this.constrainedTransfers = constrainedTransfers;
     this.transferIndexGenerator = transferIndexGenerator;
     this.stopBoardAlightTransferCosts = stopBoardAlightTransferCosts;
+    this.tripPatternsForDatesCache = new TripPatternForDatesCache();
   }
 
   @Nullable
@@ -186,6 +193,22 @@ public class TransitLayer {
     this.tripPatternsRunningOnDate.replace(date, tripPatternForDates);
   }
 
+  /**
+   * The merged trip patterns shared between requests using this transit layer.
+   */
+  public TripPatternForDatesCache getTripPatternsForDatesCache() {
+    return tripPatternsForDatesCache;
+  }
+
+  /**
+   * Remove the given patterns from the merged trip patterns cache of this transit layer, the
+   * cache of the transit layer this is copied from is not changed. Call this for all patterns
+   * with updated trip patterns for dates.
+   */
+  public void invalidateTripPatternsForDatesCache(Collection<RoutingTripPattern> patterns) {
+    this.tripPatternsForDatesCache = tripPatternsForDatesCache.copyWithout(patterns);
+  }
+
   public void setConstrainedTransfers(ConstrainedTransfersForPatterns constrainedTransfers) {
     this.constrainedTransfers = constrainedTransfers;
   }
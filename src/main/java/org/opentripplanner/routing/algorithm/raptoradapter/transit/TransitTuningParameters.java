@@ -47,6 +47,11 @@ public interface TransitTuningParameters {
       return 5;
     }
 
+    @Override
+    public boolean transferCacheAsyncLoading() {
+      return false;
+    }
+
     @Override
     public Duration maxSearchWindow() {
       return Duration.ofHours(24);
@@ -83,6 +88,14 @@ public interface TransitTuningParameters {
    */
   int transferCacheMaxSize();
 
+  /**
+   * If enabled, a request whose transfer parameters are not in the transfer cache does not wait
+   * for the transfers to be calculated. The calculation is started in the background, and the
+   * request uses the cached transfers with the most similar parameters with the same street mode
+   * and wheelchair settings. If no such transfers exist the request waits for the calculation.
+   */
+  boolean transferCacheAsyncLoading();
+
   /**
    * The maximum search window that can be set through the searchWindow API parameter. Due to the
    * way timetable data are collected before a Raptor trip search, using a search window larger than
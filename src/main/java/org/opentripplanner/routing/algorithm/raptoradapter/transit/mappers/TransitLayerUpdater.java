@@ -1,16 +1,19 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
@@ -39,8 +42,15 @@ public class TransitLayerUpdater {
 
   private static final Logger LOG = LoggerFactory.getLogger(TransitLayerUpdater.class);
 
+  private static final String METRICS_PREFIX = "transitLayerUpdater";
+
+  /** Smaller batches of timetables are mapped in the calling thread. */
+  private static final int PARALLEL_MAPPING_THRESHOLD = 64;
+
   private final TransitEditorService transitService;
 
+  private final int parallelMappingThreshold;
+
   /**
    * Cache the TripPatternForDates indexed on the original TripPatterns in order to avoid this
    * expensive operation being done each time the update method is called.
@@ -55,8 +65,23 @@ public class TransitLayerUpdater {
 
   private final Map<LocalDate, Set<TripPatternForDate>> tripPatternsRunningOnDateMapCache = new HashMap<>();
 
+  /** The time spent in each phase of the update, see {@link #update(Set, Map)} */
+  private final Timer mapTimer = phaseTimer("map");
+  private final Timer indexTimer = phaseTimer("index");
+  private final Timer runningDatesTimer = phaseTimer("runningDates");
+  private final Timer publishTimer = phaseTimer("publish");
+
   public TransitLayerUpdater(TransitEditorService transitService) {
+    this(transitService, PARALLEL_MAPPING_THRESHOLD);
+  }
+
+  /**
+   * @param parallelMappingThreshold Batches of at least this many timetables are mapped in
+   *                                 parallel, this is only set in tests.
+   */
+  TransitLayerUpdater(TransitEditorService transitService, int parallelMappingThreshold) {
     this.transitService = transitService;
+    this.parallelMappingThreshold = parallelMappingThreshold;
   }
 
   public void update(
@@ -68,6 +93,7 @@ public class TransitLayerUpdater {
     }
 
     long startTime = System.currentTimeMillis();
+    long phaseStartTime = System.nanoTime();
 
     // Make a shallow copy of the realtime transit layer. Only the objects that are copied will be
     // changed during this update process.
@@ -78,17 +104,31 @@ public class TransitLayerUpdater {
       transitService.getServiceCodesRunningForDate()
     );
 
-    Set<LocalDate> datesToBeUpdated = new HashSet<>();
-    SetMultimap<TripPattern, TripPatternForDate> newTripPatternsForDate = HashMultimap.create();
-    SetMultimap<TripPattern, TripPatternForDate> oldTripPatternsForDate = HashMultimap.create();
+    // Map each timetable to a new TripPatternForDate. The timetables are mapped independently of
+    // each other, so large batches are mapped in parallel.
+    List<Timetable> timetableList = new ArrayList<>(updatedTimetables);
+    MappedTimetable[] mappedTimetables = mapTimetables(
+      timetableList,
+      tripPatternForDateMapper,
+      parallelMappingThreshold
+    );
+    phaseStartTime = record(mapTimer, phaseStartTime);
+
+    // The updated patterns, and the old and new TripPatternsForDate on each of their running
+    // period dates
+    Set<TripPattern> updatedPatterns = new HashSet<>();
+    Map<LocalDate, List<TripPatternForDate>> oldTripPatternsForDate = new HashMap<>();
+    Map<LocalDate, List<TripPatternForDate>> newTripPatternsForDate = new HashMap<>();
 
     TransferIndexGenerator transferIndexGenerator = null;
     if (OTPFeature.TransferConstraints.isOn()) {
       transferIndexGenerator = realtimeTransitLayer.getTransferIndexGenerator();
     }
-    Set<TripPatternForDate> previouslyUsedPatterns = new HashSet<>();
-    // Map new TriPatternForDate and index for old and new TripPatternsForDate on service date
-    for (Timetable timetable : updatedTimetables) {
+    // The TripPatternsForDate previously used by the updated trips, indexed on service date
+    Map<LocalDate, Set<TripPatternForDate>> previouslyUsedPatterns = new HashMap<>();
+    // Index old and new TripPatternsForDate on running period date
+    for (int i = 0; i < mappedTimetables.length; i++) {
+      Timetable timetable = timetableList.get(i);
       LocalDate date = timetable.getServiceDate();
       TripPattern tripPattern = timetable.getPattern();
 
@@ -106,23 +146,19 @@ public class TransitLayerUpdater {
 
       if (oldTripPatternForDate != null) {
         tripPatternsStartingOnDateMapCache.get(date).remove(tripPattern, oldTripPatternForDate);
-        oldTripPatternsForDate.put(tripPattern, oldTripPatternForDate);
-        datesToBeUpdated.addAll(oldTripPatternForDate.getRunningPeriodDates());
+        updatedPatterns.add(tripPattern);
+        addForRunningPeriodDates(oldTripPatternsForDate, oldTripPatternForDate);
       }
 
-      TripPatternForDate newTripPatternForDate;
-
-      try {
-        newTripPatternForDate = tripPatternForDateMapper.map(timetable, timetable.getServiceDate());
-      } catch (IllegalArgumentException exception) {
-        // There is some issue with finding the correct running period, using old pattern instead
-        newTripPatternForDate = oldTripPatternForDate;
-      }
+      // If there is some issue with finding the correct running period, use the old pattern
+      TripPatternForDate newTripPatternForDate = mappedTimetables[i].failed()
+        ? oldTripPatternForDate
+        : mappedTimetables[i].tripPatternForDate();
 
       if (newTripPatternForDate != null) {
         tripPatternsStartingOnDateMapCache.get(date).put(tripPattern, newTripPatternForDate);
-        newTripPatternsForDate.put(tripPattern, newTripPatternForDate);
-        datesToBeUpdated.addAll(newTripPatternForDate.getRunningPeriodDates());
+        updatedPatterns.add(tripPattern);
+        addForRunningPeriodDates(newTripPatternsForDate, newTripPatternForDate);
         if (transferIndexGenerator != null && tripPattern.isCreatedByRealtimeUpdater()) {
           transferIndexGenerator.addRealtimeTrip(
             tripPattern,
@@ -140,7 +176,9 @@ public class TransitLayerUpdater {
             newTripPatternForDate
           );
           if (previousTripPatternForDate != null) {
-            previouslyUsedPatterns.add(previousTripPatternForDate);
+            previouslyUsedPatterns
+              .computeIfAbsent(previousTripPatternForDate.getServiceDate(), d -> new HashSet<>())
+              .add(previousTripPatternForDate);
           } else {
             LOG.debug(
               "NEW TripPatternForDate: {} - {}",
@@ -151,70 +189,59 @@ public class TransitLayerUpdater {
         }
       }
     }
+    phaseStartTime = record(indexTimer, phaseStartTime);
 
     // Now loop through all running period dates of old and new TripPatternsForDate and update
     // the tripPatternsByRunningPeriodDate accordingly
+    Set<LocalDate> datesToBeUpdated = new HashSet<>(oldTripPatternsForDate.keySet());
+    datesToBeUpdated.addAll(newTripPatternsForDate.keySet());
     for (LocalDate date : datesToBeUpdated) {
-      tripPatternsRunningOnDateMapCache.computeIfAbsent(
+      Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.computeIfAbsent(
         date,
         p -> new HashSet<>(realtimeTransitLayer.getTripPatternsRunningOnDateCopy(date))
       );
 
       // Remove old cached tripPatterns where tripTimes are no longer running
-      Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.get(date);
-
-      for (Map.Entry<TripPattern, Collection<TripPatternForDate>> entry : oldTripPatternsForDate
-        .asMap()
-        .entrySet()) {
-        for (TripPatternForDate oldTripPatternForDate : entry.getValue()) {
-          // Remove old TripPatternForDate for this date if it was valid on this date
-          if (oldTripPatternForDate != null) {
-            if (oldTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.remove(oldTripPatternForDate);
-            }
-          }
-        }
+      var oldTripPatternsForThisDate = oldTripPatternsForDate.getOrDefault(date, List.of());
+      for (TripPatternForDate oldTripPatternForDate : oldTripPatternsForThisDate) {
+        patternsForDate.remove(oldTripPatternForDate);
       }
 
-      for (TripPatternForDate tripPatternForDate : previouslyUsedPatterns) {
-        if (tripPatternForDate.getServiceDate().equals(date)) {
-          TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
-          if (!pattern.isCreatedByRealtimeUpdater()) {
-            continue;
-          }
-          var oldTimeTable = timetables.get(pattern);
-          if (oldTimeTable != null) {
-            var toRemove = oldTimeTable
-              .stream()
-              .filter(tt -> tt.getServiceDate().equals(date))
-              .findFirst()
-              .map(tt -> tt.getTripTimes().isEmpty())
-              .orElse(false);
-
-            if (toRemove) {
-              patternsForDate.remove(tripPatternForDate);
-            }
-          } else {
-            LOG.warn("Could not fetch timetable for {}", pattern);
-          }
+      var previouslyUsedOnThisDate = previouslyUsedPatterns.getOrDefault(date, Set.of());
+      for (TripPatternForDate tripPatternForDate : previouslyUsedOnThisDate) {
+        TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
+        if (!pattern.isCreatedByRealtimeUpdater()) {
+          continue;
         }
-      }
+        var oldTimeTable = timetables.get(pattern);
+        if (oldTimeTable != null) {
+          var toRemove = oldTimeTable
+            .stream()
+            .filter(tt -> tt.getServiceDate().equals(date))
+            .findFirst()
+            .map(tt -> tt.getTripTimes().isEmpty())
+            .orElse(false);
 
-      for (Map.Entry<TripPattern, Collection<TripPatternForDate>> entry : newTripPatternsForDate
-        .asMap()
-        .entrySet()) {
-        for (TripPatternForDate newTripPatternForDate : entry.getValue()) {
-          // Add new TripPatternForDate for this date if it mapped correctly and is valid on this date
-          if (newTripPatternForDate != null) {
-            if (newTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.add(newTripPatternForDate);
-            }
+          if (toRemove) {
+            patternsForDate.remove(tripPatternForDate);
           }
+        } else {
+          LOG.warn("Could not fetch timetable for {}", pattern);
         }
       }
 
+      // Add new TripPatternsForDate which mapped correctly and are valid on this date
+      patternsForDate.addAll(newTripPatternsForDate.getOrDefault(date, List.of()));
+
       realtimeTransitLayer.replaceTripPatternsForDate(date, new ArrayList<>(patternsForDate));
     }
+    phaseStartTime = record(runningDatesTimer, phaseStartTime);
+
+    // Only the merged trip patterns of the updated patterns are invalid, the rest of the cache
+    // is reused by the new transit layer
+    realtimeTransitLayer.invalidateTripPatternsForDatesCache(
+      updatedPatterns.stream().map(TripPattern::getRoutingTripPattern).toList()
+    );
 
     if (transferIndexGenerator != null) {
       realtimeTransitLayer.setConstrainedTransfers(transferIndexGenerator.generateTransfers());
@@ -223,6 +250,7 @@ public class TransitLayerUpdater {
     // Switch out the reference with the updated realtimeTransitLayer. This is synchronized to
     // guarantee that the reference is set after all the fields have been updated.
     transitService.setRealtimeTransitLayer(realtimeTransitLayer);
+    record(publishTimer, phaseStartTime);
 
     LOG.debug(
       "UPDATING {} tripPatterns took {} ms",
@@ -230,4 +258,66 @@ public class TransitLayerUpdater {
       System.currentTimeMillis() - startTime
     );
   }
+
+  /**
+   * Map the timetables to TripPatternsForDate, the result at each index is the mapping of the
+   * timetable at the same index.
+   */
+  private static MappedTimetable[] mapTimetables(
+    List<Timetable> timetables,
+    TripPatternForDateMapper tripPatternForDateMapper,
+    int parallelMappingThreshold
+  ) {
+    var result = new MappedTimetable[timetables.size()];
+    var indexes = IntStream.range(0, result.length);
+    if (result.length >= parallelMappingThreshold) {
+      indexes = indexes.parallel();
+    }
+    // The mapper is thread-safe, and each index of the result is only written once
+    indexes.forEach(i ->
+      result[i] = MappedTimetable.map(timetables.get(i), tripPatternForDateMapper)
+    );
+    return result;
+  }
+
+  private static void addForRunningPeriodDates(
+    Map<LocalDate, List<TripPatternForDate>> tripPatternsForDate,
+    TripPatternForDate tripPatternForDate
+  ) {
+    for (LocalDate date : tripPatternForDate.getRunningPeriodDates()) {
+      tripPatternsForDate.computeIfAbsent(date, d -> new ArrayList<>()).add(tripPatternForDate);
+    }
+  }
+
+  /**
+   * Record the time since the given start time, and return the current time as the start time of
+   * the next phase.
+   */
+  private static long record(Timer timer, long phaseStartTime) {
+    long now = System.nanoTime();
+    timer.record(now - phaseStartTime, TimeUnit.NANOSECONDS);
+    return now;
+  }
+
+  private static Timer phaseTimer(String phase) {
+    return Timer
+      .builder(METRICS_PREFIX + ".update")
+      .description("Time spent in each phase of updating the realtime transit layer")
+      .tag("phase", phase)
+      .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * The result of mapping a timetable, {@code failed} is true if the running period of the
+   * timetable could not be found.
+   */
+  private record MappedTimetable(@Nullable TripPatternForDate tripPatternForDate, boolean failed) {
+    static MappedTimetable map(Timetable timetable, TripPatternForDateMapper mapper) {
+      try {
+        return new MappedTimetable(mapper.map(timetable, timetable.getServiceDate()), false);
+      } catch (IllegalArgumentException exception) {
+        return new MappedTimetable(null, true);
+      }
+    }
+  }
 }
@@ -3,9 +3,22 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.tostring.ToStringBuilder;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.RaptorTransferIndex;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.Transfer;
@@ -20,45 +33,159 @@ import org.opentripplanner.street.search.request.StreetSearchRequestMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Cache the {@link RaptorTransferIndex} for each distinct set of transfer relevant request
+ * parameters.
+ * <p>
+ * If {@code asyncLoading} is enabled, a cache miss does not block the request if transfers for
+ * compatible parameters (same street mode and wheelchair settings) are cached. The transfers for
+ * the new parameters are then calculated in the background, and the request is served with the
+ * cached transfers with the most similar parameters.
+ */
 public class RaptorRequestTransferCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(RaptorRequestTransferCache.class);
 
+  private static final List<Tag> METRICS_TAGS = List.of(Tag.of("cache", "raptorTransfers"));
+
   private final LoadingCache<CacheKey, RaptorTransferIndex> transferCache;
+  private final boolean asyncLoading;
+
+  /** The keys currently loaded in the background, used to avoid loading the same key twice */
+  private final Set<CacheKey> pendingKeys = ConcurrentHashMap.newKeySet();
+
+  /** Created lazily, only needed if async loading is enabled and a cache miss happens. */
+  private ExecutorService asyncLoader;
+
+  private final Timer buildTimer = Timer
+    .builder("raptorTransfersCache.build")
+    .tags(METRICS_TAGS)
+    .register(Metrics.globalRegistry);
+  private final Counter fallbackCounter = Counter
+    .builder("raptorTransfersCache.fallback")
+    .tags(METRICS_TAGS)
+    .register(Metrics.globalRegistry);
 
   public RaptorRequestTransferCache(int maximumSize) {
-    transferCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build(cacheLoader());
+    this(maximumSize, false);
+  }
+
+  public RaptorRequestTransferCache(int maximumSize, boolean asyncLoading) {
+    this.transferCache =
+      CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build(cacheLoader());
+    this.asyncLoading = asyncLoading;
+    // Bound here, the cache is created after the server metrics are set up
+    GuavaCacheMetrics.monitor(
+      Metrics.globalRegistry,
+      transferCache,
+      "raptorTransfersCache",
+      METRICS_TAGS
+    );
   }
 
   public LoadingCache<CacheKey, RaptorTransferIndex> getTransferCache() {
     return transferCache;
   }
 
+  /**
+   * Calculate and cache the transfers for the given request. This method is thread-safe, so
+   * several requests can be initialized in parallel.
+   */
   public void put(List<List<Transfer>> transfersByStopIndex, RouteRequest request) {
     final CacheKey cacheKey = new CacheKey(transfersByStopIndex, request);
-    final RaptorTransferIndex raptorTransferIndex = RaptorTransferIndex.create(
-      transfersByStopIndex,
-      cacheKey.request
-    );
-
     LOG.info("Initializing cache with request: {}", cacheKey.options);
-    transferCache.put(cacheKey, raptorTransferIndex);
+    transferCache.put(cacheKey, createIndex(cacheKey));
   }
 
   public RaptorTransferIndex get(List<List<Transfer>> transfersByStopIndex, RouteRequest request) {
+    var cacheKey = new CacheKey(transfersByStopIndex, request);
+
+    if (asyncLoading) {
+      var index = transferCache.getIfPresent(cacheKey);
+      if (index != null) {
+        return index;
+      }
+      var fallback = findClosestCompatible(cacheKey);
+      if (fallback != null) {
+        loadInBackground(cacheKey);
+        fallbackCounter.increment();
+        return fallback;
+      }
+    }
     try {
-      return transferCache.get(new CacheKey(transfersByStopIndex, request));
+      return transferCache.get(cacheKey);
+    } catch (UncheckedExecutionException e) {
+      // Let the caller handle a timeout or other runtime exception thrown by the loader
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
     } catch (ExecutionException e) {
       throw new RuntimeException("Failed to get item from transfer cache", e);
     }
   }
 
+  /**
+   * Find the cached index with the options most similar to the given key. Only indexes calculated
+   * with the same transfer mode and wheelchair settings are considered, since these may change
+   * which stops can be reached, not only the duration and cost of the transfers.
+   */
+  @Nullable
+  private RaptorTransferIndex findClosestCompatible(CacheKey cacheKey) {
+    RaptorTransferIndex best = null;
+    int bestScore = -1;
+    for (Map.Entry<CacheKey, RaptorTransferIndex> it : transferCache.asMap().entrySet()) {
+      var key = it.getKey();
+      if (key.transfersByStopIndex != cacheKey.transfersByStopIndex) {
+        continue;
+      }
+      int score = cacheKey.options.similarity(key.options);
+      if (score > bestScore) {
+        best = it.getValue();
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+
+  private void loadInBackground(CacheKey cacheKey) {
+    if (!pendingKeys.add(cacheKey)) {
+      return;
+    }
+    asyncLoader()
+      .execute(() -> {
+        try {
+          transferCache.get(cacheKey);
+        } catch (Exception e) {
+          LOG.error("Failed to calculate transfers for request: {}", cacheKey.options, e);
+        } finally {
+          pendingKeys.remove(cacheKey);
+        }
+      });
+  }
+
+  private synchronized ExecutorService asyncLoader() {
+    if (asyncLoader == null) {
+      asyncLoader =
+        Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("transfer-cache-loader").setDaemon(true).build()
+        );
+    }
+    return asyncLoader;
+  }
+
+  private RaptorTransferIndex createIndex(CacheKey cacheKey) {
+    return buildTimer.record(() ->
+      RaptorTransferIndex.create(cacheKey.transfersByStopIndex, cacheKey.request)
+    );
+  }
+
   private CacheLoader<CacheKey, RaptorTransferIndex> cacheLoader() {
     return new CacheLoader<>() {
       @Override
       public RaptorTransferIndex load(CacheKey cacheKey) {
         LOG.info("Adding runtime request to cache: {}", cacheKey.options);
-        return RaptorTransferIndex.create(cacheKey.transfersByStopIndex, cacheKey.request);
+        return createIndex(cacheKey);
       }
     };
   }
@@ -124,6 +251,31 @@ public class RaptorRequestTransferCache {
         this.wheelchair ? preferences.wheelchair() : WheelchairPreferences.DEFAULT;
     }
 
+    /**
+     * Return -1 if the options are not compatible, i.e. the transfer mode or wheelchair settings
+     * differ. Otherwise, return the number of equal preference groups (0-3), higher is more similar.
+     */
+    private int similarity(StreetRelevantOptions other) {
+      if (
+        transferMode != other.transferMode ||
+        wheelchair != other.wheelchair ||
+        !Objects.equals(wheelchairPreferences, other.wheelchairPreferences)
+      ) {
+        return -1;
+      }
+      int score = 0;
+      if (Objects.equals(walk, other.walk)) {
+        ++score;
+      }
+      if (Objects.equals(bike, other.bike)) {
+        ++score;
+      }
+      if (Objects.equals(street, other.street)) {
+        ++score;
+      }
+      return score;
+    }
+
     @Override
     public String toString() {
       return ToStringBuilder
@@ -9,11 +9,15 @@ import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.time.DurationUtils;
 import org.opentripplanner.framework.time.ServiceDateUtils;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
@@ -95,6 +99,29 @@ class RaptorRoutingRequestTransitDataCreator {
     List<TripPatternForDate> patternForDateList,
     TransitDataProviderFilter filter,
     TransitGroupPriorityService transitGroupPriorityService
+  ) {
+    return merge(
+      transitSearchTimeZero,
+      patternForDateList,
+      filter,
+      transitGroupPriorityService,
+      null,
+      Set.of()
+    );
+  }
+
+  /**
+   * Same as the method above, but reuse the merged trip data from the given cache for patterns
+   * where none of the trips are removed by the filter. The patterns with trips removed must be
+   * listed in {@code patternsWithFilteredTrips}, these are not added to the cache.
+   */
+  static List<TripPatternForDates> merge(
+    ZonedDateTime transitSearchTimeZero,
+    List<TripPatternForDate> patternForDateList,
+    TransitDataProviderFilter filter,
+    TransitGroupPriorityService transitGroupPriorityService,
+    @Nullable TripPatternForDatesCache.Window cache,
+    Set<RoutingTripPattern> patternsWithFilteredTrips
   ) {
     // Group TripPatternForDate objects by TripPattern.
     // This is done in a loop to increase performance.
@@ -118,6 +145,29 @@ class RaptorRoutingRequestTransitDataCreator {
         .toArray(new TripPatternForDate[0]);
       Arrays.sort(patternsSorted);
 
+      final RoutingTripPattern tripPattern = patternEntry.getKey();
+      BitSet boardingPossible = filter.filterAvailableStops(
+        tripPattern,
+        tripPattern.getBoardingPossible(),
+        BoardAlight.BOARD
+      );
+      BitSet alightingPossible = filter.filterAvailableStops(
+        tripPattern,
+        tripPattern.getAlightingPossible(),
+        BoardAlight.ALIGHT
+      );
+      int priorityGroupId = transitGroupPriorityService.lookupTransitGroupPriorityId(
+        tripPattern.getPattern()
+      );
+
+      var cached = cache == null ? null : cache.get(tripPattern, patternsSorted);
+      if (cached != null) {
+        combinedList.add(
+          cached.withRequestFilters(boardingPossible, alightingPossible, priorityGroupId)
+        );
+        continue;
+      }
+
       // Calculate offsets per date
       int[] offsets = new int[patternsSorted.length];
       for (int i = 0; i < patternsSorted.length; i++) {
@@ -131,28 +181,23 @@ class RaptorRoutingRequestTransitDataCreator {
       }
 
       // Combine TripPatternForDate objects
-      final RoutingTripPattern tripPattern = patternEntry.getKey();
-
-      combinedList.add(
-        new TripPatternForDates(
-          tripPattern,
-          patternsSorted,
-          offsets,
-          filter.filterAvailableStops(
-            tripPattern,
-            tripPattern.getBoardingPossible(),
-            BoardAlight.BOARD
-          ),
-          filter.filterAvailableStops(
-            tripPattern,
-            tripPattern.getAlightingPossible(),
-            BoardAlight.ALIGHT
-          ),
-          transitGroupPriorityService.lookupTransitGroupPriorityId(tripPattern.getPattern())
-        )
+      var merged = new TripPatternForDates(
+        tripPattern,
+        patternsSorted,
+        offsets,
+        boardingPossible,
+        alightingPossible,
+        priorityGroupId
       );
+      if (cache != null && !patternsWithFilteredTrips.contains(tripPattern)) {
+        cache.add(merged);
+      }
+      combinedList.add(merged);
     }
 
+    if (cache != null) {
+      cache.commit();
+    }
     return combinedList;
   }
 
@@ -162,20 +207,34 @@ class RaptorRoutingRequestTransitDataCreator {
     TransitDataProviderFilter filter,
     TransitGroupPriorityService transitGroupPriorityService
   ) {
+    Set<RoutingTripPattern> patternsWithFilteredTrips = new HashSet<>();
     List<TripPatternForDate> tripPatternForDates = getTripPatternsForDateRange(
       additionalPastSearchDays,
       additionalFutureSearchDays,
-      filter
+      filter,
+      patternsWithFilteredTrips
     );
 
-    return merge(transitSearchTimeZero, tripPatternForDates, filter, transitGroupPriorityService);
+    var cache = transitLayer
+      .getTripPatternsForDatesCache()
+      .window(transitSearchTimeZero, additionalPastSearchDays, additionalFutureSearchDays);
+
+    return merge(
+      transitSearchTimeZero,
+      tripPatternForDates,
+      filter,
+      transitGroupPriorityService,
+      cache,
+      patternsWithFilteredTrips
+    );
   }
 
   private static List<TripPatternForDate> filterActiveTripPatterns(
     TransitLayer transitLayer,
     LocalDate date,
     boolean firstDay,
-    TransitDataProviderFilter filter
+    TransitDataProviderFilter filter,
+    Set<RoutingTripPattern> patternsWithFilteredTrips
   ) {
     // On the first search day we want to add both TripPatternsForDate objects that start that day
     // and any previous day, while on subsequent search days we only want to add the
@@ -200,6 +259,9 @@ class RaptorRoutingRequestTransitDataCreator {
           if (tripPatternForDate != null) {
             result.add(tripPatternForDate);
           }
+          if (tripPatternForDate != p) {
+            patternsWithFilteredTrips.add(p.getTripPattern());
+          }
         }
       }
     }
@@ -209,7 +271,8 @@ class RaptorRoutingRequestTransitDataCreator {
   private List<TripPatternForDate> getTripPatternsForDateRange(
     int additionalPastSearchDays,
     int additionalFutureSearchDays,
-    TransitDataProviderFilter filter
+    TransitDataProviderFilter filter,
+    Set<RoutingTripPattern> patternsWithFilteredTrips
   ) {
     List<TripPatternForDate> tripPatternForDates = new ArrayList<>();
     long start = System.currentTimeMillis();
@@ -217,7 +280,13 @@ class RaptorRoutingRequestTransitDataCreator {
     // This filters trips by the search date as well as additional dates before and after
     for (int d = -additionalPastSearchDays; d <= additionalFutureSearchDays; ++d) {
       tripPatternForDates.addAll(
-        filterActiveTripPatterns(transitLayer, departureDate.plusDays(d), d == 0, filter)
+        filterActiveTripPatterns(
+          transitLayer,
+          departureDate.plusDays(d),
+          d == 0,
+          filter,
+          patternsWithFilteredTrips
+        )
       );
     }
 
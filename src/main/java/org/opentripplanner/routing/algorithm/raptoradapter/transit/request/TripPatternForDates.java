@@ -107,6 +107,57 @@ public class TripPatternForDates
     }
   }
 
+  /**
+   * Create a copy sharing the trips and the arrival/departure times with the original, but with
+   * the boarding/alighting and priority-group of the current request.
+   */
+  private TripPatternForDates(
+    TripPatternForDates original,
+    BitSet boardingPossible,
+    BitSet alightingPossible,
+    int priorityGroupId
+  ) {
+    this.tripPattern = original.tripPattern;
+    this.tripPatternForDates = original.tripPatternForDates;
+    this.offsets = original.offsets;
+    this.numberOfTripSchedules = original.numberOfTripSchedules;
+    this.isFrequencyBased = original.isFrequencyBased;
+    this.arrivalTimes = original.arrivalTimes;
+    this.departureTimes = original.departureTimes;
+    this.wheelchairBoardings = original.wheelchairBoardings;
+    this.boardingPossible = boardingPossible;
+    this.alightingPossible = alightingPossible;
+    this.priorityGroupId = priorityGroupId;
+  }
+
+  /**
+   * Return a view of this pattern with the given request specific boarding/alighting and
+   * priority-group. This is cheap, no trip data is copied.
+   */
+  TripPatternForDates withRequestFilters(
+    BitSet boardingPossible,
+    BitSet alightingPossible,
+    int priorityGroupId
+  ) {
+    return new TripPatternForDates(this, boardingPossible, alightingPossible, priorityGroupId);
+  }
+
+  /**
+   * Return {@code true} if this is created from exactly the given trip patterns for dates,
+   * compared by identity.
+   */
+  boolean isMergedFrom(TripPatternForDate[] other) {
+    if (other.length != tripPatternForDates.length) {
+      return false;
+    }
+    for (int i = 0; i < other.length; i++) {
+      if (other[i] != tripPatternForDates[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public RoutingTripPattern getTripPattern() {
     return tripPattern;
   }
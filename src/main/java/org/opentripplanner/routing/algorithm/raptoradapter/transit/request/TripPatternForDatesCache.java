@@ -0,0 +1,251 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.collection.PersistentHashMap;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model.network.RoutingTripPattern;
+
+/**
+ * Cache the merged {@link TripPatternForDates} across routing requests. Merging copies the
+ * arrival and departure times of all trips in the search window into new arrays, and for requests
+ * without a filter removing trips this work is identical from one request to the next. The cached
+ * instance is reused for a pattern if the request has exactly the same {@link TripPatternForDate}
+ * instances for it. The request specific boarding/alighting filters and transit group priority are
+ * applied on top of the shared arrays, see {@link TripPatternForDates#withRequestFilters}.
+ * <p>
+ * The cache belongs to a {@link TransitLayer}. A new transit layer created by the real-time updater
+ * gets a copy where the entries of the updated patterns are removed, see
+ * {@link #copyWithout(Collection)}. The patterns are stored in persistent maps, so the copy is
+ * cheap and does not affect requests using the old transit layer.
+ * <p>
+ * The size of the cache is limited by the total number of stop times in the cached patterns. When
+ * the limit is exceeded the search windows not used recently are dropped first, then patterns are
+ * removed from the window used by the request until the cache is within the limit again.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class TripPatternForDatesCache {
+
+  /**
+   * Most requests use the same few search windows - today and the next days with the default
+   * number of additional search days. Windows not used recently are dropped to limit the memory
+   * used.
+   */
+  private static final int MAX_NUMBER_OF_SEARCH_WINDOWS = 4;
+
+  /**
+   * Each stop time is stored as an arrival and a departure time, so 25 million stop times is about
+   * 200 MB of merged arrays in total for all search windows.
+   */
+  private static final long DEFAULT_MAX_NUMBER_OF_STOP_TIMES = 25_000_000;
+
+  private final Map<SearchWindow, Window> windows = new ConcurrentHashMap<>();
+  private final long maxNumberOfStopTimes;
+
+  public TripPatternForDatesCache() {
+    this(DEFAULT_MAX_NUMBER_OF_STOP_TIMES);
+  }
+
+  TripPatternForDatesCache(long maxNumberOfStopTimes) {
+    this.maxNumberOfStopTimes = maxNumberOfStopTimes;
+  }
+
+  private TripPatternForDatesCache(
+    TripPatternForDatesCache other,
+    Collection<RoutingTripPattern> removed
+  ) {
+    this.maxNumberOfStopTimes = other.maxNumberOfStopTimes;
+    other.windows.forEach((key, window) -> windows.put(key, window.copyWithout(this, removed)));
+  }
+
+  /**
+   * Return a copy of this cache without the given patterns. Use this when the trip patterns for
+   * dates of the given patterns are updated.
+   */
+  public TripPatternForDatesCache copyWithout(Collection<RoutingTripPattern> patterns) {
+    return new TripPatternForDatesCache(this, patterns);
+  }
+
+  /**
+   * Return the cache for the search window starting at the given time zero, with the given number
+   * of additional days before and after the search day.
+   */
+  Window window(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays
+  ) {
+    var key = new SearchWindow(
+      transitSearchTimeZero,
+      additionalPastSearchDays,
+      additionalFutureSearchDays
+    );
+    var window = windows.computeIfAbsent(key, k -> new Window(this, Entries.EMPTY));
+    window.lastUsed = System.nanoTime();
+    if (windows.size() > MAX_NUMBER_OF_SEARCH_WINDOWS) {
+      windows
+        .entrySet()
+        .stream()
+        .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+        .ifPresent(e -> windows.remove(e.getKey(), e.getValue()));
+    }
+    return window;
+  }
+
+  int numberOfCachedPatterns() {
+    return windows.values().stream().mapToInt(w -> w.entries.get().patterns().size()).sum();
+  }
+
+  long numberOfCachedStopTimes() {
+    return windows.values().stream().mapToLong(w -> w.entries.get().stopTimes()).sum();
+  }
+
+  /**
+   * Drop the least recently used search windows other than the given one, and then remove patterns
+   * from the given window, until the number of cached stop times is within the limit.
+   */
+  private void evictIfAboveLimit(Window current) {
+    long total = numberOfCachedStopTimes();
+    if (total <= maxNumberOfStopTimes) {
+      return;
+    }
+    var others = windows
+      .entrySet()
+      .stream()
+      .filter(e -> e.getValue() != current)
+      .sorted(Comparator.comparingLong(e -> e.getValue().lastUsed))
+      .toList();
+    for (var it : others) {
+      if (total <= maxNumberOfStopTimes) {
+        return;
+      }
+      if (windows.remove(it.getKey(), it.getValue())) {
+        total -= it.getValue().entries.get().stopTimes();
+      }
+    }
+    long limit = maxNumberOfStopTimes - (total - current.entries.get().stopTimes());
+    current.entries.updateAndGet(e -> e.shrinkTo(limit));
+  }
+
+  private static long numberOfStopTimes(TripPatternForDates pattern) {
+    return (long) pattern.numberOfStopsInPattern() * pattern.numberOfTripSchedules();
+  }
+
+  private record SearchWindow(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays
+  ) {}
+
+  /**
+   * The cached patterns of a search window and the total number of stop times in them.
+   */
+  private record Entries(
+    PersistentHashMap<RoutingTripPattern, TripPatternForDates> patterns,
+    long stopTimes
+  ) {
+    private static final Entries EMPTY = new Entries(PersistentHashMap.empty(), 0);
+
+    private Entries plus(TripPatternForDates pattern) {
+      var old = patterns.get(pattern.getTripPattern());
+      long n = stopTimes + numberOfStopTimes(pattern) - (old == null ? 0 : numberOfStopTimes(old));
+      return new Entries(patterns.plus(pattern.getTripPattern(), pattern), n);
+    }
+
+    private Entries minus(RoutingTripPattern pattern) {
+      var old = patterns.get(pattern);
+      if (old == null) {
+        return this;
+      }
+      return new Entries(patterns.minus(pattern), stopTimes - numberOfStopTimes(old));
+    }
+
+    private Entries shrinkTo(long maxStopTimes) {
+      var result = this;
+      for (var it : patterns.keySet()) {
+        if (result.stopTimes <= maxStopTimes) {
+          break;
+        }
+        result = result.minus(it);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The cached patterns for one search window. New patterns are collected during the request and
+   * added in one operation, see {@link #commit()}.
+   */
+  static final class Window {
+
+    private final TripPatternForDatesCache cache;
+    private final AtomicReference<Entries> entries;
+    private final List<TripPatternForDates> added = new ArrayList<>();
+    private volatile long lastUsed;
+
+    private Window(TripPatternForDatesCache cache, Entries entries) {
+      this.cache = cache;
+      this.entries = new AtomicReference<>(entries);
+    }
+
+    /**
+     * Return the cached merged pattern if it is created from the given trip patterns for dates,
+     * otherwise {@code null}.
+     */
+    @Nullable
+    TripPatternForDates get(RoutingTripPattern pattern, TripPatternForDate[] tripPatternForDates) {
+      var cached = entries.get().patterns().get(pattern);
+      return cached != null && cached.isMergedFrom(tripPatternForDates) ? cached : null;
+    }
+
+    /**
+     * Add a pattern merged from unfiltered trip patterns for dates. The pattern is not visible to
+     * other requests before {@link #commit()} is called.
+     */
+    void add(TripPatternForDates pattern) {
+      synchronized (added) {
+        added.add(pattern);
+      }
+    }
+
+    void commit() {
+      List<TripPatternForDates> list;
+      synchronized (added) {
+        if (added.isEmpty()) {
+          return;
+        }
+        list = List.copyOf(added);
+        added.clear();
+      }
+      entries.updateAndGet(e -> {
+        for (TripPatternForDates it : list) {
+          e = e.plus(it);
+        }
+        return e;
+      });
+      cache.evictIfAboveLimit(this);
+    }
+
+    private Window copyWithout(
+      TripPatternForDatesCache cache,
+      Collection<RoutingTripPattern> removed
+    ) {
+      var e = entries.get();
+      for (RoutingTripPattern it : removed) {
+        e = e.minus(it);
+      }
+      var copy = new Window(cache, e);
+      copy.lastUsed = lastUsed;
+      return copy;
+    }
+  }
+}
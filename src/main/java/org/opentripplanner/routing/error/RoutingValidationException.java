@@ -2,7 +2,6 @@ package org.opentripplanner.routing.error;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import org.opentripplanner.routing.api.response.InputField;
@@ -21,13 +20,6 @@ public class RoutingValidationException extends RuntimeException {
     this.routingErrors = routingErrors;
   }
 
-  public static void unwrapAndRethrowCompletionException(CompletionException e) {
-    if (e.getCause() instanceof RuntimeException cause) {
-      throw cause;
-    }
-    throw e;
-  }
-
   public static void unwrapAndRethrowExecutionException(ExecutionException e) {
     if (e.getCause() instanceof RuntimeException cause) {
       throw cause;
@@ -23,6 +23,7 @@ import org.opentripplanner.routing.graph.index.StreetIndex;
 import org.opentripplanner.routing.linking.VertexLinker;
 import org.opentripplanner.routing.services.notes.StreetNotesService;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
+import org.opentripplanner.street.model.StreetLandmarks;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
@@ -79,6 +80,10 @@ public class Graph implements Serializable {
 
   private transient StreetIndex streetIndex;
 
+  /** Only built if the {@code streetLandmarks} build parameter is set. */
+  @Nullable
+  private StreetLandmarks streetLandmarks;
+
   /** The convex hull of all the graph vertices. Generated at the time the Graph is built. */
   private Geometry convexHull = null;
 
@@ -303,6 +308,15 @@ public class Graph implements Serializable {
     return this.streetIndex;
   }
 
+  @Nullable
+  public StreetLandmarks getStreetLandmarks() {
+    return streetLandmarks;
+  }
+
+  public void setStreetLandmarks(@Nullable StreetLandmarks streetLandmarks) {
+    this.streetLandmarks = streetLandmarks;
+  }
+
   /**
    * Get streetIndex during graph build, both OSM street data and transit data must be loaded
    * before calling this.
@@ -13,12 +13,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.emissions.EmissionsDataModel;
 import org.opentripplanner.ext.stopconsolidation.StopConsolidationRepository;
+import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.framework.application.OtpAppException;
 import org.opentripplanner.framework.geometry.CompactElevationProfile;
 import org.opentripplanner.framework.lang.OtpNumberFormat;
@@ -32,6 +35,7 @@ import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.street.model.StreetLimitationParameters;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetEdgeGeometryStore;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.basic.SubMode;
 import org.opentripplanner.transit.model.network.RoutingTripPattern;
@@ -80,6 +84,12 @@ public class SerializedGraphObject implements Serializable {
   public final EmissionsDataModel emissionsDataModel;
   public final StreetLimitationParameters streetLimitationParameters;
 
+  /**
+   * The street edge geometries are stored in a separate file next to the graph file, see
+   * {@link StreetEdgeGeometryStore}.
+   */
+  private boolean streetGeometryInSeparateFile = false;
+
   public SerializedGraphObject(
     Graph graph,
     TransitModel transitModel,
@@ -122,12 +132,16 @@ public class SerializedGraphObject implements Serializable {
   }
 
   public static SerializedGraphObject load(DataSource source) {
-    return load(source.asInputStream(), source.path());
+    return load(source.asInputStream(), source.path(), streetGeometryFile(source));
   }
 
   public static SerializedGraphObject load(File file) {
     try {
-      return load(new FileInputStream(file), file.getAbsolutePath());
+      return load(
+        new FileInputStream(file),
+        file.getAbsolutePath(),
+        streetGeometryFile(file.getPath())
+      );
     } catch (FileNotFoundException e) {
       LOG.error("Graph file not found: " + file, e);
       throw new OtpAppException(e.getMessage());
@@ -156,6 +170,10 @@ public class SerializedGraphObject implements Serializable {
    */
   public void save(@Nullable DataSource target) {
     if (target != null) {
+      // A graph loaded with the geometry in a separate file must be saved the same way
+      if (OTPFeature.MappedStreetGeometry.isOn() || streetGeometryInSeparateFile) {
+        saveStreetGeometry(streetGeometryFile(target));
+      }
       save(target.asOutputStream(), target.name(), target.size());
     } else {
       LOG.info("Not saving graph to disk, as requested.");
@@ -164,7 +182,47 @@ public class SerializedGraphObject implements Serializable {
 
   /* private methods */
 
-  private static SerializedGraphObject load(InputStream inputStream, String sourceDescription) {
+  /**
+   * The street geometry file is stored next to the graph file, this is only possible if the
+   * graph is stored in the local file system.
+   */
+  @Nullable
+  private static Path streetGeometryFile(DataSource source) {
+    return "file".equals(source.uri().getScheme()) ? streetGeometryFile(source.path()) : null;
+  }
+
+  private static Path streetGeometryFile(String graphPath) {
+    return Path.of(graphPath + ".geom");
+  }
+
+  private void saveStreetGeometry(@Nullable Path file) {
+    if (file == null) {
+      if (streetGeometryInSeparateFile) {
+        throw new OtpAppException(
+          "The graph street geometry is stored in a separate file, the graph can only be saved " +
+          "to the local file system."
+        );
+      }
+      LOG.warn(
+        "The street geometry can only be stored in a separate file if the graph is saved to the " +
+        "local file system. The geometry is saved in the graph file."
+      );
+      return;
+    }
+    try {
+      LOG.info("Writing street geometry {}  ...", file);
+      StreetEdgeGeometryStore.writeAndMap(edges, file);
+      streetGeometryInSeparateFile = true;
+    } catch (IOException e) {
+      throw new OtpAppException("Unable to write street geometry to %s: %s", file, e.getMessage());
+    }
+  }
+
+  private static SerializedGraphObject load(
+    InputStream inputStream,
+    String sourceDescription,
+    @Nullable Path streetGeometryFile
+  ) {
     // TODO store version information, halt load if versions mismatch
     try (inputStream) {
       LOG.info("Reading graph from '{}'", sourceDescription);
@@ -183,7 +241,20 @@ public class SerializedGraphObject implements Serializable {
         serObj.graph.getDistanceBetweenElevationSamples()
       );
       LOG.debug("Graph read.");
+      if (serObj.streetGeometryInSeparateFile) {
+        if (streetGeometryFile == null || !Files.exists(streetGeometryFile)) {
+          throw new OtpAppException(
+            "The street geometry file for the graph %s is missing. Expected: %s",
+            sourceDescription,
+            streetGeometryFile
+          );
+        }
+        StreetEdgeGeometryStore.map(streetGeometryFile, serObj.edges);
+      }
       serObj.reconstructEdgeLists();
+      if (serObj.graph.getStreetLandmarks() != null) {
+        serObj.graph.getStreetLandmarks().index();
+      }
       serObj.transitModel.getStopModel().reindexAfterDeserialization();
       serObj.transitModel.index();
       logSerializationCompleteStatus(serObj.graph, serObj.transitModel);
@@ -1,9 +1,19 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedRTree;
 import org.opentripplanner.routing.linking.Scope;
 import org.opentripplanner.street.model.edge.Edge;
 
@@ -29,40 +39,187 @@ import org.opentripplanner.street.model.edge.Edge;
  * edge then back again to where the realtime element was connected.
  * <p>
  * See #3351
+ * <p>
+ * The permanent edges are stored in a {@link PackedRTree}, the real-time edges in a
+ * {@link HashGridSpatialIndex}, which is cheap to update.
  */
 public class EdgeSpatialIndex {
 
-  private final HashGridSpatialIndex<Edge> permanentEdgeIndex = new HashGridSpatialIndex<>();
+  /**
+   * The permanent edges are stored in a packed R-tree, which can not be changed. Permanent edges
+   * added after the tree is created are kept in a hash grid, and removed edges are filtered out
+   * of the query results, until the tree is rebuilt by {@link #compact()}.
+   */
+  private PackedRTree<Edge> permanentEdgeTree = PackedRTree.empty();
+
+  private final Map<Edge, Envelope> addedPermanentEdges = new LinkedHashMap<>();
+
+  private HashGridSpatialIndex<Edge> addedPermanentEdgeIndex = new HashGridSpatialIndex<>();
+
+  private final Set<Edge> removedPermanentEdges = new HashSet<>();
 
   private final HashGridSpatialIndex<Edge> realTimeEdgeIndex = new HashGridSpatialIndex<>();
 
+  /**
+   * Queries share the read lock, changes take the write lock. This allows linking vertices in
+   * parallel, see {@link org.opentripplanner.routing.linking.VertexLinker}.
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Insert the permanent edges and rebuild the permanent index. This is much faster than inserting
+   * the edges one by one, use it when creating the index.
+   */
+  public void insertPermanent(List<Edge> edges, List<Envelope> envelopes) {
+    lock.writeLock().lock();
+    try {
+      rebuildPermanentIndex(new ArrayList<>(edges), new ArrayList<>(envelopes));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
   public void insert(LineString lineString, Object obj, Scope scope) {
-    switch (scope) {
-      case PERMANENT -> permanentEdgeIndex.insert(lineString, obj);
-      case REALTIME -> realTimeEdgeIndex.insert(lineString, obj);
-      case REQUEST -> throw new IllegalArgumentException();
+    if (scope == Scope.REQUEST) {
+      throw new IllegalArgumentException();
+    }
+    lock.writeLock().lock();
+    try {
+      if (scope == Scope.PERMANENT) {
+        var edge = (Edge) obj;
+        addedPermanentEdges.put(edge, lineString.getEnvelopeInternal());
+        addedPermanentEdgeIndex.insert(lineString, edge);
+      } else {
+        realTimeEdgeIndex.insert(lineString, obj);
+      }
+    } finally {
+      lock.writeLock().unlock();
     }
   }
 
   public void remove(Envelope envelope, final Object item, Scope scope) {
-    switch (scope) {
-      case PERMANENT -> permanentEdgeIndex.remove(envelope, item);
-      case REALTIME -> realTimeEdgeIndex.remove(envelope, item);
-      case REQUEST -> throw new IllegalArgumentException();
+    if (scope == Scope.REQUEST) {
+      throw new IllegalArgumentException();
+    }
+    lock.writeLock().lock();
+    try {
+      if (scope == Scope.REALTIME) {
+        realTimeEdgeIndex.remove(envelope, item);
+      } else if (addedPermanentEdges.remove(item) != null) {
+        addedPermanentEdgeIndex.remove(envelope, item);
+      } else {
+        removedPermanentEdges.add((Edge) item);
+      }
+    } finally {
+      lock.writeLock().unlock();
     }
   }
 
   public final Stream<Edge> query(Envelope envelope, Scope scope) {
-    return switch (scope) {
-      case PERMANENT, REALTIME -> permanentEdgeIndex.query(envelope).stream();
-      case REQUEST -> Stream.concat(
-        permanentEdgeIndex.query(envelope).stream(),
-        realTimeEdgeIndex.query(envelope).stream()
+    lock.readLock().lock();
+    try {
+      var edges = queryPermanent(envelope);
+      if (scope == Scope.REQUEST) {
+        edges.addAll(realTimeEdgeIndex.query(envelope));
+      }
+      return edges.stream();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Visit the edges in the order of the distance to their bounding box, nearest first, see
+   * {@link PackedRTree#visitNearest(double, double, double, double, PackedRTree.NearestVisitor)}.
+   * The few edges not in the packed tree, the ones added after it was built and the real-time
+   * edges, are visited first with a distance of zero. The distance is only a lower bound, so
+   * this does not change which edges are found.
+   */
+  public void visitNearest(
+    Coordinate point,
+    double xScale,
+    double maxDistance,
+    Scope scope,
+    PackedRTree.NearestVisitor<Edge> visitor
+  ) {
+    var envelope = new Envelope(point);
+    envelope.expandBy(maxDistance / xScale, maxDistance);
+
+    lock.readLock().lock();
+    try {
+      var unpackedEdges = new ArrayList<>(addedPermanentEdgeIndex.query(envelope));
+      if (scope == Scope.REQUEST) {
+        unpackedEdges.addAll(realTimeEdgeIndex.query(envelope));
+      }
+      for (var edge : unpackedEdges) {
+        if (!visitor.visit(edge, 0)) {
+          return;
+        }
+      }
+      permanentEdgeTree.visitNearest(
+        point.x,
+        point.y,
+        xScale,
+        maxDistance,
+        (edge, distance) -> removedPermanentEdges.contains(edge) || visitor.visit(edge, distance)
       );
-    };
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
+  /**
+   * Rebuild the packed permanent index with the edges added and removed since it was created.
+   */
   public void compact() {
-    permanentEdgeIndex.compact();
+    lock.writeLock().lock();
+    try {
+      rebuildPermanentIndex(new ArrayList<>(), new ArrayList<>());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return (
+      "EdgeSpatialIndex{permanent: " +
+      permanentEdgeTree +
+      ", added: " +
+      addedPermanentEdges.size() +
+      ", removed: " +
+      removedPermanentEdges.size() +
+      ", realtime: " +
+      realTimeEdgeIndex +
+      "}"
+    );
+  }
+
+  private List<Edge> queryPermanent(Envelope envelope) {
+    var edges = permanentEdgeTree.query(envelope);
+    if (!removedPermanentEdges.isEmpty()) {
+      edges.removeIf(removedPermanentEdges::contains);
+    }
+    if (!addedPermanentEdges.isEmpty()) {
+      edges.addAll(addedPermanentEdgeIndex.query(envelope));
+    }
+    return edges;
+  }
+
+  private void rebuildPermanentIndex(List<Edge> edges, List<Envelope> envelopes) {
+    permanentEdgeTree.forEach((edge, envelope) -> {
+      if (!removedPermanentEdges.contains(edge)) {
+        edges.add(edge);
+        envelopes.add(envelope);
+      }
+    });
+    addedPermanentEdges.forEach((edge, envelope) -> {
+      edges.add(edge);
+      envelopes.add(envelope);
+    });
+    permanentEdgeTree = PackedRTree.of(edges, envelopes);
+    addedPermanentEdges.clear();
+    addedPermanentEdgeIndex = new HashGridSpatialIndex<>();
+    removedPermanentEdges.clear();
   }
 }
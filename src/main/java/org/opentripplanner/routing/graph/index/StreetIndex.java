@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -436,10 +437,12 @@ public class StreetIndex {
     var progress = ProgressTracker.track("Index street vertex", 1000, vertices.size());
     LOG.info(progress.startMessage());
 
+    var edges = new ArrayList<Edge>();
+    var edgeEnvelopes = new ArrayList<Envelope>();
     for (Vertex gv : vertices) {
       for (Edge e : gv.getOutgoing()) {
-        LineString geometry = edgeGeometryOrStraightLine(e);
-        edgeSpatialIndex.insert(geometry, e, Scope.PERMANENT);
+        edges.add(e);
+        edgeEnvelopes.add(edgeGeometryOrStraightLine(e).getEnvelopeInternal());
       }
       Envelope env = new Envelope(gv.getCoordinate());
       verticesTree.insert(env, gv);
@@ -448,8 +451,8 @@ public class StreetIndex {
       progress.step(m -> LOG.info(m));
     }
 
+    edgeSpatialIndex.insertPermanent(edges, edgeEnvelopes);
     // Trim the sizes of the indices
-    edgeSpatialIndex.compact();
     verticesTree.compact();
     LOG.info(progress.completeMessage());
   }
@@ -16,6 +16,7 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.preference.StreetPreferences;
 import org.opentripplanner.routing.error.PathNotFoundException;
 import org.opentripplanner.street.model.StreetConstants;
+import org.opentripplanner.street.model.StreetLandmarks;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
@@ -23,6 +24,7 @@ import org.opentripplanner.street.search.TemporaryVerticesContainer;
 import org.opentripplanner.street.search.state.State;
 import org.opentripplanner.street.search.strategy.DominanceFunctions;
 import org.opentripplanner.street.search.strategy.EuclideanRemainingWeightHeuristic;
+import org.opentripplanner.street.search.strategy.LandmarkRemainingWeightHeuristic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +61,9 @@ public class GraphPathFinder {
 
   private final float maxCarSpeed;
 
+  @Nullable
+  private final StreetLandmarks streetLandmarks;
+
   public GraphPathFinder(@Nullable TraverseVisitor<State, Edge> traverseVisitor) {
     this(traverseVisitor, null, StreetConstants.DEFAULT_MAX_CAR_SPEED);
   }
@@ -67,10 +72,24 @@ public class GraphPathFinder {
     @Nullable TraverseVisitor<State, Edge> traverseVisitor,
     @Nullable DataOverlayContext dataOverlayContext,
     float maxCarSpeed
+  ) {
+    this(traverseVisitor, dataOverlayContext, maxCarSpeed, null);
+  }
+
+  /**
+   * @param streetLandmarks If not null, car and bicycle searches use the landmark heuristic instead
+   *                        of the Euclidean heuristic.
+   */
+  public GraphPathFinder(
+    @Nullable TraverseVisitor<State, Edge> traverseVisitor,
+    @Nullable DataOverlayContext dataOverlayContext,
+    float maxCarSpeed,
+    @Nullable StreetLandmarks streetLandmarks
   ) {
     this.traverseVisitor = traverseVisitor;
     this.dataOverlayContext = dataOverlayContext;
     this.maxCarSpeed = maxCarSpeed;
+    this.streetLandmarks = streetLandmarks;
   }
 
   /**
@@ -84,9 +103,13 @@ public class GraphPathFinder {
   ) {
     StreetPreferences preferences = request.preferences().street();
 
+    var heuristic = streetLandmarks == null
+      ? new EuclideanRemainingWeightHeuristic(maxCarSpeed)
+      : new LandmarkRemainingWeightHeuristic(streetLandmarks, maxCarSpeed);
+
     StreetSearchBuilder aStar = StreetSearchBuilder
       .of()
-      .setHeuristic(new EuclideanRemainingWeightHeuristic(maxCarSpeed))
+      .setHeuristic(heuristic)
       .setSkipEdgeStrategy(
         new DurationSkipEdgeStrategy(
           preferences.maxDirectDuration().valueOf(request.journey().direct().mode())
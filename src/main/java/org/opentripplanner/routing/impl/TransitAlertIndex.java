@@ -0,0 +1,197 @@
+package org.opentripplanner.routing.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.opentripplanner.routing.alertpatch.EntityKey;
+import org.opentripplanner.routing.alertpatch.EntitySelector;
+import org.opentripplanner.routing.alertpatch.StopCondition;
+import org.opentripplanner.routing.alertpatch.StopConditionsHelper;
+import org.opentripplanner.routing.alertpatch.TransitAlert;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.service.StopModel;
+
+/**
+ * The alerts of a {@link TransitAlertServiceImpl}, indexed by the entities they apply to. The
+ * index is created once each time the alerts are set, so the lookups do not need to allocate
+ * anything in the common cases: when there are no alerts for an entity, or when all the alerts
+ * for an entity apply regardless of the stop conditions and service date of the lookup.
+ * <p>
+ * The alerts on stations and multimodal stations are also indexed by the stops in them, see
+ * {@link #findInheritedStopAlerts(FeedScopedId, Set)}.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+final class TransitAlertIndex {
+
+  static final TransitAlertIndex EMPTY = new TransitAlertIndex(List.of(), null);
+
+  private final Set<TransitAlert> allAlerts;
+  private final Map<FeedScopedId, TransitAlert> alertsById;
+  private final Map<EntityKey, Entries> entriesByKey;
+
+  /** The alerts on the stations and multimodal stations of each stop. */
+  private final Map<FeedScopedId, Entries> inheritedEntriesByStop;
+
+  /**
+   * @param stopModel Used to find the stops in stations and multimodal stations, if null the
+   *                  station alerts are not inherited by the stops.
+   */
+  TransitAlertIndex(Collection<TransitAlert> alerts, @Nullable StopModel stopModel) {
+    var entries = new HashMap<EntityKey, EntriesBuilder>();
+    var inheritedEntries = new HashMap<FeedScopedId, EntriesBuilder>();
+    var alertsById = new HashMap<FeedScopedId, TransitAlert>();
+
+    for (TransitAlert alert : alerts) {
+      alertsById.putIfAbsent(alert.getId(), alert);
+      for (EntitySelector entity : alert.entities()) {
+        entries.computeIfAbsent(entity.key(), k -> new EntriesBuilder()).add(entity, alert);
+        if (stopModel != null && entity instanceof EntitySelector.Stop stopEntity) {
+          for (var stop : stopsInStation(stopModel, stopEntity.stopId())) {
+            inheritedEntries
+              .computeIfAbsent(stop.getId(), k -> new EntriesBuilder())
+              .add(entity, alert);
+          }
+        }
+      }
+    }
+
+    this.allAlerts = Collections.unmodifiableSet(new HashSet<>(alerts));
+    this.alertsById = Map.copyOf(alertsById);
+    this.entriesByKey = build(entries);
+    this.inheritedEntriesByStop = build(inheritedEntries);
+  }
+
+  Set<TransitAlert> allAlerts() {
+    return allAlerts;
+  }
+
+  @Nullable
+  TransitAlert findById(FeedScopedId id) {
+    return alertsById.get(id);
+  }
+
+  /**
+   * @return the alerts for the entity key, without checking the selectors.
+   */
+  Collection<TransitAlert> find(EntityKey key) {
+    var entries = entriesByKey.get(key);
+    return entries == null ? Set.of() : entries.alerts;
+  }
+
+  /**
+   * @return the alerts which have an entity matching the given selector.
+   */
+  Collection<TransitAlert> findMatching(EntitySelector selector) {
+    var entries = entriesByKey.get(selector.key());
+    if (entries == null) {
+      return Set.of();
+    }
+    if (entries.matchesAll) {
+      return entries.alerts;
+    }
+    Set<TransitAlert> result = new HashSet<>();
+    for (int i = 0; i < entries.selectors.length; i++) {
+      if (entries.selectors[i].matches(selector)) {
+        result.add(entries.alertsOfSelectors[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the alerts on the station and the multimodal station of the stop, with stop
+   * conditions matching the given ones.
+   */
+  Collection<TransitAlert> findInheritedStopAlerts(
+    FeedScopedId stopId,
+    Set<StopCondition> stopConditions
+  ) {
+    var entries = inheritedEntriesByStop.get(stopId);
+    if (entries == null) {
+      return Set.of();
+    }
+    if (entries.matchesAll) {
+      return entries.alerts;
+    }
+    Set<TransitAlert> result = new HashSet<>();
+    for (int i = 0; i < entries.selectors.length; i++) {
+      if (StopConditionsHelper.matchesStopCondition(entries.selectors[i], stopConditions)) {
+        result.add(entries.alertsOfSelectors[i]);
+      }
+    }
+    return result;
+  }
+
+  private static Collection<StopLocation> stopsInStation(StopModel stopModel, FeedScopedId id) {
+    var station = stopModel.getStationById(id);
+    if (station != null) {
+      return station.getChildStops();
+    }
+    var multiModalStation = stopModel.getMultiModalStation(id);
+    if (multiModalStation != null) {
+      return multiModalStation.getChildStops();
+    }
+    return List.of();
+  }
+
+  private static <K> Map<K, Entries> build(Map<K, EntriesBuilder> builders) {
+    var result = new HashMap<K, Entries>();
+    builders.forEach((key, builder) -> result.put(key, builder.build()));
+    return Map.copyOf(result);
+  }
+
+  /**
+   * The entities with the same key and their alerts, in parallel arrays. If all the entities
+   * match any selector with the same key, {@code matchesAll} is true and the distinct alerts are
+   * in {@code alerts}.
+   */
+  private record Entries(
+    EntitySelector[] selectors,
+    TransitAlert[] alertsOfSelectors,
+    Set<TransitAlert> alerts,
+    boolean matchesAll
+  ) {}
+
+  private static final class EntriesBuilder {
+
+    private final List<EntitySelector> selectors = new ArrayList<>();
+    private final List<TransitAlert> alerts = new ArrayList<>();
+
+    void add(EntitySelector selector, TransitAlert alert) {
+      selectors.add(selector);
+      alerts.add(alert);
+    }
+
+    Entries build() {
+      return new Entries(
+        selectors.toArray(EntitySelector[]::new),
+        alerts.toArray(TransitAlert[]::new),
+        Collections.unmodifiableSet(new HashSet<>(alerts)),
+        selectors.stream().allMatch(EntriesBuilder::matchesAll)
+      );
+    }
+
+    /**
+     * Some selectors only match lookups with the same stop conditions or service date, all the
+     * others match any lookup with the same key.
+     */
+    private static boolean matchesAll(EntitySelector selector) {
+      return switch (selector) {
+        case EntitySelector.Stop s -> s.stopConditions().isEmpty();
+        case EntitySelector.StopAndRoute s -> s.stopConditions().isEmpty();
+        case EntitySelector.StopAndTrip s -> s.stopConditions().isEmpty() &&
+          s.serviceDate() == null;
+        case EntitySelector.Trip t -> t.serviceDate() == null;
+        default -> true;
+      };
+    }
+  }
+}
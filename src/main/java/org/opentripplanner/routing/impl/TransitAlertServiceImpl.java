@@ -1,7 +1,5 @@
 package org.opentripplanner.routing.impl;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.HashSet;
@@ -29,12 +27,14 @@ import org.opentripplanner.transit.service.TransitModel;
  * When an alert is added with more than one transit entity, e.g. a Stop and a Trip, both conditions
  * must be met for the alert to be displayed. This is the case in both the Norwegian interpretation
  * of SIRI, and the GTFS-RT alerts specification.
+ *
+ * The returned collections may be shared between calls and must not be modified.
  */
 public class TransitAlertServiceImpl implements TransitAlertService {
 
   private final TransitModel transitModel;
 
-  private Multimap<EntityKey, TransitAlert> alerts = HashMultimap.create();
+  private volatile TransitAlertIndex alerts = TransitAlertIndex.EMPTY;
 
   public TransitAlertServiceImpl(TransitModel transitModel) {
     this.transitModel = transitModel;
@@ -43,32 +43,23 @@ public class TransitAlertServiceImpl implements TransitAlertService {
   @Override
   public void setAlerts(Collection<TransitAlert> alerts) {
     // FIXME RT_AB: this is patched live by updaters while in use (being read) by other threads
-    //   performing trip planning. The single-action assignment helps a bit, but the map can be
-    //   swapped out while the delegating service is in the middle of multiple calls that read from
-    //   it. The consistent approach would be to duplicate the entire service, update it
-    //   copy-on-write, and swap in the entire service after the update.
-    Multimap<EntityKey, TransitAlert> newAlerts = HashMultimap.create();
-    for (TransitAlert alert : alerts) {
-      for (EntitySelector entity : alert.entities()) {
-        newAlerts.put(entity.key(), alert);
-      }
-    }
-    this.alerts = newAlerts;
+    //   performing trip planning. The index is immutable and swapped in with a single assignment,
+    //   so each call reads a consistent index, but the index can be swapped out while the
+    //   delegating service is in the middle of multiple calls that read from it. The consistent
+    //   approach would be to duplicate the entire service, update it copy-on-write, and swap in
+    //   the entire service after the update.
+    this.alerts =
+      new TransitAlertIndex(alerts, transitModel == null ? null : transitModel.getStopModel());
   }
 
   @Override
   public Collection<TransitAlert> getAllAlerts() {
-    return new HashSet<>(alerts.values());
+    return alerts.allAlerts();
   }
 
   @Override
   public TransitAlert getAlertById(FeedScopedId id) {
-    return alerts
-      .values()
-      .stream()
-      .filter(transitAlert -> transitAlert.getId().equals(id))
-      .findAny()
-      .orElse(null);
+    return alerts.findById(id);
   }
 
   @Override
@@ -76,55 +67,34 @@ public class TransitAlertServiceImpl implements TransitAlertService {
     FeedScopedId stopId,
     Set<StopCondition> stopConditions
   ) {
-    Set<TransitAlert> result = new HashSet<>();
-    EntitySelector.Stop entitySelector = new EntitySelector.Stop(stopId, stopConditions);
-    for (TransitAlert alert : alerts.get(entitySelector.key())) {
-      if (alert.entities().stream().anyMatch(selector -> selector.matches(entitySelector))) {
-        result.add(alert);
-      }
+    var index = alerts;
+    var stopAlerts = index.findMatching(new EntitySelector.Stop(stopId, stopConditions));
+    // The alerts on the parent station and the multimodal station of the stop
+    var inheritedAlerts = index.findInheritedStopAlerts(stopId, stopConditions);
+    if (inheritedAlerts.isEmpty()) {
+      return stopAlerts;
     }
-    if (result.isEmpty()) {
-      // Search for alerts on parent-stop
-      if (transitModel != null) {
-        var quay = transitModel.getStopModel().getRegularStop(stopId);
-        if (quay != null) {
-          // TODO - SIRI: Add alerts from parent- and multimodal-stops
-          /*
-                    if ( quay.isPartOfStation()) {
-                        // Add alerts for parent-station
-                        result.addAll(patchesByStop.getOrDefault(quay.getParentStationFeedScopedId(), Collections.emptySet()));
-                    }
-                    if (quay.getMultiModalStation() != null) {
-                        // Add alerts for multimodal-station
-                        result.addAll(patchesByStop.getOrDefault(new FeedScopedId(stop.getAgencyId(), quay.getMultiModalStation()), Collections.emptySet()));
-                    }
-                    */
-        }
-      }
+    if (stopAlerts.isEmpty()) {
+      return inheritedAlerts;
     }
+    Set<TransitAlert> result = new HashSet<>(stopAlerts);
+    result.addAll(inheritedAlerts);
     return result;
   }
 
   @Override
   public Collection<TransitAlert> getRouteAlerts(FeedScopedId route) {
-    return alerts.get(new EntityKey.Route(route));
+    return alerts.find(new EntityKey.Route(route));
   }
 
   @Override
   public Collection<TransitAlert> getTripAlerts(FeedScopedId trip, LocalDate serviceDate) {
-    Set<TransitAlert> result = new HashSet<>();
-    EntitySelector.Trip entitySelector = new EntitySelector.Trip(trip, serviceDate);
-    for (TransitAlert alert : alerts.get(entitySelector.key())) {
-      if (alert.entities().stream().anyMatch(selector -> selector.matches(entitySelector))) {
-        result.add(alert);
-      }
-    }
-    return result;
+    return alerts.findMatching(new EntitySelector.Trip(trip, serviceDate));
   }
 
   @Override
   public Collection<TransitAlert> getAgencyAlerts(FeedScopedId agency) {
-    return alerts.get(new EntityKey.Agency(agency));
+    return alerts.find(new EntityKey.Agency(agency));
   }
 
   @Override
@@ -133,18 +103,7 @@ public class TransitAlertServiceImpl implements TransitAlertService {
     FeedScopedId route,
     Set<StopCondition> stopConditions
   ) {
-    Set<TransitAlert> result = new HashSet<>();
-    EntitySelector.StopAndRoute entitySelector = new EntitySelector.StopAndRoute(
-      stop,
-      route,
-      stopConditions
-    );
-    for (TransitAlert alert : alerts.get(entitySelector.key())) {
-      if (alert.entities().stream().anyMatch(selector -> selector.matches(entitySelector))) {
-        result.add(alert);
-      }
-    }
-    return result;
+    return alerts.findMatching(new EntitySelector.StopAndRoute(stop, route, stopConditions));
   }
 
   @Override
@@ -154,29 +113,19 @@ public class TransitAlertServiceImpl implements TransitAlertService {
     LocalDate serviceDate,
     Set<StopCondition> stopConditions
   ) {
-    Set<TransitAlert> result = new HashSet<>();
-    EntitySelector.StopAndTrip entitySelector = new EntitySelector.StopAndTrip(
-      stop,
-      trip,
-      serviceDate,
-      stopConditions
+    return alerts.findMatching(
+      new EntitySelector.StopAndTrip(stop, trip, serviceDate, stopConditions)
     );
-    for (TransitAlert alert : alerts.get(entitySelector.key())) {
-      if (alert.entities().stream().anyMatch(selector -> selector.matches(entitySelector))) {
-        result.add(alert);
-      }
-    }
-    return result;
   }
 
   @Override
   public Collection<TransitAlert> getRouteTypeAndAgencyAlerts(int routeType, FeedScopedId agency) {
-    return alerts.get(new EntityKey.RouteTypeAndAgency(agency, routeType));
+    return alerts.find(new EntityKey.RouteTypeAndAgency(agency, routeType));
   }
 
   @Override
   public Collection<TransitAlert> getRouteTypeAlerts(int routeType, String feedId) {
-    return alerts.get(new EntityKey.RouteType(feedId, routeType));
+    return alerts.find(new EntityKey.RouteType(feedId, routeType));
   }
 
   @Override
@@ -184,6 +133,6 @@ public class TransitAlertServiceImpl implements TransitAlertService {
     Direction direction,
     FeedScopedId route
   ) {
-    return alerts.get(new EntityKey.DirectionAndRoute(route, direction));
+    return alerts.find(new EntityKey.DirectionAndRoute(route, direction));
   }
 }
@@ -1,22 +1,32 @@
 package org.opentripplanner.routing.linking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.locationtech.jts.linearref.LinearLocation;
 import org.locationtech.jts.linearref.LocationIndexedLine;
 import org.locationtech.jts.operation.distance.DistanceOp;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.framework.geometry.PackedRTree;
 import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.index.EdgeSpatialIndex;
@@ -59,8 +69,11 @@ public class VertexLinker {
    * of them
    */
   private static final double DUPLICATE_WAY_EPSILON_METERS = 0.001;
+  private static final double DUPLICATE_WAY_EPSILON_DEGREES =
+    SphericalDistanceLibrary.metersToDegrees(DUPLICATE_WAY_EPSILON_METERS);
   private static final int INITIAL_SEARCH_RADIUS_METERS = 100;
   private static final int MAX_SEARCH_RADIUS_METERS = 1000;
+  private static final int PARALLEL_LINKING_BATCH_SIZE = 1000;
   // exit a complex area maximally via this many exit points
   private static final int MAX_AREA_LINKS = 300;
   private static final GeometryFactory GEOMETRY_FACTORY = GeometryUtils.getGeometryFactory();
@@ -77,6 +90,19 @@ public class VertexLinker {
   // TODO Temporary code until we refactor WalkableAreaBuilder  (#3152)
   private boolean addExtraEdgesToAreas = true;
 
+  /** The split vertex labels of the group linked by this thread, see linkVerticesInParallel */
+  private final ThreadLocal<SplitLabels> groupSplitLabels = new ThreadLocal<>();
+
+  /** Removing an edge from the graph is not thread-safe */
+  private final Object graphLock = new Object();
+
+  /**
+   * The envelopes of the edges split by linkVerticesInParallel, guarded by the graph lock. It is
+   * null when the edges split are not recorded.
+   */
+  @Nullable
+  private List<Envelope> splitEdgeEnvelopes;
+
   /**
    * Construct a new VertexLinker. NOTE: Only one VertexLinker should be active on a graph at any
    * given time.
@@ -97,6 +123,82 @@ public class VertexLinker {
     link(vertex, traverseModes, direction, Scope.PERMANENT, edgeFunction);
   }
 
+  /**
+   * Link the given vertices permanently using several threads. The link task is called once for
+   * each vertex, and must only link the given vertex with this linker. The same edges are created
+   * as when the link task is called for each vertex in the order given.
+   * <p>
+   * The vertices are processed in order, in runs of vertices which can be linked in parallel. For
+   * each run, the edges each vertex would be linked to are found in parallel, with the same
+   * searches as {@link #linkVertexPermanently(Vertex, TraverseModeSet, LinkingDirection,
+   * BiFunction)} uses for the given modes. Vertices sharing an edge, or a vertex of those edges,
+   * are put in the same group. The groups do not split the same edges, so they are linked in
+   * parallel. The vertices in a group are linked one by one in the order given.
+   * <p>
+   * The edges can not be predicted for vertices linked with other searches, and linking to an
+   * area may add edges other vertices link to. These vertices end a run and are linked alone on
+   * the calling thread: the vertices for which {@code linkSerially} is true, and the vertices
+   * with an area edge within the search radius. The edges already predicted for the vertices
+   * after it are kept. Only the vertices with an edge split within their search radius, since
+   * their edges were predicted, are predicted again.
+   * <p>
+   * The labels of the split vertices are numbered per group, in order within the group. They do
+   * not depend on the number of threads, but are not the labels of a serial run.
+   */
+  public <T extends Vertex> void linkVerticesInParallel(
+    List<T> vertices,
+    TraverseModeSet traverseModes,
+    Predicate<T> linkSerially,
+    Consumer<T> linkTask
+  ) {
+    // The predicted links of the vertices from start on, in order
+    var predictions = new ArrayList<PredictedLink>();
+    int start = 0;
+    while (start < vertices.size()) {
+      int runLength = indexOfSerialLink(predictions, 0);
+      while (runLength == predictions.size() && start + runLength < vertices.size()) {
+        // Predict the links in batches, until a vertex which must be linked serially is found
+        int batchStart = start + runLength;
+        int batchEnd = Math.min(batchStart + PARALLEL_LINKING_BATCH_SIZE, vertices.size());
+        predictions.addAll(
+          vertices
+            .subList(batchStart, batchEnd)
+            .parallelStream()
+            .map(v -> linkSerially.test(v) ? PredictedLink.SERIAL : predictLink(v, traverseModes))
+            .toList()
+        );
+        runLength = indexOfSerialLink(predictions, runLength);
+      }
+      var run = predictions.subList(0, runLength);
+      splitEdgeEnvelopes = new ArrayList<>();
+      try {
+        linkGroupsInParallel(
+          vertices.subList(start, start + runLength),
+          run.stream().map(PredictedLink::edges).toList(),
+          linkTask
+        );
+        run.clear();
+        start += runLength;
+
+        if (start < vertices.size()) {
+          linkTask.accept(vertices.get(start));
+          predictions.remove(0);
+          ++start;
+        }
+        // The links predicted for the vertices after the serial one were found before the
+        // edges were split by this run
+        updatePredictions(
+          vertices.subList(start, start + predictions.size()),
+          predictions,
+          splitEdgeEnvelopes,
+          traverseModes
+        );
+      } finally {
+        splitEdgeEnvelopes = null;
+      }
+    }
+  }
+
   public DisposableEdgeCollection linkVertexForRealTime(
     Vertex vertex,
     TraverseModeSet traverseModes,
@@ -131,6 +233,132 @@ public class VertexLinker {
     this.addExtraEdgesToAreas = addExtraEdgesToAreas;
   }
 
+  /**
+   * The edges the vertex would be linked to, and their vertices. This uses the same search as
+   * {@link #link(Vertex, TraverseModeSet, LinkingDirection, Scope, BiFunction)}. If the vertex
+   * may link to an area, it must be linked serially.
+   */
+  private PredictedLink predictLink(Vertex vertex, TraverseModeSet traverseModes) {
+    for (int radiusMeters : List.of(INITIAL_SEARCH_RADIUS_METERS, MAX_SEARCH_RADIUS_METERS)) {
+      var candidateEdges = findCandidateEdges(vertex, traverseModes, Scope.PERMANENT, radiusMeters);
+      if (!candidateEdges.isEmpty()) {
+        var result = new ArrayList<>();
+        for (var candidate : candidateEdges) {
+          if (candidate.item instanceof AreaEdge) {
+            return new PredictedLink(null, searchEnvelope(vertex, radiusMeters));
+          }
+          result.add(candidate.item);
+          result.add(candidate.item.getFromVertex());
+          result.add(candidate.item.getToVertex());
+        }
+        return new PredictedLink(result, searchEnvelope(vertex, radiusMeters));
+      }
+    }
+    return new PredictedLink(List.of(), searchEnvelope(vertex, MAX_SEARCH_RADIUS_METERS));
+  }
+
+  /**
+   * The envelope searched by {@link #findCandidateEdges(Vertex, TraverseModeSet, Scope, int)}.
+   */
+  private static Envelope searchEnvelope(Vertex vertex, int radiusMeters) {
+    double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
+    var envelope = new Envelope(vertex.getCoordinate());
+    envelope.expandBy(radiusDeg / xScale(vertex), radiusDeg);
+    return envelope;
+  }
+
+  private static int indexOfSerialLink(List<PredictedLink> predictions, int fromIndex) {
+    for (int i = fromIndex; i < predictions.size(); i++) {
+      if (predictions.get(i).linkSerially()) {
+        return i;
+      }
+    }
+    return predictions.size();
+  }
+
+  /**
+   * Predict the links again for the vertices with a split edge within their search radius. The
+   * links of the other vertices can not have changed, since the search only finds edges in the
+   * spatial index, and the index is only changed where edges are split.
+   */
+  private <T extends Vertex> void updatePredictions(
+    List<T> vertices,
+    List<PredictedLink> predictions,
+    List<Envelope> splitEdgeEnvelopes,
+    TraverseModeSet traverseModes
+  ) {
+    if (vertices.isEmpty() || splitEdgeEnvelopes.isEmpty()) {
+      return;
+    }
+    var splitEdgeIndex = new STRtree();
+    splitEdgeEnvelopes.forEach(it -> splitEdgeIndex.insert(it, it));
+    splitEdgeIndex.build();
+
+    IntStream
+      .range(0, vertices.size())
+      .parallel()
+      .filter(i -> predictions.get(i).isChangedBy(splitEdgeIndex))
+      .forEach(i -> predictions.set(i, predictLink(vertices.get(i), traverseModes)));
+  }
+
+  private <T extends Vertex> void linkGroupsInParallel(
+    List<T> vertices,
+    List<List<Object>> edgesToLink,
+    Consumer<T> linkTask
+  ) {
+    if (vertices.isEmpty()) {
+      return;
+    }
+    var groups = groupVerticesLinkingTheSameEdges(edgesToLink);
+    String labelPrefix = "split_" + graph.nextSplitNumber++ + "_";
+
+    IntStream
+      .range(0, groups.size())
+      .parallel()
+      .forEach(groupIndex -> {
+        groupSplitLabels.set(new SplitLabels(labelPrefix + groupIndex + "_"));
+        try {
+          for (int i : groups.get(groupIndex)) {
+            linkTask.accept(vertices.get(i));
+          }
+        } finally {
+          groupSplitLabels.remove();
+        }
+      });
+  }
+
+  /**
+   * Group the vertices which link to the same edges or edge vertices. Each group is the indexes of its
+   * vertices in increasing order, and the groups are ordered by their first vertex.
+   */
+  private static List<List<Integer>> groupVerticesLinkingTheSameEdges(
+    List<List<Object>> edgesToLink
+  ) {
+    int[] parent = IntStream.range(0, edgesToLink.size()).toArray();
+    var firstVertexLinkingEdge = new HashMap<Object, Integer>();
+    for (int i = 0; i < edgesToLink.size(); i++) {
+      for (var edge : edgesToLink.get(i)) {
+        var first = firstVertexLinkingEdge.putIfAbsent(edge, i);
+        if (first != null) {
+          parent[root(parent, i)] = root(parent, first);
+        }
+      }
+    }
+    var groups = new LinkedHashMap<Integer, List<Integer>>();
+    for (int i = 0; i < parent.length; i++) {
+      groups.computeIfAbsent(root(parent, i), it -> new ArrayList<>()).add(i);
+    }
+    return List.copyOf(groups.values());
+  }
+
+  private static int root(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
   /** projected distance from stop to edge, in latitude degrees */
   private static double distance(Vertex tstop, StreetEdge edge, double xscale) {
     // Despite the fact that we want to use a fast somewhat inaccurate projection, still use JTS library tools
@@ -230,28 +458,8 @@ public class VertexLinker {
     int radiusMeters,
     DisposableEdgeCollection tempEdges
   ) {
-    final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
-
-    Envelope env = new Envelope(vertex.getCoordinate());
-
-    // Perform a simple local equirectangular projection, so distances are expressed in degrees latitude.
-    final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
-
-    // Expand more in the longitude direction than the latitude direction to account for converging meridians.
-    env.expandBy(radiusDeg / xscale, radiusDeg);
-
-    // Perform several transformations at once on the edges returned by the index. Only consider
-    // street edges traversable by at least one of the given modes and are still present in the
-    // graph. Calculate a distance to each of those edges, and keep only the ones within the search
-    // radius.
-    List<DistanceTo<StreetEdge>> candidateEdges = edgeSpatialIndex
-      .query(env, scope)
-      .filter(StreetEdge.class::isInstance)
-      .map(StreetEdge.class::cast)
-      .filter(e -> e.canTraverse(traverseModes) && e.isReachableFromGraph())
-      .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
-      .filter(ead -> ead.distanceDegreesLat < radiusDeg)
-      .toList();
+    final double xscale = xScale(vertex);
+    var candidateEdges = findCandidateEdges(vertex, traverseModes, scope, radiusMeters);
 
     if (candidateEdges.isEmpty()) {
       return Set.of();
@@ -269,6 +477,32 @@ public class VertexLinker {
       .collect(Collectors.toSet());
   }
 
+  private List<DistanceTo<StreetEdge>> findCandidateEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
+    Scope scope,
+    int radiusMeters
+  ) {
+    final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
+    final double xscale = xScale(vertex);
+
+    // Visit the edges returned by the index nearest first. Only consider street edges traversable
+    // by at least one of the given modes and are still present in the graph. Calculate a distance
+    // to each of those edges, and keep only the ones within the search radius. The search stops
+    // when the remaining edges are too far away to be linked to.
+    var collector = new CandidateEdgeCollector(vertex, traverseModes, xscale, radiusDeg);
+    edgeSpatialIndex.visitNearest(vertex.getCoordinate(), xscale, radiusDeg, scope, collector);
+    return collector.candidateEdges;
+  }
+
+  /**
+   * Perform a simple local equirectangular projection, so distances are expressed in degrees
+   * latitude.
+   */
+  private static double xScale(Vertex vertex) {
+    return Math.cos(vertex.getLat() * Math.PI / 180);
+  }
+
   /**
    * We need to get the closest edges per mode to be sure that we are linking to edges traversable
    * by all the specified modes. We use a set here to avoid duplicates in the case that edges are
@@ -278,10 +512,6 @@ public class VertexLinker {
     TraverseModeSet traverseModeSet,
     List<DistanceTo<StreetEdge>> candidateEdges
   ) {
-    final double DUPLICATE_WAY_EPSILON_DEGREES = SphericalDistanceLibrary.metersToDegrees(
-      DUPLICATE_WAY_EPSILON_METERS
-    );
-
     // The following logic has gone through several different versions using different approaches.
     // The core idea is to find all edges that are roughly the same distance from the given vertex, which will
     // catch things like superimposed edges going in opposite directions.
@@ -449,7 +679,13 @@ public class VertexLinker {
         // insert logic is not trivial and would require additional testing of the spatial index.
         removeEdgeFromIndex(originalEdge, scope);
         // remove original edge from the graph
-        graph.removeEdge(originalEdge);
+        synchronized (graphLock) {
+          graph.removeEdge(originalEdge);
+          if (splitEdgeEnvelopes != null) {
+            // The new edges are within the envelope of the original edge
+            splitEdgeEnvelopes.add(geometry.getEnvelopeInternal());
+          }
+        }
       }
     }
 
@@ -464,7 +700,7 @@ public class VertexLinker {
     double y
   ) {
     SplitterVertex v;
-    String uniqueSplitLabel = "split_" + graph.nextSplitNumber++;
+    String uniqueSplitLabel = nextSplitLabel();
 
     if (scope != Scope.PERMANENT) {
       TemporarySplitterVertex tsv = new TemporarySplitterVertex(
@@ -485,6 +721,113 @@ public class VertexLinker {
     return v;
   }
 
+  /**
+   * Collect the street edges within the search radius, visited nearest first. Once every mode has
+   * a closest edge, the search stops at the first edge further away than the closest edge of each
+   * mode plus {@link #DUPLICATE_WAY_EPSILON_METERS}. Those edges are never linked to, see
+   * {@link #getClosestEdgesPerMode(TraverseModeSet, List)}.
+   */
+  private static class CandidateEdgeCollector implements PackedRTree.NearestVisitor<Edge> {
+
+    private final Vertex vertex;
+    private final TraverseModeSet traverseModes;
+    private final List<TraverseModeSet> modes;
+    private final double[] closestDistanceByMode;
+    private final double xscale;
+    private final double radiusDeg;
+    private final List<DistanceTo<StreetEdge>> candidateEdges = new ArrayList<>();
+
+    CandidateEdgeCollector(
+      Vertex vertex,
+      TraverseModeSet traverseModes,
+      double xscale,
+      double radiusDeg
+    ) {
+      this.vertex = vertex;
+      this.traverseModes = traverseModes;
+      this.modes =
+        traverseModes.getModes().stream().map(mode -> new TraverseModeSet(mode)).toList();
+      this.closestDistanceByMode = new double[modes.size()];
+      Arrays.fill(closestDistanceByMode, Double.POSITIVE_INFINITY);
+      this.xscale = xscale;
+      this.radiusDeg = radiusDeg;
+    }
+
+    @Override
+    public boolean visit(Edge edge, double minDistance) {
+      if (minDistance > stopDistance()) {
+        return false;
+      }
+      if (
+        edge instanceof StreetEdge streetEdge &&
+        streetEdge.canTraverse(traverseModes) &&
+        streetEdge.isReachableFromGraph()
+      ) {
+        double distance = distance(vertex, streetEdge, xscale);
+        if (distance < radiusDeg) {
+          candidateEdges.add(new DistanceTo<>(streetEdge, distance));
+          for (int i = 0; i < modes.size(); i++) {
+            if (distance < closestDistanceByMode[i] && streetEdge.canTraverse(modes.get(i))) {
+              closestDistanceByMode[i] = distance;
+            }
+          }
+        }
+      }
+      return true;
+    }
+
+    private double stopDistance() {
+      double max = 0;
+      for (double distance : closestDistanceByMode) {
+        if (distance == Double.POSITIVE_INFINITY) {
+          return radiusDeg;
+        }
+        max = Math.max(max, distance);
+      }
+      return max + DUPLICATE_WAY_EPSILON_DEGREES;
+    }
+  }
+
+  private String nextSplitLabel() {
+    var labels = groupSplitLabels.get();
+    return labels == null ? "split_" + graph.nextSplitNumber++ : labels.next();
+  }
+
+  /**
+   * The labels of the split vertices of a group linked in parallel. The labels have the prefix of
+   * the group, and are numbered in the order the vertices of the group are split.
+   */
+  private static class SplitLabels {
+
+    private final String prefix;
+    private int next = 0;
+
+    SplitLabels(String prefix) {
+      this.prefix = prefix;
+    }
+
+    String next() {
+      return prefix + next++;
+    }
+  }
+
+  /**
+   * The edges and edge vertices a vertex is predicted to link to, or null if the vertex must be
+   * linked serially. The search envelope is the envelope searched to find the edges, or null if
+   * the vertex is always linked serially.
+   */
+  private record PredictedLink(@Nullable List<Object> edges, @Nullable Envelope searchEnvelope) {
+    static final PredictedLink SERIAL = new PredictedLink(null, null);
+
+    boolean linkSerially() {
+      return edges == null;
+    }
+
+    boolean isChangedBy(STRtree splitEdgeIndex) {
+      return searchEnvelope != null && !splitEdgeIndex.query(searchEnvelope).isEmpty();
+    }
+  }
+
   private static class DistanceTo<T> {
 
     T item;
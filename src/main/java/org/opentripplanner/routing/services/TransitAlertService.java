@@ -37,6 +37,10 @@ public interface TransitAlertService {
     return getStopAlerts(stop, Set.of());
   }
 
+  /**
+   * The alerts on the stop, together with the alerts on its parent station and multimodal
+   * station. The station alerts are included even if the stop has alerts of its own.
+   */
   Collection<TransitAlert> getStopAlerts(FeedScopedId stop, Set<StopCondition> stopConditions);
 
   Collection<TransitAlert> getRouteAlerts(FeedScopedId route);
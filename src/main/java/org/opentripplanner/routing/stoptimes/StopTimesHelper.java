@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.stoptimes;
 
 import static org.opentripplanner.routing.stoptimes.ArrivalDeparture.ARRIVALS;
+import static org.opentripplanner.routing.stoptimes.ArrivalDeparture.BOTH;
 import static org.opentripplanner.routing.stoptimes.ArrivalDeparture.DEPARTURES;
 
 import com.google.common.collect.MinMaxPriorityQueue;
@@ -14,10 +15,12 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Queue;
+import java.util.function.Predicate;
 import org.opentripplanner.framework.time.ServiceDateUtils;
 import org.opentripplanner.model.PickDrop;
 import org.opentripplanner.model.StopTimesInPattern;
 import org.opentripplanner.model.Timetable;
+import org.opentripplanner.model.TimetableStopTimeIndex;
 import org.opentripplanner.model.TripTimeOnDate;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopLocation;
@@ -226,12 +229,22 @@ public class StopTimesHelper {
     // Loop through all possible days
     for (LocalDate serviceDate : serviceDates) {
       Timetable timetable = transitService.getTimetableForTripPattern(pattern, serviceDate);
+      TimetableStopTimeIndex index = timetable.getStopTimeIndex();
       ZonedDateTime midnight = ServiceDateUtils.asStartOfService(serviceDate, zoneId);
+      Instant serviceDayMidnight = midnight.toInstant();
       int secondsSinceMidnight = ServiceDateUtils.secondsSinceStartOfService(
         midnight,
         ZonedDateTime.ofInstant(startTime, zoneId)
       );
+      int endOfRange = secondsSinceMidnight + timeRangeSeconds;
       var servicesRunning = transitService.getServiceCodesRunningForDate(serviceDate);
+      Predicate<TripTimes> includeTrip = tripTimes ->
+        servicesRunning.contains(tripTimes.getServiceCode()) &&
+        !skipByTripCancellation(tripTimes, includeCancellations) &&
+        (
+          includeReplaced ||
+          !isReplacedByAnotherPattern(tripTimes.getTrip(), serviceDate, pattern, transitService)
+        );
 
       List<StopLocation> stops = pattern.getStops();
       for (int stopIndex = 0; stopIndex < stops.size(); stopIndex++) {
@@ -244,38 +257,75 @@ public class StopTimesHelper {
             continue;
           }
 
-          for (TripTimes tripTimes : timetable.getTripTimes()) {
-            if (!servicesRunning.contains(tripTimes.getServiceCode())) {
-              continue;
-            }
-            if (skipByTripCancellation(tripTimes, includeCancellations)) {
-              continue;
-            }
-            if (
-              !includeReplaced &&
-              isReplacedByAnotherPattern(tripTimes.getTrip(), serviceDate, pattern, transitService)
+          // The trips are found using the stop time index of the timetable. The first trip in
+          // the time range is found with a binary search and the following trips are in time
+          // order, so only the trips in the time range are visited.
+          if (arrivalDeparture == ARRIVALS) {
+            // The queue is ordered by departure time, which may not have the same order as the
+            // arrival time. So, all trips arriving in the time range are added to the queue.
+            int[] trips = index.tripIndexesByArrival(stopIndex);
+            for (
+              int i = index.firstArrivalAtOrAfter(stopIndex, secondsSinceMidnight);
+              i < trips.length;
+              i++
             ) {
-              continue;
+              TripTimes tripTimes = timetable.getTripTimes(trips[i]);
+              if (tripTimes.getArrivalTime(stopIndex) > endOfRange) {
+                break;
+              }
+              if (includeTrip.test(tripTimes)) {
+                pq.add(
+                  new TripTimeOnDate(tripTimes, stopIndex, pattern, serviceDate, serviceDayMidnight)
+                );
+              }
             }
-
-            boolean departureTimeInRange =
-              tripTimes.getDepartureTime(stopIndex) >= secondsSinceMidnight &&
-              tripTimes.getDepartureTime(stopIndex) <= secondsSinceMidnight + timeRangeSeconds;
-
-            boolean arrivalTimeInRange =
-              tripTimes.getArrivalTime(stopIndex) >= secondsSinceMidnight &&
-              tripTimes.getArrivalTime(stopIndex) <= secondsSinceMidnight + timeRangeSeconds;
-
-            // ARRIVAL: Arrival time has to be within range
-            // DEPARTURES: Departure time has to be within range
-            // BOTH: Either arrival time or departure time has to be within range
-            if (
-              (arrivalDeparture != ARRIVALS && departureTimeInRange) ||
-              (arrivalDeparture != DEPARTURES && arrivalTimeInRange)
+          } else {
+            // The queue keeps the first departures, so the search can stop when enough trips
+            // departing in the time range are added
+            int[] trips = index.tripIndexesByDeparture(stopIndex);
+            int numberOfTripsAdded = 0;
+            for (
+              int i = index.firstDepartureAtOrAfter(stopIndex, secondsSinceMidnight);
+              i < trips.length && numberOfTripsAdded < numberOfDepartures;
+              i++
             ) {
-              pq.add(
-                new TripTimeOnDate(tripTimes, stopIndex, pattern, serviceDate, midnight.toInstant())
-              );
+              TripTimes tripTimes = timetable.getTripTimes(trips[i]);
+              if (tripTimes.getDepartureTime(stopIndex) > endOfRange) {
+                break;
+              }
+              if (includeTrip.test(tripTimes)) {
+                pq.add(
+                  new TripTimeOnDate(tripTimes, stopIndex, pattern, serviceDate, serviceDayMidnight)
+                );
+                ++numberOfTripsAdded;
+              }
+            }
+            // BOTH: Add the trips arriving in the time range, but departing after it
+            if (arrivalDeparture == BOTH && numberOfTripsAdded < numberOfDepartures) {
+              trips = index.tripIndexesByArrival(stopIndex);
+              for (
+                int i = index.firstArrivalAtOrAfter(stopIndex, secondsSinceMidnight);
+                i < trips.length;
+                i++
+              ) {
+                TripTimes tripTimes = timetable.getTripTimes(trips[i]);
+                if (tripTimes.getArrivalTime(stopIndex) > endOfRange) {
+                  break;
+                }
+                if (
+                  tripTimes.getDepartureTime(stopIndex) > endOfRange && includeTrip.test(tripTimes)
+                ) {
+                  pq.add(
+                    new TripTimeOnDate(
+                      tripTimes,
+                      stopIndex,
+                      pattern,
+                      serviceDate,
+                      serviceDayMidnight
+                    )
+                  );
+                }
+              }
             }
           }
           // TODO Add back support for frequency entries
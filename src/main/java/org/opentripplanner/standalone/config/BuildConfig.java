@@ -176,6 +176,9 @@ public class BuildConfig implements OtpDataStoreConfig {
   public final boolean writeCachedElevations;
   public final boolean includeEllipsoidToGeoidDifference;
   public final boolean multiThreadElevationCalculations;
+  public final boolean multiThreadOsmParsing;
+  public final boolean multiThreadStopLinking;
+  public final int streetLandmarks;
   public final LocalDate transitServiceStart;
   public final LocalDate transitServiceEnd;
   public final ZoneId transitModelTimeZone;
@@ -313,6 +316,48 @@ all of the elevation values in the street edges.
         """
         )
         .asBoolean(false);
+    multiThreadOsmParsing =
+      root
+        .of("multiThreadOsmParsing")
+        .since(V2_7)
+        .summary("Decompress and decode the blocks of the OSM PBF files in parallel.")
+        .description(
+          """
+          The decoded blocks are added to the graph in the same order as in a single thread, so
+          the graph is the same. A few blocks for each thread are kept in memory while they wait
+          to be added.
+        """
+        )
+        .asBoolean(false);
+    multiThreadStopLinking =
+      root
+        .of("multiThreadStopLinking")
+        .since(V2_7)
+        .summary("Link the transit stops and entrances to the street network in parallel.")
+        .description(
+          """
+          The stops are grouped so that stops linking to the same street edges are linked by the
+          same thread, in the same order as in a single thread. Stops which are also linked to car
+          edges and stops close to a walkable area are linked one at a time. The graph is the same,
+          but the labels of the split vertices are different.
+        """
+        )
+        .asBoolean(false);
+    streetLandmarks =
+      root
+        .of("streetLandmarks")
+        .since(V2_7)
+        .summary("The number of landmarks used to speed up direct car and bicycle searches.")
+        .description(
+          """
+          The street network distance from each landmark to each vertex is computed when the graph
+          is built. The distances give a much better estimate of the remaining distance of a
+          search than the straight line distance, so long car and bicycle searches visit fewer
+          vertices. The distances use 4 bytes of memory for each landmark and vertex. Zero
+          disables the landmarks, 8 to 16 landmarks is a good start.
+        """
+        )
+        .asInt(0);
     osmCacheDataInMem =
       root
         .of("osmCacheDataInMem")
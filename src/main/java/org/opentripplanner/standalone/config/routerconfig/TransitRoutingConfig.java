@@ -6,6 +6,7 @@ import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_2;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_4;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_7;
 
 import java.time.Duration;
 import java.util.List;
@@ -27,7 +28,9 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
   private final int scheduledTripBinarySearchThreshold;
   private final int iterationDepartureStepInSeconds;
   private final int searchThreadPoolSize;
+  private final Duration parallelSearchWindowThreshold;
   private final int transferCacheMaxSize;
+  private final boolean transferCacheAsyncLoading;
   private final List<RouteRequest> transferCacheRequests;
   private final List<Duration> pagingSearchWindowAdjustments;
 
@@ -113,6 +116,24 @@ no extra threads are started and the search is done in one thread.
 """
         )
         .asInt(dft.searchThreadPoolSize());
+    this.parallelSearchWindowThreshold =
+      c
+        .of("parallelSearchWindowThreshold")
+        .since(V2_7)
+        .summary(
+          "Split the search-window of long multi-criteria searches and search the parts in parallel."
+        )
+        .description(
+          """
+If the search-window of a multi-criteria search is at least this long, the departure minutes are
+split into sub-windows which are searched in parallel using the `searchThreadPoolSize` threads.
+The results are merged into the same set of paths as a sequential search would find. This is
+useful for analysis-style requests with search-windows of several hours. Searches with
+via-locations, pass-through points, transit-group-priority, relaxed cost at the destination, access
+time-penalties or debugging enabled are always searched sequentially. Zero disables the feature.
+"""
+        )
+        .asDuration(Duration.ofSeconds(dft.parallelSearchWindowThresholdSeconds()));
     // Dynamic Search Window
     this.stopBoardAlightDuringTransferCost =
       c
@@ -159,6 +180,29 @@ Use values in a range from `0` to `100 000`. **All key/value pairs are required
         )
         .asInt(25);
 
+    this.transferCacheAsyncLoading =
+      c
+        .of("transferCacheAsyncLoading")
+        .since(V2_7)
+        .summary(
+          "Calculate transfers for parameters missing in the transfer cache in the background."
+        )
+        .description(
+          """
+When a request uses transfer parameters which are not in the transfer cache, the stop-to-stop
+transfers must be calculated before the search can start. On large graphs this can take several
+seconds. If this is enabled, the calculation is done in the background and the request uses the
+cached transfers with the most similar parameters instead. Only cached transfers with the same
+transfer street mode and wheelchair settings are used. If none exist, the request waits for the
+calculation as usual.
+
+Note! The transfers used by the request may differ slightly from the requested ones, e.g. if the
+walk speed is different. Use `transferCacheRequests` to pre-fill the cache with the commonly used
+parameters.
+"""
+        )
+        .asBoolean(false);
+
     this.transferCacheRequests =
       c
         .of("transferCacheRequests")
@@ -249,6 +293,11 @@ for more info."
     return searchThreadPoolSize;
   }
 
+  @Override
+  public int parallelSearchWindowThresholdSeconds() {
+    return (int) parallelSearchWindowThreshold.toSeconds();
+  }
+
   @Override
   public DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients() {
     return dynamicSearchWindowCoefficients;
@@ -269,6 +318,11 @@ for more info."
     return transferCacheMaxSize;
   }
 
+  @Override
+  public boolean transferCacheAsyncLoading() {
+    return transferCacheAsyncLoading;
+  }
+
   @Override
   public List<RouteRequest> transferCacheRequests() {
     return transferCacheRequests;
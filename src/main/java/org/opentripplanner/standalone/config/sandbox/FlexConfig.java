@@ -2,6 +2,7 @@ package org.opentripplanner.standalone.config.sandbox;
 
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_7;
 
 import java.time.Duration;
 import org.opentripplanner.ext.flex.FlexParameters;
@@ -26,12 +27,16 @@ public class FlexConfig implements FlexParameters {
   private final Duration maxFlexTripDuration;
   private final Duration maxAccessWalkDuration;
   private final Duration maxEgressWalkDuration;
+  private final int streetPathCacheSize;
+  private final boolean precomputeStreetPaths;
 
   private FlexConfig() {
     maxTransferDuration = Duration.ofMinutes(5);
     maxFlexTripDuration = Duration.ofMinutes(45);
     maxAccessWalkDuration = Duration.ofMinutes(45);
     maxEgressWalkDuration = Duration.ofMinutes(45);
+    streetPathCacheSize = DEFAULT.streetPathCacheSize();
+    precomputeStreetPaths = DEFAULT.precomputeStreetPaths();
   }
 
   public FlexConfig(NodeAdapter root, String parameterName) {
@@ -92,6 +97,40 @@ public class FlexConfig implements FlexParameters {
         )
         .description(ACCESS_EGRESS_DESCRIPTION)
         .asDuration(DEFAULT.maxEgressWalkDuration());
+
+    streetPathCacheSize =
+      json
+        .of("streetPathCacheSize")
+        .since(V2_7)
+        .summary(
+          "The maximum number of flex street paths kept in the cache shared by all requests."
+        )
+        .description(
+          """
+            The flex street searches from the flex stops are the same for most requests, so the
+            durations and distances to the other flex stops and zones are cached. Each cached path
+            uses about 30 bytes of memory. When the cache is full, the least recently used searches
+            are removed from it.
+
+            Set this to 0 to disable the cache.
+            """
+        )
+        .asInt(DEFAULT.streetPathCacheSize());
+
+    precomputeStreetPaths =
+      json
+        .of("precomputeStreetPaths")
+        .since(V2_7)
+        .summary("Fill the flex street path cache for all the flex stops at startup.")
+        .description(
+          """
+            This makes the first requests faster, but the startup slower. The paths from the
+            vertices inside flex zones depend on where the passenger enters the zone, so they are
+            only cached when they are requested. Only used if the `streetPathCacheSize` is
+            larger than 0.
+            """
+        )
+        .asBoolean(DEFAULT.precomputeStreetPaths());
   }
 
   public Duration maxFlexTripDuration() {
@@ -109,4 +148,12 @@ public class FlexConfig implements FlexParameters {
   public Duration maxEgressWalkDuration() {
     return maxEgressWalkDuration;
   }
+
+  public int streetPathCacheSize() {
+    return streetPathCacheSize;
+  }
+
+  public boolean precomputeStreetPaths() {
+    return precomputeStreetPaths;
+  }
 }
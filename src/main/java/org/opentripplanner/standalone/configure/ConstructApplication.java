@@ -5,6 +5,8 @@ import javax.annotation.Nullable;
 import org.opentripplanner.apis.transmodel.TransmodelAPI;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.emissions.EmissionsDataModel;
+import org.opentripplanner.ext.flex.FlexParameters;
+import org.opentripplanner.ext.flex.flexpathcalculator.StreetFlexPathCache;
 import org.opentripplanner.ext.stopconsolidation.StopConsolidationRepository;
 import org.opentripplanner.framework.application.LogMDCSupport;
 import org.opentripplanner.framework.application.OTPFeature;
@@ -32,6 +34,7 @@ import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.standalone.server.OTPWebApplication;
 import org.opentripplanner.street.model.StreetLimitationParameters;
 import org.opentripplanner.street.model.elevation.ElevationUtils;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
@@ -171,6 +174,10 @@ public class ConstructApplication {
 
     initializeTransferCache(routerConfig().transitTuningConfig(), transitModel());
 
+    if (OTPFeature.FlexRouting.isOn() && graph().hasStreets) {
+      initializeFlexStreetPathCache(routerConfig().flexParameters(), graph(), transitModel());
+    }
+
     if (OTPFeature.TransmodelGraphQlApi.isOn()) {
       TransmodelAPI.setUp(
         routerConfig().transmodelApi(),
@@ -230,17 +237,47 @@ public class ConstructApplication {
 
       LOG.info(progress.startMessage());
 
-      transferCacheRequests.forEach(request -> {
-        transitModel.getTransitLayer().initTransferCacheForRequest(request);
+      // The cache is thread-safe, so the requests are initialized in parallel
+      transferCacheRequests
+        .parallelStream()
+        .forEach(request -> {
+          transitModel.getTransitLayer().initTransferCacheForRequest(request);
 
-        //noinspection Convert2MethodRef
-        progress.step(s -> LOG.info(s));
-      });
+          //noinspection Convert2MethodRef
+          progress.step(s -> LOG.info(s));
+        });
 
       LOG.info(progress.completeMessage());
     }
   }
 
+  /**
+   * Create the flex street path cache shared by all requests, and optionally fill it with the
+   * paths from all the flex stops.
+   */
+  public static void initializeFlexStreetPathCache(
+    FlexParameters flexParameters,
+    Graph graph,
+    TransitModel transitModel
+  ) {
+    if (flexParameters.streetPathCacheSize() <= 0) {
+      return;
+    }
+    var flexIndex = new DefaultTransitService(transitModel).getFlexIndex();
+    var cacheSize = flexParameters.streetPathCacheSize();
+    var cache = new StreetFlexPathCache(flexIndex::isFlexStop, cacheSize);
+    flexIndex.setStreetPathCache(cache);
+
+    if (flexParameters.precomputeStreetPaths()) {
+      var stopVertices = graph
+        .getVerticesOfType(TransitStopVertex.class)
+        .stream()
+        .filter(v -> flexIndex.isFlexStop(v.getStop()))
+        .toList();
+      cache.precompute(stopVertices, flexParameters.maxFlexTripDuration());
+    }
+  }
+
   public TransitModel transitModel() {
     return factory.transitModel();
   }
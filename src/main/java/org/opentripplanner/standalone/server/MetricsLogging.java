@@ -2,7 +2,6 @@ package org.opentripplanner.standalone.server;
 
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
-import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
 import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import io.micrometer.core.instrument.binder.jvm.JvmCompilationMetrics;
@@ -23,6 +22,7 @@ import org.opentripplanner.graph_builder.issue.api.DataImportIssueSummary;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.transit.service.TransitModel;
+import org.opentripplanner.updater.GraphWriterLane;
 
 /**
  * This class is responsible for wiring up various metrics to micrometer, which we use for
@@ -48,14 +48,6 @@ public class MetricsLogging {
     new ProcessorMetrics().bindTo(Metrics.globalRegistry);
     new UptimeMetrics().bindTo(Metrics.globalRegistry);
 
-    if (transitModel.getTransitLayer() != null) {
-      new GuavaCacheMetrics(
-        transitModel.getTransitLayer().getTransferCache().getTransferCache(),
-        "raptorTransfersCache",
-        List.of(Tag.of("cache", "raptorTransfers"))
-      )
-        .bindTo(Metrics.globalRegistry);
-    }
     new ExecutorServiceMetrics(
       ForkJoinPool.commonPool(),
       "commonPool",
@@ -84,6 +76,13 @@ public class MetricsLogging {
         List.of(Tag.of("pool", "graphUpdateScheduler"))
       )
         .bindTo(Metrics.globalRegistry);
+
+      new ExecutorServiceMetrics(
+        transitModel.getUpdaterManager().getScheduler(GraphWriterLane.STREET),
+        "graphUpdateStreetScheduler",
+        List.of(Tag.of("pool", "graphUpdateStreetScheduler"))
+      )
+        .bindTo(Metrics.globalRegistry);
     }
 
     if (raptorConfig.isMultiThreaded()) {
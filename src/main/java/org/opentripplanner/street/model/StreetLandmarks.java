@@ -0,0 +1,327 @@
+package org.opentripplanner.street.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * Precomputed street network distances from a few landmark vertices to all other vertices, used
+ * for the A*, landmarks and triangle inequality (ALT) heuristic. For any landmark {@code L} and
+ * vertices {@code a} and {@code b}, the distance between {@code a} and {@code b} is at least
+ * {@code |d(L, a) - d(L, b)|}. This is a much tighter lower bound than the straight line distance
+ * when the street network is not a grid, e.g. around water, mountains or motorways.
+ * <p>
+ * The distances are undirected, and each edge has the smallest length used by the car and bicycle
+ * cost models, see {@link #edgeLength(Edge)}. This makes the bound valid for all optimization
+ * types and in both search directions. Other edges than street edges have length zero.
+ * <p>
+ * The landmarks are chosen with the farthest heuristic: each landmark is the vertex farthest away
+ * from the landmarks already chosen. The table uses {@code 4 * numberOfLandmarks} bytes for each
+ * vertex.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE.
+ */
+public final class StreetLandmarks implements Serializable {
+
+  /**
+   * The distances are stored as floats, subtract a small tolerance to make sure rounding errors
+   * never make the bound larger than the actual distance.
+   */
+  private static final double TOLERANCE_METERS = 1.0;
+
+  /**
+   * The bicycle cost model treats the safest streets, with a safety factor up to this, as even
+   * safer than they are, see {@code StreetEdge#bicycleOrScooterTraversalCost}.
+   */
+  private static final double SAFEST_STREETS_SAFETY_FACTOR = 0.1;
+  private static final double SAFEST_STREETS_FACTOR = 0.66;
+
+  private final Vertex[] vertices;
+  private final int numberOfLandmarks;
+
+  /**
+   * The distance in meters from each landmark to each vertex, at index {@code vertex * k + l}.
+   * Vertices not reachable from a landmark have the distance {@link Float#POSITIVE_INFINITY}.
+   */
+  private final float[] distances;
+
+  private StreetLandmarks(Vertex[] vertices, int numberOfLandmarks, float[] distances) {
+    this.vertices = vertices;
+    this.numberOfLandmarks = numberOfLandmarks;
+    this.distances = distances;
+  }
+
+  /**
+   * Choose the landmarks and compute the distances to all the given vertices. The vertices are
+   * indexed, see {@link #index()}.
+   */
+  public static StreetLandmarks build(Collection<Vertex> graphVertices, int numberOfLandmarks) {
+    if (numberOfLandmarks < 1) {
+      throw new IllegalArgumentException("The number of landmarks must be at least 1.");
+    }
+    // Sort the vertices to make the chosen landmarks the same each time the graph is built
+    Vertex[] vertices = graphVertices
+      .stream()
+      .sorted(Comparator.comparing(Vertex::getLabelString))
+      .toArray(Vertex[]::new);
+    int n = vertices.length;
+    int k = numberOfLandmarks;
+    var result = new StreetLandmarks(vertices, k, new float[n * k]);
+    result.index();
+    if (n == 0) {
+      return result;
+    }
+
+    var network = new Network(vertices);
+    // The distance from each vertex to the nearest landmark chosen so far
+    double[] nearestLandmark = network.distancesFrom(0);
+    for (int l = 0; l < k; l++) {
+      int landmark = farthest(nearestLandmark);
+      double[] distances = network.distancesFrom(landmark);
+      for (int v = 0; v < n; v++) {
+        result.distances[v * k + l] = (float) distances[v];
+        nearestLandmark[v] = l == 0 ? distances[v] : Math.min(nearestLandmark[v], distances[v]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Set the landmark index of each vertex. This must be called after the graph is loaded, since
+   * the index is not serialized.
+   */
+  public void index() {
+    for (int i = 0; i < vertices.length; i++) {
+      vertices[i].setLandmarkIndex(i);
+    }
+  }
+
+  public int numberOfLandmarks() {
+    return numberOfLandmarks;
+  }
+
+  public int numberOfVertices() {
+    return vertices.length;
+  }
+
+  /**
+   * The size of the distance table, the vertex array is shared with the graph and not included.
+   */
+  public long sizeInBytes() {
+    return (long) distances.length * Float.BYTES;
+  }
+
+  /**
+   * @return A lower bound of the street network distance in meters between the two vertices, or
+   * zero if one of the vertices is not part of the table.
+   */
+  public double lowerBoundDistance(Vertex a, Vertex b) {
+    int ia = indexOf(a);
+    int ib = indexOf(b);
+    if (ia < 0 || ib < 0) {
+      return 0;
+    }
+    int offsetA = ia * numberOfLandmarks;
+    int offsetB = ib * numberOfLandmarks;
+    double bound = 0;
+    for (int l = 0; l < numberOfLandmarks; l++) {
+      float da = distances[offsetA + l];
+      float db = distances[offsetB + l];
+      if (da != Float.POSITIVE_INFINITY && db != Float.POSITIVE_INFINITY) {
+        bound = Math.max(bound, Math.abs(da - db));
+      }
+    }
+    return Math.max(0, bound - TOLERANCE_METERS);
+  }
+
+  /**
+   * @return {@code true} if the vertex is part of the table.
+   */
+  public boolean contains(Vertex v) {
+    return indexOf(v) >= 0;
+  }
+
+  @Override
+  public String toString() {
+    return "StreetLandmarks{landmarks: %d, vertices: %d}".formatted(
+        numberOfLandmarks,
+        vertices.length
+      );
+  }
+
+  private int indexOf(Vertex v) {
+    return indexIn(vertices, v);
+  }
+
+  private static int indexIn(Vertex[] vertices, Vertex v) {
+    int i = v.getLandmarkIndex();
+    return i >= 0 && i < vertices.length && vertices[i] == v ? i : -1;
+  }
+
+  /**
+   * The length of an edge is the smallest of the lengths used by the car and bicycle cost models,
+   * so the distance is never longer than the cost model distance.
+   */
+  static double edgeLength(Edge edge) {
+    if (!(edge instanceof StreetEdge streetEdge)) {
+      return 0;
+    }
+    double distance = streetEdge.getDistanceMeters();
+    double length = Math.min(distance, streetEdge.getEffectiveBikeDistance());
+    length = Math.min(length, streetEdge.getEffectiveBikeDistanceForWorkCost());
+    length = Math.min(length, streetEdge.getEffectiveBicycleSafetyDistance());
+    double safetyFactor = streetEdge.getBicycleSafetyFactor();
+    double safetyDistance = safetyFactor * distance;
+    if (safetyFactor <= SAFEST_STREETS_SAFETY_FACTOR) {
+      safetyDistance *= SAFEST_STREETS_FACTOR;
+    }
+    return Math.max(0, Math.min(length, safetyDistance));
+  }
+
+  /** @return the vertex with the largest finite distance */
+  private static int farthest(double[] distances) {
+    int farthest = 0;
+    double max = -1;
+    for (int v = 0; v < distances.length; v++) {
+      if (distances[v] != Double.POSITIVE_INFINITY && distances[v] > max) {
+        max = distances[v];
+        farthest = v;
+      }
+    }
+    return farthest;
+  }
+
+  /**
+   * The undirected street network in compressed-sparse-row form, only used while building the
+   * table.
+   */
+  private static final class Network {
+
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final double[] lengths;
+
+    private Network(Vertex[] vertices) {
+      int n = vertices.length;
+      this.offsets = new int[n + 1];
+      int m = 0;
+      for (int v = 0; v < n; v++) {
+        offsets[v] = m;
+        m += vertices[v].getDegreeOut() + vertices[v].getDegreeIn();
+      }
+      offsets[n] = m;
+      this.neighbours = new int[m];
+      this.lengths = new double[m];
+
+      int i = 0;
+      for (Vertex vertex : vertices) {
+        for (Edge e : vertex.getOutgoing()) {
+          neighbours[i] = indexIn(vertices, e.getToVertex());
+          lengths[i++] = edgeLength(e);
+        }
+        for (Edge e : vertex.getIncoming()) {
+          neighbours[i] = indexIn(vertices, e.getFromVertex());
+          lengths[i++] = edgeLength(e);
+        }
+      }
+    }
+
+    /** Dijkstra's algorithm with a binary heap of primitives */
+    private double[] distancesFrom(int source) {
+      int n = offsets.length - 1;
+      double[] distances = new double[n];
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+      distances[source] = 0;
+      var queue = new VertexQueue();
+      queue.add(source, 0);
+
+      while (!queue.isEmpty()) {
+        double distance = queue.peekDistance();
+        int v = queue.poll();
+        if (distance > distances[v]) {
+          continue;
+        }
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+          int u = neighbours[i];
+          // Edges to vertices which are not part of the graph are skipped
+          if (u < 0) {
+            continue;
+          }
+          double d = distance + lengths[i];
+          if (d < distances[u]) {
+            distances[u] = d;
+            queue.add(u, d);
+          }
+        }
+      }
+      return distances;
+    }
+  }
+
+  /**
+   * A binary min-heap of vertices ordered by distance, in primitive arrays. A vertex is added
+   * again when its distance decreases, the old entries are skipped when polled.
+   */
+  private static final class VertexQueue {
+
+    private double[] distances = new double[64];
+    private int[] vertices = new int[64];
+    private int size = 0;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    double peekDistance() {
+      return distances[0];
+    }
+
+    void add(int vertex, double distance) {
+      if (size == vertices.length) {
+        vertices = Arrays.copyOf(vertices, 2 * size);
+        distances = Arrays.copyOf(distances, 2 * size);
+      }
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (distances[parent] <= distance) {
+          break;
+        }
+        vertices[i] = vertices[parent];
+        distances[i] = distances[parent];
+        i = parent;
+      }
+      vertices[i] = vertex;
+      distances[i] = distance;
+    }
+
+    int poll() {
+      int result = vertices[0];
+      int lastVertex = vertices[--size];
+      double lastDistance = distances[size];
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && distances[child + 1] < distances[child]) {
+          child++;
+        }
+        if (lastDistance <= distances[child]) {
+          break;
+        }
+        vertices[i] = vertices[child];
+        distances[i] = distances[child];
+        i = child;
+      }
+      vertices[i] = lastVertex;
+      distances[i] = lastDistance;
+      return result;
+    }
+  }
+}
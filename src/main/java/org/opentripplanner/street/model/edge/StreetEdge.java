@@ -93,6 +93,15 @@ public class StreetEdge
 
   private byte[] compactGeometry;
 
+  /**
+   * The index of the geometry in the {@link StreetEdgeGeometryStore}, or -1 if the geometry is
+   * stored in {@link #compactGeometry}.
+   */
+  private int mappedGeometryIndex = -1;
+
+  /** The store of the mapped geometry, set when the graph is loaded. */
+  private transient StreetEdgeGeometryStore geometryStore;
+
   private I18NString name;
 
   private StreetTraversalPermission permission;
@@ -452,6 +461,16 @@ public class StreetEdge
   }
 
   public LineString getGeometry() {
+    if (mappedGeometryIndex >= 0) {
+      return CompactLineStringUtils.uncompactLineString(
+        fromv.getLon(),
+        fromv.getLat(),
+        tov.getLon(),
+        tov.getLat(),
+        geometryStore().get(mappedGeometryIndex),
+        isBack()
+      );
+    }
     return CompactLineStringUtils.uncompactLineString(
       fromv.getLon(),
       fromv.getLat(),
@@ -1035,7 +1054,36 @@ public class StreetEdge
     );
   }
 
+  /**
+   * The compact geometry, copied out of the {@link StreetEdgeGeometryStore} if the geometry is
+   * mapped. Only use this to write the geometry, use {@link #getGeometry()} to read it.
+   */
+  byte[] compactGeometry() {
+    return mappedGeometryIndex < 0 ? compactGeometry : geometryStore().copy(mappedGeometryIndex);
+  }
+
+  void setMappedGeometry(StreetEdgeGeometryStore store, int index) {
+    this.geometryStore = store;
+    this.mappedGeometryIndex = index;
+    this.compactGeometry = null;
+  }
+
+  void attachGeometryStore(StreetEdgeGeometryStore store) {
+    if (mappedGeometryIndex >= 0) {
+      this.geometryStore = store;
+    }
+  }
+
+  private StreetEdgeGeometryStore geometryStore() {
+    if (geometryStore == null) {
+      throw new IllegalStateException("The street edge geometry file is not loaded.");
+    }
+    return geometryStore;
+  }
+
   private void setGeometry(LineString geometry) {
+    this.mappedGeometryIndex = -1;
+    this.geometryStore = null;
     this.compactGeometry =
       CompactLineStringUtils.compactLineString(
         fromv.getLon(),
@@ -1071,12 +1119,29 @@ public class StreetEdge
       }
     }
 
+    // Check the restrictions which only depend on the parent state before creating the editor, to
+    // avoid allocating a new state for traversals which are not allowed.
+    if (isTraversalBlockedByNoThruTraffic(traverseMode, s0)) {
+      return null;
+    }
+
+    if (
+      backEdge instanceof StreetEdge backPSE &&
+      !isTurnAllowed(backPSE, s0, s0.getBackMode(), traverseMode)
+    ) {
+      return null;
+    }
+
     var s1 = createEditor(s0, this, traverseMode, walkingBike);
 
-    if (isTraversalBlockedByNoThruTraffic(traverseMode, backEdge, s0, s1)) {
+    if (s1 == null) {
       return null;
     }
 
+    if (isEnteringNoThruTrafficArea(traverseMode, backEdge)) {
+      s1.setEnteredNoThroughTrafficArea();
+    }
+
     if (s0.getRequest().mode().includesRenting()) {
       if (tov.rentalDropOffBanned(s0)) {
         s1.enterNoRentalDropOffArea();
@@ -1111,15 +1176,6 @@ public class StreetEdge
       TraverseMode backMode = s0.getBackMode();
       final boolean arriveBy = s0.getRequest().arriveBy();
 
-      // Apply turn restrictions
-      if (
-        arriveBy
-          ? !canTurnOnto(backPSE, s0, backMode)
-          : !backPSE.canTurnOnto(this, s0, traverseMode)
-      ) {
-        return null;
-      }
-
       double backSpeed = backPSE.calculateSpeed(preferences, backMode, s0.isBackWalkingBike());
       final double turnDuration; // Units are seconds.
 
@@ -1306,23 +1362,33 @@ public class StreetEdge
    * Since a Vertex may be arrived at with and without a no-thru restriction, the logic in
    * DominanceFunction#betterOrEqualAndComparable treats the two cases as separate.
    */
-  private boolean isTraversalBlockedByNoThruTraffic(
-    TraverseMode traverseMode,
-    Edge backEdge,
+  private boolean isTraversalBlockedByNoThruTraffic(TraverseMode traverseMode, State s0) {
+    // If we transitioned into a no-through-traffic area at some point, check if we are exiting it.
+    return !isNoThruTraffic(traverseMode) && s0.hasEnteredNoThruTrafficArea();
+  }
+
+  /**
+   * Check if this traversal is a transition into a no-through-traffic area, which should be
+   * recorded in the new state.
+   */
+  private boolean isEnteringNoThruTrafficArea(TraverseMode traverseMode, Edge backEdge) {
+    return (
+      isNoThruTraffic(traverseMode) &&
+      backEdge instanceof StreetEdge sbe &&
+      !sbe.isNoThruTraffic(traverseMode)
+    );
+  }
+
+  /** Apply turn restrictions */
+  private boolean isTurnAllowed(
+    StreetEdge backPSE,
     State s0,
-    StateEditor s1
+    TraverseMode backMode,
+    TraverseMode traverseMode
   ) {
-    if (isNoThruTraffic(traverseMode)) {
-      // Record transition into no-through-traffic area.
-      if (backEdge instanceof StreetEdge sbe && !sbe.isNoThruTraffic(traverseMode)) {
-        s1.setEnteredNoThroughTrafficArea();
-      }
-    } else if (s0.hasEnteredNoThruTrafficArea()) {
-      // If we transitioned into a no-through-traffic area at some point, check if we are exiting it.
-      return true;
-    }
-
-    return false;
+    return s0.getRequest().arriveBy()
+      ? canTurnOnto(backPSE, s0, backMode)
+      : backPSE.canTurnOnto(this, s0, traverseMode);
   }
 
   private void writeObject(ObjectOutputStream out) throws IOException {
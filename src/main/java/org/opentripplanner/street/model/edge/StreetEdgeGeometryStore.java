@@ -0,0 +1,96 @@
+package org.opentripplanner.street.model.edge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opentripplanner.framework.io.MappedByteArrayFile;
+
+/**
+ * Keep the compact geometries of the street edges in a memory-mapped file instead of in one
+ * byte array per edge on the heap. The geometries are the bulk of the street data, so this
+ * reduces the heap used, and the number of objects created when the graph is loaded.
+ * <p>
+ * A store is created by the graph loader, and each mapped street edge keeps a reference to the
+ * store of its graph. The store is not serialized, the edges only serialize the index of their
+ * geometry in the file.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE.
+ */
+public final class StreetEdgeGeometryStore {
+
+  private final MappedByteArrayFile file;
+
+  private StreetEdgeGeometryStore(MappedByteArrayFile file) {
+    this.file = file;
+  }
+
+  /**
+   * Write the geometries of all street edges to the given file and map it. The geometry of each
+   * edge is replaced by a reference to the file.
+   */
+  public static StreetEdgeGeometryStore writeAndMap(Collection<Edge> edges, Path file)
+    throws IOException {
+    // Geometries are shared between an edge and its reverse, keep them shared
+    Map<byte[], Integer> geometryIndexes = new IdentityHashMap<>();
+    Map<StreetEdge, Integer> edgeIndexes = new IdentityHashMap<>();
+    List<byte[]> geometries = new ArrayList<>();
+    for (Edge e : edges) {
+      if (e instanceof StreetEdge se) {
+        byte[] geometry = se.compactGeometry();
+        if (geometry != null) {
+          int index = geometryIndexes.computeIfAbsent(
+            geometry,
+            it -> {
+              geometries.add(it);
+              return geometries.size() - 1;
+            }
+          );
+          edgeIndexes.put(se, index);
+        }
+      }
+    }
+    // Write to a temporary file first, the existing file may be mapped and in use
+    Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    MappedByteArrayFile.write(tmpFile, geometries);
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    var store = new StreetEdgeGeometryStore(MappedByteArrayFile.map(file));
+    edgeIndexes.forEach((edge, index) -> edge.setMappedGeometry(store, index));
+    return store;
+  }
+
+  /**
+   * Map the geometries of a graph written with {@link #writeAndMap(Collection, Path)}, and
+   * attach the store to the deserialized street edges with a mapped geometry.
+   */
+  public static StreetEdgeGeometryStore map(Path file, Collection<Edge> edges)
+    throws IOException {
+    var store = new StreetEdgeGeometryStore(MappedByteArrayFile.map(file));
+    for (Edge e : edges) {
+      if (e instanceof StreetEdge se) {
+        se.attachGeometryStore(store);
+      }
+    }
+    return store;
+  }
+
+  /**
+   * A read-only view of the geometry, the bytes are not copied out of the file.
+   */
+  ByteBuffer get(int index) {
+    return file.buffer(index);
+  }
+
+  /**
+   * A copy of the geometry, only use this when the geometry is written.
+   */
+  byte[] copy(int index) {
+    return file.get(index);
+  }
+}
@@ -34,6 +34,13 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
   private transient Edge[] incoming = new Edge[0];
 
   private transient Edge[] outgoing = new Edge[0];
+
+  /**
+   * The index of this vertex in the {@link org.opentripplanner.street.model.StreetLandmarks}, or -1
+   * if the vertex has no landmark distances.
+   */
+  private transient int landmarkIndex = -1;
+
   private RentalRestrictionExtension rentalRestrictions = RentalRestrictionExtension.NO_RESTRICTION;
 
   /* CONSTRUCTORS */
@@ -63,6 +70,19 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
   public void initEdgeLists() {
     this.outgoing = new Edge[0];
     this.incoming = new Edge[0];
+    this.landmarkIndex = -1;
+  }
+
+  public int getLandmarkIndex() {
+    return landmarkIndex;
+  }
+
+  /**
+   * Set by the {@link org.opentripplanner.street.model.StreetLandmarks} when they are built or
+   * loaded.
+   */
+  public void setLandmarkIndex(int landmarkIndex) {
+    this.landmarkIndex = landmarkIndex;
   }
 
   /* EDGE UTILITY METHODS (use arrays to eliminate copy-on-write set objects) */
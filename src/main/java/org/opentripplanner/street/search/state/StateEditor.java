@@ -335,6 +335,12 @@ public class StateEditor {
    * vehicle parked is important for allowing co-dominance of walking and driving states.
    */
   public void setVehicleParked(boolean vehicleParked, TraverseMode nonTransitMode) {
+    if (
+      child.stateData.vehicleParked == vehicleParked &&
+      child.stateData.currentMode == nonTransitMode
+    ) {
+      return;
+    }
     cloneStateDataAsNeeded();
     child.stateData.vehicleParked = vehicleParked;
     child.stateData.currentMode = nonTransitMode;
@@ -345,6 +351,15 @@ public class StateEditor {
    * set.
    */
   public void setFromState(State state) {
+    StateData from = state.stateData;
+    if (
+      child.stateData.currentMode == from.currentMode &&
+      child.stateData.carPickupState == from.carPickupState &&
+      child.stateData.vehicleParked == from.vehicleParked &&
+      child.stateData.backWalkingBike == from.backWalkingBike
+    ) {
+      return;
+    }
     cloneStateDataAsNeeded();
     child.stateData.currentMode = state.stateData.currentMode;
     child.stateData.carPickupState = state.stateData.carPickupState;
@@ -353,12 +368,20 @@ public class StateEditor {
   }
 
   public void setCarPickupState(CarPickupState carPickupState) {
+    TraverseMode currentMode =
+      switch (carPickupState) {
+        case WALK_TO_PICKUP, WALK_FROM_DROP_OFF -> TraverseMode.WALK;
+        case IN_CAR -> TraverseMode.CAR;
+      };
+    if (
+      child.stateData.carPickupState == carPickupState &&
+      child.stateData.currentMode == currentMode
+    ) {
+      return;
+    }
     cloneStateDataAsNeeded();
     child.stateData.carPickupState = carPickupState;
-    switch (carPickupState) {
-      case WALK_TO_PICKUP, WALK_FROM_DROP_OFF -> child.stateData.currentMode = TraverseMode.WALK;
-      case IN_CAR -> child.stateData.currentMode = TraverseMode.CAR;
-    }
+    child.stateData.currentMode = currentMode;
   }
 
   public void setTimeSeconds(long seconds) {
@@ -372,6 +395,9 @@ public class StateEditor {
   }
 
   public void resetStartedInNoDropOffZone() {
+    if (child.stateData.noRentalDropOffZonesAtStartOfReverseSearch.isEmpty()) {
+      return;
+    }
     cloneStateDataAsNeeded();
     child.stateData.noRentalDropOffZonesAtStartOfReverseSearch = Set.of();
   }
@@ -381,7 +407,8 @@ public class StateEditor {
   /**
    * To be called before modifying anything in the child's StateData. Makes sure that changes are
    * applied to a copy of StateData rather than the same one that is still referenced in existing,
-   * older states.
+   * older states. The setters check if the values actually change before calling this, so the
+   * StateData is only copied when needed.
    */
   private void cloneStateDataAsNeeded() {
     if (child.backState != null && child.stateData == child.backState.stateData) child.stateData =
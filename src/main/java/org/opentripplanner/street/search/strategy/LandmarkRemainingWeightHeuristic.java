@@ -0,0 +1,128 @@
+package org.opentripplanner.street.search.strategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.street.model.StreetLandmarks;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.state.State;
+
+/**
+ * A remaining weight strategy using the {@link StreetLandmarks} (ALT) lower bound of the street
+ * network distance, in addition to the straight line distance. It is only used for the car and
+ * bicycle modes, for other modes and for vertices not in the landmark table, the Euclidean
+ * estimate is used.
+ * <p>
+ * The target vertices are usually temporary vertices, which are not in the landmark table. The
+ * remaining distance is therefore estimated to the nearest "anchor": the vertices in the table
+ * which connect the temporary vertices around the target to the rest of the graph. Every path to
+ * the target passes through an anchor.
+ */
+public class LandmarkRemainingWeightHeuristic extends EuclideanRemainingWeightHeuristic {
+
+  /** Stop looking for anchors after this many vertices, and use the Euclidean estimate. */
+  private static final int MAX_ANCHOR_SEARCH_VERTICES = 1000;
+
+  private final StreetLandmarks landmarks;
+  private final float maxCarSpeed;
+
+  private List<Vertex> anchors = List.of();
+
+  /** The weight per meter is at least this, zero if the landmarks are not used. */
+  private double minWeightPerMeter;
+
+  public LandmarkRemainingWeightHeuristic(StreetLandmarks landmarks, float maxCarSpeed) {
+    super(maxCarSpeed);
+    this.landmarks = landmarks;
+    this.maxCarSpeed = maxCarSpeed;
+  }
+
+  @Override
+  public void initialize(
+    StreetMode streetMode,
+    Set<Vertex> toVertices,
+    boolean arriveBy,
+    RoutingPreferences preferences
+  ) {
+    super.initialize(streetMode, toVertices, arriveBy, preferences);
+    minWeightPerMeter = minWeightPerMeter(streetMode, preferences);
+    anchors = minWeightPerMeter > 0 ? findAnchors(toVertices) : List.of();
+  }
+
+  @Override
+  public double estimateRemainingWeight(State s) {
+    double euclidean = super.estimateRemainingWeight(s);
+    if (anchors.isEmpty()) {
+      return euclidean;
+    }
+    Vertex v = s.getVertex();
+    if (!landmarks.contains(v)) {
+      return euclidean;
+    }
+    double distance = Double.POSITIVE_INFINITY;
+    for (Vertex anchor : anchors) {
+      distance = Math.min(distance, landmarks.lowerBoundDistance(v, anchor));
+    }
+    return Math.max(euclidean, distance * minWeightPerMeter);
+  }
+
+  /**
+   * The smallest weight per meter of the cost model, for all the edges the mode can traverse.
+   * See {@code StreetEdge#traversalCost}.
+   */
+  private double minWeightPerMeter(StreetMode streetMode, RoutingPreferences preferences) {
+    if (streetMode == StreetMode.CAR) {
+      return Math.min(1, preferences.car().reluctance()) / maxCarSpeed;
+    }
+    if (streetMode == StreetMode.BIKE) {
+      var bike = preferences.bike();
+      double speed = Math.max(bike.speed(), bike.walking().speed());
+      double stairsReluctance = preferences.walk().stairsReluctance();
+      double reluctance = Math.min(1, bike.reluctance());
+      reluctance = Math.min(reluctance, bike.walking().reluctance());
+      reluctance = Math.min(reluctance, stairsReluctance);
+      reluctance = Math.min(reluctance, bike.walking().stairsReluctance() * stairsReluctance);
+      return reluctance / speed;
+    }
+    return 0;
+  }
+
+  /**
+   * Search from the target vertices through the vertices which are not in the landmark table, and
+   * return the vertices in the table which are found.
+   */
+  private List<Vertex> findAnchors(Set<Vertex> toVertices) {
+    var anchors = new ArrayList<Vertex>();
+    var visited = Collections.newSetFromMap(new IdentityHashMap<Vertex, Boolean>());
+    var queue = new ArrayDeque<>(toVertices);
+    visited.addAll(toVertices);
+
+    while (!queue.isEmpty()) {
+      if (visited.size() > MAX_ANCHOR_SEARCH_VERTICES) {
+        return List.of();
+      }
+      Vertex v = queue.poll();
+      if (landmarks.contains(v)) {
+        anchors.add(v);
+        continue;
+      }
+      for (Edge e : v.getOutgoing()) {
+        if (visited.add(e.getToVertex())) {
+          queue.add(e.getToVertex());
+        }
+      }
+      for (Edge e : v.getIncoming()) {
+        if (visited.add(e.getFromVertex())) {
+          queue.add(e.getFromVertex());
+        }
+      }
+    }
+    return anchors;
+  }
+}
@@ -8,6 +8,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -55,9 +56,11 @@ import org.opentripplanner.transit.model.site.RegularStop;
 import org.opentripplanner.transit.model.site.Station;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.model.site.StopLocationsGroup;
+import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripOnServiceDate;
+import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.updater.GraphUpdaterStatus;
 
 /**
@@ -357,6 +360,41 @@ public class DefaultTransitService implements TransitEditorService {
     return tripPatterns;
   }
 
+  @Override
+  public Collection<TripTimes> getScheduledTripTimesForFirstDeparture(
+    Route route,
+    Direction direction,
+    int departureTime
+  ) {
+    List<TripTimes> tripTimes = transitModelIndex.getScheduledTripTimesForFirstDeparture(
+      route,
+      direction,
+      departureTime
+    );
+    TimetableSnapshot currentSnapshot = lazyGetTimeTableSnapShot();
+    if (currentSnapshot == null) {
+      return tripTimes;
+    }
+    Collection<TripPattern> realTimeAddedPatterns = currentSnapshot.getRealTimeAddedPatternForRoute(
+      route
+    );
+    if (realTimeAddedPatterns.isEmpty()) {
+      return tripTimes;
+    }
+    List<TripTimes> result = new ArrayList<>(tripTimes);
+    for (TripPattern pattern : realTimeAddedPatterns) {
+      if (pattern.getDirection() != direction) {
+        continue;
+      }
+      for (TripTimes times : pattern.getScheduledTimetable().getTripTimes()) {
+        if (times.getScheduledDepartureTime(0) == departureTime) {
+          result.add(times);
+        }
+      }
+    }
+    return result;
+  }
+
   @Override
   public MultiModalStation getMultiModalStationForStation(Station station) {
     return this.transitModel.getStopModel().getMultiModalStationForStation(station);
@@ -6,10 +6,12 @@ import com.google.common.collect.Multimap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -24,9 +26,11 @@ import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.organization.Agency;
 import org.opentripplanner.transit.model.organization.Operator;
 import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripOnServiceDate;
+import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +62,12 @@ class TransitModelIndex {
   private final Map<FeedScopedId, GroupOfRoutes> groupOfRoutesForId = new HashMap<>();
   private FlexIndex flexIndex = null;
 
+  /**
+   * Only used for fuzzy trip matching of real-time updates without trip ids, so it is created on
+   * first use, see {@link #getScheduledTripTimesForFirstDeparture(Route, Direction, int)}.
+   */
+  private volatile Map<FirstDeparture, List<TripTimes>> scheduledTripTimesByFirstDeparture;
+
   TransitModelIndex(TransitModel transitModel) {
     LOG.info("Transit model index init...");
 
@@ -185,6 +195,46 @@ class TransitModelIndex {
     return flexIndex;
   }
 
+  /**
+   * Return the scheduled trip times of the route in the given direction, departing from their first
+   * stop at the given time. The trip times are not filtered on service date.
+   */
+  List<TripTimes> getScheduledTripTimesForFirstDeparture(
+    Route route,
+    Direction direction,
+    int departureTime
+  ) {
+    var index = scheduledTripTimesByFirstDeparture;
+    if (index == null) {
+      synchronized (this) {
+        index = scheduledTripTimesByFirstDeparture;
+        if (index == null) {
+          index = createScheduledTripTimesByFirstDeparture();
+          scheduledTripTimesByFirstDeparture = index;
+        }
+      }
+    }
+    return index.getOrDefault(new FirstDeparture(route, direction, departureTime), List.of());
+  }
+
+  private Map<FirstDeparture, List<TripTimes>> createScheduledTripTimesByFirstDeparture() {
+    var index = new HashMap<FirstDeparture, List<TripTimes>>();
+    for (TripPattern pattern : patternsForRoute.values()) {
+      for (TripTimes tripTimes : pattern.getScheduledTimetable().getTripTimes()) {
+        var key = new FirstDeparture(
+          pattern.getRoute(),
+          pattern.getDirection(),
+          tripTimes.getScheduledDepartureTime(0)
+        );
+        index.computeIfAbsent(key, k -> new ArrayList<>()).add(tripTimes);
+      }
+    }
+    var result = new HashMap<FirstDeparture, List<TripTimes>>();
+    index.forEach((key, tripTimes) -> result.put(key, List.copyOf(tripTimes)));
+    LOG.info("Built scheduled trip times by first departure index [{}].", result.size());
+    return Map.copyOf(result);
+  }
+
   private void initalizeServiceCodesForDate(TransitModel transitModel) {
     CalendarService calendarService = transitModel.getCalendarService();
 
@@ -233,4 +283,6 @@ class TransitModelIndex {
   GroupOfRoutes getGroupOfRoutesForId(FeedScopedId id) {
     return groupOfRoutesForId.get(id);
   }
+
+  private record FirstDeparture(Route route, Direction direction, int departureTime) {}
 }
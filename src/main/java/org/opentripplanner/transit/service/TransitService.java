@@ -42,9 +42,11 @@ import org.opentripplanner.transit.model.site.RegularStop;
 import org.opentripplanner.transit.model.site.Station;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.model.site.StopLocationsGroup;
+import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripOnServiceDate;
+import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.updater.GraphUpdaterStatus;
 
 /**
@@ -191,6 +193,18 @@ public interface TransitService {
    */
   Collection<TripPattern> getPatternsForRoute(Route route);
 
+  /**
+   * Return the scheduled trip times of the route in the given direction, which depart from their
+   * first stop at the given time, including those in trip patterns added by real-time updates.
+   * The trip times are not filtered on service date. This is used to match real-time updates
+   * without trip ids to scheduled trips.
+   */
+  Collection<TripTimes> getScheduledTripTimesForFirstDeparture(
+    Route route,
+    Direction direction,
+    int departureTime
+  );
+
   MultiModalStation getMultiModalStationForStation(Station station);
 
   List<StopTimesInPattern> stopTimesForStop(
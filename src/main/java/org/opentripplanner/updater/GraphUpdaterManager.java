@@ -2,6 +2,7 @@ package org.opentripplanner.updater;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -39,14 +40,21 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
 
   /**
    * OTP's multi-version concurrency control model for graph updating allows simultaneous reads, but
-   * never simultaneous writes. We ensure this policy is respected by having a single writer thread,
-   * which sequentially executes all graph updater tasks. Each task is a runnable that is scheduled
-   * with the ExecutorService to run at regular intervals.
+   * never simultaneous writes to the same state. We ensure this policy is respected by having a
+   * single writer thread for each {@link GraphWriterLane}, which sequentially executes all graph
+   * updater tasks in the lane. Each task is a runnable that is scheduled with the ExecutorService
+   * to run at regular intervals.
    * FIXME: In reality we're not using scheduleAtFixedInterval.
    *        We're scheduling for immediate execution from separate threads that sleep in a loop.
    *        We should perhaps switch to having polling GraphUpdaters call scheduleAtFixedInterval.
    */
-  private final ScheduledExecutorService scheduler;
+  private final Map<GraphWriterLane, ScheduledExecutorService> schedulers = new EnumMap<>(
+    GraphWriterLane.class
+  );
+
+  private final Map<GraphWriterLane, GraphWriterQueue> writerQueues = new EnumMap<>(
+    GraphWriterLane.class
+  );
 
   private final ScheduledExecutorService pollingUpdaterPool;
 
@@ -61,20 +69,21 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
    */
   private final List<GraphUpdater> updaterList = new ArrayList<>();
 
-  /**
-   * The Graph that will be updated.
-   */
-  private final RealTimeUpdateContext realtimeUpdateContext;
-
   /**
    * Constructor.
    *
    */
   public GraphUpdaterManager(RealTimeUpdateContext context, List<GraphUpdater> updaters) {
-    this.realtimeUpdateContext = context;
     // Thread factories used to create new threads, giving them more human-readable names.
-    var graphWriterThreadFactory = new ThreadFactoryBuilder().setNameFormat("graph-writer").build();
-    this.scheduler = Executors.newSingleThreadScheduledExecutor(graphWriterThreadFactory);
+    for (GraphWriterLane lane : GraphWriterLane.values()) {
+      var name = lane == GraphWriterLane.TRANSIT
+        ? "graph-writer"
+        : "graph-writer-" + lane.name().toLowerCase();
+      var graphWriterThreadFactory = new ThreadFactoryBuilder().setNameFormat(name).build();
+      var scheduler = Executors.newSingleThreadScheduledExecutor(graphWriterThreadFactory);
+      schedulers.put(lane, scheduler);
+      writerQueues.put(lane, new GraphWriterQueue(lane, scheduler, context));
+    }
     var updaterThreadFactory = new ThreadFactoryBuilder().setNameFormat("updater-%d").build();
     this.pollingUpdaterPool =
       Executors.newScheduledThreadPool(
@@ -166,10 +175,14 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
     }
     updaterList.clear();
 
-    // Shutdown scheduler
-    scheduler.shutdownNow();
+    // Shutdown schedulers
+    writerQueues.values().forEach(GraphWriterQueue::stop);
+    schedulers.values().forEach(ExecutorService::shutdownNow);
     try {
-      boolean ok = scheduler.awaitTermination(30, TimeUnit.SECONDS);
+      boolean ok = true;
+      for (var scheduler : schedulers.values()) {
+        ok &= scheduler.awaitTermination(30, TimeUnit.SECONDS);
+      }
       if (!ok) {
         LOG.warn("Timeout waiting for scheduled task to finish.");
       }
@@ -182,13 +195,7 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
 
   @Override
   public Future<?> execute(GraphWriterRunnable runnable) {
-    return scheduler.submit(() -> {
-      try {
-        runnable.run(realtimeUpdateContext);
-      } catch (Exception e) {
-        LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
-      }
-    });
+    return writerQueues.get(runnable.lane()).submit(runnable);
   }
 
   @Override
@@ -252,8 +259,15 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
     return nonPollingUpdaterPool;
   }
 
+  /**
+   * The scheduler for the {@link GraphWriterLane#TRANSIT} lane.
+   */
   public ScheduledExecutorService getScheduler() {
-    return scheduler;
+    return getScheduler(GraphWriterLane.TRANSIT);
+  }
+
+  public ScheduledExecutorService getScheduler(GraphWriterLane lane) {
+    return schedulers.get(lane);
   }
 
   /**
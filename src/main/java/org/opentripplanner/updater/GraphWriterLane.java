@@ -0,0 +1,21 @@
+package org.opentripplanner.updater;
+
+/**
+ * The graph writer runnables are executed in lanes. The runnables in one lane are executed one at
+ * a time, in the order they are submitted. Runnables in different lanes may run at the same time,
+ * so runnables in different lanes must not read or write the same state.
+ */
+public enum GraphWriterLane {
+  /**
+   * Updates to the transit model: the timetable snapshot, alerts and vehicle positions. These
+   * updates use the {@link RealTimeUpdateContext#transitService()}, which reads the uncommitted
+   * timetable snapshot buffer. This is the default lane.
+   */
+  TRANSIT,
+
+  /**
+   * Updates to the street graph, like vehicle rental and vehicle parking. These updates link new
+   * vertices into the street graph, and must not use the transit service.
+   */
+  STREET,
+}
@@ -0,0 +1,139 @@
+package org.opentripplanner.updater;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execute the graph writer runnables of one {@link GraphWriterLane} on a single thread. Runnables
+ * with a {@link GraphWriterRunnable#coalesceKey()} replace a runnable with the same key waiting in
+ * the queue. The number of waiting runnables, the time a runnable waits before it is started, and
+ * the number of runnables skipped are reported as metrics.
+ */
+class GraphWriterQueue {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GraphWriterQueue.class);
+  private static final String METRICS_PREFIX = "graphWriter";
+
+  private final ExecutorService executor;
+  private final RealTimeUpdateContext context;
+
+  /** The waiting runnable for each coalesce key */
+  private final Map<Object, Task> waitingByKey = new ConcurrentHashMap<>();
+  private final AtomicInteger queueSize = new AtomicInteger();
+  private final Gauge queueSizeGauge;
+  private final Timer lagTimer;
+  private final Counter coalescedCounter;
+
+  GraphWriterQueue(GraphWriterLane lane, ExecutorService executor, RealTimeUpdateContext context) {
+    this.executor = executor;
+    this.context = context;
+
+    var tags = Tags.of("lane", lane.name());
+    this.queueSizeGauge =
+      Gauge
+        .builder(METRICS_PREFIX + ".queueSize", queueSize::get)
+        .description("Number of graph writer runnables waiting to be executed")
+        .tags(tags)
+        .register(Metrics.globalRegistry);
+    this.lagTimer =
+      Timer
+        .builder(METRICS_PREFIX + ".lag")
+        .description("Time from a graph writer runnable is submitted until it is started")
+        .tags(tags)
+        .register(Metrics.globalRegistry);
+    this.coalescedCounter =
+      Counter
+        .builder(METRICS_PREFIX + ".coalesced")
+        .description("Number of graph writer runnables skipped, because a newer one is submitted")
+        .tags(tags)
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Remove the metrics of this queue. The meters are registered in the global registry with the
+   * lane as tag, so they must be removed before a new queue for the same lane is created, or the
+   * registry keeps reporting this queue.
+   */
+  void stop() {
+    Metrics.globalRegistry.remove(queueSizeGauge);
+    Metrics.globalRegistry.remove(lagTimer);
+    Metrics.globalRegistry.remove(coalescedCounter);
+  }
+
+  Future<?> submit(GraphWriterRunnable runnable) {
+    var task = new Task(runnable);
+    queueSize.incrementAndGet();
+
+    Object key = runnable.coalesceKey();
+    if (key != null) {
+      Task replaced = waitingByKey.put(key, task);
+      if (replaced != null && replaced.skip()) {
+        coalescedCounter.increment();
+      }
+    }
+    try {
+      executor.execute(task);
+    } catch (RuntimeException e) {
+      queueSize.decrementAndGet();
+      task.result.completeExceptionally(e);
+      throw e;
+    }
+    return task.result;
+  }
+
+  private class Task implements Runnable {
+
+    private final GraphWriterRunnable runnable;
+    private final long submitTime = System.nanoTime();
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    private Task(GraphWriterRunnable runnable) {
+      this.runnable = runnable;
+    }
+
+    /**
+     * Skip this task if it is not started, the result is completed without running it.
+     */
+    private boolean skip() {
+      if (claimed.compareAndSet(false, true)) {
+        result.complete(null);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void run() {
+      queueSize.decrementAndGet();
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      Object key = runnable.coalesceKey();
+      if (key != null) {
+        waitingByKey.remove(key, this);
+      }
+      lagTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+      try {
+        runnable.run(context);
+      } catch (Exception e) {
+        LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
+      } finally {
+        result.complete(null);
+      }
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package org.opentripplanner.updater;
 
+import javax.annotation.Nullable;
+
 /**
  * The graph should only be modified by a runnable implementing this interface, executed by the
  * GraphUpdaterManager. A few notes: - Don't spend more time in this runnable than necessary, it
@@ -14,4 +16,22 @@ public interface GraphWriterRunnable {
    * This function is executed to modify the graph.
    */
   void run(RealTimeUpdateContext context);
+
+  /**
+   * The lane to run this runnable in, see {@link GraphWriterLane}.
+   */
+  default GraphWriterLane lane() {
+    return GraphWriterLane.TRANSIT;
+  }
+
+  /**
+   * Runnables which contain a complete snapshot of the state they write, can be coalesced. If a
+   * runnable with the same key is waiting in the queue when this runnable is submitted, the
+   * waiting runnable is skipped. Return {@code null}(default) if each runnable must be executed.
+   * The key is usually the updater submitting the runnable.
+   */
+  @Nullable
+  default Object coalesceKey() {
+    return null;
+  }
 }
@@ -10,7 +10,6 @@ import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.gtfs.mapping.DirectionMapper;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.network.Route;
-import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -78,22 +77,24 @@ public class GtfsRealtimeFuzzyTripMatcher {
     return trip.toBuilder().setTripId(matchedTrip.getId().getId()).build();
   }
 
-  public synchronized Trip getTrip(
-    Route route,
-    Direction direction,
-    int startTime,
-    LocalDate date
-  ) {
+  /**
+   * Find the scheduled trip of the route in the given direction, departing from its first stop at
+   * the given time on the given service date. The trips are looked up in an index, so this is
+   * cheap and safe to call from several threads.
+   */
+  public Trip getTrip(Route route, Direction direction, int startTime, LocalDate date) {
+    var candidates = transitService.getScheduledTripTimesForFirstDeparture(
+      route,
+      direction,
+      startTime
+    );
+    if (candidates.isEmpty()) {
+      return null;
+    }
     TIntSet servicesRunningForDate = transitService.getServiceCodesRunningForDate(date);
-    for (TripPattern pattern : transitService.getPatternsForRoute(route)) {
-      if (pattern.getDirection() != direction) continue;
-      for (TripTimes times : pattern.getScheduledTimetable().getTripTimes()) {
-        if (
-          times.getScheduledDepartureTime(0) == startTime &&
-          servicesRunningForDate.contains(times.getServiceCode())
-        ) {
-          return times.getTrip();
-        }
+    for (TripTimes times : candidates) {
+      if (servicesRunningForDate.contains(times.getServiceCode())) {
+        return times.getTrip();
       }
     }
     return null;
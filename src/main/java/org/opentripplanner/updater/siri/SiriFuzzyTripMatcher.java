@@ -37,20 +37,26 @@ import uk.org.siri.siri20.VehicleModesEnumeration;
  * process will always be applied even in places where you have good quality IDs in SIRI data and
  * don't need it - we'd have to add a way to disable it.
  * <p>
- * The same instance of this SiriFuzzyTripMatcher may appear in different SIRI updaters. Be sure
- * to fetch the instance at during the setup of the updaters, the initialization is not thread-safe.
+ * The same instance of this SiriFuzzyTripMatcher may appear in different SIRI updaters. The trips
+ * are indexed once when the instance is created, and the indexes are immutable, so the matching
+ * can be done from several threads.
  */
 public class SiriFuzzyTripMatcher {
 
   private static final Logger LOG = LoggerFactory.getLogger(SiriFuzzyTripMatcher.class);
 
-  private final Map<String, Set<Trip>> internalPlanningCodeCache = new HashMap<>();
-  private final Map<String, Set<Trip>> startStopTripCache = new HashMap<>();
+  private final Map<String, Set<Trip>> internalPlanningCodeCache;
+  private final Map<LastStopArrival, Set<Trip>> startStopTripCache;
   private final TransitService transitService;
 
   public SiriFuzzyTripMatcher(TransitService transitService) {
     this.transitService = transitService;
-    initCache(this.transitService);
+
+    var internalPlanningCodeCache = new HashMap<String, Set<Trip>>();
+    var startStopTripCache = new HashMap<LastStopArrival, Set<Trip>>();
+    initCache(this.transitService, internalPlanningCodeCache, startStopTripCache);
+    this.internalPlanningCodeCache = immutableCopy(internalPlanningCodeCache);
+    this.startStopTripCache = immutableCopy(startStopTripCache);
   }
 
   /**
@@ -160,7 +166,11 @@ public class SiriFuzzyTripMatcher {
     return matches;
   }
 
-  private void initCache(TransitService index) {
+  private static void initCache(
+    TransitService index,
+    Map<String, Set<Trip>> internalPlanningCodeCache,
+    Map<LastStopArrival, Set<Trip>> startStopTripCache
+  ) {
     for (Trip trip : index.getAllTrips()) {
       TripPattern tripPattern = index.getPatternForTrip(trip);
 
@@ -182,7 +192,7 @@ public class SiriFuzzyTripMatcher {
       if (tripTimes != null) {
         int arrivalTime = tripTimes.getArrivalTime(tripTimes.getNumStops() - 1);
 
-        String key = createStartStopKey(lastStopId, arrivalTime);
+        var key = new LastStopArrival(lastStopId, arrivalTime);
         startStopTripCache.computeIfAbsent(key, k -> new HashSet<>()).add(trip);
       }
     }
@@ -191,8 +201,10 @@ public class SiriFuzzyTripMatcher {
     LOG.info("Built start-stop-cache [{}].", startStopTripCache.size());
   }
 
-  private static String createStartStopKey(String lastStopId, int lastStopArrivalTime) {
-    return lastStopId + ":" + lastStopArrivalTime;
+  private static <K> Map<K, Set<Trip>> immutableCopy(Map<K, Set<Trip>> cache) {
+    var result = new HashMap<K, Set<Trip>>();
+    cache.forEach((key, trips) -> result.put(key, Set.copyOf(trips)));
+    return Map.copyOf(result);
   }
 
   private Set<Trip> getMatchingTripsOnStopOrSiblings(
@@ -212,12 +224,12 @@ public class SiriFuzzyTripMatcher {
     );
 
     Set<Trip> trips = startStopTripCache.get(
-      createStartStopKey(lastStopPoint, secondsSinceMidnight)
+      new LastStopArrival(lastStopPoint, secondsSinceMidnight)
     );
     if (trips == null) {
       //Attempt to fetch trips that started yesterday - i.e. add 24 hours to arrival-time
       trips =
-        startStopTripCache.get(createStartStopKey(lastStopPoint, secondsSinceMidnightYesterday));
+        startStopTripCache.get(new LastStopArrival(lastStopPoint, secondsSinceMidnightYesterday));
     }
 
     if (trips != null) {
@@ -234,7 +246,7 @@ public class SiriFuzzyTripMatcher {
     var allQuays = stop.getParentStation().getChildStops();
     for (var quay : allQuays) {
       Set<Trip> tripSet = startStopTripCache.get(
-        createStartStopKey(quay.getId().getId(), secondsSinceMidnight)
+        new LastStopArrival(quay.getId().getId(), secondsSinceMidnight)
       );
       if (tripSet != null) {
         trips.addAll(tripSet);
@@ -247,7 +259,7 @@ public class SiriFuzzyTripMatcher {
     if (internalPlanningCode == null) {
       return null;
     }
-    return internalPlanningCodeCache.getOrDefault(internalPlanningCode, new HashSet<>());
+    return internalPlanningCodeCache.getOrDefault(internalPlanningCode, Set.of());
   }
 
   /**
@@ -369,4 +381,9 @@ public class SiriFuzzyTripMatcher {
 
     return null;
   }
+
+  /**
+   * The id of the last stop of a trip and the scheduled arrival time at it.
+   */
+  private record LastStopArrival(String stopId, int arrivalTime) {}
 }
@@ -9,6 +9,7 @@ import org.opentripplanner.routing.vehicle_parking.VehicleParking;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingSpaces;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.updater.GraphWriterLane;
 import org.opentripplanner.updater.GraphWriterRunnable;
 import org.opentripplanner.updater.RealTimeUpdateContext;
 import org.opentripplanner.updater.spi.DataSource;
@@ -71,6 +72,11 @@ public class VehicleParkingAvailabilityUpdater extends PollingGraphUpdater {
           .collect(Collectors.toUnmodifiableMap(VehicleParking::getId, Function.identity()));
     }
 
+    @Override
+    public GraphWriterLane lane() {
+      return GraphWriterLane.STREET;
+    }
+
     @Override
     public void run(RealTimeUpdateContext context) {
       updates.forEach(this::handleUpdate);
@@ -23,6 +23,7 @@ import org.opentripplanner.street.model.vertex.VehicleParkingEntranceVertex;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.TraverseModeSet;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.updater.GraphWriterLane;
 import org.opentripplanner.updater.GraphWriterRunnable;
 import org.opentripplanner.updater.RealTimeUpdateContext;
 import org.opentripplanner.updater.spi.DataSource;
@@ -97,6 +98,20 @@ public class VehicleParkingUpdater extends PollingGraphUpdater {
       this.updatedVehicleParkings = new HashSet<>(updatedVehicleParkings);
     }
 
+    @Override
+    public GraphWriterLane lane() {
+      return GraphWriterLane.STREET;
+    }
+
+    /**
+     * Each update contains all parking lots, so only the newest update waiting needs to be
+     * applied.
+     */
+    @Override
+    public Object coalesceKey() {
+      return VehicleParkingUpdater.this;
+    }
+
     @Override
     public void run(RealTimeUpdateContext context) {
       // Apply stations to graph
@@ -31,6 +31,7 @@ import org.opentripplanner.street.model.vertex.VertexFactory;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.TraverseModeSet;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.updater.GraphWriterLane;
 import org.opentripplanner.updater.GraphWriterRunnable;
 import org.opentripplanner.updater.RealTimeUpdateContext;
 import org.opentripplanner.updater.spi.PollingGraphUpdater;
@@ -154,6 +155,19 @@ public class VehicleRentalUpdater extends PollingGraphUpdater {
       this.geofencingZones = Set.copyOf(geofencingZones);
     }
 
+    @Override
+    public GraphWriterLane lane() {
+      return GraphWriterLane.STREET;
+    }
+
+    /**
+     * Each update contains all stations, so only the newest update waiting needs to be applied.
+     */
+    @Override
+    public Object coalesceKey() {
+      return VehicleRentalUpdater.this;
+    }
+
     @Override
     public void run(RealTimeUpdateContext context) {
       // Apply stations to graph
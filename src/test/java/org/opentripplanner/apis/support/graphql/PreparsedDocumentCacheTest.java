@@ -0,0 +1,90 @@
+package org.opentripplanner.apis.support.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PreparsedDocumentCacheTest {
+
+  private static final String QUERY = "{ stops { name } }";
+  private static final String HASH = PersistedQueries.hash(QUERY);
+
+  private final List<String> parsedQueries = new ArrayList<>();
+  private final PreparsedDocumentCache subject = new PreparsedDocumentCache(
+    "test",
+    new PersistedQueries(10),
+    10
+  );
+
+  @Test
+  void parseAndValidateEachQueryOnce() {
+    var first = getDocument(QUERY, null);
+    var second = getDocument(QUERY, null);
+
+    assertSame(first, second);
+    assertEquals(List.of(QUERY), parsedQueries);
+  }
+
+  @Test
+  void doNotCacheDocumentsWithErrors() {
+    var invalid = "{ stops { noSuchField } }";
+    getDocument(invalid, null);
+    getDocument(invalid, null);
+
+    assertEquals(List.of(invalid, invalid), parsedQueries);
+  }
+
+  @Test
+  void persistedQuery() {
+    var notFound = getDocument("", HASH);
+    assertTrue(notFound.hasErrors());
+    assertEquals(PersistedQueries.NOT_FOUND_MESSAGE, notFound.getErrors().get(0).getMessage());
+    assertEquals(
+      PersistedQueries.NOT_FOUND_CODE,
+      notFound.getErrors().get(0).getExtensions().get("code")
+    );
+
+    var registered = getDocument(QUERY, HASH);
+    assertFalse(registered.hasErrors());
+
+    assertSame(registered, getDocument("", HASH));
+    assertSame(registered, getDocument(QUERY, null));
+    assertEquals(List.of(QUERY), parsedQueries);
+  }
+
+  @Test
+  void persistedQueryWithWrongHash() {
+    var result = getDocument(QUERY, PersistedQueries.hash("{ routes { name } }"));
+
+    assertEquals(PersistedQueries.HASH_MISMATCH_MESSAGE, result.getErrors().get(0).getMessage());
+    assertTrue(parsedQueries.isEmpty());
+  }
+
+  private PreparsedDocumentEntry getDocument(String query, String hash) {
+    var builder = ExecutionInput.newExecutionInput(query);
+    if (hash != null) {
+      builder.extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+    }
+    return subject.getDocumentAsync(builder.build(), this::parseAndValidate).join();
+  }
+
+  private PreparsedDocumentEntry parseAndValidate(ExecutionInput input) {
+    parsedQueries.add(input.getQuery());
+    if (input.getQuery().contains("noSuchField")) {
+      return new PreparsedDocumentEntry(
+        GraphqlErrorBuilder.newError().message("Unknown field").build()
+      );
+    }
+    return new PreparsedDocumentEntry(Parser.parse(input.getQuery()));
+  }
+}
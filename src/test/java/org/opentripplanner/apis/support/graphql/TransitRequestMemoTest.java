@@ -0,0 +1,72 @@
+package org.opentripplanner.apis.support.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.opentripplanner.apis.support.graphql.TransitRequestMemo.REALTIME_VEHICLES_BY_PATTERN;
+
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.service.realtimevehicles.RealtimeVehicleService;
+import org.opentripplanner.service.realtimevehicles.model.RealtimeVehicle;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.OccupancyStatus;
+import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitModel;
+
+class TransitRequestMemoTest {
+
+  private static final TransitModelForTest TEST_MODEL = TransitModelForTest.of();
+  private static final TripPattern PATTERN_A = TEST_MODEL.pattern(TransitMode.BUS).build();
+  private static final TripPattern PATTERN_B = TEST_MODEL.pattern(TransitMode.RAIL).build();
+
+  private final List<TripPattern> lookups = new ArrayList<>();
+  private final TransitRequestMemo memo = TransitRequestMemo.create(
+    new DefaultTransitService(new TransitModel()),
+    new RealtimeVehicleService() {
+      @Override
+      public List<RealtimeVehicle> getRealtimeVehicles(TripPattern pattern) {
+        lookups.add(pattern);
+        return List.of();
+      }
+
+      @Override
+      public OccupancyStatus getVehicleOccupancyStatus(Trip trip) {
+        return OccupancyStatus.NO_DATA_AVAILABLE;
+      }
+    }
+  );
+  private final DataFetchingEnvironment environment = DataFetchingEnvironmentImpl
+    .newDataFetchingEnvironment()
+    .graphQLContext(GraphQLContext.of(Map.of(TransitRequestMemo.class, memo)))
+    .build();
+
+  @Test
+  void lookUpEachKeyOnlyOnce() {
+    TransitRequestMemo.get(environment, REALTIME_VEHICLES_BY_PATTERN, PATTERN_A);
+    TransitRequestMemo.get(environment, REALTIME_VEHICLES_BY_PATTERN, PATTERN_B);
+    TransitRequestMemo.get(environment, REALTIME_VEHICLES_BY_PATTERN, PATTERN_A);
+
+    assertEquals(List.of(PATTERN_A, PATTERN_B), lookups);
+  }
+
+  @Test
+  void failIfTheMemoIsNotInTheContext() {
+    var env = DataFetchingEnvironmentImpl
+      .newDataFetchingEnvironment()
+      .graphQLContext(GraphQLContext.newContext().build())
+      .build();
+
+    assertThrows(
+      IllegalStateException.class,
+      () -> TransitRequestMemo.get(env, REALTIME_VEHICLES_BY_PATTERN, PATTERN_A)
+    );
+  }
+}
@@ -2,6 +2,7 @@ package org.opentripplanner.astar;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.opentripplanner.street.model.vertex.VertexLabel.string;
 
@@ -26,6 +27,7 @@ import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
 import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.street.search.strategy.DominanceFunctions;
 import org.opentripplanner.street.search.strategy.EuclideanRemainingWeightHeuristic;
 
 public class AStarTest {
@@ -116,6 +118,30 @@ public class AStarTest {
     assertEquals("leary_20th", states.get(6).getVertex().getLabelString());
   }
 
+  @Test
+  public void testReuseShortestPathTree() {
+    var request = new RouteRequest();
+
+    request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(1.0)));
+    Vertex from = graph.getVertex("56th_24th");
+    Vertex to = graph.getVertex("leary_20th");
+    var reused = new ShortestPathTree<State, Edge, Vertex>(new DominanceFunctions.MinimumWeight());
+
+    for (int i = 0; i < 2; i++) {
+      ShortestPathTree<State, Edge, Vertex> tree = StreetSearchBuilder
+        .of()
+        .setHeuristic(new EuclideanRemainingWeightHeuristic())
+        .setShortestPathTree(reused)
+        .setRequest(request)
+        .setFrom(from)
+        .setTo(to)
+        .getShortestPathTree();
+
+      assertSame(reused, tree);
+      assertEquals(7, tree.getPath(to).states.size());
+    }
+  }
+
   @Test
   public void testBack() {
     var request = new RouteRequest();
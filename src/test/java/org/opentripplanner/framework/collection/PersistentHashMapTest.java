@@ -0,0 +1,87 @@
+package org.opentripplanner.framework.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentHashMapTest {
+
+  /** A key with a lot of hash collisions */
+  private record Key(int value) {
+    @Override
+    public int hashCode() {
+      return value % 7;
+    }
+  }
+
+  @Test
+  void plusAndMinus() {
+    PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+    var one = empty.plus("A", 1);
+    var two = one.plus("B", 2);
+
+    assertTrue(empty.isEmpty());
+    assertEquals(Map.of("A", 1), one);
+    assertEquals(Map.of("A", 1, "B", 2), two);
+    assertEquals(Map.of("B", 2), two.minus("A"));
+    assertEquals(Map.of("A", 1), one, "Older versions are not changed");
+    assertNull(two.get("C"));
+  }
+
+  @Test
+  void unchangedMapIsReturnedIfNothingChanges() {
+    Integer value = 1;
+    var map = PersistentHashMap.<String, Integer>empty().plus("A", value);
+    assertSame(map, map.plus("A", value));
+    assertSame(map, map.minus("B"));
+    assertSame(map, map.minusIf((k, v) -> false));
+  }
+
+  @Test
+  void minusIf() {
+    var map = PersistentHashMap.copyOf(Map.of("A", 1, "B", 2, "C", 3));
+    assertEquals(Map.of("B", 2), map.minusIf((k, v) -> v != 2));
+  }
+
+  @Test
+  void mutatingOperationsAreNotSupported() {
+    var map = PersistentHashMap.copyOf(Map.of("A", 1));
+    assertThrows(UnsupportedOperationException.class, () -> map.put("B", 2));
+    assertThrows(UnsupportedOperationException.class, () -> map.remove("A"));
+  }
+
+  @Test
+  void randomOperationsMatchHashMap() {
+    var random = new Random(42);
+    PersistentHashMap<Object, Integer> subject = PersistentHashMap.empty();
+    Map<Object, Integer> expected = new HashMap<>();
+
+    for (int i = 0; i < 50_000; ++i) {
+      Object key = random.nextBoolean()
+        ? new Key(random.nextInt(500))
+        : (Object) random.nextInt(5_000);
+      if (random.nextInt(3) < 2) {
+        int value = random.nextInt();
+        subject = subject.plus(key, value);
+        expected.put(key, value);
+      } else {
+        subject = subject.minus(key);
+        expected.remove(key);
+      }
+      assertEquals(expected.size(), subject.size());
+    }
+    assertEquals(expected, subject);
+
+    for (Object key : expected.keySet()) {
+      subject = subject.minus(key);
+    }
+    assertTrue(subject.isEmpty());
+  }
+}
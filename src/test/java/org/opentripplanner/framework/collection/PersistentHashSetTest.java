@@ -0,0 +1,55 @@
+package org.opentripplanner.framework.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PersistentHashSetTest {
+
+  @Test
+  void plusAndMinus() {
+    PersistentHashSet<String> empty = PersistentHashSet.empty();
+    var one = empty.plus("A");
+    var two = one.plus("B");
+
+    assertTrue(empty.isEmpty());
+    assertEquals(Set.of("A"), one);
+    assertEquals(Set.of("A", "B"), two);
+    assertEquals(Set.of("B"), two.minus("A"));
+    assertEquals(Set.of("A"), one, "Older versions are not changed");
+    assertTrue(two.contains("B"));
+    assertFalse(two.contains("C"));
+  }
+
+  @Test
+  void unchangedSetIsReturnedIfNothingChanges() {
+    var set = PersistentHashSet.<String>empty().plus("A");
+    assertSame(set, set.plus("A"));
+    assertSame(set, set.minus("B"));
+  }
+
+  @Test
+  void manyElements() {
+    var expected = new HashSet<Integer>();
+    PersistentHashSet<Integer> set = PersistentHashSet.empty();
+    for (int i = 0; i < 10_000; i++) {
+      expected.add(i);
+      set = set.plus(i);
+    }
+    assertEquals(expected, set);
+    assertEquals(expected.hashCode(), set.hashCode());
+  }
+
+  @Test
+  void mutatingOperationsAreNotSupported() {
+    var set = PersistentHashSet.<String>empty().plus("A");
+    assertThrows(UnsupportedOperationException.class, () -> set.add("B"));
+    assertThrows(UnsupportedOperationException.class, () -> set.remove("A"));
+  }
+}
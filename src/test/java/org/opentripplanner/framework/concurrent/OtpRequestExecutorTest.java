@@ -0,0 +1,151 @@
+package org.opentripplanner.framework.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.application.LogMDCSupport;
+import org.opentripplanner.framework.application.OTPRequestTimeoutException;
+
+class OtpRequestExecutorTest {
+
+  private static final String CORRELATION_ID = "correlationId";
+
+  private final OtpRequestExecutor subject = OtpRequestExecutor.virtualThreads();
+
+  @Test
+  void runAllTasks() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    Runnable task = () -> threads.add(Thread.currentThread().getName());
+
+    subject.runInParallel(task, task, task);
+
+    assertEquals(3, threads.size());
+    assertFalse(threads.contains(Thread.currentThread().getName()));
+  }
+
+  @Test
+  void runSingleTaskInCallerThread() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    subject.runInParallel(() -> threads.add(Thread.currentThread().getName()));
+
+    assertEquals(Set.of(Thread.currentThread().getName()), threads);
+  }
+
+  @Test
+  void rethrowExceptionFromTask() {
+    var expected = new IllegalArgumentException("Expected");
+
+    var ex = assertThrows(
+      IllegalArgumentException.class,
+      () ->
+        subject.runInParallel(
+          () -> {},
+          () -> {
+            throw expected;
+          }
+        )
+    );
+    assertSame(expected, ex);
+  }
+
+  @Test
+  void cancelOtherTasksAsSoonAsOneFails() throws InterruptedException {
+    var taskStarted = new CountDownLatch(1);
+    var taskInterrupted = new CountDownLatch(1);
+    var expected = new IllegalArgumentException("Expected");
+
+    Runnable blockingTask = () -> {
+      taskStarted.countDown();
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        taskInterrupted.countDown();
+      }
+    };
+    Runnable failingTask = () -> {
+      try {
+        taskStarted.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      throw expected;
+    };
+
+    // The blocking task is first, the failure must not wait for it to complete
+    var ex = assertThrows(
+      IllegalArgumentException.class,
+      () -> subject.runInParallel(blockingTask, failingTask)
+    );
+    assertSame(expected, ex);
+    assertTrue(taskInterrupted.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void interruptTasksWhenCallerTimesOut() throws InterruptedException {
+    var taskStarted = new CountDownLatch(1);
+    var taskInterrupted = new CountDownLatch(1);
+    var caller = Thread.currentThread();
+
+    Runnable callerTask = () -> {
+      try {
+        taskStarted.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      // Simulate the web server request timeout
+      caller.interrupt();
+    };
+    Runnable blockingTask = () -> {
+      taskStarted.countDown();
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        taskInterrupted.countDown();
+      }
+    };
+
+    assertThrows(
+      OTPRequestTimeoutException.class,
+      () -> subject.runInParallel(callerTask, blockingTask)
+    );
+    // Clear the interrupt flag
+    assertTrue(Thread.interrupted());
+    assertTrue(taskInterrupted.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void propagateLogContextOfEachCallerToPooledThread() {
+    boolean logContextEnabled = LogMDCSupport.isRequestTracingInLoggingEnabled();
+    LogMDCSupport.enable();
+    var pooled = new OtpRequestExecutor(Executors.newSingleThreadExecutor());
+    List<String> correlationIds = Collections.synchronizedList(new ArrayList<>());
+    Runnable task = () -> correlationIds.add(LogMDCSupport.getLocalValue(CORRELATION_ID));
+
+    try {
+      for (String id : List.of("A", "B")) {
+        LogMDCSupport.putLocal(CORRELATION_ID, id);
+        pooled.runInParallel(() -> {}, task);
+      }
+    } finally {
+      LogMDCSupport.removeLocal(CORRELATION_ID);
+      if (!logContextEnabled) {
+        LogMDCSupport.disable();
+      }
+      pooled.shutdown();
+    }
+    assertEquals(List.of("A", "B"), correlationIds);
+  }
+}
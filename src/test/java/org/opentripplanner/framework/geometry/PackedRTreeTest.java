@@ -0,0 +1,132 @@
+package org.opentripplanner.framework.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+
+class PackedRTreeTest {
+
+  private static final double X0 = -0.05;
+  private static final double Y0 = 44.0;
+  private static final double DX = 0.1;
+  private static final double DY = 0.1;
+
+  private final Random rand = new Random(42);
+
+  /**
+   * Insert random envelopes into both the packed tree and a JTS STRtree, and check that random
+   * queries return the same items.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 15, 16, 17, 1000 })
+  @SuppressWarnings("unchecked")
+  void queryReturnsSameItemsAsStrTree(int numberOfItems) {
+    var envelopes = randomEnvelopes(numberOfItems);
+    var items = new ArrayList<Integer>();
+    var strTree = new STRtree();
+    for (int i = 0; i < numberOfItems; i++) {
+      items.add(i);
+      strTree.insert(envelopes.get(i), i);
+    }
+    var subject = PackedRTree.of(items, envelopes);
+    assertEquals(numberOfItems, subject.size());
+
+    for (int i = 0; i < 1000; i++) {
+      var searchEnv = randomEnvelope();
+      var result = subject.query(searchEnv);
+      assertEquals(new HashSet<>(result).size(), result.size(), "Duplicate items in result");
+      assertEquals(new HashSet<Integer>(strTree.query(searchEnv)), new HashSet<>(result));
+    }
+  }
+
+  @Test
+  void visitNearestInOrderOfDistance() {
+    var envelopes = randomEnvelopes(1000);
+    var items = new ArrayList<Integer>();
+    for (int i = 0; i < envelopes.size(); i++) {
+      items.add(i);
+    }
+    var subject = PackedRTree.of(items, envelopes);
+    double x = X0 + DX / 2;
+    double y = Y0 + DY / 2;
+    double xScale = 0.7;
+    double maxDistance = 0.01;
+
+    var visited = new ArrayList<Integer>();
+    var distances = new ArrayList<Double>();
+    subject.visitNearest(
+      x,
+      y,
+      xScale,
+      maxDistance,
+      (item, distance) -> {
+        visited.add(item);
+        distances.add(distance);
+        return true;
+      }
+    );
+
+    long expected = envelopes
+      .stream()
+      .filter(e -> distance(e, x, y, xScale) <= maxDistance)
+      .count();
+    assertEquals(expected, visited.size());
+    for (int i = 0; i < visited.size(); i++) {
+      assertEquals(distance(envelopes.get(visited.get(i)), x, y, xScale), distances.get(i), 1e-12);
+      assertTrue(i == 0 || distances.get(i - 1) <= distances.get(i));
+    }
+  }
+
+  @Test
+  void stopVisitingNearest() {
+    var subject = PackedRTree.of(List.of("A", "B"), randomEnvelopes(2));
+    var visited = new ArrayList<String>();
+
+    subject.visitNearest(X0, Y0, 1.0, 1.0, (item, distance) -> !visited.add(item));
+
+    assertEquals(1, visited.size());
+  }
+
+  @Test
+  void emptyTree() {
+    var subject = PackedRTree.<String>of(List.of(), List.of());
+
+    assertTrue(subject.query(new Envelope(-180, 180, -90, 90)).isEmpty());
+    subject.visitNearest(0, 0, 1, 1, (item, distance) -> {
+      throw new IllegalStateException();
+    });
+  }
+
+  private List<Envelope> randomEnvelopes(int n) {
+    var envelopes = new ArrayList<Envelope>();
+    for (int i = 0; i < n; i++) {
+      envelopes.add(randomEnvelope());
+    }
+    return envelopes;
+  }
+
+  private Envelope randomEnvelope() {
+    var a = new Coordinate(rand.nextDouble() * DX + X0, rand.nextDouble() * DY + Y0);
+    var b = new Coordinate(
+      a.x + rand.nextDouble() * DX / 20,
+      a.y + rand.nextDouble() * DY / 20
+    );
+    return new Envelope(a, b);
+  }
+
+  private static double distance(Envelope e, double x, double y, double xScale) {
+    double dx = Math.max(Math.max(e.getMinX() - x, x - e.getMaxX()), 0) * xScale;
+    double dy = Math.max(Math.max(e.getMinY() - y, y - e.getMaxY()), 0);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
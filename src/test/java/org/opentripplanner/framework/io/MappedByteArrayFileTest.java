@@ -0,0 +1,54 @@
+package org.opentripplanner.framework.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MappedByteArrayFileTest {
+
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("MappedByteArrayFileTest-", ".bin");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  void writeAndRead() throws IOException {
+    var arrays = List.of(new byte[] { 1, 2, 3 }, new byte[0], new byte[] { -1 }, new byte[300]);
+    MappedByteArrayFile.write(file, arrays);
+
+    var subject = MappedByteArrayFile.map(file);
+
+    assertEquals(4, subject.size());
+    for (int i = 0; i < arrays.size(); ++i) {
+      assertArrayEquals(arrays.get(i), subject.get(i));
+      var buffer = subject.buffer(i);
+      var bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      assertArrayEquals(arrays.get(i), bytes);
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> subject.get(4));
+    assertThrows(IndexOutOfBoundsException.class, () -> subject.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> subject.buffer(4));
+  }
+
+  @Test
+  void rejectOtherFiles() throws IOException {
+    Files.write(file, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 });
+    assertThrows(IllegalArgumentException.class, () -> MappedByteArrayFile.map(file));
+  }
+}
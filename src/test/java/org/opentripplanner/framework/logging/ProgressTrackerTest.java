@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import org.junit.jupiter.api.Test;
 
 public class ProgressTrackerTest {
@@ -65,6 +67,23 @@ public class ProgressTrackerTest {
     }
   }
 
+  @Test
+  public void testInputStreamCountsSkippedBytes() throws IOException {
+    var in = ProgressTracker.track(
+      "Pete",
+      1,
+      10,
+      new ByteArrayInputStream(new byte[10]),
+      m -> msg = m
+    );
+
+    assertEquals(4, in.skip(4));
+    assertEquals(6, in.readAllBytes().length);
+    in.close();
+
+    assertTrue(msg.startsWith("Pete progress tracking complete. 10 bytes done in"), msg);
+  }
+
   void sleep10ms() {
     try {
       Thread.sleep(10);
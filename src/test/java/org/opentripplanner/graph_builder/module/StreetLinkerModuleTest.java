@@ -5,11 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.opentripplanner._support.geometry.Coordinates.KONGSBERG_PLATFORM_1;
+import static org.opentripplanner.street.model.StreetTraversalPermission.ALL;
 import static org.opentripplanner.street.model.StreetTraversalPermission.CAR;
 import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN;
 import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.ext.flex.trip.UnscheduledTrip;
 import org.opentripplanner.framework.application.OTPFeature;
@@ -19,8 +22,10 @@ import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model._data.StreetModelForTest;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetTransitStopLink;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
 import org.opentripplanner.street.model.vertex.SplitterVertex;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.framework.Deduplicator;
 import org.opentripplanner.transit.model.site.RegularStop;
@@ -30,6 +35,9 @@ import org.opentripplanner.transit.service.TransitModel;
 class StreetLinkerModuleTest {
 
   private static final double DELTA = 0.0001;
+  private static final int GRID_SIZE = 10;
+  private static final double GRID_STEP = 0.001;
+  private static final int N_STOPS = 500;
 
   @Test
   void linkingIsIdempotent() {
@@ -92,6 +100,92 @@ class StreetLinkerModuleTest {
     });
   }
 
+  @Test
+  void linkManyStopsInParallel() {
+    OTPFeature.FlexRouting.testOn(() -> {
+      var serial = linkStopsInGrid(false);
+      var parallel = linkStopsInGrid(true);
+
+      assertEquals(serial, parallel);
+    });
+  }
+
+  /**
+   * Link many stops to a grid of streets, every fifth stop is used by a flex trip and is also
+   * linked to the car edges.
+   *
+   * @return a description of each edge in the graph, the labels of the split vertices are not
+   * included since they are different when linking in parallel.
+   */
+  private static List<String> linkStopsInGrid(boolean multiThreaded) {
+    var graph = new Graph();
+    var intersections = new IntersectionVertex[GRID_SIZE][GRID_SIZE];
+    for (int i = 0; i < GRID_SIZE; ++i) {
+      for (int j = 0; j < GRID_SIZE; ++j) {
+        intersections[i][j] =
+          StreetModelForTest.intersectionVertex(60.0 + i * GRID_STEP, 10.0 + j * GRID_STEP);
+        graph.addVertex(intersections[i][j]);
+      }
+    }
+    for (int i = 0; i < GRID_SIZE; ++i) {
+      for (int j = 1; j < GRID_SIZE; ++j) {
+        // East-west streets are open to all, north-south streets to pedestrians only
+        var a = intersections[i][j - 1];
+        var b = intersections[i][j];
+        StreetModelForTest.streetEdge(a, b, ALL);
+        StreetModelForTest.streetEdge(b, a, ALL);
+        var c = intersections[j - 1][i];
+        var d = intersections[j][i];
+        StreetModelForTest.streetEdge(c, d, PEDESTRIAN);
+        StreetModelForTest.streetEdge(d, c, PEDESTRIAN);
+      }
+    }
+
+    var testModel = TransitModelForTest.of();
+    var stopModelBuilder = testModel.stopModelBuilder();
+    var random = new Random(42);
+    var stops = new ArrayList<RegularStop>();
+    for (int i = 0; i < N_STOPS; ++i) {
+      var stop = testModel
+        .stop(
+          "S" + i,
+          60.0 + random.nextDouble() * GRID_STEP * (GRID_SIZE - 1),
+          10.0 + random.nextDouble() * GRID_STEP * (GRID_SIZE - 1)
+        )
+        .build();
+      stopModelBuilder.withRegularStop(stop);
+      stops.add(stop);
+      graph.addVertex(TransitStopVertex.of().withStop(stop).build());
+    }
+    var transitModel = new TransitModel(stopModelBuilder.build(), new Deduplicator());
+    for (int i = 0; i < N_STOPS; i += 5) {
+      var flexTrip = testModel.unscheduledTrip("flex" + i, stops.get(i));
+      transitModel.addFlexTrip(flexTrip.getId(), flexTrip);
+    }
+    graph.hasStreets = true;
+
+    new StreetLinkerModule(graph, transitModel, DataImportIssueStore.NOOP, false, multiThreaded)
+      .buildGraph();
+
+    return graph
+      .getEdges()
+      .stream()
+      .map(e ->
+        "%s %s -> %s %s".formatted(
+            e.getClass().getSimpleName(),
+            describe(e.getFromVertex()),
+            describe(e.getToVertex()),
+            e.getGeometry() == null ? "" : e.getGeometry().toText()
+          )
+      )
+      .sorted()
+      .toList();
+  }
+
+  private static String describe(Vertex v) {
+    return v instanceof TransitStopVertex ? v.getLabelString() : v.getCoordinate().toString();
+  }
+
   private static class TestModel {
 
     private final TransitStopVertex stopVertex;
@@ -98,6 +98,25 @@ class StreetNearbyStopFinderTest extends GraphRoutingTest {
     assertStopAtDistance(stopD, 300, sortedNearbyStops.get(3));
   }
 
+  @Test
+  void testReuseShortestPathTrees() {
+    var durationLimit = Duration.ofMinutes(10);
+    var maxStopCount = 0;
+    var finder = new StreetNearbyStopFinder(durationLimit, maxStopCount, null)
+      .withShortestPathTreesReused();
+
+    finder.findNearbyStops(stopA, new RouteRequest(), new StreetRequest(), false);
+    var sortedNearbyStops = sort(
+      finder.findNearbyStops(stopD, new RouteRequest(), new StreetRequest(), false)
+    );
+
+    assertThat(sortedNearbyStops).hasSize(4);
+    assertZeroDistanceStop(stopD, sortedNearbyStops.get(0));
+    assertStopAtDistance(stopC, 100, sortedNearbyStops.get(1));
+    assertStopAtDistance(stopB, 200, sortedNearbyStops.get(2));
+    assertStopAtDistance(stopA, 300, sortedNearbyStops.get(3));
+  }
+
   @Test
   @Disabled("Currently disabled because of a bug in stop counting")
   void testMaxStopCount() {
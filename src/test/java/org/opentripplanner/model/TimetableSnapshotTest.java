@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -16,16 +17,23 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.ConstantsForTests;
 import org.opentripplanner.TestOtpModel;
 import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.framework.Result;
 import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.ScheduledTripTimes;
 import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.StopModel;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.spi.UpdateError;
 import org.opentripplanner.updater.trip.BackwardsDelayPropagationType;
@@ -304,6 +312,86 @@ public class TimetableSnapshotTest {
     );
   }
 
+  @Test
+  void testCommitSharesUnchangedTimetables() {
+    LocalDate today = LocalDate.now(timeZone);
+    TripPattern pattern = patternIndex.get(new FeedScopedId(feedId, "1.1"));
+    TripTimes tripTimes = pattern.getScheduledTimetable().getTripTimes().getFirst();
+
+    TimetableSnapshot resolver = new TimetableSnapshot();
+    resolver.update(new RealTimeTripUpdate(pattern, tripTimes, today));
+    TimetableSnapshot first = resolver.commit();
+
+    resolver.update(new RealTimeTripUpdate(pattern, tripTimes, today.plusDays(1)));
+    TimetableSnapshot second = resolver.commit();
+
+    // The first snapshot is not affected by the later update
+    assertEquals(pattern.getScheduledTimetable(), first.resolve(pattern, today.plusDays(1)));
+    assertNotSame(pattern.getScheduledTimetable(), second.resolve(pattern, today.plusDays(1)));
+    // The unchanged timetable is shared, not copied
+    assertSame(first.resolve(pattern, today), second.resolve(pattern, today));
+  }
+
+  /**
+   * Measure the commit latency as a function of the number of timetables in the snapshot. The
+   * number of updates between each commit is constant, so the commit time should be independent
+   * of the snapshot size.
+   */
+  @Test
+  @Disabled("Run this test manually")
+  void commitLatencyBenchmark() {
+    final int updatesPerCommit = 100;
+    final int commits = 1_000;
+    LocalDate today = LocalDate.now(timeZone);
+    var model = new TransitModelForTest(StopModel.of());
+    var stopPattern = TransitModelForTest.stopPattern(
+      model.stop("A").build(),
+      model.stop("B").build()
+    );
+    var route = TransitModelForTest.route("R").build();
+
+    for (int size : new int[] { 1_000, 10_000, 100_000 }) {
+      List<RealTimeTripUpdate> updates = IntStream
+        .range(0, size)
+        .mapToObj(i -> {
+          var trip = TransitModelForTest.trip("T" + i).withRoute(route).build();
+          var tripTimes = ScheduledTripTimes
+            .of()
+            .withTrip(trip)
+            .withArrivalTimes("10:00 10:05")
+            .withDepartureTimes("10:00 10:05")
+            .build();
+          var pattern = TransitModelForTest
+            .tripPattern("P" + i, route)
+            .withStopPattern(stopPattern)
+            .withScheduledTimeTableBuilder(builder -> builder.addTripTimes(tripTimes))
+            .build();
+          return new RealTimeTripUpdate(pattern, tripTimes, today);
+        })
+        .toList();
+
+      TimetableSnapshot resolver = new TimetableSnapshot();
+      updates.forEach(resolver::update);
+      resolver.commit();
+
+      long commitNanos = 0;
+      for (int c = 0; c < commits; ++c) {
+        for (int u = 0; u < updatesPerCommit; ++u) {
+          resolver.update(updates.get((c * updatesPerCommit + u) % size));
+        }
+        long start = System.nanoTime();
+        resolver.commit();
+        commitNanos += System.nanoTime() - start;
+      }
+      System.err.printf(
+        Locale.ROOT,
+        "Snapshot size: %7d timetables, avg commit: %6.1f µs%n",
+        size,
+        commitNanos / (1000.0 * commits)
+      );
+    }
+  }
+
   private static TimetableSnapshot createCommittedSnapshot() {
     TimetableSnapshot timetableSnapshot = new TimetableSnapshot();
     return timetableSnapshot.commit(null, true);
@@ -0,0 +1,69 @@
+package org.opentripplanner.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.time.TimeUtils;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.timetable.ScheduledTripTimes;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+class TimetableStopTimeIndexTest {
+
+  private static final TransitModelForTest TEST_MODEL = TransitModelForTest.of();
+
+  // The trips are sorted on the departure at the first stop in the timetable. Trip B overtakes
+  // trip A before the second stop, and has a long dwell time there.
+  private final Timetable timetable = Timetable
+    .of()
+    .withTripPattern(
+      TEST_MODEL.pattern(TransitMode.BUS).withStopPattern(TEST_MODEL.stopPattern(2)).build()
+    )
+    .addTripTimes(tripTimes("A", "10:00 10:30", "10:00 10:30"))
+    .addTripTimes(tripTimes("B", "10:05 10:20", "10:05 10:40"))
+    .addTripTimes(tripTimes("C", "10:10 10:50", "10:10 10:50"))
+    .build();
+
+  private final TimetableStopTimeIndex subject = timetable.getStopTimeIndex();
+
+  @Test
+  void tripIndexesOrderedByTimeAtStop() {
+    assertArrayEquals(new int[] { 0, 1, 2 }, subject.tripIndexesByDeparture(0));
+    assertArrayEquals(new int[] { 0, 1, 2 }, subject.tripIndexesByArrival(0));
+    assertArrayEquals(new int[] { 0, 1, 2 }, subject.tripIndexesByDeparture(1));
+    assertArrayEquals(new int[] { 1, 0, 2 }, subject.tripIndexesByArrival(1));
+  }
+
+  @Test
+  void firstTripAtOrAfter() {
+    assertEquals(0, subject.firstDepartureAtOrAfter(1, time("09:00")));
+    assertEquals(1, subject.firstDepartureAtOrAfter(1, time("10:31")));
+    assertEquals(1, subject.firstDepartureAtOrAfter(1, time("10:40")));
+    assertEquals(3, subject.firstDepartureAtOrAfter(1, time("10:51")));
+
+    assertEquals(0, subject.firstArrivalAtOrAfter(1, time("10:20")));
+    assertEquals(1, subject.firstArrivalAtOrAfter(1, time("10:21")));
+  }
+
+  @Test
+  void indexIsCreatedOncePerTimetable() {
+    assertSame(subject, timetable.getStopTimeIndex());
+    assertSame(subject.tripIndexesByDeparture(1), subject.tripIndexesByDeparture(1));
+  }
+
+  private static TripTimes tripTimes(String tripId, String arrivals, String departures) {
+    return ScheduledTripTimes
+      .of()
+      .withTrip(TransitModelForTest.trip(tripId).build())
+      .withArrivalTimes(arrivals)
+      .withDepartureTimes(departures)
+      .build();
+  }
+
+  private static int time(String time) {
+    return TimeUtils.time(time);
+  }
+}
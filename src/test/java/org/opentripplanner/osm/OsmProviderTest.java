@@ -0,0 +1,110 @@
+package org.opentripplanner.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
+import org.opentripplanner.graph_builder.module.osm.OsmDatabase;
+import org.opentripplanner.graph_builder.module.osm.OsmDatabaseTest;
+import org.opentripplanner.osm.model.OsmNode;
+import org.opentripplanner.osm.model.OsmWay;
+import org.opentripplanner.osm.tagmapping.OsmTagMapperSource;
+import org.opentripplanner.test.support.ResourceLoader;
+
+class OsmProviderTest {
+
+  private static final ResourceLoader RESOURCE_LOADER = ResourceLoader.of(OsmDatabaseTest.class);
+
+  /**
+   * The multi-threaded parsing, which skips the blocks not needed in a phase, must give the same
+   * database as decoding every block of the file serially in each phase.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = { "ehningen-minimal.osm.pbf", "map.osm.pbf", "NYC_small.osm.pbf" })
+  void multiThreadedParsingGivesSameResultAsSerialParsing(String fileName) throws IOException {
+    var file = RESOURCE_LOADER.file(fileName);
+    var provider = new OsmProvider(
+      new FileDataSource(file, FileType.OSM),
+      OsmTagMapperSource.DEFAULT,
+      null,
+      false,
+      true,
+      DataImportIssueStore.NOOP
+    );
+
+    var expected = readSerialWithoutSkippingBlocks(file, provider);
+    var actual = new OsmDatabase(DataImportIssueStore.NOOP);
+    provider.readOsm(actual);
+
+    assertTrue(expected.nodeCount() > 0);
+    assertEquals(expected.nodeCount(), actual.nodeCount());
+    assertEquals(expected.wayCount(), actual.wayCount());
+    assertEquals(wayIds(expected), wayIds(actual));
+    for (long wayId : wayIds(expected)) {
+      assertEquals(toString(expected, wayId), toString(actual, wayId));
+    }
+    assertEquals(
+      expected.getTurnRestrictionWayIds().stream().sorted().toList(),
+      actual.getTurnRestrictionWayIds().stream().sorted().toList()
+    );
+    assertEquals(expected.getWalkableAreas().size(), actual.getWalkableAreas().size());
+    assertEquals(expected.getParkAndRideAreas().size(), actual.getParkAndRideAreas().size());
+    assertEquals(expected.getBikeParkingNodes().size(), actual.getBikeParkingNodes().size());
+  }
+
+  /**
+   * Parse the file the way it was done before the blocks were read by {@link PbfBlockReader}.
+   */
+  private static OsmDatabase readSerialWithoutSkippingBlocks(File file, OsmProvider provider)
+    throws IOException {
+    var osmdb = new OsmDatabase(DataImportIssueStore.NOOP);
+    var parser = new OsmParser(osmdb, provider);
+
+    readPhase(file, parser, OsmParserPhase.Relations);
+    osmdb.doneFirstPhaseRelations();
+    readPhase(file, parser, OsmParserPhase.Ways);
+    osmdb.doneSecondPhaseWays();
+    readPhase(file, parser, OsmParserPhase.Nodes);
+    osmdb.doneThirdPhaseNodes();
+    return osmdb;
+  }
+
+  private static void readPhase(File file, OsmParser parser, OsmParserPhase phase)
+    throws IOException {
+    parser.setPhase(phase);
+    try (var in = new FileInputStream(file)) {
+      new BlockInputStream(in, parser).process();
+    }
+  }
+
+  private static List<Long> wayIds(OsmDatabase osmdb) {
+    return osmdb.getWays().stream().map(OsmWay::getId).sorted().toList();
+  }
+
+  /**
+   * The tags and the nodes of the way, with the coordinates of each node.
+   */
+  private static String toString(OsmDatabase osmdb, long wayId) {
+    OsmWay way = osmdb.getWay(wayId);
+    var buf = new StringBuilder().append(wayId).append(' ').append(new TreeMap<>(way.getTags()));
+    for (long nodeId : way.getNodeRefs().toArray()) {
+      OsmNode node = osmdb.getNode(nodeId);
+      buf.append(' ').append(nodeId);
+      if (node != null) {
+        buf.append(' ').append(node.getCoordinate());
+        buf.append(' ').append(new TreeMap<>(node.getTags()));
+      }
+    }
+    return buf.toString();
+  }
+}
@@ -25,6 +25,8 @@ public interface RaptorTestConstants {
   int D10m = durationInSeconds("10m");
   int D11m = durationInSeconds("11m");
   int D20m = durationInSeconds("20m");
+  int D30m = durationInSeconds("30m");
+  int D1h = durationInSeconds("1h");
   int D24h = durationInSeconds("24h");
 
   /**
@@ -0,0 +1,119 @@
+package org.opentripplanner.raptor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.raptor._data.transit.TestAccessEgress.walk;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTransfer.transfer;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+class RangeRaptorParallelSearchTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+  private final RaptorConfig<TestTripSchedule> parallelConfig = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 4;
+      }
+
+      @Override
+      public int parallelSearchWindowThresholdSeconds() {
+        return D30m;
+      }
+    }
+  );
+
+  /**
+   * A direct route R1 from A to C, and a faster connection with a transfer using R2 from A to B
+   * and R3 from B to C. The routes have different headways, so the optimal paths differ between
+   * the departure minutes.
+   */
+  @BeforeEach
+  void setup() {
+    data
+      .withRoute(route(pattern("R1", STOP_A, STOP_C)).withTimetable(trips(3, 10, 30)))
+      .withRoute(route(pattern("R2", STOP_A, STOP_B)).withTimetable(trips(7, 15, 5)))
+      .withRoute(route(pattern("R3", STOP_B, STOP_C)).withTimetable(trips(15, 15, 8)))
+      .withTransfer(STOP_B, transfer(STOP_C, D5m));
+
+    requestBuilder.profile(RaptorProfile.MULTI_CRITERIA);
+    requestBuilder.optimizations().add(Optimization.PARALLEL);
+    requestBuilder
+      .searchParams()
+      .earliestDepartureTime(T00_00)
+      .searchWindowInSeconds(D1h)
+      .addAccessPaths(walk(STOP_A, D1m))
+      .addEgressPaths(walk(STOP_C, D1m));
+  }
+
+  @AfterEach
+  void tearDown() {
+    parallelConfig.shutdown();
+  }
+
+  @Test
+  void isApplicable() {
+    var request = requestBuilder.build();
+    assertTrue(RangeRaptorParallelSearch.isApplicable(parallelConfig, request));
+    assertFalse(
+      RangeRaptorParallelSearch.isApplicable(RaptorConfig.defaultConfigForTest(), request)
+    );
+
+    requestBuilder.searchParams().searchWindowInSeconds(D20m);
+    assertFalse(RangeRaptorParallelSearch.isApplicable(parallelConfig, requestBuilder.build()));
+
+    requestBuilder.searchParams().searchWindowInSeconds(D1h).timetable(true);
+    assertFalse(RangeRaptorParallelSearch.isApplicable(parallelConfig, requestBuilder.build()));
+
+    requestBuilder.searchParams().timetable(false);
+    requestBuilder.profile(RaptorProfile.STANDARD);
+    assertFalse(RangeRaptorParallelSearch.isApplicable(parallelConfig, requestBuilder.build()));
+  }
+
+  @Test
+  void sameResultAsSequentialSearch() {
+    var request = requestBuilder.build();
+
+    RaptorConfig<TestTripSchedule> sequentialConfig = RaptorConfig.defaultConfigForTest();
+    var sequentialService = new RaptorService<>(sequentialConfig);
+    var parallelService = new RaptorService<>(parallelConfig);
+
+    var expected = sequentialService.route(request, data);
+    var result = parallelService.route(request, data);
+
+    assertTrue(expected.paths().size() > 1);
+    assertEquals(PathUtils.pathsToString(expected), PathUtils.pathsToString(result));
+  }
+
+  private static TestTripSchedule.Builder[] trips(int firstDeparture, int headway, int duration) {
+    List<TestTripSchedule.Builder> trips = new ArrayList<>();
+    for (int dep = firstDeparture; dep < 120; dep += headway) {
+      trips.add(schedule(hm(dep) + " " + hm(dep + duration)));
+    }
+    return trips.toArray(TestTripSchedule.Builder[]::new);
+  }
+
+  private static String hm(int minutes) {
+    return String.format("%d:%02d", minutes / 60, minutes % 60);
+  }
+}
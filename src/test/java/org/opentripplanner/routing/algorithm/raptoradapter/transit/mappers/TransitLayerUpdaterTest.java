@@ -0,0 +1,253 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.RealTimeTripUpdate;
+import org.opentripplanner.model.Timetable;
+import org.opentripplanner.model.TimetableSnapshot;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.network.TripPatternBuilder;
+import org.opentripplanner.transit.model.timetable.RealTimeTripTimes;
+import org.opentripplanner.transit.model.timetable.ScheduledTripTimes;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitModel;
+
+class TransitLayerUpdaterTest {
+
+  private static final TransitModelForTest TEST_MODEL = TransitModelForTest.of();
+
+  private static final int SERVICE_CODE = 1;
+  private static final LocalDate DATE_1 = LocalDate.of(2024, 3, 4);
+  private static final LocalDate DATE_2 = DATE_1.plusDays(1);
+  private static final List<LocalDate> SERVICE_DATES = List.of(DATE_1, DATE_2);
+  private static final Map<LocalDate, TIntSet> SERVICE_CODES_RUNNING_FOR_DATE = Map.of(
+    DATE_1,
+    new TIntHashSet(new int[] { SERVICE_CODE }),
+    DATE_2,
+    new TIntHashSet(new int[] { SERVICE_CODE })
+  );
+
+  private static final int NUMBER_OF_SCHEDULED_TRIPS = 40;
+  private static final int NUMBER_OF_ADDED_TRIPS = 10;
+
+  private final List<ScheduledTripTimes> scheduledTripTimes = new ArrayList<>();
+  private final List<TripPattern> scheduledPatterns = new ArrayList<>();
+  private final List<TripPattern> modifiedPatterns = new ArrayList<>();
+  private final List<ScheduledTripTimes> addedTripTimes = new ArrayList<>();
+  private final List<TripPattern> addedPatterns = new ArrayList<>();
+
+  TransitLayerUpdaterTest() {
+    for (int i = 0; i < NUMBER_OF_SCHEDULED_TRIPS; i++) {
+      // Some of the trips run past midnight, into the next running date
+      int departureTime = i % 5 == 0 ? 23 * 3600 + 50 * 60 : 8 * 3600 + i * 60;
+      var tripTimes = tripTimes("scheduled-" + i, departureTime);
+      scheduledTripTimes.add(tripTimes);
+      scheduledPatterns.add(
+        pattern("scheduled-" + i)
+          .withScheduledTimeTableBuilder(builder -> builder.addTripTimes(tripTimes))
+          .build()
+      );
+      modifiedPatterns.add(pattern("modified-" + i).withCreatedByRealtimeUpdater(true).build());
+    }
+    for (int i = 0; i < NUMBER_OF_ADDED_TRIPS; i++) {
+      var tripTimes = tripTimes("added-" + i, 12 * 3600 + i * 60);
+      addedTripTimes.add(tripTimes);
+      addedPatterns.add(
+        pattern("added-" + i)
+          .withCreatedByRealtimeUpdater(true)
+          .withScheduledTimeTableBuilder(builder -> builder.addTripTimes(tripTimes))
+          .build()
+      );
+    }
+  }
+
+  /**
+   * Large batches of timetables are mapped in parallel, this checks that the realtime transit
+   * layer is the same as when they are mapped sequentially. The batches contain trips moved to and
+   * back from real-time patterns, deleted trips and trips added by real-time updates.
+   */
+  @Test
+  void parallelMappingGivesSameResultAsSequentialMapping() {
+    var commits = new ArrayList<Commit>();
+    var recorder = new TransitLayerUpdater(null) {
+      @Override
+      public void update(
+        Set<Timetable> updatedTimetables,
+        Map<TripPattern, SortedSet<Timetable>> timetables
+      ) {
+        commits.add(new Commit(new LinkedHashSet<>(updatedTimetables), new HashMap<>(timetables)));
+      }
+    };
+
+    var snapshot = new TimetableSnapshot();
+    for (LocalDate date : SERVICE_DATES) {
+      for (int i = 0; i < NUMBER_OF_SCHEDULED_TRIPS; i++) {
+        var pattern = i % 4 == 0 ? modifiedPatterns.get(i) : scheduledPatterns.get(i);
+        snapshot.update(new RealTimeTripUpdate(pattern, realTime(scheduledTripTimes.get(i)), date));
+      }
+      for (int i = 0; i < NUMBER_OF_ADDED_TRIPS; i++) {
+        snapshot.update(addedTripUpdate(i, realTime(addedTripTimes.get(i)), date));
+      }
+    }
+    snapshot.commit(recorder, false);
+
+    for (LocalDate date : SERVICE_DATES) {
+      for (int i = 0; i < NUMBER_OF_SCHEDULED_TRIPS; i += 4) {
+        // Removes the trip from the timetable of the modified pattern
+        var tripId = scheduledTripTimes.get(i).getTrip().getId();
+        snapshot.revertTripToScheduledTripPattern(tripId, date);
+        var tripTimes = realTime(scheduledTripTimes.get(i));
+        snapshot.update(new RealTimeTripUpdate(scheduledPatterns.get(i), tripTimes, date));
+      }
+      for (int i = 1; i < NUMBER_OF_SCHEDULED_TRIPS; i += 4) {
+        var tripTimes = realTime(scheduledTripTimes.get(i));
+        tripTimes.deleteTrip();
+        snapshot.update(new RealTimeTripUpdate(scheduledPatterns.get(i), tripTimes, date));
+      }
+      for (int i = 0; i < NUMBER_OF_ADDED_TRIPS; i += 2) {
+        var tripTimes = realTime(addedTripTimes.get(i));
+        tripTimes.deleteTrip();
+        snapshot.update(addedTripUpdate(i, tripTimes, date));
+      }
+    }
+    snapshot.commit(recorder, false);
+
+    assertEquals(2, commits.size());
+    assertTrue(commits.get(0).updatedTimetables().size() >= 64);
+    assertTrue(commits.get(1).updatedTimetables().size() >= 64);
+
+    var sequential = new UpdaterForTest(Integer.MAX_VALUE);
+    var parallel = new UpdaterForTest(1);
+    for (Commit commit : commits) {
+      sequential.update(commit);
+      parallel.update(commit);
+      for (LocalDate date : DATE_1.minusDays(1).datesUntil(DATE_2.plusDays(2)).toList()) {
+        assertEquals(
+          sequential.tripPatternsRunningOnDate(date),
+          parallel.tripPatternsRunningOnDate(date)
+        );
+      }
+      assertFalse(parallel.tripPatternsRunningOnDate(DATE_1).isEmpty());
+    }
+  }
+
+  private RealTimeTripUpdate addedTripUpdate(
+    int index,
+    RealTimeTripTimes tripTimes,
+    LocalDate date
+  ) {
+    return new RealTimeTripUpdate(addedPatterns.get(index), tripTimes, date, null, true, false);
+  }
+
+  private static RealTimeTripTimes realTime(ScheduledTripTimes tripTimes) {
+    return RealTimeTripTimes.of(tripTimes);
+  }
+
+  private static ScheduledTripTimes tripTimes(String tripId, int departureTime) {
+    return ScheduledTripTimes
+      .of()
+      .withTrip(TransitModelForTest.trip(tripId).build())
+      .withDepartureTimes(new int[] { departureTime, departureTime + 30 * 60 })
+      .withServiceCode(SERVICE_CODE)
+      .build();
+  }
+
+  private static TripPatternBuilder pattern(String id) {
+    return TransitModelForTest
+      .tripPattern(id, TransitModelForTest.route(id).build())
+      .withStopPattern(TEST_MODEL.stopPattern(2));
+  }
+
+  private record Commit(
+    Set<Timetable> updatedTimetables,
+    Map<TripPattern, SortedSet<Timetable>> timetables
+  ) {}
+
+  /**
+   * A transit layer updater with its own transit model and realtime transit layer, which starts
+   * with the scheduled trips on the service dates.
+   */
+  private class UpdaterForTest {
+
+    private final TransitModel transitModel = new TransitModel();
+    private final TransitLayerUpdater updater;
+
+    UpdaterForTest(int parallelMappingThreshold) {
+      scheduledPatterns.forEach(pattern -> transitModel.addTripPattern(pattern.getId(), pattern));
+      transitModel.index();
+
+      var mapper = new TripPatternForDateMapper(SERVICE_CODES_RUNNING_FOR_DATE);
+      var tripPatternsRunningOnDate = new HashMap<LocalDate, List<TripPatternForDate>>();
+      for (TripPattern pattern : scheduledPatterns) {
+        for (LocalDate date : SERVICE_DATES) {
+          var tripPatternForDate = mapper.map(pattern.getScheduledTimetable(), date);
+          for (LocalDate runningDate : tripPatternForDate.getRunningPeriodDates()) {
+            tripPatternsRunningOnDate
+              .computeIfAbsent(runningDate, d -> new ArrayList<>())
+              .add(tripPatternForDate);
+          }
+        }
+      }
+      transitModel.setRealtimeTransitLayer(
+        new TransitLayer(
+          tripPatternsRunningOnDate,
+          List.of(),
+          transitModel.getTransferService(),
+          transitModel.getStopModel(),
+          null,
+          null,
+          null,
+          null
+        )
+      );
+
+      var transitService = new DefaultTransitService(transitModel) {
+        @Override
+        public Map<LocalDate, TIntSet> getServiceCodesRunningForDate() {
+          return SERVICE_CODES_RUNNING_FOR_DATE;
+        }
+      };
+      this.updater = new TransitLayerUpdater(transitService, parallelMappingThreshold);
+    }
+
+    void update(Commit commit) {
+      updater.update(commit.updatedTimetables(), commit.timetables());
+    }
+
+    /**
+     * The TripPatternsForDate running on the given date, described by pattern, service date and
+     * trips, in sorted order.
+     */
+    List<String> tripPatternsRunningOnDate(LocalDate date) {
+      return transitModel
+        .getRealtimeTransitLayer()
+        .getTripPatternsForRunningDate(date)
+        .stream()
+        .map(it ->
+          it.getTripPattern().getPattern().getId() +
+          " " +
+          it.getServiceDate() +
+          " " +
+          it.tripTimes().stream().map(t -> t.getTrip().getId()).toList()
+        )
+        .sorted()
+        .toList();
+    }
+  }
+}
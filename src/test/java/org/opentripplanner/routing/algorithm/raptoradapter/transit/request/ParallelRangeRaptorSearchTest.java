@@ -0,0 +1,150 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.raptor._data.transit.TestAccessEgress.walk;
+
+import java.time.LocalDate;
+import java.util.Random;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.framework.time.ServiceDateUtils;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerMapper;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.transit.model.network.grouppriority.TransitGroupPriorityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the parallel range-raptor search with the sequential search on the Portland transit
+ * data. The paths must be the same, the search times are logged. A speedup is only required if
+ * the machine has enough processors for the sub-windows to run at the same time.
+ */
+class ParallelRangeRaptorSearchTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelRangeRaptorSearchTest.class);
+
+  private static final LocalDate DATE = LocalDate.of(2009, 10, 21);
+  private static final int THREAD_POOL_SIZE = 4;
+  private static final int NUMBER_OF_SEARCHES = 20;
+  private static final int WARM_UP_SEARCHES = 5;
+  private static final int EDT = 7 * 3600;
+  private static final int SEARCH_WINDOW = 2 * 3600;
+  private static final int ACCESS_EGRESS = 120;
+
+  private static RaptorRoutingRequestTransitData transitData;
+  private static RaptorService<TripSchedule> sequentialService;
+  private static RaptorService<TripSchedule> parallelService;
+  private static RaptorConfig<TripSchedule> parallelConfig;
+
+  @BeforeAll
+  static void setup() {
+    var transitModel = ConstantsForTests.getInstance().getCachedPortlandGraph().transitModel();
+    var transitLayer = TransitLayerMapper.map(TransitTuningParameters.FOR_TEST, transitModel);
+    var request = new RouteRequest();
+    transitData =
+      new RaptorRoutingRequestTransitData(
+        transitLayer,
+        TransitGroupPriorityService.empty(),
+        ServiceDateUtils.asStartOfService(DATE, transitModel.getTimeZone()),
+        0,
+        0,
+        new RouteRequestTransitDataProviderFilter(request),
+        request
+      );
+    parallelConfig =
+      new RaptorConfig<>(
+        new RaptorTuningParameters() {
+          @Override
+          public int searchThreadPoolSize() {
+            return THREAD_POOL_SIZE;
+          }
+
+          @Override
+          public int parallelSearchWindowThresholdSeconds() {
+            return SEARCH_WINDOW / THREAD_POOL_SIZE;
+          }
+        }
+      );
+    sequentialService = new RaptorService<>(RaptorConfig.defaultConfigForTest());
+    parallelService = new RaptorService<>(parallelConfig);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    parallelConfig.shutdown();
+  }
+
+  @Test
+  void sameResultAsSequentialSearch() {
+    var random = new Random(42);
+    int n = transitData.numberOfStops();
+    var requests = random
+      .ints(NUMBER_OF_SEARCHES + WARM_UP_SEARCHES, 0, n * n)
+      .mapToObj(it -> request(it / n, it % n))
+      .toList();
+
+    // Warm up the JIT before timing the searches
+    for (var request : requests.subList(0, WARM_UP_SEARCHES)) {
+      sequentialService.route(request, transitData);
+      parallelService.route(request, transitData);
+    }
+
+    long sequentialTime = 0;
+    long parallelTime = 0;
+    int numberOfPaths = 0;
+    for (var request : requests.subList(WARM_UP_SEARCHES, requests.size())) {
+      long start = System.nanoTime();
+      var expected = sequentialService.route(request, transitData);
+      sequentialTime += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      var result = parallelService.route(request, transitData);
+      parallelTime += System.nanoTime() - start;
+
+      assertEquals(PathUtils.pathsToString(expected), PathUtils.pathsToString(result));
+      numberOfPaths += expected.paths().size();
+    }
+
+    LOG.info(
+      "{} searches with {} paths, sequential: {} ms, parallel with {} threads: {} ms",
+      NUMBER_OF_SEARCHES,
+      numberOfPaths,
+      sequentialTime / 1_000_000,
+      THREAD_POOL_SIZE,
+      parallelTime / 1_000_000
+    );
+    assertTrue(numberOfPaths > 0);
+    if (Runtime.getRuntime().availableProcessors() >= THREAD_POOL_SIZE) {
+      assertTrue(
+        parallelTime < sequentialTime,
+        "parallel: " + parallelTime + " ns, sequential: " + sequentialTime + " ns"
+      );
+    }
+  }
+
+  private static RaptorRequest<TripSchedule> request(int fromStop, int toStop) {
+    var builder = new RaptorRequestBuilder<TripSchedule>();
+    builder.profile(RaptorProfile.MULTI_CRITERIA);
+    builder.optimizations().add(Optimization.PARALLEL);
+    builder
+      .searchParams()
+      .earliestDepartureTime(EDT)
+      .searchWindowInSeconds(SEARCH_WINDOW)
+      .addAccessPaths(walk(fromStop, ACCESS_EGRESS))
+      .addEgressPaths(walk(toStop, ACCESS_EGRESS));
+    return builder.build();
+  }
+}
@@ -0,0 +1,180 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.framework.time.ServiceDateUtils;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.network.RoutingTripPattern;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.network.grouppriority.TransitGroupPriorityService;
+import org.opentripplanner.transit.model.timetable.ScheduledTripTimes;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+class TripPatternForDatesCacheTest {
+
+  private static final TransitModelForTest TEST_MODEL = TransitModelForTest.of();
+  private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+  private static final ZonedDateTime TIME_ZERO = ServiceDateUtils.asStartOfService(
+    DATE,
+    ZoneIds.OSLO
+  );
+
+  private final RoutingTripPattern pattern = createTripPattern();
+  private final List<TripPatternForDate> tripPatternForDates = List.of(
+    new TripPatternForDate(pattern, List.of(createTripTimes()), List.of(), DATE),
+    new TripPatternForDate(pattern, List.of(createTripTimes()), List.of(), DATE.plusDays(1))
+  );
+  private final TripPatternForDatesCache subject = new TripPatternForDatesCache();
+
+  @Test
+  void reuseMergedPatternForSameTripPatternForDates() {
+    var window = subject.window(TIME_ZERO, 0, 1);
+
+    var first = merge(window, Set.of());
+    assertEquals(1, subject.numberOfCachedPatterns());
+
+    var second = merge(window, Set.of());
+    assertNotSame(first, second);
+    assertEquals(2, second.numberOfTripSchedules());
+
+    // The cached instance is the first merged pattern, the second is a view on top of it
+    var sorted = tripPatternForDates.toArray(new TripPatternForDate[0]);
+    assertSame(first, window.get(pattern, sorted));
+    assertEquals(1, subject.numberOfCachedPatterns());
+  }
+
+  @Test
+  void doNotReuseMergedPatternForOtherTripPatternForDates() {
+    var window = subject.window(TIME_ZERO, 0, 1);
+    merge(window, Set.of());
+
+    assertNull(window.get(pattern, new TripPatternForDate[] { tripPatternForDates.get(0) }));
+  }
+
+  @Test
+  void doNotCachePatternsWithFilteredTrips() {
+    merge(subject.window(TIME_ZERO, 0, 1), Set.of(pattern));
+
+    assertEquals(0, subject.numberOfCachedPatterns());
+  }
+
+  @Test
+  void searchWindowsAreCachedSeparately() {
+    merge(subject.window(TIME_ZERO, 0, 1), Set.of());
+    merge(subject.window(TIME_ZERO, 1, 1), Set.of());
+
+    assertEquals(2, subject.numberOfCachedPatterns());
+  }
+
+  @Test
+  void dropLeastRecentlyUsedWindowWhenAboveLimit() {
+    // Each merged pattern has 2 stops and 2 trips, 4 stop times
+    var cache = new TripPatternForDatesCache(6);
+    var first = cache.window(TIME_ZERO, 0, 1);
+    merge(first, Set.of());
+    assertEquals(4, cache.numberOfCachedStopTimes());
+
+    merge(cache.window(TIME_ZERO, 1, 1), Set.of());
+
+    assertEquals(1, cache.numberOfCachedPatterns());
+    assertEquals(4, cache.numberOfCachedStopTimes());
+    assertNotSame(first, cache.window(TIME_ZERO, 0, 1));
+  }
+
+  @Test
+  void removePatternsFromCurrentWindowWhenAboveLimit() {
+    var cache = new TripPatternForDatesCache(3);
+
+    merge(cache.window(TIME_ZERO, 0, 1), Set.of());
+
+    assertEquals(0, cache.numberOfCachedPatterns());
+    assertEquals(0, cache.numberOfCachedStopTimes());
+  }
+
+  @Test
+  void copyWithoutUpdatedPatterns() {
+    merge(subject.window(TIME_ZERO, 0, 1), Set.of());
+
+    var copy = subject.copyWithout(List.of(pattern));
+
+    assertEquals(0, copy.numberOfCachedPatterns());
+    assertEquals(0, copy.numberOfCachedStopTimes());
+    assertEquals(1, subject.numberOfCachedPatterns());
+  }
+
+  private TripPatternForDates merge(
+    TripPatternForDatesCache.Window window,
+    Set<RoutingTripPattern> patternsWithFilteredTrips
+  ) {
+    var result = RaptorRoutingRequestTransitDataCreator.merge(
+      TIME_ZERO,
+      tripPatternForDates,
+      new NoopFilter(),
+      TransitGroupPriorityService.empty(),
+      window,
+      patternsWithFilteredTrips
+    );
+    assertEquals(1, result.size());
+    return result.get(0);
+  }
+
+  private static TripTimes createTripTimes() {
+    return ScheduledTripTimes
+      .of()
+      .withTrip(TransitModelForTest.trip("Test").build())
+      .withDepartureTimes("08:00 08:10")
+      .build();
+  }
+
+  private static RoutingTripPattern createTripPattern() {
+    var stopTime = new StopTime();
+    stopTime.setStop(TEST_MODEL.stop("Stop:1", 0.0, 0.0).build());
+    return TripPattern
+      .of(TransitModelForTest.id("P1"))
+      .withRoute(TransitModelForTest.route("1").withMode(TransitMode.BUS).build())
+      .withStopPattern(new StopPattern(List.of(stopTime, stopTime)))
+      .build()
+      .getRoutingTripPattern();
+  }
+
+  private static class NoopFilter implements TransitDataProviderFilter {
+
+    @Override
+    public boolean tripPatternPredicate(TripPatternForDate tripPatternForDate) {
+      return true;
+    }
+
+    @Override
+    public boolean tripTimesPredicate(TripTimes tripTimes, boolean withFilters) {
+      return true;
+    }
+
+    @Override
+    public boolean hasSubModeFilters() {
+      return false;
+    }
+
+    @Override
+    public BitSet filterAvailableStops(
+      RoutingTripPattern tripPattern,
+      BitSet boardingPossible,
+      BoardAlight boardAlight
+    ) {
+      return boardingPossible;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package org.opentripplanner.routing.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.jets3t.service.io.TempFile;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.TestOtpModel;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.ext.emissions.EmissionsDataModel;
+import org.opentripplanner.framework.application.OTPFeature;
+import org.opentripplanner.graph_builder.issue.api.DataImportIssueSummary;
+import org.opentripplanner.service.worldenvelope.internal.DefaultWorldEnvelopeRepository;
+import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.street.model.StreetLimitationParameters;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load the Portland graph with the street geometry in the graph file and with the geometry in a
+ * memory-mapped file. Both must give the same geometries. The load time, the heap retained by the
+ * loaded graph and the file sizes are logged, to compare the two.
+ */
+class MappedStreetGeometryLoadTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedStreetGeometryLoadTest.class);
+
+  @Test
+  void sameGeometryWhenLoadedFromMappedFile() throws Exception {
+    TestOtpModel model = ConstantsForTests.buildNewPortlandGraph(true);
+    File graphFile = TempFile.createTempFile("graph", "pdx");
+    File mappedGraphFile = TempFile.createTempFile("graph-mapped", "pdx");
+    File geometryFile = new File(mappedGraphFile.getPath() + ".geom");
+    try {
+      // Saving with the feature on moves the geometry of the original graph to the mapped file,
+      // so the graph with the geometry in the graph file must be saved first.
+      OTPFeature.MappedStreetGeometry.testOff(() -> save(model, graphFile));
+      OTPFeature.MappedStreetGeometry.testOn(() -> save(model, mappedGraphFile));
+      assertTrue(geometryFile.exists());
+
+      var inGraphFile = load("in the graph file", graphFile, graphFile.length());
+      var mapped = load(
+        "memory-mapped",
+        mappedGraphFile,
+        mappedGraphFile.length() + geometryFile.length()
+      );
+
+      assertEquals(geometries(inGraphFile.graph), geometries(mapped.graph));
+    } finally {
+      graphFile.delete();
+      mappedGraphFile.delete();
+      geometryFile.delete();
+    }
+  }
+
+  private static void save(TestOtpModel model, File file) {
+    var streetLimitationParameters = new StreetLimitationParameters();
+    streetLimitationParameters.initMaxCarSpeed(40);
+    new SerializedGraphObject(
+      model.graph(),
+      model.transitModel(),
+      new DefaultWorldEnvelopeRepository(),
+      BuildConfig.DEFAULT,
+      RouterConfig.DEFAULT,
+      DataImportIssueSummary.empty(),
+      new EmissionsDataModel(),
+      null,
+      streetLimitationParameters
+    )
+      .save(new FileDataSource(file, FileType.GRAPH));
+  }
+
+  private static SerializedGraphObject load(String description, File file, long fileSize) {
+    long heapBefore = usedHeap();
+    long start = System.nanoTime();
+    var graph = SerializedGraphObject.load(file);
+    long loadTime = System.nanoTime() - start;
+    long heapAfter = usedHeap();
+    LOG.info(
+      "Street geometry {}: loaded in {} ms, retained heap {} KB, files {} KB",
+      description,
+      loadTime / 1_000_000,
+      (heapAfter - heapBefore) / 1024,
+      fileSize / 1024
+    );
+    return graph;
+  }
+
+  private static long usedHeap() {
+    var memory = ManagementFactory.getMemoryMXBean();
+    memory.gc();
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static List<String> geometries(Graph graph) {
+    return graph
+      .getStreetEdges()
+      .stream()
+      .map(StreetEdge::getGeometry)
+      .map(Object::toString)
+      .sorted()
+      .toList();
+  }
+}
@@ -0,0 +1,106 @@
+package org.opentripplanner.routing.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.alertpatch.EntitySelector;
+import org.opentripplanner.routing.alertpatch.StopCondition;
+import org.opentripplanner.routing.alertpatch.TransitAlert;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.service.TransitModel;
+
+class TransitAlertServiceImplTest {
+
+  private static final LocalDate SERVICE_DATE = LocalDate.of(2024, 1, 15);
+  private static final FeedScopedId ROUTE_ID = id("route");
+  private static final FeedScopedId TRIP_ID = id("trip");
+
+  private final TransitModelForTest testModel = TransitModelForTest.of();
+  private final TransitAlertServiceImpl subject;
+  private final FeedScopedId stationId;
+  private final FeedScopedId stopAId;
+  private final FeedScopedId stopBId;
+
+  TransitAlertServiceImplTest() {
+    var station = testModel.station("station").build();
+    var stopA = testModel.stop("A").withParentStation(station).build();
+    var stopB = testModel.stop("B").withParentStation(station).build();
+    var stopModel = testModel
+      .stopModelBuilder()
+      .withRegularStops(List.of(stopA, stopB))
+      .withStation(station)
+      .build();
+    this.subject = new TransitAlertServiceImpl(new TransitModel(stopModel, new Deduplicator()));
+    this.stationId = station.getId();
+    this.stopAId = stopA.getId();
+    this.stopBId = stopB.getId();
+  }
+
+  @Test
+  void routeAlerts() {
+    var alert = alert("route-alert", new EntitySelector.Route(ROUTE_ID));
+    subject.setAlerts(List.of(alert));
+
+    assertEquals(Set.of(alert), Set.copyOf(subject.getRouteAlerts(ROUTE_ID)));
+    assertTrue(subject.getRouteAlerts(id("other")).isEmpty());
+    assertSame(alert, subject.getAlertById(alert.getId()));
+    assertNull(subject.getAlertById(id("other")));
+  }
+
+  @Test
+  void tripAlertsOnServiceDate() {
+    var alert = alert("trip-alert", new EntitySelector.Trip(TRIP_ID, SERVICE_DATE));
+    subject.setAlerts(List.of(alert));
+
+    assertEquals(Set.of(alert), Set.copyOf(subject.getTripAlerts(TRIP_ID, SERVICE_DATE)));
+    assertEquals(Set.of(alert), Set.copyOf(subject.getTripAlerts(TRIP_ID, null)));
+    assertTrue(subject.getTripAlerts(TRIP_ID, SERVICE_DATE.plusDays(1)).isEmpty());
+  }
+
+  @Test
+  void stopAlertsWithStopConditions() {
+    var alert = alert(
+      "stop-alert",
+      new EntitySelector.Stop(stopAId, Set.of(StopCondition.START_POINT))
+    );
+    subject.setAlerts(List.of(alert));
+
+    assertEquals(
+      Set.of(alert),
+      Set.copyOf(subject.getStopAlerts(stopAId, Set.of(StopCondition.START_POINT)))
+    );
+    assertTrue(subject.getStopAlerts(stopAId, Set.of(StopCondition.DESTINATION)).isEmpty());
+  }
+
+  @Test
+  void stopsInheritStationAlerts() {
+    var stationAlert = alert("station-alert", new EntitySelector.Stop(stationId));
+    subject.setAlerts(List.of(stationAlert));
+
+    assertEquals(Set.of(stationAlert), Set.copyOf(subject.getStopAlerts(stopAId)));
+    assertEquals(Set.of(stationAlert), Set.copyOf(subject.getStopAlerts(stopBId)));
+  }
+
+  @Test
+  void stopAlertsAreCombinedWithInheritedStationAlerts() {
+    var stationAlert = alert("station-alert", new EntitySelector.Stop(stationId));
+    var stopAlert = alert("stop-alert", new EntitySelector.Stop(stopAId));
+    subject.setAlerts(List.of(stationAlert, stopAlert));
+
+    assertEquals(Set.of(stopAlert, stationAlert), Set.copyOf(subject.getStopAlerts(stopAId)));
+    assertEquals(Set.of(stationAlert), Set.copyOf(subject.getStopAlerts(stopBId)));
+  }
+
+  private static TransitAlert alert(String id, EntitySelector entity) {
+    return TransitAlert.of(id(id)).addEntity(entity).build();
+  }
+}
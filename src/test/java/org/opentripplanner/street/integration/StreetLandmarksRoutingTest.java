@@ -0,0 +1,147 @@
+package org.opentripplanner.street.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.astar.spi.TraverseVisitor;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.GraphPathFinder;
+import org.opentripplanner.street.model.StreetConstants;
+import org.opentripplanner.street.model.StreetLandmarks;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.search.TemporaryVerticesContainer;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.test.support.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the landmark heuristic with the Euclidean heuristic on the central Portland street
+ * network, where the river and the motorways make the straight line distance a poor estimate. The
+ * build time, table size and the number of visited vertices are logged, so the cost of the
+ * landmarks in the graph build can be weighed against the speedup of the searches.
+ */
+class StreetLandmarksRoutingTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetLandmarksRoutingTest.class);
+  private static final ResourceLoader RESOURCE_LOADER = ResourceLoader.of(
+    StreetLandmarksRoutingTest.class
+  );
+
+  private static final int NUMBER_OF_LANDMARKS = 16;
+
+  private static final GenericLocation SULZER_PUMP = new GenericLocation(45.54549, -122.69659);
+  private static final GenericLocation EVERETT_AND_5TH = new GenericLocation(45.52523, -122.67525);
+  private static final GenericLocation HOYT_AND_20TH = new GenericLocation(45.52704, -122.69240);
+  private static final GenericLocation CHAPMAN_SCHOOL = new GenericLocation(45.53335, -122.70517);
+
+  private static final List<List<GenericLocation>> OD_PAIRS = List.of(
+    List.of(SULZER_PUMP, EVERETT_AND_5TH),
+    List.of(EVERETT_AND_5TH, SULZER_PUMP),
+    List.of(CHAPMAN_SCHOOL, EVERETT_AND_5TH),
+    List.of(HOYT_AND_20TH, SULZER_PUMP)
+  );
+
+  private static Graph graph;
+  private static StreetLandmarks landmarks;
+
+  @BeforeAll
+  static void setup() {
+    graph =
+      ConstantsForTests
+        .buildOsmGraph(RESOURCE_LOADER.file("/portland/portland-central-filtered.osm.pbf"))
+        .graph();
+    long start = System.currentTimeMillis();
+    landmarks = StreetLandmarks.build(graph.getVertices(), NUMBER_OF_LANDMARKS);
+    LOG.info(
+      "Built {} for {} edges in {} ms, table size {} KB",
+      landmarks,
+      graph.getEdges().size(),
+      System.currentTimeMillis() - start,
+      landmarks.sizeInBytes() / 1024
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = StreetMode.class, names = { "CAR", "BIKE" })
+  void sameWeightWithFewerVisitedVertices(StreetMode mode) {
+    int euclideanVisits = 0;
+    int landmarkVisits = 0;
+    long euclideanTime = 0;
+    long landmarkTime = 0;
+
+    for (var od : OD_PAIRS) {
+      var euclidean = new Search(mode, od.get(0), od.get(1), null);
+      var landmark = new Search(mode, od.get(0), od.get(1), landmarks);
+      assertEquals(euclidean.weight, landmark.weight, 0.01, od.toString());
+      euclideanVisits += euclidean.visitedVertices;
+      landmarkVisits += landmark.visitedVertices;
+      euclideanTime += euclidean.timeNanos;
+      landmarkTime += landmark.timeNanos;
+    }
+
+    LOG.info(
+      "{}: Euclidean heuristic visited {} vertices in {} ms, landmarks visited {} vertices in {} ms",
+      mode,
+      euclideanVisits,
+      euclideanTime / 1_000_000,
+      landmarkVisits,
+      landmarkTime / 1_000_000
+    );
+    // The landmark estimate is never lower than the Euclidean estimate
+    assertTrue(
+      landmarkVisits <= euclideanVisits,
+      "landmarks: " + landmarkVisits + ", Euclidean: " + euclideanVisits
+    );
+  }
+
+  private static class Search implements TraverseVisitor<State, Edge> {
+
+    private final double weight;
+    private final long timeNanos;
+    private int visitedVertices = 0;
+
+    Search(StreetMode mode, GenericLocation from, GenericLocation to, StreetLandmarks landmarks) {
+      var request = new RouteRequest();
+      request.setDateTime(Instant.now());
+      request.setFrom(from);
+      request.setTo(to);
+      request.journey().direct().setMode(mode);
+
+      try (var temporaryVertices = new TemporaryVerticesContainer(graph, from, to, mode, mode)) {
+        var finder = new GraphPathFinder(
+          this,
+          null,
+          StreetConstants.DEFAULT_MAX_CAR_SPEED,
+          landmarks
+        );
+        long start = System.nanoTime();
+        var paths = finder.graphPathFinderEntryPoint(request, temporaryVertices);
+        timeNanos = System.nanoTime() - start;
+        assertFalse(paths.isEmpty());
+        weight = paths.getFirst().getWeight();
+      }
+    }
+
+    @Override
+    public void visitEdge(Edge edge) {}
+
+    @Override
+    public void visitVertex(State state) {
+      visitedVertices++;
+    }
+
+    @Override
+    public void visitEnqueue() {}
+  }
+}
@@ -0,0 +1,75 @@
+package org.opentripplanner.street.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+class StreetLandmarksTest {
+
+  private final IntersectionVertex a = intersectionVertex("A", 60.0, 10.0);
+  private final IntersectionVertex b = intersectionVertex("B", 60.001, 10.0);
+  private final IntersectionVertex c = intersectionVertex("C", 60.002, 10.0);
+  private final IntersectionVertex d = intersectionVertex("D", 60.001, 10.001);
+  private final IntersectionVertex e = intersectionVertex("E", 61.0, 10.0);
+
+  private final StreetEdge ab = streetEdge(a, b, 100.0, StreetTraversalPermission.ALL);
+  private final StreetEdge cb = streetEdge(c, b, 200.0, StreetTraversalPermission.ALL);
+  private final StreetEdge bd = streetEdge(b, d, 300.0, StreetTraversalPermission.ALL);
+  private final StreetEdge dc = streetEdge(d, c, 50.0, StreetTraversalPermission.ALL);
+
+  /** The shortest undirected distances, A-B-C-D is shorter than A-B-D */
+  private final Map<Vertex, Map<Vertex, Double>> distances = Map.of(
+    a,
+    Map.of(a, 0.0, b, 100.0, c, 300.0, d, 350.0),
+    b,
+    Map.of(a, 100.0, b, 0.0, c, 200.0, d, 250.0),
+    c,
+    Map.of(a, 300.0, b, 200.0, c, 0.0, d, 50.0),
+    d,
+    Map.of(a, 350.0, b, 250.0, c, 50.0, d, 0.0)
+  );
+
+  @Test
+  void boundIsNotLongerThanDistance() {
+    var subject = StreetLandmarks.build(List.of(a, b, c, d, e), 2);
+
+    assertEquals(2, subject.numberOfLandmarks());
+    assertEquals(5, subject.numberOfVertices());
+    for (var from : distances.keySet()) {
+      for (var to : distances.keySet()) {
+        double bound = subject.lowerBoundDistance(from, to);
+        assertTrue(bound >= 0);
+        assertTrue(bound <= distances.get(from).get(to), from + " -> " + to + ": " + bound);
+      }
+    }
+    // D is the farthest vertex from A, and the first landmark
+    assertEquals(349.0, subject.lowerBoundDistance(a, d), 0.01);
+    assertEquals(249.0, subject.lowerBoundDistance(d, b), 0.01);
+  }
+
+  @Test
+  void unreachableVertex() {
+    var subject = StreetLandmarks.build(List.of(a, b, c, d, e), 2);
+
+    assertTrue(subject.contains(e));
+    assertEquals(0.0, subject.lowerBoundDistance(a, e));
+  }
+
+  @Test
+  void vertexNotInTable() {
+    var subject = StreetLandmarks.build(List.of(a, b, c), 1);
+
+    assertFalse(subject.contains(d));
+    assertEquals(0.0, subject.lowerBoundDistance(a, d));
+    assertEquals(0.0, subject.lowerBoundDistance(d, a));
+  }
+}
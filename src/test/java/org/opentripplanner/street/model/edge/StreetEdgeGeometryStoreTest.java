@@ -0,0 +1,59 @@
+package org.opentripplanner.street.model.edge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdgeBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+
+class StreetEdgeGeometryStoreTest {
+
+  private final IntersectionVertex a = intersectionVertex("A", 60.0, 10.0);
+  private final IntersectionVertex b = intersectionVertex("B", 60.001, 10.001);
+
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("StreetEdgeGeometryStoreTest-", ".geom");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  void geometryIsReadFromFile() throws IOException {
+    var geometry = GeometryUtils.makeLineString(10.0, 60.0, 10.0, 60.001, 10.001, 60.001);
+    var ab = streetEdgeBuilder(a, b, 200.0, StreetTraversalPermission.ALL)
+      .withGeometry(geometry)
+      .buildAndConnect();
+    var ba = streetEdgeBuilder(b, a, 200.0, StreetTraversalPermission.ALL)
+      .withGeometry(geometry.reverse())
+      .withBack(true)
+      .buildAndConnect();
+    var straight = streetEdge(a, b);
+    var expected = List.of(ab.getGeometry(), ba.getGeometry(), straight.getGeometry());
+
+    List<Edge> edges = List.of(ab, ba, straight);
+    StreetEdgeGeometryStore.writeAndMap(edges, file);
+
+    assertEquals(expected, List.of(ab.getGeometry(), ba.getGeometry(), straight.getGeometry()));
+
+    // Attach a new store to the edges, like when the graph is loaded
+    StreetEdgeGeometryStore.map(file, edges);
+
+    assertEquals(expected, List.of(ab.getGeometry(), ba.getGeometry(), straight.getGeometry()));
+  }
+}
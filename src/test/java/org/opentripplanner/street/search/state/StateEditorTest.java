@@ -3,7 +3,9 @@ package org.opentripplanner.street.search.state;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Nested;
@@ -13,6 +15,7 @@ import org.opentripplanner.street.model._data.StreetModelForTest;
 import org.opentripplanner.street.model.edge.StreetEdge;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.request.StreetSearchRequest;
 
 public class StateEditorTest {
@@ -59,6 +62,30 @@ public class StateEditorTest {
     assertNull(stateEditor.makeState(), "Infinity weight increment");
   }
 
+  @Test
+  public final void stateDataIsOnlyCopiedWhenChanged() {
+    var v2 = StreetModelForTest.intersectionVertex(2, 2);
+    var edge = StreetModelForTest.streetEdge((StreetVertex) vertex, v2);
+    var parent = new StateEditor(
+      vertex,
+      StreetSearchRequest.of().withMode(StreetMode.WALK).build()
+    )
+      .makeState();
+
+    var editor = parent.edit(edge);
+    editor.setVehicleParked(false, TraverseMode.WALK);
+    editor.setFromState(parent);
+    editor.resetStartedInNoDropOffZone();
+    assertSame(parent.stateData, editor.makeState().stateData);
+
+    editor = parent.edit(edge);
+    editor.setVehicleParked(true, TraverseMode.WALK);
+    var child = editor.makeState();
+    assertNotSame(parent.stateData, child.stateData);
+    assertFalse(parent.isVehicleParked());
+    assertTrue(child.isVehicleParked());
+  }
+
   @Nested
   class GeofencingZones {
 
@@ -1,11 +1,14 @@
 package org.opentripplanner.transit.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.opentripplanner.transit.model.basic.TransitMode.BUS;
 import static org.opentripplanner.transit.model.basic.TransitMode.FERRY;
 import static org.opentripplanner.transit.model.basic.TransitMode.RAIL;
 import static org.opentripplanner.transit.model.basic.TransitMode.TRAM;
 
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
@@ -16,13 +19,19 @@ import org.opentripplanner.model.RealTimeTripUpdate;
 import org.opentripplanner.model.TimetableSnapshot;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.Route;
 import org.opentripplanner.transit.model.network.StopPattern;
 import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.network.TripPatternBuilder;
 import org.opentripplanner.transit.model.site.RegularStop;
 import org.opentripplanner.transit.model.site.Station;
 import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.RealTimeTripTimes;
 import org.opentripplanner.transit.model.timetable.ScheduledTripTimes;
+import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.updater.GtfsRealtimeFuzzyTripMatcher;
 
 class DefaultTransitServiceTest {
 
@@ -47,6 +56,19 @@ class DefaultTransitServiceTest {
     .withCreatedByRealtimeUpdater(true)
     .build();
 
+  static final int DEPARTURE_TIME = 8 * 3600;
+  static final int SERVICE_CODE = 1;
+  static final LocalDate SERVICE_DATE = LocalDate.of(2024, 3, 4);
+  static final Route ROUTE = TransitModelForTest.route("R1").build();
+  static final ScheduledTripTimes OUTBOUND_TRIP_TIMES = tripTimes("OUTBOUND", Direction.OUTBOUND);
+  static final ScheduledTripTimes INBOUND_TRIP_TIMES = tripTimes("INBOUND", Direction.INBOUND);
+  static final ScheduledTripTimes ADDED_TRIP_TIMES = tripTimes("ADDED", Direction.OUTBOUND);
+  static TripPattern OUTBOUND_PATTERN = routePattern("OUTBOUND", OUTBOUND_TRIP_TIMES).build();
+  static TripPattern INBOUND_PATTERN = routePattern("INBOUND", INBOUND_TRIP_TIMES).build();
+  static TripPattern ADDED_PATTERN = routePattern("ADDED", ADDED_TRIP_TIMES)
+    .withCreatedByRealtimeUpdater(true)
+    .build();
+
   @BeforeAll
   static void setup() {
     var stopModel = TEST_MODEL
@@ -58,6 +80,8 @@ class DefaultTransitServiceTest {
 
     var transitModel = new TransitModel(stopModel, new Deduplicator());
     transitModel.addTripPattern(RAIL_PATTERN.getId(), RAIL_PATTERN);
+    transitModel.addTripPattern(OUTBOUND_PATTERN.getId(), OUTBOUND_PATTERN);
+    transitModel.addTripPattern(INBOUND_PATTERN.getId(), INBOUND_PATTERN);
     transitModel.index();
 
     transitModel.initTimetableSnapshotProvider(() -> {
@@ -72,6 +96,16 @@ class DefaultTransitServiceTest {
       timetableSnapshot.update(
         new RealTimeTripUpdate(REAL_TIME_PATTERN, tripTimes, LocalDate.now())
       );
+      timetableSnapshot.update(
+        new RealTimeTripUpdate(
+          ADDED_PATTERN,
+          RealTimeTripTimes.of(ADDED_TRIP_TIMES),
+          SERVICE_DATE,
+          null,
+          true,
+          false
+        )
+      );
 
       return timetableSnapshot.commit();
     });
@@ -86,6 +120,13 @@ class DefaultTransitServiceTest {
             return List.of(BUS_PATTERN);
           }
         }
+
+        @Override
+        public TIntSet getServiceCodesRunningForDate(LocalDate serviceDate) {
+          return serviceDate.equals(SERVICE_DATE)
+            ? new TIntHashSet(new int[] { SERVICE_CODE })
+            : new TIntHashSet();
+        }
       };
   }
 
@@ -118,4 +159,52 @@ class DefaultTransitServiceTest {
     Collection<TripPattern> patternsForStop = service.getPatternsForStop(STOP_B, true);
     assertEquals(Set.of(FERRY_PATTERN, RAIL_PATTERN, REAL_TIME_PATTERN), patternsForStop);
   }
+
+  @Test
+  void scheduledTripTimesForFirstDeparture() {
+    assertEquals(
+      Set.of(OUTBOUND_TRIP_TIMES, ADDED_TRIP_TIMES),
+      Set.copyOf(
+        service.getScheduledTripTimesForFirstDeparture(ROUTE, Direction.OUTBOUND, DEPARTURE_TIME)
+      )
+    );
+    assertEquals(
+      List.of(INBOUND_TRIP_TIMES),
+      service.getScheduledTripTimesForFirstDeparture(ROUTE, Direction.INBOUND, DEPARTURE_TIME)
+    );
+    assertEquals(
+      List.of(),
+      service.getScheduledTripTimesForFirstDeparture(ROUTE, Direction.UNKNOWN, DEPARTURE_TIME)
+    );
+    assertEquals(
+      List.of(),
+      service.getScheduledTripTimesForFirstDeparture(ROUTE, Direction.OUTBOUND, DEPARTURE_TIME + 60)
+    );
+  }
+
+  @Test
+  void fuzzyTripMatchOnlyOnRunningServiceDate() {
+    var matcher = new GtfsRealtimeFuzzyTripMatcher(service);
+
+    Trip trip = matcher.getTrip(ROUTE, Direction.INBOUND, DEPARTURE_TIME, SERVICE_DATE);
+    assertEquals(INBOUND_TRIP_TIMES.getTrip(), trip);
+
+    assertNull(matcher.getTrip(ROUTE, Direction.INBOUND, DEPARTURE_TIME, SERVICE_DATE.plusDays(1)));
+  }
+
+  private static ScheduledTripTimes tripTimes(String tripId, Direction direction) {
+    return ScheduledTripTimes
+      .of()
+      .withTrip(TransitModelForTest.trip(tripId).withRoute(ROUTE).withDirection(direction).build())
+      .withDepartureTimes(new int[] { DEPARTURE_TIME, DEPARTURE_TIME + 600 })
+      .withServiceCode(SERVICE_CODE)
+      .build();
+  }
+
+  private static TripPatternBuilder routePattern(String id, TripTimes tripTimes) {
+    return TransitModelForTest
+      .tripPattern(id, ROUTE)
+      .withStopPattern(TEST_MODEL.stopPattern(2))
+      .withScheduledTimeTableBuilder(builder -> builder.addTripTimes(tripTimes));
+  }
 }
@@ -0,0 +1,139 @@
+package org.opentripplanner.updater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class GraphWriterQueueTest {
+
+  private static final Object KEY = new Object();
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final List<String> executed = new CopyOnWriteArrayList<>();
+  private final GraphWriterQueue subject = new GraphWriterQueue(
+    GraphWriterLane.TRANSIT,
+    Executors.newSingleThreadExecutor(),
+    null
+  );
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    subject.stop();
+  }
+
+  @Test
+  void coalesceWaitingRunnablesWithSameKey() throws Exception {
+    var blocking = subject.submit(blockingRunnable());
+    var first = subject.submit(runnable("first", KEY));
+    var other = subject.submit(runnable("other", null));
+    var second = subject.submit(runnable("second", KEY));
+
+    // The first runnable is replaced by the second, before it is started
+    assertTrue(first.isDone());
+
+    release.countDown();
+    waitFor(blocking, other, second);
+
+    assertEquals(List.of("blocking", "other", "second"), executed);
+  }
+
+  @Test
+  void runnablesWithoutKeyAreNotCoalesced() throws Exception {
+    var blocking = subject.submit(blockingRunnable());
+    var first = subject.submit(runnable("first", null));
+    var second = subject.submit(runnable("second", null));
+
+    release.countDown();
+    waitFor(blocking, first, second);
+
+    assertEquals(List.of("blocking", "first", "second"), executed);
+  }
+
+  @Test
+  void removeMetersWhenStopped() {
+    assertFalse(queueSizeGauges().isEmpty());
+
+    subject.stop();
+
+    assertTrue(queueSizeGauges().isEmpty());
+  }
+
+  @Test
+  void lanesRunInParallel() throws Exception {
+    var manager = new GraphUpdaterManager(null, List.of());
+    try {
+      var transit = manager.execute(blockingRunnable());
+      var street = manager.execute(
+        new GraphWriterRunnable() {
+          @Override
+          public void run(RealTimeUpdateContext context) {
+            executed.add("street");
+          }
+
+          @Override
+          public GraphWriterLane lane() {
+            return GraphWriterLane.STREET;
+          }
+        }
+      );
+      // The street lane is not blocked by the transit lane
+      waitFor(street);
+      release.countDown();
+      waitFor(transit);
+      assertEquals(List.of("street", "blocking"), executed);
+    } finally {
+      manager.stop(false);
+    }
+  }
+
+  private static Collection<Gauge> queueSizeGauges() {
+    return Metrics.globalRegistry
+      .find("graphWriter.queueSize")
+      .tag("lane", GraphWriterLane.TRANSIT.name())
+      .gauges();
+  }
+
+  private GraphWriterRunnable blockingRunnable() {
+    return context -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executed.add("blocking");
+    };
+  }
+
+  private GraphWriterRunnable runnable(String name, Object key) {
+    return new GraphWriterRunnable() {
+      @Override
+      public void run(RealTimeUpdateContext context) {
+        executed.add(name);
+      }
+
+      @Override
+      public Object coalesceKey() {
+        return key;
+      }
+    };
+  }
+
+  private static void waitFor(Future<?>... futures) throws Exception {
+    for (Future<?> it : futures) {
+      it.get(10, TimeUnit.SECONDS);
+    }
+  }
+}
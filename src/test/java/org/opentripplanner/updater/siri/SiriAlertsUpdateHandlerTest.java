@@ -86,7 +86,7 @@ public class SiriAlertsUpdateHandlerTest extends GtfsTest {
       transitService = new DefaultTransitService(transitModel);
       transitModel.setUpdaterManager(new GraphUpdaterManager(realTimeUpdateContext, List.of()));
     } else {
-      transitAlertService.getAllAlerts().clear();
+      transitAlertService.setAlerts(List.of());
     }
     if (alertsUpdateHandler == null) {
       transitAlertService = new TransitAlertServiceImpl(transitModel);